@@ -10,7 +10,6 @@ import com.sg.floormaster.service.FlooringMasteryServiceLayerImpl;
 import com.sg.floormaster.view.FlooringMasteryView;
 import com.sg.floormaster.view.UserIO;
 import com.sg.floormaster.view.UserIOConsoleImpl;
-import org.springframework.context.ApplicationContext;
 import org.springframework.context.support.ClassPathXmlApplicationContext;
 
 import java.math.BigDecimal;
@@ -52,8 +51,10 @@ public class App {
 //        FlooringMasteryController controller = new FlooringMasteryController(myView, myService);
 
         // ******* Spring injection ***********
-        ApplicationContext ctx =
+        ClassPathXmlApplicationContext ctx =
                 new ClassPathXmlApplicationContext("applicationContext.xml");
+        // closes the context on exit, so stores such as zipOrderStore are written and closed.
+        ctx.registerShutdownHook();
         FlooringMasteryController controller =
                 ctx.getBean("controller", FlooringMasteryController.class);
 
@@ -15,6 +15,8 @@ import java.util.List;
 public class FlooringMasteryController {
     private FlooringMasteryView view;
     private FlooringMasteryServiceLayer service;
+    // number of orders shown at once when searching by customer name.
+    private static final int SEARCH_PAGE_SIZE = 10;
 
     public FlooringMasteryController(FlooringMasteryView view, FlooringMasteryServiceLayer service) {
         this.view = view;
@@ -49,6 +51,12 @@ public class FlooringMasteryController {
                         exportData();
                         break;
                     case 6:
+                        searchOrders();
+                        break;
+                    case 7:
+                        revenueReport();
+                        break;
+                    case 8:
                         keepGoing = false;
                         saveOrders();
                         exitMessage();
@@ -88,7 +96,7 @@ public class FlooringMasteryController {
         view.displayAddOrderBanner();
 
         // get new Valid order:
-        Order newValidOrder = view.getAddOrderInput(service.getTaxes(), service.getProducts());
+        Order newValidOrder = view.getAddOrderInput(service.getTaxes(), service);
 
         // calculate costs
         try {
@@ -154,7 +162,7 @@ public class FlooringMasteryController {
 
         // get new order from view
         // new order may contain one or more unchanged attributes out of [customerName, state, productType, area].
-        Order newOrder = view.getEditOrderInput(previousOrder, service.getTaxes(), service.getProducts());
+        Order newOrder = view.getEditOrderInput(previousOrder, service.getTaxes(), service);
 
         // Copy the Date to new order
         newOrder.setOrderDate(previousOrder.getOrderDate());
@@ -257,6 +265,45 @@ public class FlooringMasteryController {
 
     }
 
+    private void searchOrders() {
+        view.displaySearchOrdersBanner();
+
+        String query = view.getCustomerNameQuery();
+        boolean matchAnywhere = view.getMatchAnywhereInput();
+
+        int matchCount = service.countOrdersByCustomerName(query, matchAnywhere);
+        if (matchCount == 0) {
+            view.displayErrorMessage("There are no orders for a customer matching \"" + query + "\".");
+            return;
+        }
+
+        // show a page at a time, until the user stops or the matches run out.
+        for (int offset = 0; offset < matchCount; offset += SEARCH_PAGE_SIZE) {
+            List<Order> page = service.searchOrdersByCustomerName(query, matchAnywhere, offset, SEARCH_PAGE_SIZE);
+            if (page.isEmpty()) {
+                return;
+            }
+            view.displayOrderSearchPage(page, offset, matchCount);
+            if (offset + SEARCH_PAGE_SIZE >= matchCount || !view.getShowNextPage()) {
+                return;
+            }
+        }
+    }
+
+    private void revenueReport() {
+        view.displayRevenueReportBanner();
+
+        // either date could be in the past.
+        LocalDate fromDate = view.getDateInput(null);
+        LocalDate toDate = view.getDateInput(null);
+        if (toDate.isBefore(fromDate)) {
+            view.displayErrorMessage("The last date can't be before the first date.");
+            return;
+        }
+
+        view.displayOrderTotals(fromDate, toDate, service.getOrderTotalsForDateRange(fromDate, toDate));
+    }
+
     //Optional
      private void exportData() {
 
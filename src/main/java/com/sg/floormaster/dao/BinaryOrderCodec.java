@@ -0,0 +1,211 @@
+package com.sg.floormaster.dao;
+
+import com.sg.floormaster.model.Order;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Compact binary order files, Orders_MMddyyyy.bin - no text to format or parse.
+ *
+ * Layout: a 4 byte magic number, then each order as an int record length followed by the record -
+ * the order number, a short with a bit set for each null field, the money values as longs scaled to
+ * 2 decimal places, then the customer name, state and product type, each an unsigned short length
+ * and UTF-8 bytes. Money values are rounded to 2 decimal places, as in the CSV format.
+ */
+final class BinaryOrderCodec implements OrderCodec {
+
+    static final String NAME = "binary";
+    static final BinaryOrderCodec INSTANCE = new BinaryOrderCodec();
+
+    private static final int MAGIC = 0x464D4231; // "FMB1"
+    private static final int MONEY_FIELDS = 8;
+    private static final int NULL_CUSTOMER_NAME = 1 << MONEY_FIELDS;
+    private static final int NULL_STATE = 1 << (MONEY_FIELDS + 1);
+    private static final int NULL_PRODUCT_TYPE = 1 << (MONEY_FIELDS + 2);
+    private static final int MONEY_SCALE = 2;
+    private static final int FIXED_RECORD_SIZE = Integer.BYTES + Short.BYTES + MONEY_FIELDS * Long.BYTES;
+
+    private BinaryOrderCodec() {
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public String getFileExtension() {
+        return "bin";
+    }
+
+    @Override
+    public void encode(List<Order> orders, WritableByteChannel out) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(LineOrderCodec.BUFFER_SIZE);
+        buffer.putInt(MAGIC);
+        for (Order order : orders) {
+            byte[] name = bytes(order.getCustomerName());
+            byte[] state = bytes(order.getState());
+            byte[] productType = bytes(order.getProductType());
+            int recordSize = FIXED_RECORD_SIZE + 3 * Short.BYTES + name.length + state.length + productType.length;
+            if (buffer.remaining() < Integer.BYTES + recordSize) {
+                LineOrderCodec.drain(buffer.flip(), out);
+                buffer.clear();
+            }
+            if (buffer.remaining() < Integer.BYTES + recordSize) {
+                // a record with very long names, larger than the whole buffer.
+                buffer = ByteBuffer.allocate(Integer.BYTES + recordSize);
+            }
+            buffer.putInt(recordSize);
+            writeRecord(order, name, state, productType, buffer);
+        }
+        LineOrderCodec.drain(buffer.flip(), out);
+    }
+
+    private static void writeRecord(Order order, byte[] name, byte[] state, byte[] productType, ByteBuffer buffer) {
+        BigDecimal[] money = moneyOf(order);
+        int nullMask = 0;
+        for (int field = 0; field < MONEY_FIELDS; field++) {
+            if (money[field] == null) {
+                nullMask |= 1 << field;
+            }
+        }
+        nullMask |= order.getCustomerName() == null ? NULL_CUSTOMER_NAME : 0;
+        nullMask |= order.getState() == null ? NULL_STATE : 0;
+        nullMask |= order.getProductType() == null ? NULL_PRODUCT_TYPE : 0;
+
+        buffer.putInt(order.getOrderNumber());
+        buffer.putShort((short) nullMask);
+        for (BigDecimal value : money) {
+            buffer.putLong(value == null ? 0
+                    : value.setScale(MONEY_SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact());
+        }
+        putString(name, buffer);
+        putString(state, buffer);
+        putString(productType, buffer);
+    }
+
+    @Override
+    public boolean decode(ReadableByteChannel in, Consumer<Order> orderConsumer) throws IOException {
+        // starts empty, ready for reading.
+        ByteBuffer buffer = ByteBuffer.allocate(LineOrderCodec.BUFFER_SIZE).flip();
+        if (!fill(in, buffer, Integer.BYTES) || buffer.getInt() != MAGIC) {
+            // empty, or not a binary order file.
+            return false;
+        }
+        while (fill(in, buffer, Integer.BYTES)) {
+            int recordSize = buffer.getInt();
+            if (recordSize < FIXED_RECORD_SIZE) {
+                throw new FlooringMasteryPersistenceException("Error occurred parsing order properties");
+            }
+            if (recordSize > buffer.capacity()) {
+                buffer = ByteBuffer.allocate(recordSize).put(buffer).flip();
+            }
+            if (!fill(in, buffer, recordSize)) {
+                throw new FlooringMasteryPersistenceException("Order file ends part way through an order.");
+            }
+            ByteBuffer record = buffer.slice(buffer.position(), recordSize);
+            buffer.position(buffer.position() + recordSize);
+            orderConsumer.accept(readRecord(record));
+        }
+        if (buffer.hasRemaining()) {
+            throw new FlooringMasteryPersistenceException("Order file ends part way through an order.");
+        }
+        return true;
+    }
+
+    // reads from in until buffer, ready for reading, holds at least count bytes, false if in ends first.
+    private static boolean fill(ReadableByteChannel in, ByteBuffer buffer, int count) throws IOException {
+        if (buffer.remaining() >= count) {
+            return true;
+        }
+        buffer.compact();
+        while (buffer.position() < count) {
+            if (in.read(buffer) < 0) {
+                buffer.flip();
+                return false;
+            }
+        }
+        buffer.flip();
+        return true;
+    }
+
+    private static Order readRecord(ByteBuffer record) {
+        try {
+            Order order = readFields(record);
+            if (!record.hasRemaining()) {
+                return order;
+            }
+        } catch (BufferUnderflowException e) {
+            // a string length runs past the end of the record.
+        }
+        throw new FlooringMasteryPersistenceException("Error occurred parsing order properties");
+    }
+
+    private static Order readFields(ByteBuffer buffer) {
+        Order order = new Order();
+        order.setOrderNumber(buffer.getInt());
+        int nullMask = buffer.getShort();
+        BigDecimal[] money = new BigDecimal[MONEY_FIELDS];
+        for (int field = 0; field < MONEY_FIELDS; field++) {
+            long scaled = buffer.getLong();
+            if ((nullMask & (1 << field)) == 0) {
+                money[field] = BigDecimal.valueOf(scaled, MONEY_SCALE);
+            }
+        }
+        order.setTaxRate(money[0]);
+        order.setArea(money[1]);
+        order.setCostPerSquareFoot(money[2]);
+        order.setLaborCostPerSquareFoot(money[3]);
+        order.setMaterialCost(money[4]);
+        order.setLaborCost(money[5]);
+        order.setTax(money[6]);
+        order.setTotal(money[7]);
+
+        String name = getString(buffer);
+        String state = getString(buffer);
+        String productType = getString(buffer);
+        order.setCustomerName((nullMask & NULL_CUSTOMER_NAME) == 0 ? name : null);
+        order.setState((nullMask & NULL_STATE) == 0 ? state : null);
+        order.setProductType((nullMask & NULL_PRODUCT_TYPE) == 0 ? productType : null);
+        return order;
+    }
+
+    private static BigDecimal[] moneyOf(Order order) {
+        return new BigDecimal[]{order.getTaxRate(), order.getArea(), order.getCostPerSquareFoot(),
+                order.getLaborCostPerSquareFoot(), order.getMaterialCost(), order.getLaborCost(),
+                order.getTax(), order.getTotal()};
+    }
+
+    private static byte[] bytes(String value) {
+        byte[] bytes = value == null ? new byte[0] : value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > 0xFFFF) {
+            throw new FlooringMasteryPersistenceException("Order field is too long to encode: " + value);
+        }
+        return bytes;
+    }
+
+    private static void putString(byte[] value, ByteBuffer buffer) {
+        buffer.putShort((short) value.length);
+        buffer.put(value);
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        int length = Short.toUnsignedInt(buffer.getShort());
+        if (length > buffer.remaining()) {
+            throw new BufferUnderflowException();
+        }
+        String value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length,
+                StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+        return value;
+    }
+}
@@ -0,0 +1,211 @@
+package com.sg.floormaster.dao;
+
+import com.sg.floormaster.model.Order;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * The original order file format, Orders_MMddyyyy.txt - a header line, then one comma separated line per order:
+ * "OrderNumber,CustomerName,State,TaxRate,ProductType,Area,CostPerSquareFoot,LaborCostPerSquareFoot,MaterialCost,LaborCost,Tax,Total"
+ * Commas in customer names are written as asterisks.
+ */
+final class CsvOrderCodec extends LineOrderCodec {
+
+    static final String NAME = "csv";
+    static final CsvOrderCodec INSTANCE = new CsvOrderCodec();
+
+    private static final String DELIMITER = ",";
+    private static final String HEADER_LINE = "OrderNumber,CustomerName,State,TaxRate,ProductType,Area,"
+            + "CostPerSquareFoot,LaborCostPerSquareFoot,MaterialCost,LaborCost,Tax,Total";
+    private static final String[] HEADERS = HEADER_LINE.split(DELIMITER);
+    private static final int COLUMNS = HEADERS.length;
+
+    private CsvOrderCodec() {
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public String getFileExtension() {
+        return "txt";
+    }
+
+    @Override
+    String headerLine() {
+        return HEADER_LINE;
+    }
+
+    @Override
+    boolean isValidFirstLine(String line) {
+        // the header must have exactly the 12 expected column names.
+        return Arrays.equals(line.split(DELIMITER), HEADERS);
+    }
+
+    @Override
+    String formatOrder(Order order) {
+        return marshallOrder(order);
+    }
+
+    @Override
+    Order parseOrder(String line) {
+        try {
+            return unmarshallOrder(line);
+        } catch (NumberFormatException | IndexOutOfBoundsException e) {
+            // a missing or malformed field, e.g. a line cut short.
+            throw new FlooringMasteryPersistenceException("Error occurred parsing order properties", e);
+        }
+    }
+
+    /**
+     * Parses the order number and text columns of a row now, and leaves its money columns as raw text for the
+     * order to parse as each is first read - see Order.setUndecodedMoneyValues. Each money column is checked to
+     * be a plain decimal number, so a damaged row still fails here rather than when a value is read.
+     * Rows this can't handle, e.g. money in exponent form, are parsed by unmarshallOrder.
+     */
+    @Override
+    Order parseOrder(byte[] row, int offset, int length) {
+        int end = offset + length;
+        // start of each column, and one past the end of the last - as if it were followed by a comma.
+        int[] columnStarts = new int[COLUMNS + 1];
+        columnStarts[0] = offset;
+        int column = 1;
+        for (int i = offset; i < end && column <= COLUMNS; i++) {
+            if (row[i] == ',') {
+                columnStarts[column++] = i + 1;
+            }
+        }
+        if (column < COLUMNS) {
+            throw new FlooringMasteryPersistenceException("Error occurred parsing order properties");
+        }
+        if (column == COLUMNS) {
+            columnStarts[COLUMNS] = end + 1;
+        }
+
+        int orderNumber = parseOrderNumber(row, columnStarts[0], columnStarts[1] - 1);
+        // the tax rate, then area to total, which are adjacent.
+        int taxRateLength = columnStarts[4] - 1 - columnStarts[3];
+        int areaToTotalLength = columnStarts[COLUMNS] - 1 - columnStarts[5];
+        int moneyLength = taxRateLength + 1 + areaToTotalLength;
+        if (orderNumber < 0 || moneyLength > 0xFF || !isPlainDecimal(row, columnStarts[3], columnStarts[4] - 1)) {
+            return parseOrder(new String(row, offset, length, StandardCharsets.UTF_8));
+        }
+        for (int moneyColumn = 5; moneyColumn < COLUMNS; moneyColumn++) {
+            if (!isPlainDecimal(row, columnStarts[moneyColumn], columnStarts[moneyColumn + 1] - 1)) {
+                return parseOrder(new String(row, offset, length, StandardCharsets.UTF_8));
+            }
+        }
+        byte[] money = new byte[moneyLength];
+        System.arraycopy(row, columnStarts[3], money, 0, taxRateLength);
+        money[taxRateLength] = ',';
+        System.arraycopy(row, columnStarts[5], money, taxRateLength + 1, areaToTotalLength);
+        long moneyOffsets = 0;
+        for (int moneyColumn = 5; moneyColumn < COLUMNS; moneyColumn++) {
+            long moneyOffset = columnStarts[moneyColumn] - columnStarts[5] + taxRateLength + 1;
+            moneyOffsets |= moneyOffset << ((moneyColumn - 4) * Byte.SIZE);
+        }
+
+        Order newOrder = new Order();
+        newOrder.setOrderNumber(orderNumber);
+        newOrder.setCustomerName(text(row, columnStarts[1], columnStarts[2] - 1).replace('*', ','));
+        newOrder.setState(text(row, columnStarts[2], columnStarts[3] - 1));
+        newOrder.setProductType(text(row, columnStarts[4], columnStarts[5] - 1));
+        newOrder.setUndecodedMoneyValues(money, moneyOffsets);
+        return newOrder;
+    }
+
+    private static String text(byte[] row, int start, int end) {
+        return new String(row, start, end - start, StandardCharsets.UTF_8);
+    }
+
+    // returns -1 unless the column is 1 to 9 digits.
+    private static int parseOrderNumber(byte[] row, int start, int end) {
+        if (end <= start || end - start > 9) {
+            return -1;
+        }
+        int orderNumber = 0;
+        for (int i = start; i < end; i++) {
+            if (row[i] < '0' || row[i] > '9') {
+                return -1;
+            }
+            orderNumber = orderNumber * 10 + (row[i] - '0');
+        }
+        return orderNumber;
+    }
+
+    // an optional sign, then digits with at most one decimal point.
+    private static boolean isPlainDecimal(byte[] row, int start, int end) {
+        int i = start;
+        if (i < end && (row[i] == '-' || row[i] == '+')) {
+            i++;
+        }
+        boolean digits = false;
+        boolean decimalPoint = false;
+        for (; i < end; i++) {
+            if (row[i] >= '0' && row[i] <= '9') {
+                digits = true;
+            } else if (row[i] == '.' && !decimalPoint) {
+                decimalPoint = true;
+            } else {
+                return false;
+            }
+        }
+        return digits;
+    }
+
+    static Order unmarshallOrder(String orderAsText) {
+        // expects input in following order:
+        // "OrderNumber,CustomerName,State,TaxRate,ProductType,Area,CostPerSquareFoot,LaborCostPerSquareFoot,MaterialCost,LaborCost,Tax,Total"
+
+        if (orderAsText == null || orderAsText.isEmpty()) return null;
+
+        String[] orderPropertiesAsText = orderAsText.split(DELIMITER);
+
+        // assume valid format
+        Order newOrder = new Order();
+        newOrder.setOrderNumber(Integer.parseInt(orderPropertiesAsText[0]));
+        // an asterisk is used in place of commas to persist customer name, must convert asterisk back to comma.
+        newOrder.setCustomerName(orderPropertiesAsText[1].replace('*', ','));
+        newOrder.setState(orderPropertiesAsText[2]);
+        newOrder.setTaxRate(money(orderPropertiesAsText[3]));
+        newOrder.setProductType(orderPropertiesAsText[4]);
+        newOrder.setArea(money(orderPropertiesAsText[5]));
+        newOrder.setCostPerSquareFoot(money(orderPropertiesAsText[6]));
+        newOrder.setLaborCostPerSquareFoot(money(orderPropertiesAsText[7]));
+        newOrder.setMaterialCost(money(orderPropertiesAsText[8]));
+        newOrder.setLaborCost(money(orderPropertiesAsText[9]));
+        newOrder.setTax(money(orderPropertiesAsText[10]));
+        newOrder.setTotal(money(orderPropertiesAsText[11]));
+        return newOrder;
+    }
+
+    private static BigDecimal money(String text) {
+        return new BigDecimal(text).setScale(2, RoundingMode.HALF_UP);
+    }
+
+    static String marshallOrder(Order order) {
+        // Note to preserve use of DELIMITER = ',', we must replace any commas in customerName with an asterisk
+        // to allow unmarshalling to recognise delimiter.
+        return order.getOrderNumber()
+                + DELIMITER + order.getCustomerName().replace(',', '*')
+                + DELIMITER + order.getState()
+                + DELIMITER + moneyText(order.getTaxRate())
+                + DELIMITER + order.getProductType()
+                + DELIMITER + moneyText(order.getArea())
+                + DELIMITER + moneyText(order.getCostPerSquareFoot())
+                + DELIMITER + moneyText(order.getLaborCostPerSquareFoot())
+                + DELIMITER + moneyText(order.getMaterialCost())
+                + DELIMITER + moneyText(order.getLaborCost())
+                + DELIMITER + moneyText(order.getTax())
+                + DELIMITER + moneyText(order.getTotal());
+    }
+
+    private static String moneyText(BigDecimal value) {
+        return value.setScale(2, RoundingMode.HALF_UP).toString();
+    }
+}
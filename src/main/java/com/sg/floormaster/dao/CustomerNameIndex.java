@@ -0,0 +1,152 @@
+package com.sg.floormaster.dao;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Index of orders by customer name, for case-insensitive prefix and substring searches.
+ *
+ * Each distinct name, lower cased, maps to the keys of its orders, in a sorted map so a prefix search is a
+ * range of it. Each name is also listed under each of its trigrams - the runs of 3 characters in it - so a
+ * substring search only checks the names that share the query's rarest trigram, instead of every name.
+ * Queries shorter than a trigram check every distinct name.
+ *
+ * Thread safe. Searches run concurrently with each other, updates one at a time.
+ */
+final class CustomerNameIndex {
+
+    private static final int GRAM = 3;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    // the indexed name of each order.
+    private final Map<OrderKey, String> nameByKey = new HashMap<>();
+    // keys of the orders with each name.
+    private final NavigableMap<String, NavigableSet<OrderKey>> keysByName = new TreeMap<>();
+    // names containing each trigram.
+    private final Map<String, Set<String>> namesByTrigram = new HashMap<>();
+
+    /**
+     * Indexes the order with key under customerName, replacing any name it was indexed under.
+     * Orders without a name are not indexed.
+     */
+    void put(OrderKey key, String customerName) {
+        lock.writeLock().lock();
+        try {
+            removeKey(key);
+            if (customerName == null) {
+                return;
+            }
+            String name = normalize(customerName);
+            nameByKey.put(key, name);
+            keysByName.computeIfAbsent(name, newName -> {
+                for (String trigram : trigrams(newName)) {
+                    namesByTrigram.computeIfAbsent(trigram, gram -> new HashSet<>()).add(newName);
+                }
+                return new TreeSet<>();
+            }).add(key);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void remove(OrderKey key) {
+        lock.writeLock().lock();
+        try {
+            removeKey(key);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void removeKey(OrderKey key) {
+        String name = nameByKey.remove(key);
+        if (name == null) {
+            return;
+        }
+        NavigableSet<OrderKey> keys = keysByName.get(name);
+        keys.remove(key);
+        if (keys.isEmpty()) {
+            // the last order with the name, so the name leaves the trigram lists too.
+            keysByName.remove(name);
+            for (String trigram : trigrams(name)) {
+                Set<String> names = namesByTrigram.get(trigram);
+                names.remove(name);
+                if (names.isEmpty()) {
+                    namesByTrigram.remove(trigram);
+                }
+            }
+        }
+    }
+
+    /**
+     * @param query text to find, ignoring case. An empty query matches every indexed order.
+     * @param matchAnywhere true to match the query anywhere in a name, false only at the start.
+     * @return keys of the orders whose customer name matches, in date order then order number order.
+     */
+    List<OrderKey> search(String query, boolean matchAnywhere) {
+        String text = normalize(query);
+        lock.readLock().lock();
+        try {
+            List<OrderKey> matches = new ArrayList<>();
+            if (!matchAnywhere || text.isEmpty()) {
+                // names with the prefix are a contiguous range of the sorted names.
+                for (Map.Entry<String, NavigableSet<OrderKey>> name : keysByName.tailMap(text, true).entrySet()) {
+                    if (!name.getKey().startsWith(text)) {
+                        break;
+                    }
+                    matches.addAll(name.getValue());
+                }
+            } else {
+                for (String name : candidateNames(text)) {
+                    if (name.contains(text)) {
+                        matches.addAll(keysByName.get(name));
+                    }
+                }
+            }
+            Collections.sort(matches);
+            return matches;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // names that may contain text - those sharing its rarest trigram, or every name for a short query.
+    private Collection<String> candidateNames(String text) {
+        if (text.length() < GRAM) {
+            return keysByName.keySet();
+        }
+        Set<String> rarest = null;
+        for (String trigram : trigrams(text)) {
+            Set<String> names = namesByTrigram.get(trigram);
+            if (names == null) {
+                return Collections.emptySet();
+            }
+            if (rarest == null || names.size() < rarest.size()) {
+                rarest = names;
+            }
+        }
+        return rarest;
+    }
+
+    int size() {
+        lock.readLock().lock();
+        try {
+            return nameByKey.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static String normalize(String name) {
+        return name == null ? "" : name.toLowerCase(Locale.ROOT);
+    }
+
+    private static Set<String> trigrams(String name) {
+        Set<String> trigrams = new HashSet<>();
+        for (int i = 0; i + GRAM <= name.length(); i++) {
+            trigrams.add(name.substring(i, i + GRAM));
+        }
+        return trigrams;
+    }
+}
@@ -1,11 +1,13 @@
 package com.sg.floormaster.dao;
 
+import com.sg.floormaster.util.FlooringMasteryRejectionTraces;
+
 public class FlooringMasteryNoSuchOrderException extends RuntimeException {
     public FlooringMasteryNoSuchOrderException(String message) {
-        super(message);
+        super(message, null, true, FlooringMasteryRejectionTraces.isEnabled());
     }
 
     public FlooringMasteryNoSuchOrderException(String message, Throwable cause) {
-        super(message, cause);
+        super(message, cause, true, FlooringMasteryRejectionTraces.isEnabled());
     }
 }
@@ -1,10 +1,11 @@
 package com.sg.floormaster.dao;
 
 import com.sg.floormaster.model.Order;
+import com.sg.floormaster.model.OrderTotals;
 
 import java.time.LocalDate;
-import java.util.List;
-import java.util.Map;
+import java.time.YearMonth;
+import java.util.*;
 
 public interface FlooringMasteryOrderDao {
 
@@ -79,6 +80,159 @@ public interface FlooringMasteryOrderDao {
      */
     Order removeOrder(LocalDate date, int orderId);
 
+    /**
+     * Returns list of Order objects for every date from fromDate to toDate inclusive,
+     * in date order then order number order.
+     *
+     * Returns empty list if there are no orders in the range, or toDate is before fromDate.
+     * @param fromDate first order date to include.
+     * @param toDate last order date to include.
+     * @return list of orders with an order date in the range.
+     */
+    default List<Order> getOrdersForDateRange(LocalDate fromDate, LocalDate toDate) {
+        List<Order> ordersInRange = new ArrayList<>();
+        for (LocalDate date = fromDate; !date.isAfter(toDate); date = date.plusDays(1)) {
+            List<Order> ordersOnDate = new ArrayList<>(getOrdersForDate(date));
+            ordersOnDate.sort(Comparator.comparingInt(Order::getOrderNumber));
+            ordersInRange.addAll(ordersOnDate);
+        }
+        return ordersInRange;
+    }
+
+    /**
+     * Returns list of Order objects for the latest given number of days, ending on the latest date
+     * that holds orders, in date order then order number order.
+     *
+     * Returns empty list if no orders are stored or days is not positive.
+     * @param days number of calendar days to include.
+     * @return list of orders on the latest days.
+     */
+    default List<Order> getOrdersForLatestDays(int days) {
+        Optional<LocalDate> latestDate = getAllOrders().entrySet().stream()
+                .filter(entry -> entry.getValue() != null && !entry.getValue().isEmpty())
+                .map(Map.Entry::getKey)
+                .max(Comparator.naturalOrder());
+        if (days <= 0 || latestDate.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return getOrdersForDateRange(latestDate.get().minusDays(days - 1), latestDate.get());
+    }
+
+    /**
+     * Returns the keys of the orders whose customer name matches the query, ignoring case,
+     * in date order then order number order.
+     *
+     * An empty query matches every order with a customer name.
+     * @param query text to find in customer names.
+     * @param matchAnywhere true to match the query anywhere in a name, false to match only names starting with it.
+     * @return list of keys of matching orders, empty if none match.
+     */
+    default List<OrderKey> findOrdersByCustomerName(String query, boolean matchAnywhere) {
+        String text = query == null ? "" : query.toLowerCase(Locale.ROOT);
+        List<OrderKey> matches = new ArrayList<>();
+        getAllOrders().forEach((date, ordersOnDate) -> {
+            if (ordersOnDate == null) {
+                return;
+            }
+            for (Order order : ordersOnDate.values()) {
+                String name = order.getCustomerName();
+                if (name == null) {
+                    continue;
+                }
+                name = name.toLowerCase(Locale.ROOT);
+                if (matchAnywhere ? name.contains(text) : name.startsWith(text)) {
+                    matches.add(new OrderKey(date, order.getOrderNumber()));
+                }
+            }
+        });
+        Collections.sort(matches);
+        return matches;
+    }
+
+    /**
+     * Returns the keys of the orders with the given state and product type (ignoring case)
+     * dated from fromDate to toDate inclusive, in date order then order number order.
+     *
+     * A null argument doesn't filter - a null state matches every state, a null fromDate every date up to toDate.
+     * @param state state code to match, or null.
+     * @param productType product type to match, or null.
+     * @param fromDate first order date to include, or null.
+     * @param toDate last order date to include, or null.
+     * @return list of keys of matching orders, empty if none match.
+     */
+    default List<OrderKey> findOrders(String state, String productType, LocalDate fromDate, LocalDate toDate) {
+        List<OrderKey> matches = new ArrayList<>();
+        getAllOrders().forEach((date, ordersOnDate) -> {
+            if (ordersOnDate == null || (fromDate != null && date.isBefore(fromDate))
+                    || (toDate != null && date.isAfter(toDate))) {
+                return;
+            }
+            for (Order order : ordersOnDate.values()) {
+                if ((state == null || state.equalsIgnoreCase(order.getState()))
+                        && (productType == null || productType.equalsIgnoreCase(order.getProductType()))) {
+                    matches.add(new OrderKey(date, order.getOrderNumber()));
+                }
+            }
+        });
+        Collections.sort(matches);
+        return matches;
+    }
+
+    /**
+     * Returns the number of orders findOrders would return for the same arguments.
+     * @return number of matching orders.
+     */
+    default int countOrders(String state, String productType, LocalDate fromDate, LocalDate toDate) {
+        return findOrders(state, productType, fromDate, toDate).size();
+    }
+
+    /**
+     * Returns the number of orders on the given date with the given state and product type (ignoring case),
+     * and the sums of their area, material cost, labor cost, tax and total.
+     *
+     * A null state or product type totals every state or product type.
+     * @param date order date of the orders to total.
+     * @param state state code of the orders to total, or null.
+     * @param productType product type of the orders to total, or null.
+     * @return totals of the matching orders, OrderTotals.NONE if there are none.
+     */
+    default OrderTotals getOrderTotals(LocalDate date, String state, String productType) {
+        return totalOrders(getOrdersForDate(date), state, productType);
+    }
+
+    /**
+     * Returns totals of the orders in the given month, as getOrderTotals does for a date.
+     * @param month month of the order dates of the orders to total.
+     * @param state state code of the orders to total, or null.
+     * @param productType product type of the orders to total, or null.
+     * @return totals of the matching orders, OrderTotals.NONE if there are none.
+     */
+    default OrderTotals getOrderTotals(YearMonth month, String state, String productType) {
+        return totalOrders(getOrdersForDateRange(month.atDay(1), month.atEndOfMonth()), state, productType);
+    }
+
+    /**
+     * Returns totals of the orders on every date from fromDate to toDate inclusive,
+     * of every state and product type.
+     * @param fromDate first order date to include.
+     * @param toDate last order date to include.
+     * @return totals of the orders in the range, OrderTotals.NONE if there are none or toDate is before fromDate.
+     */
+    default OrderTotals getOrderTotals(LocalDate fromDate, LocalDate toDate) {
+        return totalOrders(getOrdersForDateRange(fromDate, toDate), null, null);
+    }
+
+    private static OrderTotals totalOrders(List<Order> orders, String state, String productType) {
+        OrderTotals totals = OrderTotals.NONE;
+        for (Order order : orders) {
+            if ((state == null || state.equalsIgnoreCase(order.getState()))
+                    && (productType == null || productType.equalsIgnoreCase(order.getProductType()))) {
+                totals = totals.plus(OrderTotals.of(order));
+            }
+        }
+        return totals;
+    }
+
     /**
      * Persists curent order information to storage.
      * @throws FlooringMasteryPersistenceException if error occurs while trying to persist data.
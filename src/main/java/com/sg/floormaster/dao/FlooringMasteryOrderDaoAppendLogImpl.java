@@ -0,0 +1,387 @@
+package com.sg.floormaster.dao;
+
+import com.sg.floormaster.model.Order;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Order DAO that persists every change as it is made, by appending a record to the log file of the order's date.
+ *
+ * Each date has an "Orders_MMddyyyy.log" file in the order directory: a header line, then one line per change -
+ * "PUT," and the order in the same format as the "Orders_MMddyyyy.txt" files for adds and edits,
+ * or "REMOVE," and the order number for removals. A write costs one append however many orders the date has.
+ * Loading replays each log in order, so the latest record of each order number wins and a removal hides
+ * any earlier records of its order.
+ *
+ * Replaced and removed records are garbage. Logs whose garbage ratio passes the threshold are compacted -
+ * rewritten with one PUT record per current order and atomically moved over the old log - by a background
+ * thread every compaction interval, or by calling compact(). The "Orders_MMddyyyy.txt" files are not read or written.
+ *
+ * Writes to the same date are serialised, writes to different dates and all reads run concurrently.
+ * saveOrders() forces appended records to the storage device. close() stops the compactor and closes the logs.
+ */
+public class FlooringMasteryOrderDaoAppendLogImpl implements FlooringMasteryOrderDao, AutoCloseable {
+
+    private static final String HEADER = "Op,OrderNumber,CustomerName,State,TaxRate,ProductType,Area,"
+            + "CostPerSquareFoot,LaborCostPerSquareFoot,MaterialCost,LaborCost,Tax,Total";
+    private static final String PUT = "PUT,";
+    private static final String REMOVE = "REMOVE,";
+    private static final DateTimeFormatter FILE_DATE_FORMAT = DateTimeFormatter.ofPattern("MMddyyyy");
+
+    public static final double DEFAULT_GARBAGE_RATIO = 0.5;
+    public static final long DEFAULT_COMPACTION_INTERVAL_MILLIS = 60_000;
+    // logs with fewer records aren't worth rewriting, whatever their garbage ratio.
+    private static final int MIN_COMPACTION_RECORDS = 32;
+
+    private final Path ORDER_FOLDER;
+    private final double garbageRatio;
+    // reads and writes order lines in the same format as the file DAO.
+    private final FlooringMasteryOrderDaoFileImpl lineFormat;
+
+    private final OrderPartitionDirectory orders = new OrderPartitionDirectory();
+    private final Map<LocalDate, DateLog> logs = new ConcurrentHashMap<>();
+    private final AtomicInteger largestOrderNumber = new AtomicInteger(-1);
+    private final ScheduledExecutorService compactor;
+
+    // default constructor
+    public FlooringMasteryOrderDaoAppendLogImpl() throws FlooringMasteryPersistenceException {
+        this("Orders");
+    }
+
+    public FlooringMasteryOrderDaoAppendLogImpl(String orderDirectory) throws FlooringMasteryPersistenceException {
+        this(orderDirectory, DEFAULT_GARBAGE_RATIO, DEFAULT_COMPACTION_INTERVAL_MILLIS);
+    }
+
+    /**
+     * @param orderDirectory directory holding the order logs.
+     * @param garbageRatio fraction of a log's records that are replaced or removed at which it is compacted.
+     * @param compactionIntervalMillis time between background compactions, 0 or less for no background compaction.
+     */
+    public FlooringMasteryOrderDaoAppendLogImpl(String orderDirectory, double garbageRatio,
+                                                long compactionIntervalMillis)
+            throws FlooringMasteryPersistenceException {
+        if (!(garbageRatio > 0 && garbageRatio <= 1)) {
+            throw new IllegalArgumentException("Garbage ratio must be above 0 and at most 1: " + garbageRatio);
+        }
+        ORDER_FOLDER = Paths.get(orderDirectory);
+        this.garbageRatio = garbageRatio;
+        lineFormat = new FlooringMasteryOrderDaoFileImpl(orderDirectory, Map.of());
+
+        loadLogs();
+
+        if (compactionIntervalMillis > 0) {
+            compactor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "order-log-compactor");
+                thread.setDaemon(true);
+                return thread;
+            });
+            compactor.scheduleWithFixedDelay(this::compactInBackground,
+                    compactionIntervalMillis, compactionIntervalMillis, TimeUnit.MILLISECONDS);
+        } else {
+            compactor = null;
+        }
+    }
+
+    @Override
+    public int getNextOrderNumber() {
+        return largestOrderNumber.incrementAndGet();
+    }
+
+    @Override
+    public Order addOrder(Order order) {
+        Objects.requireNonNull(order.getOrderDate(), "Order date cannot be null.");
+        DateLog log = logFor(order.getOrderDate());
+        synchronized (log) {
+            // append first, so an order is only held once its record is written.
+            log.append(PUT + lineFormat.marshallOrder(order));
+            largestOrderNumber.accumulateAndGet(order.getOrderNumber(), Math::max);
+            return orders.getOrCreate(order.getOrderDate()).put(order);
+        }
+    }
+
+    @Override
+    public Order getOrder(LocalDate date, int orderId) {
+        OrderPartition ordersOnDate = date == null ? null : orders.get(date);
+        return ordersOnDate == null ? null : ordersOnDate.get(orderId);
+    }
+
+    @Override
+    public Order editOrder(Order newOrder) throws FlooringMasteryNoSuchOrderException {
+        OrderPartition ordersOnDate = newOrder.getOrderDate() == null ? null : orders.get(newOrder.getOrderDate());
+        if (ordersOnDate != null) {
+            DateLog log = logFor(newOrder.getOrderDate());
+            synchronized (log) {
+                if (ordersOnDate.get(newOrder.getOrderNumber()) != null) {
+                    log.append(PUT + lineFormat.marshallOrder(newOrder));
+                    return ordersOnDate.replace(newOrder);
+                }
+            }
+        }
+        throw new FlooringMasteryNoSuchOrderException("Existing order with ID " + newOrder.getOrderNumber()
+                + " not found.");
+    }
+
+    @Override
+    public List<Order> getOrdersForDate(LocalDate date) {
+        OrderPartition ordersOnDate = date == null ? null : orders.get(date);
+        return ordersOnDate == null ? new ArrayList<>() : ordersOnDate.values();
+    }
+
+    @Override
+    public Map<LocalDate, Map<Integer, Order>> getAllOrders() {
+        // not preferred method, as for the file DAO.
+        Map<LocalDate, Map<Integer, Order>> allOrders = new HashMap<>();
+        orders.forEach((date, ordersOnDate) -> allOrders.put(date, ordersOnDate.toMap()));
+        return allOrders;
+    }
+
+    @Override
+    public Order removeOrder(LocalDate date, int orderId) {
+        OrderPartition ordersOnDate = date == null ? null : orders.get(date);
+        if (ordersOnDate == null) {
+            return null;
+        }
+        DateLog log = logFor(date);
+        synchronized (log) {
+            if (ordersOnDate.get(orderId) == null) {
+                return null;
+            }
+            log.append(REMOVE + orderId);
+            return ordersOnDate.remove(orderId);
+        }
+    }
+
+    @Override
+    public void saveOrders() throws FlooringMasteryPersistenceException {
+        // every change is already appended, make sure it has reached the storage device.
+        for (DateLog log : logs.values()) {
+            synchronized (log) {
+                log.force();
+            }
+        }
+    }
+
+    /**
+     * Compacts every log whose garbage ratio has passed the threshold.
+     * @return number of logs compacted.
+     * @throws FlooringMasteryPersistenceException if a log cannot be rewritten, it is left as it was.
+     */
+    public int compact() throws FlooringMasteryPersistenceException {
+        int compacted = 0;
+        for (Map.Entry<LocalDate, DateLog> entry : logs.entrySet()) {
+            DateLog log = entry.getValue();
+            synchronized (log) {
+                OrderPartition ordersOnDate = orders.get(entry.getKey());
+                List<Order> liveOrders = ordersOnDate == null ? List.of() : ordersOnDate.values();
+                if (log.needsCompaction(liveOrders.size())) {
+                    log.rewrite(liveOrders);
+                    compacted++;
+                }
+            }
+        }
+        return compacted;
+    }
+
+    /**
+     * Stops background compaction, and forces and closes the logs. The DAO cannot be used afterwards.
+     */
+    @Override
+    public void close() {
+        if (compactor != null) {
+            compactor.shutdown();
+            try {
+                compactor.awaitTermination(1, TimeUnit.MINUTES);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        for (DateLog log : logs.values()) {
+            synchronized (log) {
+                log.close();
+            }
+        }
+    }
+
+    private void compactInBackground() {
+        try {
+            compact();
+        } catch (RuntimeException e) {
+            // a log that couldn't be rewritten is left as it was, and is tried again next run.
+        }
+    }
+
+    private DateLog logFor(LocalDate date) {
+        return logs.computeIfAbsent(date, d -> new DateLog(ORDER_FOLDER.resolve(
+                "Orders_" + d.format(FILE_DATE_FORMAT) + ".log")));
+    }
+
+    // ---- loading ----
+
+    private void loadLogs() throws FlooringMasteryPersistenceException {
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(ORDER_FOLDER, "Orders_*.log")) {
+            for (Path path : stream) {
+                String dateAsText = path.getFileName().toString().substring("Orders_".length(),
+                        path.getFileName().toString().length() - ".log".length());
+                LocalDate date;
+                try {
+                    date = LocalDate.parse(dateAsText, FILE_DATE_FORMAT);
+                } catch (DateTimeParseException e) {
+                    // not an order log, skip it as the file DAO skips invalid file names.
+                    continue;
+                }
+                replay(date, path);
+            }
+        } catch (IOException e) {
+            throw new FlooringMasteryPersistenceException("Could not load data from orders directory.", e);
+        }
+    }
+
+    private void replay(LocalDate date, Path path) throws IOException {
+        byte[] content = Files.readAllBytes(path);
+        // a record is only complete once its newline is written - drop any partial record left by a crash.
+        int end = content.length;
+        while (end > 0 && content[end - 1] != '\n') {
+            end--;
+        }
+        if (end < content.length) {
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+                channel.truncate(end);
+            }
+        }
+
+        DateLog log = logFor(date);
+        OrderPartition ordersOnDate = orders.getOrCreate(date);
+        String[] lines = new String(content, 0, end, StandardCharsets.UTF_8).split("\n");
+        if (end > 0 && !lines[0].equals(HEADER)) {
+            throw new FlooringMasteryPersistenceException("Order log has an invalid header: " + path);
+        }
+        for (int i = 1; i < lines.length; i++) {
+            String line = lines[i];
+            if (line.startsWith(PUT)) {
+                Order order = lineFormat.unmarshallOrder(line.substring(PUT.length()));
+                if (order == null) {
+                    throw invalidRecord(path, i);
+                }
+                order.setOrderDate(date);
+                ordersOnDate.put(order);
+                largestOrderNumber.accumulateAndGet(order.getOrderNumber(), Math::max);
+            } else if (line.startsWith(REMOVE)) {
+                try {
+                    ordersOnDate.remove(Integer.parseInt(line.substring(REMOVE.length())));
+                } catch (NumberFormatException e) {
+                    throw invalidRecord(path, i);
+                }
+            } else {
+                throw new FlooringMasteryPersistenceException("Error occurred parsing order log record in " + path);
+            }
+        }
+        log.records = Math.max(lines.length - 1, 0);
+    }
+
+    // a complete record that can't be read is damage, not a torn write, so loading stops rather than drop it.
+    private static FlooringMasteryPersistenceException invalidRecord(Path path, int lineIndex) {
+        return new FlooringMasteryPersistenceException("Invalid order log record on line " + (lineIndex + 1)
+                + " of " + path);
+    }
+
+    /**
+     * The log file of one date. Not thread safe, callers synchronize on the log.
+     */
+    private final class DateLog {
+
+        private final Path path;
+        // opened on the first append, and again after each rewrite.
+        private FileChannel channel;
+        // records in the log, live or garbage.
+        private int records;
+
+        DateLog(Path path) {
+            this.path = path;
+        }
+
+        void append(String record) {
+            try {
+                if (channel == null) {
+                    channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                            StandardOpenOption.APPEND);
+                    if (channel.size() == 0) {
+                        write(channel, HEADER + "\n");
+                    }
+                }
+                write(channel, record + "\n");
+                records++;
+            } catch (IOException e) {
+                throw new FlooringMasteryPersistenceException("Could not save order data.", e);
+            }
+        }
+
+        boolean needsCompaction(int liveRecords) {
+            return records >= MIN_COMPACTION_RECORDS
+                    && records - liveRecords >= records * garbageRatio;
+        }
+
+        // rewrites the log as one PUT record per order, replacing the old log only once the new one is complete.
+        void rewrite(List<Order> liveOrders) {
+            Path compactedPath = path.resolveSibling(path.getFileName() + ".tmp");
+            try {
+                try (FileChannel compacted = FileChannel.open(compactedPath, StandardOpenOption.CREATE,
+                        StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                    StringBuilder text = new StringBuilder(HEADER).append('\n');
+                    for (Order order : liveOrders) {
+                        text.append(PUT).append(lineFormat.marshallOrder(order)).append('\n');
+                    }
+                    write(compacted, text.toString());
+                    compacted.force(true);
+                }
+                close();
+                Files.move(compactedPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                records = liveOrders.size();
+            } catch (IOException e) {
+                throw new FlooringMasteryPersistenceException("Could not compact order log " + path, e);
+            }
+        }
+
+        void force() {
+            try {
+                if (channel != null) {
+                    channel.force(false);
+                }
+            } catch (IOException e) {
+                throw new FlooringMasteryPersistenceException("Could not save order data.", e);
+            }
+        }
+
+        void close() {
+            try {
+                if (channel != null) {
+                    channel.force(false);
+                    channel.close();
+                }
+            } catch (IOException e) {
+                throw new FlooringMasteryPersistenceException("Could not save order data.", e);
+            } finally {
+                channel = null;
+            }
+        }
+
+        private static void write(FileChannel channel, String text) throws IOException {
+            ByteBuffer bytes = ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8));
+            while (bytes.hasRemaining()) {
+                channel.write(bytes);
+            }
+        }
+    }
+}
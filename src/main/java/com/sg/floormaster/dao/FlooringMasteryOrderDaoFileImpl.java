@@ -1,28 +1,55 @@
 package com.sg.floormaster.dao;
 
 import com.sg.floormaster.model.Order;
+import com.sg.floormaster.model.OrderTotals;
 
-import java.io.*;
-import java.math.BigDecimal;
-import java.math.RoundingMode;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
 import java.nio.file.*;
 import java.time.LocalDate;
+import java.time.YearMonth;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 
 public class FlooringMasteryOrderDaoFileImpl implements FlooringMasteryOrderDao{
 
-    private Map<LocalDate, Map<Integer, Order>> orders;
-    private final String ORDER_FOLDER;
-    private final String DELIMITER = ",";
+    // orders on each date, sorted by order number, indexed by epoch day so dates are kept in calendar order.
+    // thread safe directory and partitions - orders on different dates may be changed from different threads.
+    private final OrderPartitionDirectory orders;
+    // folder of order files, on any file system - the default, a zip archive or in memory.
+    private final Path ORDER_FOLDER;
+    // format of the order files, CSV unless configured otherwise.
+    private final OrderCodec codec;
+    // which order files are stored compressed.
+    private final OrderArchivePolicy archivePolicy;
+    // canonical state codes, product types and rates shared by loaded orders.
+    private final OrderFieldDictionary dictionary;
+    // where corrupt order files are moved to when loading.
+    private final OrderFileQuarantine quarantine;
+    // orders by customer name, kept in step with orders.
+    private final CustomerNameIndex customerNames = new CustomerNameIndex();
+    // orders by state and by product type, kept in step with orders.
+    private final OrderAttributeIndex attributes = new OrderAttributeIndex();
+    // order totals by date, state and product type, kept in step with orders and saved beside the order files.
+    private final OrderRollups rollups = new OrderRollups();
 
     // stores the largest order number that has been used for an order i.e. cannot be repeated.
     // note that the orders map may not yet contain an order with largestOrderNumber.
     // I.e. the largest order number stored in orders and largestOrderNumber are not directly tied.
-    private int largestOrderNumber;
+    private final AtomicInteger largestOrderNumber = new AtomicInteger();
+
+    private static final DateTimeFormatter FILE_DATE_FORMAT = DateTimeFormatter.ofPattern("MMddyyyy");
+    private static final DateTimeFormatter FILE_MONTH_FORMAT = DateTimeFormatter.ofPattern("MMyyyy");
 
     // default constructor
     public FlooringMasteryOrderDaoFileImpl() throws FlooringMasteryPersistenceException {
@@ -31,60 +58,180 @@ public class FlooringMasteryOrderDaoFileImpl implements FlooringMasteryOrderDao{
     }
 
     public FlooringMasteryOrderDaoFileImpl(String orderDirectory) throws FlooringMasteryPersistenceException {
-        orders = new HashMap<>();
-        ORDER_FOLDER = orderDirectory;
+        this(orderDirectory, CsvOrderCodec.INSTANCE);
+    }
+
+    // orderFolder may be on any file system, e.g. in a zip archive opened as a FileSystem, see ZipOrderStore.
+    public FlooringMasteryOrderDaoFileImpl(Path orderFolder) throws FlooringMasteryPersistenceException {
+        this(orderFolder, CsvOrderCodec.INSTANCE, new OrderArchivePolicy());
+    }
+
+    // reads and writes order files in the given codec's format.
+    public FlooringMasteryOrderDaoFileImpl(String orderDirectory, OrderCodec codec)
+            throws FlooringMasteryPersistenceException {
+        this(orderDirectory, codec, new OrderArchivePolicy());
+    }
+
+    // archives order files as given by archivePolicy when saving.
+    public FlooringMasteryOrderDaoFileImpl(String orderDirectory, OrderCodec codec, OrderArchivePolicy archivePolicy)
+            throws FlooringMasteryPersistenceException {
+        this(Paths.get(orderDirectory), codec, archivePolicy);
+    }
+
+    public FlooringMasteryOrderDaoFileImpl(Path orderFolder, OrderCodec codec, OrderArchivePolicy archivePolicy)
+            throws FlooringMasteryPersistenceException {
+        this(orderFolder, codec, archivePolicy, new OrderFieldDictionary());
+    }
+
+    // loaded orders share the state codes and product types of the given tax and product data.
+    public FlooringMasteryOrderDaoFileImpl(String orderDirectory,
+                                           FlooringMasteryTaxDao taxDao,
+                                           FlooringMasteryProductDao productDao)
+            throws FlooringMasteryPersistenceException {
+        this(orderDirectory, CsvOrderCodec.INSTANCE, taxDao, productDao);
+    }
+
+    public FlooringMasteryOrderDaoFileImpl(String orderDirectory,
+                                           OrderCodec codec,
+                                           FlooringMasteryTaxDao taxDao,
+                                           FlooringMasteryProductDao productDao)
+            throws FlooringMasteryPersistenceException {
+        this(orderDirectory, codec, new OrderArchivePolicy(), taxDao, productDao);
+    }
+
+    public FlooringMasteryOrderDaoFileImpl(String orderDirectory,
+                                           OrderCodec codec,
+                                           OrderArchivePolicy archivePolicy,
+                                           FlooringMasteryTaxDao taxDao,
+                                           FlooringMasteryProductDao productDao)
+            throws FlooringMasteryPersistenceException {
+        this(Paths.get(orderDirectory), codec, archivePolicy, taxDao, productDao);
+    }
+
+    public FlooringMasteryOrderDaoFileImpl(Path orderFolder,
+                                           OrderCodec codec,
+                                           OrderArchivePolicy archivePolicy,
+                                           FlooringMasteryTaxDao taxDao,
+                                           FlooringMasteryProductDao productDao)
+            throws FlooringMasteryPersistenceException {
+        this(orderFolder, codec, archivePolicy,
+                new OrderFieldDictionary(taxDao.getAllTaxes(), productDao.getAllProducts()));
+    }
+
+    FlooringMasteryOrderDaoFileImpl(String orderDirectory, OrderFieldDictionary dictionary)
+            throws FlooringMasteryPersistenceException {
+        this(Paths.get(orderDirectory), CsvOrderCodec.INSTANCE, new OrderArchivePolicy(), dictionary);
+    }
+
+    FlooringMasteryOrderDaoFileImpl(Path orderFolder, OrderCodec codec, OrderArchivePolicy archivePolicy,
+                                    OrderFieldDictionary dictionary)
+            throws FlooringMasteryPersistenceException {
+        orders = new OrderPartitionDirectory();
+        ORDER_FOLDER = orderFolder;
+        quarantine = new OrderFileQuarantine(orderFolder);
+        this.codec = codec;
+        this.archivePolicy = archivePolicy;
+        this.dictionary = dictionary;
 
         // load hashMap from file initially to initialise largestOrderNumber.
         loadFromFile();
         // call calculateLargestOrderNumber after loading.
         calculateLargestOrderNumber();
+        // saved totals are used only if they were saved from exactly the order files loaded, otherwise they are
+        // rebuilt. corrupt files have been quarantined by now, so are not among the files fingerprinted.
+        boolean rollupsRead = rollups.read(ORDER_FOLDER.resolve(OrderRollups.FILE_NAME), fingerprintOrderFiles());
+        indexOrders(!rollupsRead);
     }
 
     // add constructor that takes directory as input:
 
     public FlooringMasteryOrderDaoFileImpl(Map<LocalDate, Map<Integer, Order>> orders) {
-        this.orders = orders;
+        this("Orders", orders);
+    }
+
+    // reads and writes order files in the given directory, holding the given orders without loading the directory.
+    // used by other order DAOs to share this DAO's file format.
+    FlooringMasteryOrderDaoFileImpl(String orderDirectory, Map<LocalDate, Map<Integer, Order>> orders) {
+        this(Paths.get(orderDirectory), orders);
+    }
+
+    FlooringMasteryOrderDaoFileImpl(Path orderFolder, Map<LocalDate, Map<Integer, Order>> orders) {
+        this(orderFolder, CsvOrderCodec.INSTANCE, new OrderArchivePolicy(), orders);
+    }
+
+    FlooringMasteryOrderDaoFileImpl(Path orderFolder, OrderCodec codec, OrderArchivePolicy archivePolicy,
+                                    Map<LocalDate, Map<Integer, Order>> orders) {
+        // copy into partitions, a date pointing to a null map holds no orders so is skipped.
+        this.orders = new OrderPartitionDirectory();
+        orders.forEach((date, ordersOnDate) -> {
+            if (ordersOnDate != null) {
+                this.orders.put(date, OrderPartition.of(ordersOnDate));
+            }
+        });
         // calculate max order number
         calculateLargestOrderNumber();
-        ORDER_FOLDER = "Orders";
+        indexOrders(true);
+        ORDER_FOLDER = orderFolder;
+        quarantine = new OrderFileQuarantine(orderFolder);
+        this.codec = codec;
+        this.archivePolicy = archivePolicy;
+        dictionary = new OrderFieldDictionary();
     }
 
     private void calculateLargestOrderNumber() {
         // uses in-memory map to set largest order number ready for incrementing.
 
-        // if map is null or void, set largest number to 0
-        if (orders == null || orders.isEmpty()) {
-            largestOrderNumber = 0;
-        }
+        // each partition is sorted, so its largest order number is its last.
+        // if there are no orders, largestOrderNumber stays -1.
+        largestOrderNumber.set(-1);
+        orders.forEach((date, ordersOnDate) ->
+                largestOrderNumber.accumulateAndGet(ordersOnDate.getLargestOrderNumber(), Math::max));
+    }
 
-        // otherwise: create List<Set<Int>>, iterate through each and find max.
-        int currentMax = -1;
-        List<Set<Integer>> orderNumbers = orders.values().stream()
-                                            .filter(Objects::nonNull)
-                                            .map((Map::keySet)).toList();
-
-        for (Set<Integer> s : orderNumbers) {
-            List<Integer> sList = (new ArrayList<>(s));
-            // if set of order number is empty - no max value to obtain, skip to next list
-            if (s.isEmpty()) continue;
-            sList.sort(Integer::compare); // ascending order.
-            int sMax = sList.getLast(); // max value
-            if (sMax > currentMax) {
-                currentMax = sMax;
+    private void indexOrders(boolean totalOrders) {
+        orders.forEach((date, ordersOnDate) -> {
+            for (Order order : ordersOnDate.values()) {
+                indexOrder(date, order);
+                if (totalOrders) {
+                    rollups.add(order);
+                }
             }
+        });
+    }
+
+    // identifies the order files in the order folder, to tell whether saved totals were computed from them.
+    private long fingerprintOrderFiles() throws FlooringMasteryPersistenceException {
+        Map<LocalDate, Path> dailyFiles = new HashMap<>();
+        Map<YearMonth, Path> monthFiles = new HashMap<>();
+        scanOrderDirectory(ORDER_FOLDER, codec, dailyFiles, monthFiles);
+        List<Path> orderFiles = new ArrayList<>(dailyFiles.values());
+        orderFiles.addAll(monthFiles.values());
+        try {
+            return OrderRollups.orderFilesFingerprint(orderFiles);
+        } catch (IOException e) {
+            throw new FlooringMasteryPersistenceException("Couldn't read the order files.", e);
         }
+    }
+
+    // called after each change to orders, replacing whatever the indexes held for the order's date and number.
+    private void indexOrder(LocalDate date, Order order) {
+        OrderKey key = new OrderKey(date, order.getOrderNumber());
+        customerNames.put(key, order.getCustomerName());
+        attributes.put(key, order.getState(), order.getProductType());
+    }
 
-        // now have currentMax as max order number.
-        largestOrderNumber = currentMax;
+    private void unindexOrder(LocalDate date, int orderId) {
+        OrderKey key = new OrderKey(date, orderId);
+        customerNames.remove(key);
+        attributes.remove(key);
     }
 
 
     @Override
     public int getNextOrderNumber() {
-        // increment largestOrderNumber to the next unused order ID number
-        largestOrderNumber += 1;
-        // return the new unused orderID number
-        return largestOrderNumber;
+        // atomically increment largestOrderNumber to the next unused order ID number and return it,
+        // so concurrent callers never receive the same number.
+        return largestOrderNumber.incrementAndGet();
     }
 
     @Override
@@ -93,375 +240,450 @@ public class FlooringMasteryOrderDaoFileImpl implements FlooringMasteryOrderDao{
 
         // in-memory implementation:
 
-        // if date already exists in the orders map - add to inner map
-        // note that date key may exist, but inner map could be null,
-        //
-        // in either case (date key not in outer map or key does exist but inner map is null),
-        // a new map containing the new object is set as the value for the outer map's date key.
-        if (orders.get(order.getOrderDate()) != null) {
-            Map<Integer, Order> existingOrdersOnNewOrderDate = orders.get(order.getOrderDate());
-
-            // map of orders on this date already exists, we put new order in this map,
-            // and return a previous order with the same orderId if one existed.
-            return existingOrdersOnNewOrderDate.put(order.getOrderNumber(), order);
+        // if date already has a partition - add to it,
+        // otherwise a new partition is atomically created for the date first.
+        OrderPartition ordersOnNewOrderDate = orders.getOrCreate(order.getOrderDate());
+
+        // put new order in the date's partition,
+        // and return a previous order with the same orderId if one existed.
+        Order previousOrder = ordersOnNewOrderDate.put(order);
+        indexOrder(order.getOrderDate(), order);
+        // the totals move by the difference between the replaced order and the new one.
+        if (previousOrder != null) {
+            rollups.remove(previousOrder);
         }
+        rollups.add(order);
+        return previousOrder;
+    }
 
-        // otherwise no existing orders exist for this new order's date
-        // create new inner map, append the new order, and append this to the outer map.
-        Map<Integer, Order> newMapOnNewOrderDate = new HashMap<>();
-        newMapOnNewOrderDate.put(order.getOrderNumber(), order);
-        // append to orders Map
-        orders.put(order.getOrderDate(), newMapOnNewOrderDate);
-        // return null as no previous order existed
-        return null;
+    // returns the partition of orders on the given date, null if there are none or the date is null.
+    private OrderPartition ordersOn(LocalDate date) {
+        return date == null ? null : orders.get(date);
     }
 
     @Override
     public Order getOrder(LocalDate date, int orderId) {
         // check if date exits:
-        if (orders.get(date) == null) {
+        OrderPartition ordersOnDate = ordersOn(date);
+        if (ordersOnDate == null) {
             return null; // no order can be found.
         }
         // otherwise return result of querying inner order map.
-        return orders.get(date).get(orderId);
+        return ordersOnDate.get(orderId);
     }
 
     @Override
     public Order editOrder(Order newOrder) throws FlooringMasteryNoSuchOrderException {
 
-        // First check if querying for order date returns null
-        if (orders.get(newOrder.getOrderDate()) == null ||
-            orders.get(newOrder.getOrderDate()).get(newOrder.getOrderNumber()) == null) {
+        // replace only succeeds if an order is currently stored with the same date and ID.
+        OrderPartition ordersOnDate = ordersOn(newOrder.getOrderDate());
+        Order previousOrder = ordersOnDate == null ? null
+                : ordersOnDate.replace(newOrder);
+
+        if (previousOrder == null) {
             throw new FlooringMasteryNoSuchOrderException("Existing order with ID " + newOrder.getOrderNumber()
             + " not found.");
         }
-
-        // otherwise replace existing order with new order
-        return orders.get(newOrder.getOrderDate()).put(newOrder.getOrderNumber(), newOrder);
+        indexOrder(newOrder.getOrderDate(), newOrder);
+        rollups.remove(previousOrder);
+        rollups.add(newOrder);
+        return previousOrder;
     }
 
     @Override
     public List<Order> getOrdersForDate(LocalDate date) {
         // if the date doesn't exist as key in orders, return empty list.
         // or if the date exists, but points to a null value.
-        if (orders.get(date) == null) {
+        OrderPartition ordersOnDate = ordersOn(date);
+        if (ordersOnDate == null) {
             return new ArrayList<>();
         }
-        return new ArrayList<>(orders.get(date).values());
+        // already a new list, in order number order.
+        return ordersOnDate.values();
+    }
+
+    @Override
+    public List<Order> getOrdersForDateRange(LocalDate fromDate, LocalDate toDate) {
+        // a slice of the directory, already in date order, and each partition in order number order.
+        List<Order> ordersInRange = new ArrayList<>();
+        for (OrderPartition ordersOnDate : orders.getRange(fromDate, toDate)) {
+            ordersInRange.addAll(ordersOnDate.values());
+        }
+        return ordersInRange;
+    }
+
+    @Override
+    public List<Order> getOrdersForLatestDays(int days) {
+        LocalDate latestDate = orders.getLatestDate();
+        if (days <= 0 || latestDate == null) {
+            return new ArrayList<>();
+        }
+        return getOrdersForDateRange(latestDate.minusDays(days - 1), latestDate);
     }
 
     @Override
     public Map<LocalDate, Map<Integer, Order>> getAllOrders() {
-        // Returns a shallow copy so that no external layer can alter the Dao's structure.
-        // Note that the map should not be altered - internal maps and orders could be changed.
+        // Returns a copy so that no external layer can alter the Dao's structure.
+        // Note that the orders themselves could still be changed.
         // not preferred method
-        return Map.copyOf(orders);
+        Map<LocalDate, Map<Integer, Order>> allOrders = new HashMap<>();
+        orders.forEach((date, ordersOnDate) -> allOrders.put(date, ordersOnDate.toMap()));
+        return allOrders;
     }
 
     @Override
     public Order removeOrder(LocalDate date, int orderId) {
         // see if map exists for given date:
-        if (orders.get(date) != null && orders.get(date).get(orderId) != null) {
-            return orders.get(date).remove(orderId);
+        OrderPartition ordersOnDate = ordersOn(date);
+        if (ordersOnDate != null) {
+            Order removedOrder = ordersOnDate.remove(orderId);
+            if (removedOrder != null) {
+                unindexOrder(date, orderId);
+                rollups.remove(removedOrder);
+            }
+            return removedOrder;
         }
 
         // otherwise no order was found, date may not yet exist, or order doesn't within date
         return null;
     }
 
-    // load
-        // make sure during marshalling/unmarshalling, replace order name's commas with special character like *, and put it back when you unmarshall.
+    @Override
+    public List<OrderKey> findOrdersByCustomerName(String query, boolean matchAnywhere) {
+        // the index is updated just after the orders, so skip any posting whose order is no longer stored.
+        List<OrderKey> matches = new ArrayList<>();
+        for (OrderKey key : customerNames.search(query, matchAnywhere)) {
+            if (getOrder(key.getOrderDate(), key.getOrderNumber()) != null) {
+                matches.add(key);
+            }
+        }
+        return matches;
+    }
 
-    // be given name of directory?
-    private void loadFromFile() throws FlooringMasteryPersistenceException {
-        // need to get all files and filter by format
-        // "Orders_MMDDYYYY.txt"
-        // will validate that format is correct when trying to create date from the order.
+    @Override
+    public List<OrderKey> findOrders(String state, String productType, LocalDate fromDate, LocalDate toDate) {
+        // answered from the bitmaps, without visiting orders that don't match.
+        List<OrderKey> matches = new ArrayList<>();
+        for (OrderKey key : attributes.find(state, productType, fromDate, toDate)) {
+            if (getOrder(key.getOrderDate(), key.getOrderNumber()) != null) {
+                matches.add(key);
+            }
+        }
+        return matches;
+    }
 
-        // get valid order files: //guaranteed to have format "Orders_dddddddd.txt" where d any integer.
-        Map<String, LocalDate> validOrderFiles = getFilesInOrderDirectory();
+    @Override
+    public int countOrders(String state, String productType, LocalDate fromDate, LocalDate toDate) {
+        return attributes.count(state, productType, fromDate, toDate);
+    }
 
-        // for each file, load all entries into inner map, put inner map into outer map allOrders.
+    @Override
+    public OrderTotals getOrderTotals(LocalDate date, String state, String productType) {
+        return rollups.get(date, state, productType);
+    }
 
-        for (String validOrderFileName : validOrderFiles.keySet()) {
+    @Override
+    public OrderTotals getOrderTotals(YearMonth month, String state, String productType) {
+        return rollups.get(month, state, productType);
+    }
 
-            // create new inner Map<Integer, Order> ordersForCurrentFile
-            Map<Integer, Order> ordersForCurrentFile = new HashMap<>();
-            // open file
-            Scanner scanner;
-            try {
-                // create scanner to read file
-                scanner = new Scanner(new BufferedReader(new FileReader(ORDER_FOLDER+"/" + validOrderFileName)));
-            } catch (FileNotFoundException e) {
-                throw new FlooringMasteryPersistenceException("Couldn't load an order file.", e);
-            }
+    @Override
+    public OrderTotals getOrderTotals(LocalDate fromDate, LocalDate toDate) {
+        return rollups.get(fromDate, toDate);
+    }
 
-            // currentline holds most recent line read from file
-            String currentLine;
+    // load
+        // make sure during marshalling/unmarshalling, replace order name's commas with special character like *, and put it back when you unmarshall.
 
-            // hold most recent unmarshalled Order
-            Order currentOrder;
+    // be given name of directory?
+    private void loadFromFile() throws FlooringMasteryPersistenceException {
+        readOrderFiles(orders::put);
+    }
 
-            // verify file contains non-empty first row
-            if (!scanner.hasNextLine()) {
-                // skip to next file
-                scanner.close();
+    // reads each valid order file in the order directory, passing its date and orders to fileConsumer.
+    // corrupt files - a checksum mismatch or an order that can't be read - are quarantined rather than loaded.
+    void readOrderFiles(BiConsumer<LocalDate, OrderPartition> fileConsumer)
+            throws FlooringMasteryPersistenceException {
+        // get valid order files: "Orders_MMddyyyy.<codec's extension>" with a valid date,
+        // and consolidated month files "Orders_MMyyyy.<codec's extension>".
+        Map<LocalDate, Path> dailyFiles = new HashMap<>();
+        Map<YearMonth, Path> monthFiles = new HashMap<>();
+        scanOrderDirectory(ORDER_FOLDER, codec, dailyFiles, monthFiles);
+
+        // verify every file's checksum before loading any, in parallel as each file is read in full.
+        List<Path> orderFiles = new ArrayList<>(dailyFiles.values());
+        orderFiles.addAll(monthFiles.values());
+        Set<Path> corruptFiles = findCorruptFiles(orderFiles);
+
+        for (Map.Entry<LocalDate, Path> validOrderFile : dailyFiles.entrySet()) {
+            LocalDate orderDate = validOrderFile.getKey();
+            Path orderFile = validOrderFile.getValue();
+            if (corruptFiles.contains(orderFile)) {
+                quarantine.quarantine(orderFile, "checksum mismatch");
                 continue;
             }
 
-            // verify header is correct
-
-            String headerLine = scanner.nextLine();
-            String[] headers = headerLine.split(DELIMITER);
-            if (headers.length != 12
-                || !(headers[0].equals("OrderNumber")
-                    && headers[1].equals("CustomerName")
-                    && headers[2].equals("State")
-                    && headers[3].equals("TaxRate")
-                    && headers[4].equals("ProductType")
-                    && headers[5].equals("Area")
-                    && headers[6].equals("CostPerSquareFoot")
-                    && headers[7].equals("LaborCostPerSquareFoot")
-                    && headers[8].equals("MaterialCost")
-                    && headers[9].equals("LaborCost")
-                    && headers[10].equals("Tax")
-                    && headers[11].equals("Total"))) {
-                // skip to next file - header invalid.
-                scanner.close();
+            // collect the file's orders, then build its partition in one pass.
+            List<Order> ordersForCurrentFile = new ArrayList<>();
+            boolean validFile;
+            // archived files are decompressed as they are read.
+            try (ReadableByteChannel in = archivePolicy.openForReading(orderFile, orderDate)) {
+                validFile = codec.decode(in, loadedOrder(orderDate, ordersForCurrentFile));
+            } catch (IOException e) {
+                throw new FlooringMasteryPersistenceException("Couldn't load an order file.", e);
+            } catch (FlooringMasteryPersistenceException e) {
+                quarantine.quarantine(orderFile, e.getMessage());
                 continue;
             }
 
-            // have valid header - read input:
-
-            while (scanner.hasNextLine()) {
-                // while file has next line:
-                // get unmarshalled order input
-                currentLine = scanner.nextLine();
-                currentOrder = unmarshallOrder(currentLine);
+            // skip empty files and files with an invalid header.
+            if (validFile) {
+                fileConsumer.accept(orderDate, OrderPartition.of(ordersForCurrentFile));
+            }
+        }
 
-                // verify is not null - throw persistence exception
-                if (currentOrder == null) {
-                    scanner.close();
-                    throw new FlooringMasteryPersistenceException("Error occurred parsing order properties");
+        // a day's own file takes the place of its block in a month file, even if the day's file was quarantined.
+        for (Map.Entry<YearMonth, Path> monthFile : monthFiles.entrySet()) {
+            if (corruptFiles.contains(monthFile.getValue())) {
+                quarantine.quarantine(monthFile.getValue(), "checksum mismatch");
+                continue;
+            }
+            // a month is loaded whole or not at all.
+            Map<LocalDate, List<Order>> ordersByDay = new TreeMap<>();
+            try (OrderMonthFile month = OrderMonthFile.open(monthFile.getValue(), monthFile.getKey())) {
+                for (LocalDate orderDate : month.getDays()) {
+                    if (!dailyFiles.containsKey(orderDate)) {
+                        List<Order> ordersForDay = new ArrayList<>();
+                        if (month.read(orderDate, codec, archivePolicy, loadedOrder(orderDate, ordersForDay))) {
+                            ordersByDay.put(orderDate, ordersForDay);
+                        }
+                    }
                 }
-
-                // Must add order date to order:
-                currentOrder.setOrderDate(validOrderFiles.get(validOrderFileName));
-
-                // add to innerMap
-                ordersForCurrentFile.put(currentOrder.getOrderNumber(), currentOrder);
+            } catch (IOException e) {
+                throw new FlooringMasteryPersistenceException("Couldn't load an order month file.", e);
+            } catch (FlooringMasteryPersistenceException e) {
+                quarantine.quarantine(monthFile.getValue(), e.getMessage());
+                continue;
             }
+            ordersByDay.forEach((orderDate, ordersForDay) ->
+                    fileConsumer.accept(orderDate, OrderPartition.of(ordersForDay)));
+        }
+    }
 
-            // all lines processed in file add to entry in outer map
-            orders.put(validOrderFiles.get(validOrderFileName), ordersForCurrentFile);
-
-            // close scanner
-            scanner.close();
+    // checks the checksum of each file in parallel, returning those that don't match.
+    private static Set<Path> findCorruptFiles(List<Path> orderFiles) throws FlooringMasteryPersistenceException {
+        try {
+            return orderFiles.parallelStream()
+                    .filter(orderFile -> {
+                        try {
+                            return OrderFileChecksum.verify(orderFile) == OrderFileChecksum.Status.CORRUPT;
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    })
+                    .collect(Collectors.toSet());
+        } catch (UncheckedIOException e) {
+            throw new FlooringMasteryPersistenceException("Couldn't verify the order files.", e.getCause());
         }
+    }
 
+    /**
+     * @return a line for each corrupt order file moved to the quarantine folder of the order folder
+     * rather than loaded, saying why.
+     */
+    public List<String> getQuarantineReport() {
+        return quarantine.getReport();
     }
 
-    private Map<String, LocalDate> getFilesInOrderDirectory()  throws FlooringMasteryPersistenceException {
+    private Consumer<Order> loadedOrder(LocalDate orderDate, List<Order> ordersOnDate) {
+        return order -> {
+            // Must add order date to order, and share the dictionary's states and product types.
+            order.setOrderDate(orderDate);
+            ordersOnDate.add(dictionary.intern(order));
+        };
+    }
+
+    /**
+     * @return each order file in orderFolder in codec's format, "Orders_MMddyyyy.<extension>", or archived as
+     * "Orders_MMddyyyy.<extension>.gz", with the valid date in its name. If a date has both, the latest modified.
+     */
+    static Map<Path, LocalDate> getFilesInOrderDirectory(Path orderFolder, OrderCodec codec)
+            throws FlooringMasteryPersistenceException {
+        Map<LocalDate, Path> fileForDate = new HashMap<>();
+        scanOrderDirectory(orderFolder, codec, fileForDate, new HashMap<>());
+
+        // return file map containing order files with valid dates.
+        Map<Path, LocalDate> fileMap = new HashMap<>();
+        fileForDate.forEach((date, path) -> fileMap.put(path, date));
+        return fileMap;
+    }
 
-        Map<String, LocalDate> fileMap = new HashMap<>();
+    /**
+     * Finds the order files in orderFolder in codec's format in a single pass over the folder.
+     *
+     * @param dailyFiles receives the file of each date, as returned by getFilesInOrderDirectory.
+     * @param monthFiles receives each consolidated month file, "Orders_MMyyyy.<extension>".
+     */
+    static void scanOrderDirectory(Path orderFolder, OrderCodec codec,
+                                   Map<LocalDate, Path> dailyFiles, Map<YearMonth, Path> monthFiles)
+            throws FlooringMasteryPersistenceException {
+        // 8 digits for a day's file, 6 for a month's.
+        Pattern orderFilePattern = Pattern.compile("Orders_(\\d{8}|\\d{6})\\."
+                + Pattern.quote(codec.getFileExtension()) + "(" + Pattern.quote(OrderArchivePolicy.ARCHIVE_EXTENSION) + ")?");
 
         // read all files in the directory.
-        try (DirectoryStream<Path> stream = Files.newDirectoryStream(Paths.get(ORDER_FOLDER))) {
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(orderFolder)) {
             for (Path path : stream) {
                 // validate that path is of correct format.
-                String orderFileName = path.getFileName().toString();
-
-                if (orderFileName.matches("Orders_\\d{8}.txt")) {
-                    // valid pattern, check if the date is a valid date.
-                    Pattern datePattern = Pattern.compile("\\d{8}");
-                    Matcher dateMatcher = datePattern.matcher(orderFileName);
-
-                    if (dateMatcher.find()) {
-                        String orderDateAsText = dateMatcher.group();
-
-                        // attempt to parse to dateTime with given format "MMddyyyy"
-                        LocalDate orderDate;
-                        try  {
-                            orderDate = LocalDate.parse(orderDateAsText, DateTimeFormatter.ofPattern("MMddyyyy"));
-                            // valid orderDate, add filename and order date to map of valid
-                            fileMap.put(orderFileName, orderDate);
-                        } catch (DateTimeParseException e) {
-                            // invalid date format, don't add to the map of valid file names.
-                        }
+                Matcher orderFileMatcher = orderFilePattern.matcher(path.getFileName().toString());
+                if (!orderFileMatcher.matches()) {
+                    continue;
+                }
+                // valid pattern, attempt to parse to date with given format "MMddyyyy" or "MMyyyy"
+                String dateText = orderFileMatcher.group(1);
+                try {
+                    if (dateText.length() == 8) {
+                        dailyFiles.merge(LocalDate.parse(dateText, FILE_DATE_FORMAT), path,
+                                FlooringMasteryOrderDaoFileImpl::latestModified);
+                    } else if (orderFileMatcher.group(2) == null) {
+                        // month files compress archived days' blocks, never the whole file.
+                        monthFiles.put(YearMonth.parse(dateText, FILE_MONTH_FORMAT), path);
                     }
+                } catch (DateTimeParseException e) {
+                    // invalid date format, don't add to the map of valid file names.
                 }
             }
-        } catch (IOException e) {
+        } catch (IOException | UncheckedIOException e) {
             throw new FlooringMasteryPersistenceException("Could not load data from orders directory.");
         }
-
-        // return file map containing order file names with valid dates.
-        return fileMap;
     }
 
-    private Order unmarshallOrder(String orderAsText) {
-        // expects input in following order:
-        // "OrderNumber,CustomerName,State,TaxRate,ProductType,Area,CostPerSquareFoot,LaborCostPerSquareFoot,MaterialCost,LaborCost,Tax,Total"
-
-        if (orderAsText == null || orderAsText.isEmpty()) return null;
-
-        String[] orderPropertiesAsText = orderAsText.split(DELIMITER);
-
-        // assume valid format
-
-        // create attributes
-        Order newOrder = new Order();
-
-        // order number
-        newOrder.setOrderNumber(Integer.parseInt(orderPropertiesAsText[0]));
-
-        // Customer name:
-        // an asterisk is used in place of commas to persist customer name, must convert asterisk back to comman.
-        newOrder.setCustomerName(orderPropertiesAsText[1].replace('*', ','));
-
-        // State:
-        newOrder.setState(orderPropertiesAsText[2]);
-
-        // TaxRate
-        newOrder.setTaxRate(new BigDecimal(orderPropertiesAsText[3]).setScale(2, RoundingMode.HALF_UP));
-
-        // Product Type
-        newOrder.setProductType(orderPropertiesAsText[4]);
-
-        // area
-        newOrder.setArea(new BigDecimal(orderPropertiesAsText[5]).setScale(2, RoundingMode.HALF_UP));
-
-        // Cost per square foot
-        newOrder.setCostPerSquareFoot(new BigDecimal(orderPropertiesAsText[6]).setScale(2, RoundingMode.HALF_UP));
-
-        // laborcost per square foot
-        newOrder.setLaborCostPerSquareFoot(new BigDecimal(orderPropertiesAsText[7]).setScale(2, RoundingMode.HALF_UP));
-
-        // material cost
-        newOrder.setMaterialCost(new BigDecimal(orderPropertiesAsText[8]).setScale(2, RoundingMode.HALF_UP));
-
-        // labord csot
-        newOrder.setLaborCost(new BigDecimal(orderPropertiesAsText[9]).setScale(2, RoundingMode.HALF_UP));
-
-        // tax
-        newOrder.setTax(new BigDecimal(orderPropertiesAsText[10]).setScale(2, RoundingMode.HALF_UP));
-
-        // total
-        newOrder.setTotal(new BigDecimal(orderPropertiesAsText[11]).setScale(2, RoundingMode.HALF_UP));
+    // a save interrupted between writing a date's file in one tier and deleting it from the other leaves both.
+    private static Path latestModified(Path file, Path otherFile) {
+        try {
+            return Files.getLastModifiedTime(file).compareTo(Files.getLastModifiedTime(otherFile)) >= 0
+                    ? file : otherFile;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
 
-        // return unmarshalled order
-        return newOrder;
+    // package-private, as are marshallOrder and readOrderFiles, so other order DAOs can share this DAO's line format.
+    Order unmarshallOrder(String orderAsText) {
+        Order order = CsvOrderCodec.unmarshallOrder(orderAsText);
+        return order == null ? null : dictionary.intern(order);
     }
 
     @Override
     public void saveOrders() throws FlooringMasteryPersistenceException {
         writeToFiles();
+        // written last, so if saving stops part way the old totals no longer match the order files and are rebuilt.
+        long fingerprint = fingerprintOrderFiles();
+        try {
+            rollups.write(ORDER_FOLDER.resolve(OrderRollups.FILE_NAME), fingerprint);
+        } catch (IOException e) {
+            throw new FlooringMasteryPersistenceException("Could not save order data.", e);
+        }
+    }
+
+    // writes the order files of the orders held, without the saved totals - for other order DAOs that write
+    // their orders a date at a time through this DAO, so only hold some of the folder's orders.
+    void saveOrderFiles() throws FlooringMasteryPersistenceException {
+        writeToFiles();
     }
 
     private void writeToFiles() throws FlooringMasteryPersistenceException {
         // overwrites previous order files.
-        String orderHeaderLine = "OrderNumber,CustomerName,State,TaxRate,ProductType,Area,CostPerSquareFoot,LaborCostPerSquareFoot,MaterialCost,LaborCost,Tax,Total";
-
-        // for each date, generate correct filename, then marshall all data and write to file.
-
-        for (LocalDate fileDate : orders.keySet()) {
-            PrintWriter out;
-
-            // generate file path.
-            String filePath = generateOrderFilePath(fileDate);
-
-            try {
-                out = new PrintWriter(new FileWriter(filePath));
-            } catch (IOException e) {
-                throw new FlooringMasteryPersistenceException("Could not save order data.");
+        // for each date, generate correct filename, then encode all orders on the date to the file,
+        // or for the dates of closed months, to their month's file.
+        Path orderFolder = ORDER_FOLDER;
+
+        Map<YearMonth, SortedMap<LocalDate, List<Order>>> consolidatedMonths = new TreeMap<>();
+        Map<YearMonth, Set<LocalDate>> dailyMonths = new TreeMap<>();
+        List<LocalDate> fileDates = new ArrayList<>();
+        orders.forEach((date, ordersOnDate) -> fileDates.add(date));
+        for (LocalDate fileDate : fileDates) {
+            if (archivePolicy.isConsolidated(fileDate)) {
+                consolidatedMonths.computeIfAbsent(YearMonth.from(fileDate), month -> new TreeMap<>())
+                        .put(fileDate, getOrdersForDate(fileDate));
+            } else {
+                writeDailyFile(orderFolder, fileDate);
+                dailyMonths.computeIfAbsent(YearMonth.from(fileDate), month -> new HashSet<>()).add(fileDate);
             }
+        }
 
-            // Write header to the file:
-            out.println(orderHeaderLine);
-
-            // write each Order to file (just use values of inner map)
-
-            String orderAsText;
-            List<Order> allOrdersForCurrentDate = getOrdersForDate(fileDate);
-
-            for (Order currentOrder : allOrdersForCurrentDate) {
-                // marshal to string
-                orderAsText = marshallOrder(currentOrder);
-
-                // write string to file
-                out.println(orderAsText);
-
-                // force printWriter to write to line
-                out.flush();
+        try {
+            // write each month's file, then remove the files of its days.
+            for (Map.Entry<YearMonth, SortedMap<LocalDate, List<Order>>> month : consolidatedMonths.entrySet()) {
+                OrderMonthFile.write(generateOrderMonthFilePath(orderFolder, month.getKey(), codec),
+                        month.getValue(), codec, archivePolicy::isArchived, archivePolicy);
+                for (LocalDate day : month.getValue().keySet()) {
+                    Path filePath = generateOrderFilePath(orderFolder, day, codec);
+                    Files.deleteIfExists(filePath);
+                    Files.deleteIfExists(OrderArchivePolicy.archiveFileFor(filePath));
+                }
+            }
+            // a month file is removed once each of its days has its own file again.
+            for (Map.Entry<YearMonth, Set<LocalDate>> month : dailyMonths.entrySet()) {
+                Path monthFilePath = generateOrderMonthFilePath(orderFolder, month.getKey(), codec);
+                if (Files.exists(monthFilePath)) {
+                    boolean replaced;
+                    try (OrderMonthFile monthFile = OrderMonthFile.open(monthFilePath, month.getKey())) {
+                        replaced = month.getValue().containsAll(monthFile.getDays());
+                    }
+                    if (replaced) {
+                        Files.delete(monthFilePath);
+                    }
+                }
             }
-            out.close();
+        } catch (IOException e) {
+            throw new FlooringMasteryPersistenceException("Could not save order data.", e);
         }
     }
 
-    private String generateOrderFilePath(LocalDate orderDate) {
-        String dateFormatted = orderDate.format(DateTimeFormatter.ofPattern("MMddyyyy"));
-
-        // valid order file = "<ORDER_FOLDER>/Orders_MMddyyyy.txt";
-        return ORDER_FOLDER+"/"+"Orders_"+dateFormatted+".txt";
+    private void writeDailyFile(Path orderFolder, LocalDate fileDate) throws FlooringMasteryPersistenceException {
+        Path filePath = generateOrderFilePath(orderFolder, fileDate, codec);
+        Path archiveFilePath = OrderArchivePolicy.archiveFileFor(filePath);
+        try {
+            // write the date's file in its tier, then remove any copy left in the other tier.
+            // each file is written whole to a temporary file and renamed into place, with its checksum.
+            List<Order> ordersOnDate = getOrdersForDate(fileDate);
+            if (archivePolicy.isArchived(fileDate)) {
+                OrderFileChecksum.write(archiveFilePath, out -> {
+                    try (WritableByteChannel compressor =
+                                 archivePolicy.compressing(Channels.newOutputStream(out), fileDate)) {
+                        codec.encode(ordersOnDate, compressor);
+                    }
+                });
+                Files.deleteIfExists(filePath);
+            } else {
+                OrderFileChecksum.write(filePath, out -> codec.encode(ordersOnDate, out));
+                Files.deleteIfExists(archiveFilePath);
+                archivePolicy.unarchived(fileDate);
+            }
+        } catch (IOException e) {
+            throw new FlooringMasteryPersistenceException("Could not save order data.", e);
+        }
     }
 
-    private String marshallOrder(Order order) {
-        // Marshalls to format:
-        // OrderNumber,CustomerName,State,TaxRate,ProductType,Area,CostPerSquareFoot,LaborCostPerSquareFoot,MaterialCost,LaborCost,Tax,Total
-        // Note to preserve use of DELIMITER = ',', we must replace any commas in customerName with an asterisk
-        // to allow unmarshalling to recognise delimiter.
-
-        String orderAsText = "";
-
-        // add OrderNumber
-        orderAsText += order.getOrderNumber()
-                    + DELIMITER;
-
-        // add customer name
-        // replace any commas with asterisk.
-        orderAsText += order.getCustomerName().replace(',', '*')
-                + DELIMITER;
-
-        // add state
-        orderAsText += order.getState()
-                + DELIMITER;
-
-        // taxrate
-        orderAsText += order.getTaxRate().setScale(2, RoundingMode.HALF_UP).toString()
-                + DELIMITER;
-
-        // product type
-        orderAsText += order.getProductType()
-                + DELIMITER;
-
-        // area
-        orderAsText += order.getArea().setScale(2, RoundingMode.HALF_UP).toString()
-                + DELIMITER;
-
-        // cost per square foot
-        orderAsText += order.getCostPerSquareFoot().setScale(2, RoundingMode.HALF_UP).toString()
-                + DELIMITER;
-
-        // labor cost per square foot
-        orderAsText += order.getLaborCostPerSquareFoot().setScale(2, RoundingMode.HALF_UP).toString()
-                + DELIMITER;
-
-        // material cost
-        orderAsText += order.getMaterialCost().setScale(2, RoundingMode.HALF_UP).toString()
-                + DELIMITER;
-
-        // labor cost
-        orderAsText += order.getLaborCost().setScale(2, RoundingMode.HALF_UP).toString()
-                + DELIMITER;
+    /**
+     * @return the policy archiving this DAO's order files, with its statistics.
+     */
+    public OrderArchivePolicy getArchivePolicy() {
+        return archivePolicy;
+    }
 
-        // tax
-        orderAsText += order.getTax().setScale(2, RoundingMode.HALF_UP).toString()
-                + DELIMITER;
+    static Path generateOrderFilePath(Path orderFolder, LocalDate orderDate, OrderCodec codec) {
+        // valid order file = "<orderFolder>/Orders_MMddyyyy.<extension>";
+        return orderFolder.resolve("Orders_" + orderDate.format(FILE_DATE_FORMAT) + "." + codec.getFileExtension());
+    }
 
-        // total
-        orderAsText += order.getTotal().setScale(2, RoundingMode.HALF_UP).toString();
-        // don't add delimiter
+    static Path generateOrderMonthFilePath(Path orderFolder, YearMonth month, OrderCodec codec) {
+        // month file = "<orderFolder>/Orders_MMyyyy.<extension>";
+        return orderFolder.resolve("Orders_" + month.format(FILE_MONTH_FORMAT) + "." + codec.getFileExtension());
+    }
 
-        return orderAsText;
+    String marshallOrder(Order order) {
+        return CsvOrderCodec.marshallOrder(order);
     }
 }
@@ -0,0 +1,528 @@
+package com.sg.floormaster.dao;
+
+import com.sg.floormaster.model.Order;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Order DAO that stores each date's orders as fixed-width binary records, so a single order can be read,
+ * changed or removed in place without reading or rewriting the rest of the date's file.
+ *
+ * Each date has an "Orders_MMddyyyy.dat" file in the order directory: a HEADER_SIZE byte header, then
+ * SLOT_SIZE byte slots. A used slot holds one order - its number, money values as longs scaled to 2 decimal
+ * places, and its state, product type and customer name as length-prefixed UTF-8 in fixed-size fields.
+ * A free slot has a zero status byte, and is reused by the next order added on its date.
+ *
+ * The slot directory of each file - the slot of each order number - is held in memory, built when the DAO
+ * is created by reading the first bytes of every slot. getOrder reads one slot with a positioned read,
+ * editOrder writes one slot, and removeOrder writes one status byte. Every change is written as it is made,
+ * saveOrders() forces the writes to the storage device. The "Orders_MMddyyyy.txt" files are not read or written.
+ *
+ * Customer names, states and product types longer than their fields (NAME_BYTES, STATE_BYTES and
+ * PRODUCT_TYPE_BYTES of UTF-8) cannot be stored. Changes to the same date are serialised,
+ * different dates can be used concurrently. close() closes the files, after which the DAO cannot be used.
+ */
+public class FlooringMasteryOrderDaoFixedWidthImpl implements FlooringMasteryOrderDao, AutoCloseable {
+
+    // ---- header layout ----
+    private static final int MAGIC = 0x464D4F31; // "FMO1"
+    private static final short VERSION = 1;
+    private static final int MAGIC_OFFSET = 0;         // int
+    private static final int VERSION_OFFSET = 4;       // short
+    private static final int SLOT_SIZE_OFFSET = 6;     // short
+    public static final int HEADER_SIZE = 16;
+
+    // ---- slot layout ----
+    private static final int STATUS_OFFSET = 0;        // byte, USED or FREE
+    private static final int NULL_MASK_OFFSET = 2;     // short, bit set for each null field
+    private static final int ORDER_NUMBER_OFFSET = 4;  // int
+    private static final int MONEY_OFFSET = 8;         // MONEY_FIELDS longs, scaled by 100
+    private static final int STATE_OFFSET = 72;        // length byte, then STATE_BYTES
+    private static final int PRODUCT_TYPE_OFFSET = 81; // length byte, then PRODUCT_TYPE_BYTES
+    private static final int NAME_OFFSET = 114;        // length short, then NAME_BYTES
+    public static final int SLOT_SIZE = 256;
+
+    public static final int STATE_BYTES = 8;
+    public static final int PRODUCT_TYPE_BYTES = 32;
+    public static final int NAME_BYTES = SLOT_SIZE - NAME_OFFSET - Short.BYTES;
+
+    private static final byte FREE = 0;
+    private static final byte USED = 1;
+
+    // money fields, in the order they are laid out from MONEY_OFFSET.
+    private static final int MONEY_FIELDS = 8;
+    // null mask bits - one per money field, then the strings.
+    private static final int NULL_CUSTOMER_NAME = 1 << MONEY_FIELDS;
+    private static final int NULL_STATE = 1 << (MONEY_FIELDS + 1);
+    private static final int NULL_PRODUCT_TYPE = 1 << (MONEY_FIELDS + 2);
+    private static final int MONEY_SCALE = 2;
+
+    private static final DateTimeFormatter FILE_DATE_FORMAT = DateTimeFormatter.ofPattern("MMddyyyy");
+
+    private final Path ORDER_FOLDER;
+    private final Map<LocalDate, DateFile> files = new ConcurrentHashMap<>();
+    private final AtomicInteger largestOrderNumber = new AtomicInteger(-1);
+
+    // default constructor
+    public FlooringMasteryOrderDaoFixedWidthImpl() throws FlooringMasteryPersistenceException {
+        this("Orders");
+    }
+
+    public FlooringMasteryOrderDaoFixedWidthImpl(String orderDirectory) throws FlooringMasteryPersistenceException {
+        ORDER_FOLDER = Paths.get(orderDirectory);
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(ORDER_FOLDER, "Orders_*.dat")) {
+            for (Path path : stream) {
+                String fileName = path.getFileName().toString();
+                LocalDate date;
+                try {
+                    date = LocalDate.parse(fileName.substring("Orders_".length(), fileName.length() - ".dat".length()),
+                            FILE_DATE_FORMAT);
+                } catch (DateTimeParseException e) {
+                    // not an order file, skip it as the file DAO skips invalid file names.
+                    continue;
+                }
+                DateFile file = new DateFile(path);
+                files.put(date, file);
+                file.open();
+                largestOrderNumber.accumulateAndGet(file.getLargestOrderNumber(), Math::max);
+            }
+        } catch (IOException e) {
+            close();
+            throw new FlooringMasteryPersistenceException("Could not load data from orders directory.", e);
+        } catch (RuntimeException e) {
+            close();
+            throw e;
+        }
+    }
+
+    @Override
+    public int getNextOrderNumber() {
+        return largestOrderNumber.incrementAndGet();
+    }
+
+    @Override
+    public Order addOrder(Order order) {
+        Objects.requireNonNull(order.getOrderDate(), "Order date cannot be null.");
+        ByteBuffer slotBytes = encode(order);
+        DateFile file = files.computeIfAbsent(order.getOrderDate(), date -> new DateFile(
+                ORDER_FOLDER.resolve("Orders_" + date.format(FILE_DATE_FORMAT) + ".dat")));
+        synchronized (file) {
+            file.open();
+            int position = file.find(order.getOrderNumber());
+            Order previousOrder = null;
+            if (position >= 0) {
+                previousOrder = file.read(file.slots[position], order.getOrderDate());
+                file.write(file.slots[position], slotBytes);
+            } else {
+                int slot = file.allocateSlot();
+                file.write(slot, slotBytes);
+                file.insert(-position - 1, order.getOrderNumber(), slot);
+            }
+            largestOrderNumber.accumulateAndGet(order.getOrderNumber(), Math::max);
+            return previousOrder;
+        }
+    }
+
+    @Override
+    public Order getOrder(LocalDate date, int orderId) {
+        DateFile file = date == null ? null : files.get(date);
+        if (file == null) {
+            return null;
+        }
+        synchronized (file) {
+            int position = file.find(orderId);
+            return position < 0 ? null : file.read(file.slots[position], date);
+        }
+    }
+
+    @Override
+    public Order editOrder(Order newOrder) throws FlooringMasteryNoSuchOrderException {
+        DateFile file = newOrder.getOrderDate() == null ? null : files.get(newOrder.getOrderDate());
+        if (file != null) {
+            ByteBuffer slotBytes = encode(newOrder);
+            synchronized (file) {
+                int position = file.find(newOrder.getOrderNumber());
+                if (position >= 0) {
+                    Order previousOrder = file.read(file.slots[position], newOrder.getOrderDate());
+                    file.write(file.slots[position], slotBytes);
+                    return previousOrder;
+                }
+            }
+        }
+        throw new FlooringMasteryNoSuchOrderException("Existing order with ID " + newOrder.getOrderNumber()
+                + " not found.");
+    }
+
+    @Override
+    public List<Order> getOrdersForDate(LocalDate date) {
+        DateFile file = date == null ? null : files.get(date);
+        if (file == null) {
+            return new ArrayList<>();
+        }
+        synchronized (file) {
+            return file.readAll(date);
+        }
+    }
+
+    @Override
+    public Map<LocalDate, Map<Integer, Order>> getAllOrders() {
+        // reads every file - not preferred, as for the file DAO.
+        Map<LocalDate, Map<Integer, Order>> allOrders = new HashMap<>();
+        for (LocalDate date : files.keySet()) {
+            Map<Integer, Order> ordersOnDate = new LinkedHashMap<>();
+            for (Order order : getOrdersForDate(date)) {
+                ordersOnDate.put(order.getOrderNumber(), order);
+            }
+            allOrders.put(date, ordersOnDate);
+        }
+        return allOrders;
+    }
+
+    @Override
+    public Order removeOrder(LocalDate date, int orderId) {
+        DateFile file = date == null ? null : files.get(date);
+        if (file == null) {
+            return null;
+        }
+        synchronized (file) {
+            int position = file.find(orderId);
+            if (position < 0) {
+                return null;
+            }
+            int slot = file.slots[position];
+            Order removedOrder = file.read(slot, date);
+            file.free(slot);
+            file.remove(position);
+            return removedOrder;
+        }
+    }
+
+    @Override
+    public void saveOrders() throws FlooringMasteryPersistenceException {
+        // every change is already written, make sure it has reached the storage device.
+        for (DateFile file : files.values()) {
+            synchronized (file) {
+                file.force();
+            }
+        }
+    }
+
+    /**
+     * Closes the order files. Every change has already been written to them.
+     */
+    @Override
+    public void close() {
+        for (DateFile file : files.values()) {
+            synchronized (file) {
+                file.close();
+            }
+        }
+    }
+
+    // ---- slot encoding ----
+
+    private static ByteBuffer encode(Order order) {
+        ByteBuffer slot = ByteBuffer.allocate(SLOT_SIZE);
+        int nullMask = 0;
+        slot.put(STATUS_OFFSET, USED);
+        slot.putInt(ORDER_NUMBER_OFFSET, order.getOrderNumber());
+
+        BigDecimal[] money = {order.getTaxRate(), order.getArea(), order.getCostPerSquareFoot(),
+                order.getLaborCostPerSquareFoot(), order.getMaterialCost(), order.getLaborCost(),
+                order.getTax(), order.getTotal()};
+        for (int field = 0; field < MONEY_FIELDS; field++) {
+            if (money[field] == null) {
+                nullMask |= 1 << field;
+            } else {
+                slot.putLong(MONEY_OFFSET + field * Long.BYTES, toScaledLong(money[field]));
+            }
+        }
+
+        if (order.getState() == null) {
+            nullMask |= NULL_STATE;
+        } else {
+            byte[] state = toBytes(order.getState(), STATE_BYTES, "State");
+            slot.put(STATE_OFFSET, (byte) state.length).put(STATE_OFFSET + 1, state);
+        }
+        if (order.getProductType() == null) {
+            nullMask |= NULL_PRODUCT_TYPE;
+        } else {
+            byte[] productType = toBytes(order.getProductType(), PRODUCT_TYPE_BYTES, "Product type");
+            slot.put(PRODUCT_TYPE_OFFSET, (byte) productType.length).put(PRODUCT_TYPE_OFFSET + 1, productType);
+        }
+        if (order.getCustomerName() == null) {
+            nullMask |= NULL_CUSTOMER_NAME;
+        } else {
+            byte[] name = toBytes(order.getCustomerName(), NAME_BYTES, "Customer name");
+            slot.putShort(NAME_OFFSET, (short) name.length).put(NAME_OFFSET + Short.BYTES, name);
+        }
+
+        slot.putShort(NULL_MASK_OFFSET, (short) nullMask);
+        return slot;
+    }
+
+    private static Order decode(ByteBuffer slot, int offset, LocalDate date) {
+        int nullMask = slot.getShort(offset + NULL_MASK_OFFSET);
+        Order order = new Order();
+        order.setOrderNumber(slot.getInt(offset + ORDER_NUMBER_OFFSET));
+        order.setOrderDate(date);
+
+        BigDecimal[] money = new BigDecimal[MONEY_FIELDS];
+        for (int field = 0; field < MONEY_FIELDS; field++) {
+            if ((nullMask & (1 << field)) == 0) {
+                money[field] = BigDecimal.valueOf(slot.getLong(offset + MONEY_OFFSET + field * Long.BYTES),
+                        MONEY_SCALE);
+            }
+        }
+        order.setTaxRate(money[0]);
+        order.setArea(money[1]);
+        order.setCostPerSquareFoot(money[2]);
+        order.setLaborCostPerSquareFoot(money[3]);
+        order.setMaterialCost(money[4]);
+        order.setLaborCost(money[5]);
+        order.setTax(money[6]);
+        order.setTotal(money[7]);
+
+        if ((nullMask & NULL_STATE) == 0) {
+            order.setState(readString(slot, offset + STATE_OFFSET + 1, slot.get(offset + STATE_OFFSET)));
+        }
+        if ((nullMask & NULL_PRODUCT_TYPE) == 0) {
+            order.setProductType(readString(slot, offset + PRODUCT_TYPE_OFFSET + 1,
+                    slot.get(offset + PRODUCT_TYPE_OFFSET)));
+        }
+        if ((nullMask & NULL_CUSTOMER_NAME) == 0) {
+            order.setCustomerName(readString(slot, offset + NAME_OFFSET + Short.BYTES,
+                    slot.getShort(offset + NAME_OFFSET)));
+        }
+        return order;
+    }
+
+    private static byte[] toBytes(String value, int maxLength, String fieldName) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > maxLength) {
+            throw new FlooringMasteryPersistenceException(fieldName + " is too long to store: " + value);
+        }
+        return bytes;
+    }
+
+    private static String readString(ByteBuffer slot, int offset, int length) {
+        byte[] bytes = new byte[length];
+        slot.get(offset, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static long toScaledLong(BigDecimal value) {
+        try {
+            return value.setScale(MONEY_SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+        } catch (ArithmeticException e) {
+            throw new FlooringMasteryPersistenceException("Order value " + value + " is too large to store.", e);
+        }
+    }
+
+    /**
+     * The slot file of one date and its slot directory. Not thread safe, callers synchronize on the file.
+     */
+    private static final class DateFile {
+
+        private final Path path;
+        private FileChannel channel;
+        // slots in the file, used or free.
+        private int slotCount;
+        // slot of each order number, sorted by order number.
+        private int[] orderNumbers = new int[8];
+        private int[] slots = new int[8];
+        private int size;
+        private int[] freeSlots = new int[8];
+        private int freeSlotCount;
+
+        DateFile(Path path) {
+            this.path = path;
+        }
+
+        // opens the file, creating it with a header if it doesn't exist, and builds its slot directory.
+        void open() {
+            if (channel != null) {
+                return;
+            }
+            try {
+                channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                        StandardOpenOption.WRITE);
+                ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+                if (channel.size() == 0) {
+                    header.putInt(MAGIC_OFFSET, MAGIC).putShort(VERSION_OFFSET, VERSION)
+                            .putShort(SLOT_SIZE_OFFSET, (short) SLOT_SIZE);
+                    writeFully(header, 0);
+                    return;
+                }
+                readFully(header, 0);
+                if (header.getInt(MAGIC_OFFSET) != MAGIC || header.getShort(VERSION_OFFSET) != VERSION
+                        || header.getShort(SLOT_SIZE_OFFSET) != SLOT_SIZE) {
+                    throw new FlooringMasteryPersistenceException("Order file has an invalid header: " + path);
+                }
+                // a slot only partly written when the file was last used is ignored, and overwritten by the next.
+                slotCount = (int) ((channel.size() - HEADER_SIZE) / SLOT_SIZE);
+
+                // read the slots a block at a time - only each slot's status and order number are needed.
+                ByteBuffer block = ByteBuffer.allocate(SLOT_SIZE * 256);
+                for (int firstSlot = 0; firstSlot < slotCount; firstSlot += 256) {
+                    int blockSlots = Math.min(256, slotCount - firstSlot);
+                    block.clear().limit(blockSlots * SLOT_SIZE);
+                    readFully(block, HEADER_SIZE + (long) firstSlot * SLOT_SIZE);
+                    for (int i = 0; i < blockSlots; i++) {
+                        int slot = firstSlot + i;
+                        if (block.get(i * SLOT_SIZE + STATUS_OFFSET) != USED) {
+                            pushFreeSlot(slot);
+                            continue;
+                        }
+                        int orderNumber = block.getInt(i * SLOT_SIZE + ORDER_NUMBER_OFFSET);
+                        int position = find(orderNumber);
+                        if (position >= 0) {
+                            throw new FlooringMasteryPersistenceException("Order file holds order " + orderNumber
+                                    + " twice: " + path);
+                        }
+                        insert(-position - 1, orderNumber, slot);
+                    }
+                }
+            } catch (IOException e) {
+                throw new FlooringMasteryPersistenceException("Couldn't load an order file.", e);
+            }
+        }
+
+        int getLargestOrderNumber() {
+            return size == 0 ? -1 : orderNumbers[size - 1];
+        }
+
+        Order read(int slot, LocalDate date) {
+            ByteBuffer slotBytes = ByteBuffer.allocate(SLOT_SIZE);
+            try {
+                readFully(slotBytes, slotPosition(slot));
+            } catch (IOException e) {
+                throw new FlooringMasteryPersistenceException("Couldn't load an order.", e);
+            }
+            return decode(slotBytes, 0, date);
+        }
+
+        // reads every slot in one read, and decodes the used ones in order number order.
+        List<Order> readAll(LocalDate date) {
+            List<Order> orders = new ArrayList<>(size);
+            if (size == 0) {
+                return orders;
+            }
+            ByteBuffer allSlots = ByteBuffer.allocate(slotCount * SLOT_SIZE);
+            try {
+                readFully(allSlots, HEADER_SIZE);
+            } catch (IOException e) {
+                throw new FlooringMasteryPersistenceException("Couldn't load an order file.", e);
+            }
+            for (int i = 0; i < size; i++) {
+                orders.add(decode(allSlots, slots[i] * SLOT_SIZE, date));
+            }
+            return orders;
+        }
+
+        void write(int slot, ByteBuffer slotBytes) {
+            try {
+                writeFully(slotBytes.duplicate().clear(), slotPosition(slot));
+            } catch (IOException e) {
+                throw new FlooringMasteryPersistenceException("Could not save order data.", e);
+            }
+        }
+
+        // marks the slot free with a single byte write.
+        void free(int slot) {
+            try {
+                writeFully(ByteBuffer.wrap(new byte[]{FREE}), slotPosition(slot) + STATUS_OFFSET);
+            } catch (IOException e) {
+                throw new FlooringMasteryPersistenceException("Could not save order data.", e);
+            }
+            pushFreeSlot(slot);
+        }
+
+        int allocateSlot() {
+            return freeSlotCount > 0 ? freeSlots[--freeSlotCount] : slotCount++;
+        }
+
+        void force() {
+            try {
+                if (channel != null) {
+                    channel.force(false);
+                }
+            } catch (IOException e) {
+                throw new FlooringMasteryPersistenceException("Could not save order data.", e);
+            }
+        }
+
+        void close() {
+            try {
+                if (channel != null) {
+                    channel.force(false);
+                    channel.close();
+                }
+            } catch (IOException e) {
+                throw new FlooringMasteryPersistenceException("Could not save order data.", e);
+            } finally {
+                channel = null;
+            }
+        }
+
+        // position of the order number, or (-(insertion point) - 1) if it isn't present.
+        int find(int orderNumber) {
+            return Arrays.binarySearch(orderNumbers, 0, size, orderNumber);
+        }
+
+        void insert(int position, int orderNumber, int slot) {
+            if (size == orderNumbers.length) {
+                orderNumbers = Arrays.copyOf(orderNumbers, size * 2);
+                slots = Arrays.copyOf(slots, size * 2);
+            }
+            System.arraycopy(orderNumbers, position, orderNumbers, position + 1, size - position);
+            System.arraycopy(slots, position, slots, position + 1, size - position);
+            orderNumbers[position] = orderNumber;
+            slots[position] = slot;
+            size++;
+        }
+
+        void remove(int position) {
+            System.arraycopy(orderNumbers, position + 1, orderNumbers, position, size - position - 1);
+            System.arraycopy(slots, position + 1, slots, position, size - position - 1);
+            size--;
+        }
+
+        private void pushFreeSlot(int slot) {
+            if (freeSlotCount == freeSlots.length) {
+                freeSlots = Arrays.copyOf(freeSlots, freeSlotCount * 2);
+            }
+            freeSlots[freeSlotCount++] = slot;
+        }
+
+        private static long slotPosition(int slot) {
+            return HEADER_SIZE + (long) slot * SLOT_SIZE;
+        }
+
+        private void readFully(ByteBuffer buffer, long position) throws IOException {
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, position + buffer.position()) < 0) {
+                    throw new IOException("Unexpected end of order file " + path);
+                }
+            }
+        }
+
+        private void writeFully(ByteBuffer buffer, long position) throws IOException {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer, position + buffer.position());
+            }
+        }
+    }
+}
@@ -0,0 +1,303 @@
+package com.sg.floormaster.dao;
+
+import com.sg.floormaster.model.Order;
+
+import java.sql.*;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Order DAO backed by an embedded H2 database.
+ *
+ * Orders are held in one table, keyed by (order_date, order_number) with a second index on order_number alone.
+ * Changes are held in memory until saveOrders(), which writes them all as JDBC batches - a batch of upserts
+ * and a batch of deletes - in a single transaction. Reads query the database and apply the unsaved changes
+ * on top, so they see every change whether saved or not. If a save fails it is rolled back and the
+ * changes stay unsaved, to be written by the next save.
+ *
+ * Holds one connection for its lifetime. Thread safe, calls are serialised. close() closes the connection,
+ * unsaved changes are lost.
+ */
+public class FlooringMasteryOrderDaoJdbcImpl implements FlooringMasteryOrderDao, AutoCloseable {
+
+    private static final String COLUMNS = "order_date, order_number, customer_name, state, tax_rate, "
+            + "product_type, area, cost_per_square_foot, labor_cost_per_square_foot, material_cost, labor_cost, "
+            + "tax, total";
+    private static final String CREATE_TABLE = "CREATE TABLE IF NOT EXISTS orders ("
+            + "order_date DATE NOT NULL, "
+            + "order_number INT NOT NULL, "
+            + "customer_name VARCHAR(1000), "
+            + "state VARCHAR(100), "
+            + "tax_rate DECIMAL(19, 2), "
+            + "product_type VARCHAR(100), "
+            + "area DECIMAL(19, 2), "
+            + "cost_per_square_foot DECIMAL(19, 2), "
+            + "labor_cost_per_square_foot DECIMAL(19, 2), "
+            + "material_cost DECIMAL(19, 2), "
+            + "labor_cost DECIMAL(19, 2), "
+            + "tax DECIMAL(19, 2), "
+            + "total DECIMAL(19, 2), "
+            // the primary key is the (order_date, order_number) index.
+            + "PRIMARY KEY (order_date, order_number))";
+    private static final String CREATE_ORDER_NUMBER_INDEX =
+            "CREATE INDEX IF NOT EXISTS orders_order_number ON orders (order_number)";
+    private static final String SELECT = "SELECT " + COLUMNS + " FROM orders";
+    private static final String UPSERT = "MERGE INTO orders (" + COLUMNS + ") KEY (order_date, order_number) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String DELETE = "DELETE FROM orders WHERE order_date = ? AND order_number = ?";
+
+    // held in the unsaved changes for a removed order.
+    private static final Order REMOVED = new Order();
+
+    private final Connection connection;
+    // orders added, edited or removed since the last save, by date then order number.
+    private final Map<LocalDate, Map<Integer, Order>> unsavedChanges = new HashMap<>();
+    private final AtomicInteger largestOrderNumber = new AtomicInteger();
+
+    // default constructor
+    public FlooringMasteryOrderDaoJdbcImpl() throws FlooringMasteryPersistenceException {
+        this("jdbc:h2:./Orders/orders");
+    }
+
+    /**
+     * @param jdbcUrl URL of the database, e.g. "jdbc:h2:./Orders/orders" for a database file in the Orders folder.
+     */
+    public FlooringMasteryOrderDaoJdbcImpl(String jdbcUrl) throws FlooringMasteryPersistenceException {
+        try {
+            connection = DriverManager.getConnection(jdbcUrl);
+        } catch (SQLException e) {
+            throw new FlooringMasteryPersistenceException("Could not connect to the order database.", e);
+        }
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(CREATE_TABLE);
+            statement.execute(CREATE_ORDER_NUMBER_INDEX);
+            // answered from the order_number index.
+            try (ResultSet result = statement.executeQuery("SELECT MAX(order_number) FROM orders")) {
+                result.next();
+                largestOrderNumber.set(result.getObject(1) == null ? -1 : result.getInt(1));
+            }
+        } catch (SQLException e) {
+            close();
+            throw new FlooringMasteryPersistenceException("Could not load data from the order database.", e);
+        }
+    }
+
+    @Override
+    public int getNextOrderNumber() {
+        return largestOrderNumber.incrementAndGet();
+    }
+
+    @Override
+    public synchronized Order addOrder(Order order) {
+        Objects.requireNonNull(order.getOrderDate(), "Order date cannot be null.");
+        Order previousOrder = getOrder(order.getOrderDate(), order.getOrderNumber());
+        unsavedChanges.computeIfAbsent(order.getOrderDate(), date -> new HashMap<>())
+                .put(order.getOrderNumber(), order);
+        largestOrderNumber.accumulateAndGet(order.getOrderNumber(), Math::max);
+        return previousOrder;
+    }
+
+    @Override
+    public synchronized Order getOrder(LocalDate date, int orderId) {
+        if (date == null) {
+            return null;
+        }
+        Order unsavedOrder = unsavedChanges.getOrDefault(date, Map.of()).get(orderId);
+        if (unsavedOrder != null) {
+            return unsavedOrder == REMOVED ? null : unsavedOrder;
+        }
+        List<Order> orders = query(SELECT + " WHERE order_date = ? AND order_number = ?", date, orderId);
+        return orders.isEmpty() ? null : orders.get(0);
+    }
+
+    @Override
+    public synchronized Order editOrder(Order newOrder) throws FlooringMasteryNoSuchOrderException {
+        Order previousOrder = getOrder(newOrder.getOrderDate(), newOrder.getOrderNumber());
+        if (previousOrder == null) {
+            throw new FlooringMasteryNoSuchOrderException("Existing order with ID " + newOrder.getOrderNumber()
+                    + " not found.");
+        }
+        unsavedChanges.computeIfAbsent(newOrder.getOrderDate(), date -> new HashMap<>())
+                .put(newOrder.getOrderNumber(), newOrder);
+        return previousOrder;
+    }
+
+    @Override
+    public synchronized List<Order> getOrdersForDate(LocalDate date) {
+        if (date == null) {
+            return new ArrayList<>();
+        }
+        List<Order> orders = query(SELECT + " WHERE order_date = ? ORDER BY order_number", date);
+        Map<Integer, Order> changes = unsavedChanges.get(date);
+        return changes == null ? orders : applyChanges(orders, changes);
+    }
+
+    @Override
+    public synchronized List<Order> getOrdersForDateRange(LocalDate fromDate, LocalDate toDate) {
+        List<Order> orders = query(SELECT + " WHERE order_date BETWEEN ? AND ? ORDER BY order_date, order_number",
+                fromDate, toDate);
+        if (unsavedChanges.isEmpty()) {
+            return orders;
+        }
+        // apply each date's changes to that date's orders.
+        Map<LocalDate, List<Order>> ordersByDate = new TreeMap<>();
+        for (Order order : orders) {
+            ordersByDate.computeIfAbsent(order.getOrderDate(), date -> new ArrayList<>()).add(order);
+        }
+        for (LocalDate date : unsavedChanges.keySet()) {
+            if (!date.isBefore(fromDate) && !date.isAfter(toDate)) {
+                ordersByDate.putIfAbsent(date, new ArrayList<>());
+            }
+        }
+        List<Order> ordersInRange = new ArrayList<>();
+        ordersByDate.forEach((date, ordersOnDate) -> ordersInRange.addAll(
+                applyChanges(ordersOnDate, unsavedChanges.getOrDefault(date, Map.of()))));
+        return ordersInRange;
+    }
+
+    @Override
+    public synchronized Map<LocalDate, Map<Integer, Order>> getAllOrders() {
+        // reads the whole table - not preferred, as for the file DAO.
+        Map<LocalDate, Map<Integer, Order>> allOrders = new HashMap<>();
+        for (Order order : query(SELECT + " ORDER BY order_date, order_number")) {
+            allOrders.computeIfAbsent(order.getOrderDate(), date -> new LinkedHashMap<>())
+                    .put(order.getOrderNumber(), order);
+        }
+        unsavedChanges.forEach((date, changes) -> {
+            Map<Integer, Order> ordersOnDate = allOrders.computeIfAbsent(date, d -> new LinkedHashMap<>());
+            changes.forEach((orderNumber, order) -> {
+                if (order == REMOVED) {
+                    ordersOnDate.remove(orderNumber);
+                } else {
+                    ordersOnDate.put(orderNumber, order);
+                }
+            });
+        });
+        return allOrders;
+    }
+
+    @Override
+    public synchronized Order removeOrder(LocalDate date, int orderId) {
+        Order removedOrder = getOrder(date, orderId);
+        if (removedOrder != null) {
+            unsavedChanges.computeIfAbsent(date, d -> new HashMap<>()).put(orderId, REMOVED);
+        }
+        return removedOrder;
+    }
+
+    @Override
+    public synchronized void saveOrders() throws FlooringMasteryPersistenceException {
+        if (unsavedChanges.isEmpty()) {
+            return;
+        }
+        try {
+            connection.setAutoCommit(false);
+            try (PreparedStatement upsert = connection.prepareStatement(UPSERT);
+                 PreparedStatement delete = connection.prepareStatement(DELETE)) {
+                for (Map.Entry<LocalDate, Map<Integer, Order>> changesOnDate : unsavedChanges.entrySet()) {
+                    for (Map.Entry<Integer, Order> change : changesOnDate.getValue().entrySet()) {
+                        if (change.getValue() == REMOVED) {
+                            delete.setObject(1, changesOnDate.getKey());
+                            delete.setInt(2, change.getKey());
+                            delete.addBatch();
+                        } else {
+                            setOrder(upsert, change.getValue());
+                            upsert.addBatch();
+                        }
+                    }
+                }
+                upsert.executeBatch();
+                delete.executeBatch();
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            throw new FlooringMasteryPersistenceException("Could not save order data.", e);
+        }
+        unsavedChanges.clear();
+    }
+
+    /**
+     * Closes the database connection. Unsaved changes are lost.
+     */
+    @Override
+    public synchronized void close() {
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            throw new FlooringMasteryPersistenceException("Could not close the order database.", e);
+        }
+    }
+
+    // replaces and removes orders in the list, in order number order, by the changes on their date.
+    private static List<Order> applyChanges(List<Order> orders, Map<Integer, Order> changes) {
+        Map<Integer, Order> ordersByNumber = new TreeMap<>();
+        for (Order order : orders) {
+            ordersByNumber.put(order.getOrderNumber(), order);
+        }
+        changes.forEach((orderNumber, order) -> {
+            if (order == REMOVED) {
+                ordersByNumber.remove(orderNumber);
+            } else {
+                ordersByNumber.put(orderNumber, order);
+            }
+        });
+        return new ArrayList<>(ordersByNumber.values());
+    }
+
+    private List<Order> query(String sql, Object... parameters) {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            for (int i = 0; i < parameters.length; i++) {
+                statement.setObject(i + 1, parameters[i]);
+            }
+            List<Order> orders = new ArrayList<>();
+            try (ResultSet result = statement.executeQuery()) {
+                while (result.next()) {
+                    orders.add(readOrder(result));
+                }
+            }
+            return orders;
+        } catch (SQLException e) {
+            throw new FlooringMasteryPersistenceException("Could not load data from the order database.", e);
+        }
+    }
+
+    private static Order readOrder(ResultSet result) throws SQLException {
+        Order order = new Order();
+        order.setOrderDate(result.getObject("order_date", LocalDate.class));
+        order.setOrderNumber(result.getInt("order_number"));
+        order.setCustomerName(result.getString("customer_name"));
+        order.setState(result.getString("state"));
+        order.setTaxRate(result.getBigDecimal("tax_rate"));
+        order.setProductType(result.getString("product_type"));
+        order.setArea(result.getBigDecimal("area"));
+        order.setCostPerSquareFoot(result.getBigDecimal("cost_per_square_foot"));
+        order.setLaborCostPerSquareFoot(result.getBigDecimal("labor_cost_per_square_foot"));
+        order.setMaterialCost(result.getBigDecimal("material_cost"));
+        order.setLaborCost(result.getBigDecimal("labor_cost"));
+        order.setTax(result.getBigDecimal("tax"));
+        order.setTotal(result.getBigDecimal("total"));
+        return order;
+    }
+
+    private static void setOrder(PreparedStatement statement, Order order) throws SQLException {
+        statement.setObject(1, order.getOrderDate());
+        statement.setInt(2, order.getOrderNumber());
+        statement.setString(3, order.getCustomerName());
+        statement.setString(4, order.getState());
+        statement.setBigDecimal(5, order.getTaxRate());
+        statement.setString(6, order.getProductType());
+        statement.setBigDecimal(7, order.getArea());
+        statement.setBigDecimal(8, order.getCostPerSquareFoot());
+        statement.setBigDecimal(9, order.getLaborCostPerSquareFoot());
+        statement.setBigDecimal(10, order.getMaterialCost());
+        statement.setBigDecimal(11, order.getLaborCost());
+        statement.setBigDecimal(12, order.getTax());
+        statement.setBigDecimal(13, order.getTotal());
+    }
+}
@@ -0,0 +1,869 @@
+package com.sg.floormaster.dao;
+
+import com.sg.floormaster.model.Order;
+
+import java.io.*;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Log-structured order DAO, for write-heavy workloads such as imports and repricing runs.
+ *
+ * Orders are keyed by (date, order number). Every change goes to an in-memory memtable and is appended to
+ * a write-ahead log. When the memtable holds memtableEntries orders it is flushed, in the background,
+ * to an immutable segment file of orders sorted by key, each with a Bloom filter of its keys.
+ * New segments go to level 0. Once level 0 has l0CompactionTrigger segments they are merged into level 1,
+ * and whenever a level n >= 1 holds more than memtableEntries * levelFanout^n orders, one of its segments
+ * is merged into level n + 1. Levels from 1 hold segments with no overlapping keys, so a lookup reads
+ * at most one segment per level, and the Bloom filters skip most segments without a read.
+ *
+ * The settings trade write amplification - the times each order is rewritten by compaction - against reads:
+ * a larger fanout or level 0 trigger rewrites orders less often but leaves more segments for lookups to check,
+ * and more Bloom filter bits per key skip more of them. getWriteAmplification() reports the result.
+ *
+ * The engine's files - segments, write-ahead logs and a MANIFEST listing the segments of each level - are kept
+ * in its own directory, the "Orders_MMddyyyy.txt" files are not read or written. Changes are appended to the
+ * write-ahead log as they are made, saveOrders() forces it to the storage device. Reads run concurrently with
+ * each other and with writes, writes are serialised. close() waits for background work then closes the files.
+ */
+public class FlooringMasteryOrderDaoLsmImpl implements FlooringMasteryOrderDao, AutoCloseable {
+
+    public static final int DEFAULT_MEMTABLE_ENTRIES = 4096;
+    public static final int DEFAULT_LEVEL_FANOUT = 10;
+    public static final int DEFAULT_L0_COMPACTION_TRIGGER = 4;
+    public static final int DEFAULT_BLOOM_BITS_PER_KEY = 10;
+
+    private static final String MANIFEST = "MANIFEST";
+    private static final byte WAL_PUT = 1;
+    private static final byte WAL_REMOVE = 2;
+    private static final int WAL_RECORD_HEADER = 1 + Long.BYTES + Integer.BYTES;
+    // held in the memtable for a removed order.
+    private static final Order TOMBSTONE = new Order();
+
+    private static final int MONEY_FIELDS = 8;
+    private static final int NULL_CUSTOMER_NAME = 1 << MONEY_FIELDS;
+    private static final int NULL_STATE = 1 << (MONEY_FIELDS + 1);
+    private static final int NULL_PRODUCT_TYPE = 1 << (MONEY_FIELDS + 2);
+    private static final int MONEY_SCALE = 2;
+
+    private final Path directory;
+    private final int memtableEntries;
+    private final int levelFanout;
+    private final int l0CompactionTrigger;
+    private final int bloomBitsPerKey;
+
+    // ---- memtables and write-ahead log, changed under writeMonitor ----
+    private final Object writeMonitor = new Object();
+    private volatile ConcurrentSkipListMap<Long, Order> memtable = new ConcurrentSkipListMap<>();
+    private int memtableSize;
+    // the previous memtable while it is written to a segment, null when there is none.
+    private volatile ConcurrentSkipListMap<Long, Order> flushing;
+    private FileChannel wal;
+    private Path walPath;
+    private Path flushingWalPath;
+
+    // ---- segments ----
+    // levels.get(0) is level 0, newest segment first. Later levels are sorted by first key.
+    private volatile List<List<OrderSegment>> levels = List.of(List.of());
+    // segments are read under the read lock, replaced segments are only closed under the write lock.
+    private final ReadWriteLock segmentLock = new ReentrantReadWriteLock();
+    // the last key compacted out of each level, so each level's segments take turns being compacted.
+    private final Map<Integer, Long> compactionPointers = new HashMap<>();
+
+    private final ExecutorService background;
+    private volatile Exception backgroundFailure;
+    private final AtomicLong nextFileId = new AtomicLong();
+    private final AtomicInteger largestOrderNumber = new AtomicInteger(-1);
+    private final AtomicLong flushedBytes = new AtomicLong();
+    private final AtomicLong compactedBytes = new AtomicLong();
+
+    // default constructor
+    public FlooringMasteryOrderDaoLsmImpl() throws FlooringMasteryPersistenceException {
+        this("Orders/lsm");
+    }
+
+    public FlooringMasteryOrderDaoLsmImpl(String directory) throws FlooringMasteryPersistenceException {
+        this(directory, DEFAULT_MEMTABLE_ENTRIES, DEFAULT_LEVEL_FANOUT, DEFAULT_L0_COMPACTION_TRIGGER,
+                DEFAULT_BLOOM_BITS_PER_KEY);
+    }
+
+    /**
+     * @param directory directory holding the engine's files, created if it doesn't exist.
+     * @param memtableEntries orders held in memory before they are flushed to a segment, also the segment size.
+     * @param levelFanout growth in size of each level over the one before it.
+     * @param l0CompactionTrigger number of level 0 segments that are merged into level 1.
+     * @param bloomBitsPerKey bits of Bloom filter per order in each segment, 0 for no filters.
+     */
+    public FlooringMasteryOrderDaoLsmImpl(String directory, int memtableEntries, int levelFanout,
+                                          int l0CompactionTrigger, int bloomBitsPerKey)
+            throws FlooringMasteryPersistenceException {
+        if (memtableEntries < 1 || levelFanout < 2 || l0CompactionTrigger < 1 || bloomBitsPerKey < 0) {
+            throw new IllegalArgumentException("Invalid LSM settings.");
+        }
+        this.directory = Paths.get(directory);
+        this.memtableEntries = memtableEntries;
+        this.levelFanout = levelFanout;
+        this.l0CompactionTrigger = l0CompactionTrigger;
+        this.bloomBitsPerKey = bloomBitsPerKey;
+        background = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "order-lsm-compactor");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        try {
+            Files.createDirectories(this.directory);
+            openSegments();
+            recoverWriteAheadLogs();
+            synchronized (writeMonitor) {
+                openWal();
+            }
+        } catch (IOException e) {
+            close();
+            throw new FlooringMasteryPersistenceException("Could not load order storage.", e);
+        } catch (RuntimeException e) {
+            close();
+            throw e;
+        }
+        // a previous run may have stopped before compacting.
+        background.execute(this::compactInBackground);
+    }
+
+    @Override
+    public int getNextOrderNumber() {
+        return largestOrderNumber.incrementAndGet();
+    }
+
+    @Override
+    public Order addOrder(Order order) {
+        Objects.requireNonNull(order.getOrderDate(), "Order date cannot be null.");
+        long key = key(order.getOrderDate(), order.getOrderNumber());
+        synchronized (writeMonitor) {
+            Order previousOrder = find(key);
+            write(key, order);
+            largestOrderNumber.accumulateAndGet(order.getOrderNumber(), Math::max);
+            return previousOrder;
+        }
+    }
+
+    @Override
+    public Order getOrder(LocalDate date, int orderId) {
+        return date == null ? null : find(key(date, orderId));
+    }
+
+    @Override
+    public Order editOrder(Order newOrder) throws FlooringMasteryNoSuchOrderException {
+        if (newOrder.getOrderDate() != null) {
+            long key = key(newOrder.getOrderDate(), newOrder.getOrderNumber());
+            synchronized (writeMonitor) {
+                Order previousOrder = find(key);
+                if (previousOrder != null) {
+                    write(key, newOrder);
+                    return previousOrder;
+                }
+            }
+        }
+        throw new FlooringMasteryNoSuchOrderException("Existing order with ID " + newOrder.getOrderNumber()
+                + " not found.");
+    }
+
+    @Override
+    public List<Order> getOrdersForDate(LocalDate date) {
+        return date == null ? new ArrayList<>() : getOrdersForDateRange(date, date);
+    }
+
+    @Override
+    public List<Order> getOrdersForDateRange(LocalDate fromDate, LocalDate toDate) {
+        if (toDate.isBefore(fromDate)) {
+            return new ArrayList<>();
+        }
+        return new ArrayList<>(scan(key(fromDate, 0), key(toDate, -1)).values());
+    }
+
+    @Override
+    public Map<LocalDate, Map<Integer, Order>> getAllOrders() {
+        // reads every segment - not preferred, as for the file DAO.
+        Map<LocalDate, Map<Integer, Order>> allOrders = new HashMap<>();
+        for (Order order : scan(Long.MIN_VALUE, Long.MAX_VALUE).values()) {
+            allOrders.computeIfAbsent(order.getOrderDate(), date -> new LinkedHashMap<>())
+                    .put(order.getOrderNumber(), order);
+        }
+        return allOrders;
+    }
+
+    @Override
+    public Order removeOrder(LocalDate date, int orderId) {
+        if (date == null) {
+            return null;
+        }
+        long key = key(date, orderId);
+        synchronized (writeMonitor) {
+            Order removedOrder = find(key);
+            if (removedOrder != null) {
+                write(key, TOMBSTONE);
+            }
+            return removedOrder;
+        }
+    }
+
+    @Override
+    public void saveOrders() throws FlooringMasteryPersistenceException {
+        // every change is already in the write-ahead log, make sure it has reached the storage device.
+        synchronized (writeMonitor) {
+            try {
+                wal.force(false);
+            } catch (IOException e) {
+                throw new FlooringMasteryPersistenceException("Could not save order data.", e);
+            }
+        }
+    }
+
+    /**
+     * Flushes the memtable to a segment and waits for the compactions that follow to finish.
+     * @throws FlooringMasteryPersistenceException if a flush or compaction has failed.
+     */
+    public void flush() throws FlooringMasteryPersistenceException {
+        synchronized (writeMonitor) {
+            if (memtableSize > 0) {
+                rotateMemtable();
+            }
+        }
+        try {
+            // background work runs in order, so this runs once the flush and its compactions are done.
+            background.submit(() -> { }).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new FlooringMasteryPersistenceException("Interrupted waiting for order storage.", e);
+        } catch (ExecutionException e) {
+            throw new FlooringMasteryPersistenceException("Could not save order data.", e.getCause());
+        }
+        checkBackgroundFailure();
+    }
+
+    /**
+     * Returns the bytes written to segments by flushes and compactions, over the bytes written by flushes.
+     * 1 means no order has been rewritten by compaction.
+     * @return write amplification of the segments written since the DAO was created.
+     */
+    public double getWriteAmplification() {
+        long flushed = flushedBytes.get();
+        return flushed == 0 ? 1 : (double) (flushed + compactedBytes.get()) / flushed;
+    }
+
+    /**
+     * @return number of segments in each level, level 0 first.
+     */
+    public List<Integer> getLevelSegmentCounts() {
+        return levels.stream().map(List::size).toList();
+    }
+
+    /**
+     * Waits for background work, then closes the engine's files. Orders still in the memtable are kept
+     * in the write-ahead log and recovered when the directory is next opened.
+     */
+    @Override
+    public void close() {
+        background.shutdown();
+        try {
+            background.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            synchronized (writeMonitor) {
+                if (wal != null) {
+                    wal.force(false);
+                    wal.close();
+                }
+            }
+            segmentLock.writeLock().lock();
+            try {
+                for (List<OrderSegment> level : levels) {
+                    for (OrderSegment segment : level) {
+                        segment.close();
+                    }
+                }
+            } finally {
+                segmentLock.writeLock().unlock();
+            }
+        } catch (IOException e) {
+            throw new FlooringMasteryPersistenceException("Could not save order data.", e);
+        }
+    }
+
+    // ---- keys ----
+
+    // date in the high 32 bits, so keys sort by date then order number.
+    private static long key(LocalDate date, int orderNumber) {
+        return (date.toEpochDay() << 32) | (orderNumber & 0xFFFFFFFFL);
+    }
+
+    private static LocalDate dateOf(long key) {
+        return LocalDate.ofEpochDay(key >> 32);
+    }
+
+    // ---- reads ----
+
+    private Order find(long key) {
+        // newest first: the memtable, the memtable being flushed, then the segments.
+        Order order = memtable.get(key);
+        ConcurrentSkipListMap<Long, Order> flushingMemtable = flushing;
+        if (order == null && flushingMemtable != null) {
+            order = flushingMemtable.get(key);
+        }
+        if (order != null) {
+            return order == TOMBSTONE ? null : order;
+        }
+
+        segmentLock.readLock().lock();
+        try {
+            List<List<OrderSegment>> current = levels;
+            for (OrderSegment segment : current.get(0)) {
+                byte[] value = segment.get(key);
+                if (value != null) {
+                    return value == OrderSegment.TOMBSTONE ? null : decode(key, value);
+                }
+            }
+            for (int level = 1; level < current.size(); level++) {
+                OrderSegment segment = segmentHolding(current.get(level), key);
+                byte[] value = segment == null ? null : segment.get(key);
+                if (value != null) {
+                    return value == OrderSegment.TOMBSTONE ? null : decode(key, value);
+                }
+            }
+            return null;
+        } catch (IOException e) {
+            throw new FlooringMasteryPersistenceException("Couldn't load an order.", e);
+        } finally {
+            segmentLock.readLock().unlock();
+        }
+    }
+
+    // the segment of a level from 1 whose key range holds the key, or null.
+    private static OrderSegment segmentHolding(List<OrderSegment> level, long key) {
+        int low = 0;
+        int high = level.size() - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            OrderSegment segment = level.get(middle);
+            if (key < segment.getFirstKey()) {
+                high = middle - 1;
+            } else if (key > segment.getLastKey()) {
+                low = middle + 1;
+            } else {
+                return segment;
+            }
+        }
+        return null;
+    }
+
+    // the current orders with keys from fromKey to toKey inclusive, in key order.
+    private SortedMap<Long, Order> scan(long fromKey, long toKey) {
+        // apply oldest first, so newer records replace older ones.
+        SortedMap<Long, Order> orders = new TreeMap<>();
+        ConcurrentSkipListMap<Long, Order> currentMemtable = memtable;
+        ConcurrentSkipListMap<Long, Order> flushingMemtable = flushing;
+        segmentLock.readLock().lock();
+        try {
+            List<List<OrderSegment>> current = levels;
+            for (int level = current.size() - 1; level >= 0; level--) {
+                List<OrderSegment> segments = current.get(level);
+                for (int i = segments.size() - 1; i >= 0; i--) {
+                    if (segments.get(i).overlaps(fromKey, toKey)) {
+                        segments.get(i).scan(fromKey, toKey, (key, value) -> orders.put(key, decode(key, value)));
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new FlooringMasteryPersistenceException("Couldn't load orders.", e);
+        } finally {
+            segmentLock.readLock().unlock();
+        }
+        if (flushingMemtable != null) {
+            orders.putAll(flushingMemtable.subMap(fromKey, true, toKey, true));
+        }
+        orders.putAll(currentMemtable.subMap(fromKey, true, toKey, true));
+        orders.values().removeIf(order -> order == null || order == TOMBSTONE);
+        return orders;
+    }
+
+    // ---- writes, callers hold writeMonitor ----
+
+    private void write(long key, Order order) {
+        checkBackgroundFailure();
+        byte[] value = order == TOMBSTONE ? null : encode(order);
+        ByteBuffer record = ByteBuffer.allocate(WAL_RECORD_HEADER + (value == null ? 0 : value.length));
+        record.put(value == null ? WAL_REMOVE : WAL_PUT).putLong(key).putInt(value == null ? 0 : value.length);
+        if (value != null) {
+            record.put(value);
+        }
+        try {
+            writeFully(wal, record.flip());
+        } catch (IOException e) {
+            throw new FlooringMasteryPersistenceException("Could not save order data.", e);
+        }
+        if (memtable.put(key, order) == null) {
+            memtableSize++;
+        }
+        if (memtableSize >= memtableEntries) {
+            rotateMemtable();
+        }
+    }
+
+    // hands the memtable to the background thread to flush, waiting for any previous flush to finish first.
+    private void rotateMemtable() {
+        try {
+            while (flushing != null) {
+                checkBackgroundFailure();
+                writeMonitor.wait(100);
+            }
+            wal.force(false);
+            wal.close();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new FlooringMasteryPersistenceException("Interrupted waiting for order storage.", e);
+        } catch (IOException e) {
+            throw new FlooringMasteryPersistenceException("Could not save order data.", e);
+        }
+        flushing = memtable;
+        flushingWalPath = walPath;
+        memtable = new ConcurrentSkipListMap<>();
+        memtableSize = 0;
+        openWal();
+        background.execute(this::flushInBackground);
+    }
+
+    private void openWal() {
+        walPath = directory.resolve("wal-" + nextFileId.getAndIncrement() + ".log");
+        try {
+            wal = FileChannel.open(walPath, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        } catch (IOException e) {
+            throw new FlooringMasteryPersistenceException("Could not save order data.", e);
+        }
+    }
+
+    private void checkBackgroundFailure() {
+        if (backgroundFailure != null) {
+            throw new FlooringMasteryPersistenceException("Order storage failed in the background.",
+                    backgroundFailure);
+        }
+    }
+
+    // ---- background flush and compaction ----
+
+    private void flushInBackground() {
+        try {
+            OrderSegment segment = writeSegment(flushing.entrySet().iterator(), flushing.size());
+            if (segment != null) {
+                flushedBytes.addAndGet(segment.getSizeBytes());
+                List<List<OrderSegment>> newLevels = copyLevels();
+                newLevels.get(0).add(0, segment);
+                install(newLevels, List.of());
+            }
+            Files.deleteIfExists(flushingWalPath);
+            synchronized (writeMonitor) {
+                flushing = null;
+                writeMonitor.notifyAll();
+            }
+            compact();
+        } catch (IOException | RuntimeException e) {
+            backgroundFailure = e;
+        }
+    }
+
+    private void compactInBackground() {
+        try {
+            compact();
+        } catch (IOException | RuntimeException e) {
+            backgroundFailure = e;
+        }
+    }
+
+    private void compact() throws IOException {
+        while (true) {
+            List<List<OrderSegment>> current = levels;
+            if (current.get(0).size() >= l0CompactionTrigger) {
+                mergeInto(1, current.get(0));
+                continue;
+            }
+            boolean merged = false;
+            long maxOrders = memtableEntries;
+            for (int level = 1; level < current.size() && !merged; level++) {
+                maxOrders *= levelFanout;
+                List<OrderSegment> segments = current.get(level);
+                if (segments.stream().mapToLong(OrderSegment::size).sum() > maxOrders) {
+                    mergeInto(level + 1, List.of(nextSegmentToCompact(level, segments)));
+                    merged = true;
+                }
+            }
+            if (!merged) {
+                return;
+            }
+        }
+    }
+
+    private OrderSegment nextSegmentToCompact(int level, List<OrderSegment> segments) {
+        Long pointer = compactionPointers.get(level);
+        OrderSegment next = segments.get(0);
+        if (pointer != null) {
+            for (OrderSegment segment : segments) {
+                if (segment.getFirstKey() > pointer) {
+                    next = segment;
+                    break;
+                }
+            }
+        }
+        compactionPointers.put(level, next.getLastKey());
+        return next;
+    }
+
+    // merges the inputs, newest first, with the segments they overlap in the output level.
+    private void mergeInto(int outputLevel, List<OrderSegment> inputs) throws IOException {
+        List<List<OrderSegment>> current = levels;
+        long fromKey = inputs.stream().mapToLong(OrderSegment::getFirstKey).min().orElseThrow();
+        long toKey = inputs.stream().mapToLong(OrderSegment::getLastKey).max().orElseThrow();
+        List<OrderSegment> overlapped = new ArrayList<>();
+        if (outputLevel < current.size()) {
+            for (OrderSegment segment : current.get(outputLevel)) {
+                if (segment.overlaps(fromKey, toKey)) {
+                    overlapped.add(segment);
+                }
+            }
+        }
+        List<OrderSegment> sources = new ArrayList<>(inputs);
+        sources.addAll(overlapped);
+        // removals only need keeping while a deeper level may hold an older record of the order.
+        boolean dropTombstones = true;
+        for (int level = outputLevel + 1; level < current.size(); level++) {
+            dropTombstones &= current.get(level).isEmpty();
+        }
+
+        List<OrderSegment> outputs = mergeSegments(sources, dropTombstones);
+        for (OrderSegment output : outputs) {
+            compactedBytes.addAndGet(output.getSizeBytes());
+        }
+
+        List<List<OrderSegment>> newLevels = copyLevels();
+        while (newLevels.size() <= outputLevel) {
+            newLevels.add(new ArrayList<>());
+        }
+        for (List<OrderSegment> level : newLevels) {
+            level.removeAll(sources);
+        }
+        newLevels.get(outputLevel).addAll(outputs);
+        newLevels.get(outputLevel).sort(Comparator.comparingLong(OrderSegment::getFirstKey));
+        install(newLevels, sources);
+    }
+
+    // k-way merge - of records with the same key, the one from the earliest source wins.
+    private List<OrderSegment> mergeSegments(List<OrderSegment> sources, boolean dropTombstones) throws IOException {
+        List<OrderSegment.Cursor> cursors = new ArrayList<>();
+        List<OrderSegment> outputs = new ArrayList<>();
+        OrderSegment.Writer writer = null;
+        try {
+            PriorityQueue<Integer> heads = new PriorityQueue<>(Comparator
+                    .<Integer>comparingLong(source -> cursors.get(source).key())
+                    .thenComparingInt(source -> source));
+            for (int source = 0; source < sources.size(); source++) {
+                cursors.add(sources.get(source).cursor());
+                if (cursors.get(source).next()) {
+                    heads.add(source);
+                }
+            }
+            while (!heads.isEmpty()) {
+                int source = heads.poll();
+                OrderSegment.Cursor cursor = cursors.get(source);
+                long key = cursor.key();
+                byte[] value = cursor.value();
+                if (cursor.next()) {
+                    heads.add(source);
+                }
+                // skip older records of the same order.
+                while (!heads.isEmpty() && cursors.get(heads.peek()).key() == key) {
+                    int olderSource = heads.poll();
+                    if (cursors.get(olderSource).next()) {
+                        heads.add(olderSource);
+                    }
+                }
+                if (dropTombstones && value == OrderSegment.TOMBSTONE) {
+                    continue;
+                }
+                if (writer == null) {
+                    writer = newSegmentWriter(memtableEntries);
+                }
+                writer.add(key, value);
+                if (writer.size() == memtableEntries) {
+                    outputs.add(writer.finish());
+                    writer = null;
+                }
+            }
+            if (writer != null) {
+                outputs.add(writer.finish());
+                writer = null;
+            }
+            return outputs;
+        } catch (IOException | RuntimeException e) {
+            for (OrderSegment output : outputs) {
+                output.delete();
+            }
+            throw e;
+        } finally {
+            if (writer != null) {
+                writer.close();
+            }
+            for (OrderSegment.Cursor cursor : cursors) {
+                cursor.close();
+            }
+        }
+    }
+
+    // writes the memtable entries to a new segment, or returns null if there are none.
+    private OrderSegment writeSegment(Iterator<Map.Entry<Long, Order>> entries, int expectedEntries)
+            throws IOException {
+        if (!entries.hasNext()) {
+            return null;
+        }
+        try (OrderSegment.Writer writer = newSegmentWriter(expectedEntries)) {
+            while (entries.hasNext()) {
+                Map.Entry<Long, Order> entry = entries.next();
+                writer.add(entry.getKey(), entry.getValue() == TOMBSTONE ? OrderSegment.TOMBSTONE
+                        : encode(entry.getValue()));
+            }
+            return writer.finish();
+        }
+    }
+
+    private OrderSegment.Writer newSegmentWriter(int expectedEntries) throws IOException {
+        long id = nextFileId.getAndIncrement();
+        return new OrderSegment.Writer(segmentPath(id), id, expectedEntries, bloomBitsPerKey);
+    }
+
+    private Path segmentPath(long id) {
+        return directory.resolve("segment-" + id + ".sst");
+    }
+
+    private List<List<OrderSegment>> copyLevels() {
+        List<List<OrderSegment>> copy = new ArrayList<>();
+        for (List<OrderSegment> level : levels) {
+            copy.add(new ArrayList<>(level));
+        }
+        return copy;
+    }
+
+    // makes newLevels current and records it in the manifest, then deletes the replaced segments
+    // once no reader is using them.
+    private void install(List<List<OrderSegment>> newLevels, List<OrderSegment> replaced) throws IOException {
+        StringBuilder manifest = new StringBuilder();
+        for (int level = 0; level < newLevels.size(); level++) {
+            for (OrderSegment segment : newLevels.get(level)) {
+                manifest.append(level).append(',').append(segment.getId()).append('\n');
+            }
+        }
+        Path manifestPath = directory.resolve(MANIFEST);
+        Path newManifestPath = directory.resolve(MANIFEST + ".tmp");
+        try (FileChannel file = FileChannel.open(newManifestPath, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            writeFully(file, ByteBuffer.wrap(manifest.toString().getBytes(StandardCharsets.UTF_8)));
+            file.force(true);
+        }
+        Files.move(newManifestPath, manifestPath, StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+
+        List<List<OrderSegment>> installed = new ArrayList<>();
+        for (List<OrderSegment> level : newLevels) {
+            installed.add(List.copyOf(level));
+        }
+        levels = List.copyOf(installed);
+
+        segmentLock.writeLock().lock();
+        try {
+            for (OrderSegment segment : replaced) {
+                segment.delete();
+            }
+        } finally {
+            segmentLock.writeLock().unlock();
+        }
+    }
+
+    // ---- startup ----
+
+    private void openSegments() throws IOException {
+        Path manifestPath = directory.resolve(MANIFEST);
+        List<List<OrderSegment>> openedLevels = new ArrayList<>();
+        openedLevels.add(new ArrayList<>());
+        Set<Path> liveFiles = new HashSet<>();
+        long largestId = -1;
+        if (Files.exists(manifestPath)) {
+            for (String line : Files.readAllLines(manifestPath, StandardCharsets.UTF_8)) {
+                String[] fields = line.split(",");
+                int level = Integer.parseInt(fields[0]);
+                long id = Long.parseLong(fields[1]);
+                while (openedLevels.size() <= level) {
+                    openedLevels.add(new ArrayList<>());
+                }
+                OrderSegment segment = OrderSegment.open(segmentPath(id), id);
+                openedLevels.get(level).add(segment);
+                liveFiles.add(segmentPath(id));
+                largestId = Math.max(largestId, id);
+                segment.forEachKey(key -> largestOrderNumber.accumulateAndGet((int) key, Math::max));
+            }
+        }
+        List<List<OrderSegment>> installed = new ArrayList<>();
+        for (List<OrderSegment> level : openedLevels) {
+            installed.add(List.copyOf(level));
+        }
+        levels = List.copyOf(installed);
+
+        // delete segments a crash left out of the manifest, and unfinished manifests.
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "{segment-*.sst,*.tmp}")) {
+            for (Path path : stream) {
+                if (!liveFiles.contains(path)) {
+                    Files.delete(path);
+                }
+            }
+        }
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "wal-*.log")) {
+            for (Path path : stream) {
+                String name = path.getFileName().toString();
+                largestId = Math.max(largestId, Long.parseLong(name.substring(4, name.length() - 4)));
+            }
+        }
+        nextFileId.set(largestId + 1);
+    }
+
+    // replays write-ahead logs of memtables that weren't flushed, then flushes them to a segment.
+    private void recoverWriteAheadLogs() throws IOException {
+        List<Path> walPaths = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "wal-*.log")) {
+            stream.forEach(walPaths::add);
+        }
+        walPaths.sort(Comparator.comparingLong(path -> {
+            String name = path.getFileName().toString();
+            return Long.parseLong(name.substring(4, name.length() - 4));
+        }));
+
+        ConcurrentSkipListMap<Long, Order> recovered = new ConcurrentSkipListMap<>();
+        for (Path path : walPaths) {
+            ByteBuffer records = ByteBuffer.wrap(Files.readAllBytes(path));
+            // a record cut short by a crash, and anything after it, was never acknowledged - ignore it.
+            while (records.remaining() >= WAL_RECORD_HEADER) {
+                byte op = records.get();
+                long key = records.getLong();
+                int length = records.getInt();
+                if (length < 0 || length > records.remaining()) {
+                    break;
+                }
+                if (op == WAL_PUT) {
+                    byte[] value = new byte[length];
+                    records.get(value);
+                    Order order = decode(key, value);
+                    recovered.put(key, order);
+                    largestOrderNumber.accumulateAndGet(order.getOrderNumber(), Math::max);
+                } else {
+                    recovered.put(key, TOMBSTONE);
+                }
+            }
+        }
+        OrderSegment segment = writeSegment(recovered.entrySet().iterator(), recovered.size());
+        if (segment != null) {
+            List<List<OrderSegment>> newLevels = copyLevels();
+            newLevels.get(0).add(0, segment);
+            install(newLevels, List.of());
+        }
+        for (Path path : walPaths) {
+            Files.delete(path);
+        }
+    }
+
+    // ---- order encoding ----
+
+    private static byte[] encode(Order order) {
+        BigDecimal[] money = {order.getTaxRate(), order.getArea(), order.getCostPerSquareFoot(),
+                order.getLaborCostPerSquareFoot(), order.getMaterialCost(), order.getLaborCost(),
+                order.getTax(), order.getTotal()};
+        String[] strings = {order.getCustomerName(), order.getState(), order.getProductType()};
+        int nullMask = 0;
+        for (int field = 0; field < MONEY_FIELDS; field++) {
+            nullMask |= money[field] == null ? 1 << field : 0;
+        }
+        for (int field = 0; field < strings.length; field++) {
+            nullMask |= strings[field] == null ? 1 << (MONEY_FIELDS + field) : 0;
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(order.getOrderNumber());
+            out.writeShort(nullMask);
+            for (BigDecimal value : money) {
+                if (value != null) {
+                    out.writeLong(toScaledLong(value));
+                }
+            }
+            for (String value : strings) {
+                if (value != null) {
+                    out.writeUTF(value);
+                }
+            }
+        } catch (IOException e) {
+            throw new FlooringMasteryPersistenceException("Order cannot be stored.", e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static Order decode(long key, byte[] value) {
+        if (value == OrderSegment.TOMBSTONE) {
+            return TOMBSTONE;
+        }
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(value))) {
+            Order order = new Order();
+            order.setOrderDate(dateOf(key));
+            order.setOrderNumber(in.readInt());
+            int nullMask = in.readShort();
+            BigDecimal[] money = new BigDecimal[MONEY_FIELDS];
+            for (int field = 0; field < MONEY_FIELDS; field++) {
+                if ((nullMask & (1 << field)) == 0) {
+                    money[field] = BigDecimal.valueOf(in.readLong(), MONEY_SCALE);
+                }
+            }
+            order.setTaxRate(money[0]);
+            order.setArea(money[1]);
+            order.setCostPerSquareFoot(money[2]);
+            order.setLaborCostPerSquareFoot(money[3]);
+            order.setMaterialCost(money[4]);
+            order.setLaborCost(money[5]);
+            order.setTax(money[6]);
+            order.setTotal(money[7]);
+            order.setCustomerName((nullMask & NULL_CUSTOMER_NAME) == 0 ? in.readUTF() : null);
+            order.setState((nullMask & NULL_STATE) == 0 ? in.readUTF() : null);
+            order.setProductType((nullMask & NULL_PRODUCT_TYPE) == 0 ? in.readUTF() : null);
+            return order;
+        } catch (IOException e) {
+            throw new FlooringMasteryPersistenceException("Error occurred parsing order properties", e);
+        }
+    }
+
+    private static long toScaledLong(BigDecimal value) {
+        try {
+            return value.setScale(MONEY_SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+        } catch (ArithmeticException e) {
+            throw new FlooringMasteryPersistenceException("Order value " + value + " is too large to store.", e);
+        }
+    }
+
+    private static void writeFully(FileChannel file, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            file.write(buffer);
+        }
+    }
+}
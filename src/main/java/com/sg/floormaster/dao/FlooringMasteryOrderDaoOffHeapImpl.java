@@ -0,0 +1,500 @@
+package com.sg.floormaster.dao;
+
+import com.sg.floormaster.model.Order;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Order DAO that keeps orders off the Java heap.
+ *
+ * Each order is a fixed-layout RECORD_SIZE byte record in a chunk of off-heap memory:
+ * money values are longs scaled to 2 decimal places, state and product type are ids into
+ * small on-heap dictionaries, and customer names are UTF-8 bytes in separate off-heap chunks.
+ * The only per-order heap use is two ints in the index of its date. Order objects are created
+ * only when they are returned, and are copies - changing one does not change the stored order.
+ *
+ * Values are stored rounded to 2 decimal places (HALF_UP), exactly as they are written to the order files.
+ * Reads run concurrently, writes are exclusive. Orders are read from and saved to the same order files
+ * as FlooringMasteryOrderDaoFileImpl, in the codec and archive policy it is given.
+ * The off-heap memory is released by close(), after which the DAO cannot be used.
+ */
+public class FlooringMasteryOrderDaoOffHeapImpl implements FlooringMasteryOrderDao, AutoCloseable {
+
+    // ---- record layout ----
+    private static final long ORDER_NUMBER_OFFSET = 0;  // int
+    private static final long EPOCH_DAY_OFFSET = 4;     // int
+    private static final long NAME_ADDRESS_OFFSET = 8;  // long, name chunk index << 32 | offset in chunk
+    private static final long NAME_LENGTH_OFFSET = 16;  // int, UTF-8 bytes
+    private static final long STATE_ID_OFFSET = 20;     // short
+    private static final long PRODUCT_ID_OFFSET = 22;   // short
+    private static final long MONEY_OFFSET = 24;        // MONEY_FIELDS longs, scaled by 100
+    private static final long NULL_MASK_OFFSET = 88;    // int, bit set for each null field
+    public static final long RECORD_SIZE = 96;
+
+    // money fields, in the order they are laid out from MONEY_OFFSET.
+    private static final int TAX_RATE = 0;
+    private static final int AREA = 1;
+    private static final int COST_PER_SQUARE_FOOT = 2;
+    private static final int LABOR_COST_PER_SQUARE_FOOT = 3;
+    private static final int MATERIAL_COST = 4;
+    private static final int LABOR_COST = 5;
+    private static final int TAX = 6;
+    private static final int TOTAL = 7;
+    private static final int MONEY_FIELDS = 8;
+
+    // null mask bits - one per money field, then the strings.
+    private static final int NULL_CUSTOMER_NAME = 1 << MONEY_FIELDS;
+    private static final int NULL_STATE = 1 << (MONEY_FIELDS + 1);
+    private static final int NULL_PRODUCT_TYPE = 1 << (MONEY_FIELDS + 2);
+
+    private static final int MONEY_SCALE = 2;
+    private static final int RECORDS_PER_CHUNK = 1 << 14;
+    private static final int NAME_CHUNK_SIZE = 1 << 20;
+
+    private final Path ORDER_FOLDER;
+    // format of the order files and which of them are archived, as for the file order DAO.
+    private final OrderCodec codec;
+    private final OrderArchivePolicy archivePolicy;
+    private final Arena arena = Arena.ofShared();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // record storage - slot n is record n % RECORDS_PER_CHUNK of chunk n / RECORDS_PER_CHUNK.
+    private final List<MemorySegment> recordChunks = new ArrayList<>();
+    private int nextSlot;
+    // slots of removed orders, reused before new slots are taken.
+    private int[] freeSlots = new int[16];
+    private int freeSlotCount;
+
+    // customer name storage - names are appended, a replaced name's bytes are only reused by its own record.
+    private final List<MemorySegment> nameChunks = new ArrayList<>();
+    private long nameChunkUsed;
+
+    // dictionaries of the few distinct states and product types.
+    private final List<String> dictionary = new ArrayList<>();
+    private final Map<String, Short> dictionaryIds = new HashMap<>();
+
+    // slots of the orders on each date, by order number.
+    private final Map<LocalDate, DateIndex> dates = new HashMap<>();
+
+    // -1 until an order is stored, as for the file order DAO.
+    private final AtomicInteger largestOrderNumber = new AtomicInteger(-1);
+
+    // default constructor
+    public FlooringMasteryOrderDaoOffHeapImpl() throws FlooringMasteryPersistenceException {
+        this("Orders");
+    }
+
+    public FlooringMasteryOrderDaoOffHeapImpl(String orderDirectory) throws FlooringMasteryPersistenceException {
+        this(orderDirectory, CsvOrderCodec.INSTANCE, new OrderArchivePolicy());
+    }
+
+    // reads and writes order files in the given codec's format, archiving them as given by archivePolicy.
+    public FlooringMasteryOrderDaoOffHeapImpl(String orderDirectory, OrderCodec codec, OrderArchivePolicy archivePolicy)
+            throws FlooringMasteryPersistenceException {
+        ORDER_FOLDER = Paths.get(orderDirectory);
+        this.codec = codec;
+        this.archivePolicy = archivePolicy;
+
+        // read the order files one date at a time, copying each order off-heap.
+        try {
+            orderFiles(Map.of()).readOrderFiles((date, ordersOnDate) -> {
+                dates.computeIfAbsent(date, d -> new DateIndex());
+                ordersOnDate.values().forEach(this::store);
+            });
+        } catch (RuntimeException e) {
+            arena.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public int getNextOrderNumber() {
+        return largestOrderNumber.incrementAndGet();
+    }
+
+    @Override
+    public Order addOrder(Order order) {
+        lock.writeLock().lock();
+        try {
+            return store(order);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Order getOrder(LocalDate date, int orderId) {
+        lock.readLock().lock();
+        try {
+            int slot = findSlot(date, orderId);
+            return slot < 0 ? null : read(slot);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Order editOrder(Order newOrder) throws FlooringMasteryNoSuchOrderException {
+        lock.writeLock().lock();
+        try {
+            int slot = findSlot(newOrder.getOrderDate(), newOrder.getOrderNumber());
+            if (slot < 0) {
+                throw new FlooringMasteryNoSuchOrderException("Existing order with ID " + newOrder.getOrderNumber()
+                        + " not found.");
+            }
+            Order previousOrder = read(slot);
+            write(slot, newOrder);
+            return previousOrder;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Order> getOrdersForDate(LocalDate date) {
+        lock.readLock().lock();
+        try {
+            DateIndex index = date == null ? null : dates.get(date);
+            List<Order> ordersOnDate = new ArrayList<>(index == null ? 0 : index.size);
+            if (index != null) {
+                for (int i = 0; i < index.size; i++) {
+                    ordersOnDate.add(read(index.slots[i]));
+                }
+            }
+            return ordersOnDate;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Map<LocalDate, Map<Integer, Order>> getAllOrders() {
+        // creates every order on the heap - not preferred, as for the file DAO.
+        lock.readLock().lock();
+        try {
+            Map<LocalDate, Map<Integer, Order>> allOrders = new HashMap<>();
+            for (LocalDate date : dates.keySet()) {
+                allOrders.put(date, ordersByNumber(date));
+            }
+            return allOrders;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Order removeOrder(LocalDate date, int orderId) {
+        lock.writeLock().lock();
+        try {
+            DateIndex index = date == null ? null : dates.get(date);
+            int position = index == null ? -1 : index.find(orderId);
+            if (position < 0) {
+                return null;
+            }
+            int slot = index.slots[position];
+            Order removedOrder = read(slot);
+            index.remove(position);
+            freeSlot(slot);
+            return removedOrder;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void saveOrders() throws FlooringMasteryPersistenceException {
+        // written one month at a time, so only one month's orders are on the heap at once - a month rather
+        // than a date, as the archive policy may consolidate a month's dates into a single file.
+        // only the order files - totals saved from one month would not be the folder's totals.
+        lock.readLock().lock();
+        try {
+            Map<YearMonth, List<LocalDate>> datesByMonth = new TreeMap<>();
+            for (LocalDate date : dates.keySet()) {
+                datesByMonth.computeIfAbsent(YearMonth.from(date), month -> new ArrayList<>()).add(date);
+            }
+            for (List<LocalDate> datesInMonth : datesByMonth.values()) {
+                Map<LocalDate, Map<Integer, Order>> ordersInMonth = new HashMap<>();
+                for (LocalDate date : datesInMonth) {
+                    ordersInMonth.put(date, ordersByNumber(date));
+                }
+                orderFiles(ordersInMonth).saveOrderFiles();
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // a file order DAO holding the given orders, to read and write this DAO's order files.
+    private FlooringMasteryOrderDaoFileImpl orderFiles(Map<LocalDate, Map<Integer, Order>> orders) {
+        return new FlooringMasteryOrderDaoFileImpl(ORDER_FOLDER, codec, archivePolicy, orders);
+    }
+
+    /**
+     * Returns the number of bytes of off-heap memory allocated for orders and customer names.
+     * @return bytes of off-heap memory held by this DAO.
+     */
+    public long getOffHeapBytes() {
+        lock.readLock().lock();
+        try {
+            long bytes = 0;
+            for (MemorySegment chunk : recordChunks) {
+                bytes += chunk.byteSize();
+            }
+            for (MemorySegment chunk : nameChunks) {
+                bytes += chunk.byteSize();
+            }
+            return bytes;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Releases the off-heap memory holding the orders. Unsaved orders are lost.
+     */
+    @Override
+    public void close() {
+        lock.writeLock().lock();
+        try {
+            arena.close();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // ---- storage, callers hold the write lock ----
+
+    // stores the order, replacing and returning any order with the same date and number.
+    private Order store(Order order) {
+        Objects.requireNonNull(order.getOrderDate(), "Order date cannot be null.");
+        DateIndex index = dates.computeIfAbsent(order.getOrderDate(), d -> new DateIndex());
+        largestOrderNumber.accumulateAndGet(order.getOrderNumber(), Math::max);
+
+        int position = index.find(order.getOrderNumber());
+        if (position >= 0) {
+            int slot = index.slots[position];
+            Order previousOrder = read(slot);
+            write(slot, order);
+            return previousOrder;
+        }
+
+        int slot = allocateSlot();
+        write(slot, order);
+        index.insert(-position - 1, order.getOrderNumber(), slot);
+        return null;
+    }
+
+    private void write(int slot, Order order) {
+        MemorySegment chunk = recordChunks.get(slot / RECORDS_PER_CHUNK);
+        long record = (slot % RECORDS_PER_CHUNK) * RECORD_SIZE;
+        int nullMask = 0;
+
+        chunk.set(ValueLayout.JAVA_INT, record + ORDER_NUMBER_OFFSET, order.getOrderNumber());
+        chunk.set(ValueLayout.JAVA_INT, record + EPOCH_DAY_OFFSET, Math.toIntExact(order.getOrderDate().toEpochDay()));
+
+        if (order.getCustomerName() == null) {
+            nullMask |= NULL_CUSTOMER_NAME;
+        } else {
+            writeName(chunk, record, order.getCustomerName());
+        }
+        short stateId = dictionaryId(order.getState());
+        if (stateId < 0) {
+            nullMask |= NULL_STATE;
+        }
+        chunk.set(ValueLayout.JAVA_SHORT, record + STATE_ID_OFFSET, stateId);
+        short productId = dictionaryId(order.getProductType());
+        if (productId < 0) {
+            nullMask |= NULL_PRODUCT_TYPE;
+        }
+        chunk.set(ValueLayout.JAVA_SHORT, record + PRODUCT_ID_OFFSET, productId);
+
+        BigDecimal[] money = {order.getTaxRate(), order.getArea(), order.getCostPerSquareFoot(),
+                order.getLaborCostPerSquareFoot(), order.getMaterialCost(), order.getLaborCost(),
+                order.getTax(), order.getTotal()};
+        for (int field = 0; field < MONEY_FIELDS; field++) {
+            long scaled = 0;
+            if (money[field] == null) {
+                nullMask |= 1 << field;
+            } else {
+                scaled = toScaledLong(money[field]);
+            }
+            chunk.set(ValueLayout.JAVA_LONG, record + MONEY_OFFSET + field * Long.BYTES, scaled);
+        }
+
+        chunk.set(ValueLayout.JAVA_INT, record + NULL_MASK_OFFSET, nullMask);
+    }
+
+    private void writeName(MemorySegment chunk, long record, String customerName) {
+        byte[] name = customerName.getBytes(StandardCharsets.UTF_8);
+        long address = chunk.get(ValueLayout.JAVA_LONG, record + NAME_ADDRESS_OFFSET);
+        int previousLength = chunk.get(ValueLayout.JAVA_INT, record + NAME_LENGTH_OFFSET);
+
+        // a new record holds zeros - only an existing name's bytes can be overwritten in place.
+        boolean hasName = (chunk.get(ValueLayout.JAVA_INT, record + NULL_MASK_OFFSET) & NULL_CUSTOMER_NAME) == 0
+                && previousLength > 0;
+        if (!hasName || name.length > previousLength) {
+            address = allocateName(name.length);
+        }
+        MemorySegment nameChunk = nameChunks.get((int) (address >>> 32));
+        MemorySegment.copy(name, 0, nameChunk, ValueLayout.JAVA_BYTE, address & 0xFFFFFFFFL, name.length);
+
+        chunk.set(ValueLayout.JAVA_LONG, record + NAME_ADDRESS_OFFSET, address);
+        chunk.set(ValueLayout.JAVA_INT, record + NAME_LENGTH_OFFSET, name.length);
+    }
+
+    private long allocateName(int length) {
+        if (nameChunks.isEmpty() || nameChunkUsed + length > nameChunks.getLast().byteSize()) {
+            // names longer than a chunk get a chunk of their own.
+            nameChunks.add(arena.allocate(Math.max(NAME_CHUNK_SIZE, length), 1));
+            nameChunkUsed = 0;
+        }
+        long address = ((long) (nameChunks.size() - 1) << 32) | nameChunkUsed;
+        nameChunkUsed += length;
+        return address;
+    }
+
+    private int allocateSlot() {
+        if (freeSlotCount > 0) {
+            return freeSlots[--freeSlotCount];
+        }
+        if (nextSlot == recordChunks.size() * RECORDS_PER_CHUNK) {
+            recordChunks.add(arena.allocate(RECORD_SIZE * RECORDS_PER_CHUNK, Long.BYTES));
+        }
+        return nextSlot++;
+    }
+
+    private void freeSlot(int slot) {
+        if (freeSlotCount == freeSlots.length) {
+            freeSlots = Arrays.copyOf(freeSlots, freeSlotCount * 2);
+        }
+        freeSlots[freeSlotCount++] = slot;
+    }
+
+    private short dictionaryId(String value) {
+        if (value == null) {
+            return -1;
+        }
+        Short id = dictionaryIds.get(value);
+        if (id == null) {
+            if (dictionary.size() > Short.MAX_VALUE) {
+                throw new FlooringMasteryPersistenceException("Too many distinct states and product types to store.");
+            }
+            id = (short) dictionary.size();
+            dictionary.add(value);
+            dictionaryIds.put(value, id);
+        }
+        return id;
+    }
+
+    private static long toScaledLong(BigDecimal value) {
+        try {
+            return value.setScale(MONEY_SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+        } catch (ArithmeticException e) {
+            throw new FlooringMasteryPersistenceException("Order value " + value + " is too large to store.", e);
+        }
+    }
+
+    // ---- reading, callers hold the read or write lock ----
+
+    private int findSlot(LocalDate date, int orderNumber) {
+        DateIndex index = date == null ? null : dates.get(date);
+        int position = index == null ? -1 : index.find(orderNumber);
+        return position < 0 ? -1 : index.slots[position];
+    }
+
+    private Map<Integer, Order> ordersByNumber(LocalDate date) {
+        DateIndex index = dates.get(date);
+        Map<Integer, Order> ordersOnDate = new LinkedHashMap<>();
+        for (int i = 0; i < index.size; i++) {
+            ordersOnDate.put(index.orderNumbers[i], read(index.slots[i]));
+        }
+        return ordersOnDate;
+    }
+
+    private Order read(int slot) {
+        MemorySegment chunk = recordChunks.get(slot / RECORDS_PER_CHUNK);
+        long record = (slot % RECORDS_PER_CHUNK) * RECORD_SIZE;
+        int nullMask = chunk.get(ValueLayout.JAVA_INT, record + NULL_MASK_OFFSET);
+
+        Order order = new Order();
+        order.setOrderNumber(chunk.get(ValueLayout.JAVA_INT, record + ORDER_NUMBER_OFFSET));
+        order.setOrderDate(LocalDate.ofEpochDay(chunk.get(ValueLayout.JAVA_INT, record + EPOCH_DAY_OFFSET)));
+
+        if ((nullMask & NULL_CUSTOMER_NAME) == 0) {
+            long address = chunk.get(ValueLayout.JAVA_LONG, record + NAME_ADDRESS_OFFSET);
+            int length = chunk.get(ValueLayout.JAVA_INT, record + NAME_LENGTH_OFFSET);
+            byte[] name = nameChunks.get((int) (address >>> 32))
+                    .asSlice(address & 0xFFFFFFFFL, length).toArray(ValueLayout.JAVA_BYTE);
+            order.setCustomerName(new String(name, StandardCharsets.UTF_8));
+        }
+        if ((nullMask & NULL_STATE) == 0) {
+            order.setState(dictionary.get(chunk.get(ValueLayout.JAVA_SHORT, record + STATE_ID_OFFSET)));
+        }
+        if ((nullMask & NULL_PRODUCT_TYPE) == 0) {
+            order.setProductType(dictionary.get(chunk.get(ValueLayout.JAVA_SHORT, record + PRODUCT_ID_OFFSET)));
+        }
+
+        order.setTaxRate(readMoney(chunk, record, nullMask, TAX_RATE));
+        order.setArea(readMoney(chunk, record, nullMask, AREA));
+        order.setCostPerSquareFoot(readMoney(chunk, record, nullMask, COST_PER_SQUARE_FOOT));
+        order.setLaborCostPerSquareFoot(readMoney(chunk, record, nullMask, LABOR_COST_PER_SQUARE_FOOT));
+        order.setMaterialCost(readMoney(chunk, record, nullMask, MATERIAL_COST));
+        order.setLaborCost(readMoney(chunk, record, nullMask, LABOR_COST));
+        order.setTax(readMoney(chunk, record, nullMask, TAX));
+        order.setTotal(readMoney(chunk, record, nullMask, TOTAL));
+        return order;
+    }
+
+    private static BigDecimal readMoney(MemorySegment chunk, long record, int nullMask, int field) {
+        if ((nullMask & (1 << field)) != 0) {
+            return null;
+        }
+        return BigDecimal.valueOf(chunk.get(ValueLayout.JAVA_LONG, record + MONEY_OFFSET + field * Long.BYTES),
+                MONEY_SCALE);
+    }
+
+    /**
+     * Slots of the orders on one date, sorted by order number.
+     */
+    private static class DateIndex {
+        private int[] orderNumbers = new int[4];
+        private int[] slots = new int[4];
+        private int size;
+
+        // position of the order number, or (-(insertion point) - 1) if it isn't present.
+        private int find(int orderNumber) {
+            return Arrays.binarySearch(orderNumbers, 0, size, orderNumber);
+        }
+
+        private void insert(int position, int orderNumber, int slot) {
+            if (size == orderNumbers.length) {
+                orderNumbers = Arrays.copyOf(orderNumbers, size * 2);
+                slots = Arrays.copyOf(slots, size * 2);
+            }
+            System.arraycopy(orderNumbers, position, orderNumbers, position + 1, size - position);
+            System.arraycopy(slots, position, slots, position + 1, size - position);
+            orderNumbers[position] = orderNumber;
+            slots[position] = slot;
+            size++;
+        }
+
+        private void remove(int position) {
+            System.arraycopy(orderNumbers, position + 1, orderNumbers, position, size - position - 1);
+            System.arraycopy(slots, position + 1, slots, position, size - position - 1);
+            size--;
+        }
+    }
+}
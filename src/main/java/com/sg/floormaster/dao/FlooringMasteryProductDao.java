@@ -11,4 +11,37 @@ public interface FlooringMasteryProductDao {
      * @return List of all Tax objects currently stored in the system.
      */
     List<Product> getAllProducts();
+
+    /**
+     * Get the Product with the given product type, ignoring case.
+     * If two products only differ by case, the product with the exact same case is preferred.
+     * @param productType product type to look up.
+     * @return Product with the given product type, null if no such product exists.
+     */
+    Product getProduct(String productType);
+
+    /**
+     * Get a page of the products whose product type starts with the given prefix (ignoring case),
+     * sorted alphabetically by product type. An empty prefix pages through every product.
+     * @param prefix start of the product type to search for.
+     * @param offset number of matching products to skip before the page starts.
+     * @param limit maximum number of products in the returned page.
+     * @return List of at most limit matching products, empty list if no products match.
+     */
+    List<Product> searchProductsByPrefix(String prefix, int offset, int limit);
+
+    /**
+     * Count the products whose product type starts with the given prefix (ignoring case).
+     * @param prefix start of the product type to search for.
+     * @return number of products matching the prefix.
+     */
+    int countProductsWithPrefix(String prefix);
+
+    /**
+     * Get the version of the product data currently stored in the system.
+     * The version changes whenever the stored products change, so any work derived from
+     * getAllProducts() can be reused for as long as the version stays the same.
+     * @return version of the current product data.
+     */
+    long getVersion();
 }
@@ -8,10 +8,16 @@ import java.io.FileReader;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class FlooringMasteryProductDaoFileImpl implements FlooringMasteryProductDao {
 
-    private Map<String, Product> allProducts; // productType as Key
+    // Immutable catalog handed out by getAllProducts() and used for lookups, prefix search and paging.
+    // Republished only when the products change, readers take one snapshot and read only from it.
+    private volatile CatalogSnapshot catalog;
+
+    // shared by every product dao so a version is never reused, even after swapping dao instances.
+    private static final AtomicLong VERSION_SOURCE = new AtomicLong();
 
     // Implement when adding persistence
      private final String PRODUCT_FILE;
@@ -24,31 +30,158 @@ public class FlooringMasteryProductDaoFileImpl implements FlooringMasteryProduct
 
     public FlooringMasteryProductDaoFileImpl(Map<String, Product> products) {
         validateAllProducts(products);
-        this.allProducts = products;
         this.PRODUCT_FILE = "Data/Products.txt";
+        publishCatalog(products);
 
     }
 
     public FlooringMasteryProductDaoFileImpl(String productTextFile) throws FlooringMasteryPersistenceException {
         this.PRODUCT_FILE = productTextFile;
-        // initialise map
-        allProducts = new HashMap<>();
-        loadFile();
-        validateAllProducts(allProducts);
+        Map<String, Product> products = loadFile();
+        validateAllProducts(products);
+        publishCatalog(products);
     }
 
     @Override
     public List<Product> getAllProducts() {
-        return new ArrayList<>(allProducts.values());
+        // shared immutable list sorted by product type - no copy is made per call.
+        return catalog.products();
+    }
+
+    @Override
+    public long getVersion() {
+        return catalog.version();
+    }
+
+    /**
+     * Reloads products from the product file. The version only changes if the file's products differ
+     * from the products currently stored. If the file is invalid, the current products are kept.
+     * @throws FlooringMasteryPersistenceException if the product file cannot be read or is invalid.
+     */
+    public synchronized void reload() throws FlooringMasteryPersistenceException {
+        Map<String, Product> reloadedProducts = loadFile();
+        validateAllProducts(reloadedProducts);
+
+        if (reloadedProducts.equals(catalog.productsByType())) {
+            // nothing changed, keep the current catalog and version.
+            return;
+        }
+        publishCatalog(reloadedProducts);
+    }
+
+    @Override
+    public Product getProduct(String productType) {
+        if (productType == null) return null;
+
+        CatalogSnapshot current = catalog;
+
+        // fast path - exact match on the map key
+        Product exactMatch = current.productsByType().get(productType);
+        if (exactMatch != null) {
+            return exactMatch;
+        }
+
+        // otherwise binary search the catalog index for a case-insensitive match
+        String key = toCatalogKey(productType);
+        int index = lowerBound(current.keys(), key);
+        if (index < current.keys().length && current.keys()[index].equals(key)) {
+            return current.products().get(index);
+        }
+        return null;
+    }
+
+    @Override
+    public List<Product> searchProductsByPrefix(String prefix, int offset, int limit) {
+        if (offset < 0 || limit < 0) {
+            throw new IllegalArgumentException("offset and limit cannot be negative.");
+        }
+
+        CatalogSnapshot current = catalog;
+        String key = toCatalogKey(prefix == null ? "" : prefix);
+        int start = lowerBound(current.keys(), key);
+        int end = prefixUpperBound(current.keys(), key, start);
+
+        // clamp the page to the range of matching products.
+        int pageStart = (int) Math.min((long) start + offset, end);
+        int pageEnd = (int) Math.min((long) pageStart + limit, end);
+
+        // view of the immutable catalog - the page itself is not copied.
+        return current.products().subList(pageStart, pageEnd);
+    }
+
+    @Override
+    public int countProductsWithPrefix(String prefix) {
+        String[] keys = catalog.keys();
+        String key = toCatalogKey(prefix == null ? "" : prefix);
+        int start = lowerBound(keys, key);
+        return prefixUpperBound(keys, key, start) - start;
     }
 
-    private void loadFile() throws FlooringMasteryPersistenceException {
+    private void publishCatalog(Map<String, Product> productsByType) {
+        // sort once per change so prefix searches are two binary searches,
+        // no matter how many products are in the catalog.
+        Product[] products = productsByType.values().toArray(new Product[0]);
+        Arrays.sort(products, Comparator.comparing((Product p) -> toCatalogKey(p.getProductType()))
+                                        .thenComparing(Product::getProductType));
+
+        String[] keys = new String[products.length];
+        for (int i = 0; i < products.length; i++) {
+            keys[i] = toCatalogKey(products[i].getProductType());
+        }
+
+        // copied so the snapshot can't change under readers, even if the caller's map does.
+        catalog = new CatalogSnapshot(VERSION_SOURCE.incrementAndGet(), List.of(products), keys,
+                Collections.unmodifiableMap(new HashMap<>(productsByType)));
+    }
+
+    private static String toCatalogKey(String productType) {
+        return productType.toLowerCase(Locale.ROOT);
+    }
+
+    // index of first key that is greater than or equal to the given key.
+    private static int lowerBound(String[] keys, String key) {
+        int low = 0;
+        int high = keys.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (keys[mid].compareTo(key) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    // index of first key at or after start that does not start with the given prefix.
+    // keys starting with the prefix are contiguous in the sorted index, beginning at lowerBound(prefix).
+    private static int prefixUpperBound(String[] keys, String prefix, int start) {
+        int low = start;
+        int high = keys.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (keys[mid].startsWith(prefix)) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    // products are sorted by lower case product type, keys[i] is the lower case product type of products[i].
+    // productsByType has the same products keyed by their exact product type.
+    private record CatalogSnapshot(long version, List<Product> products, String[] keys,
+                                   Map<String, Product> productsByType) {}
+
+    private Map<String, Product> loadFile() throws FlooringMasteryPersistenceException {
         // Loads persisted data from PRODUCT_FILE to memory
 
         // PRODUCT_FIL must have header line as first line of file equal to:
         // "ProductType,CostPerSquareFoot,LaborCostPerSquareFoot"
 
-        // create scanner
+        // load into a new map, so a failed reload leaves the current products untouched
+        Map<String, Product> loadedProducts = new HashMap<>();
         Scanner scanner;
 
         // open file
@@ -92,11 +225,12 @@ public class FlooringMasteryProductDaoFileImpl implements FlooringMasteryProduct
             }
 
             // otherwise add to memory
-            allProducts.put(currentProduct.getProductType(), currentProduct);
+            loadedProducts.put(currentProduct.getProductType(), currentProduct);
         }
 
         // close scanner
         scanner.close();
+        return loadedProducts;
     }
 
     private Product unmarshallProduct(String productAsText) throws FlooringMasteryPersistenceException {
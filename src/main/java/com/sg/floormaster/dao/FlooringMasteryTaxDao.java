@@ -14,4 +14,12 @@ public interface FlooringMasteryTaxDao {
      * @return List of all Tax objects currently stored in the system.
      */
     List<Tax> getAllTaxes();
+
+    /**
+     * Get the version of the tax data currently stored in the system.
+     * The version changes whenever the stored taxes change, so any work derived from
+     * getAllTaxes() can be reused for as long as the version stays the same.
+     * @return version of the current tax data.
+     */
+    long getVersion();
 }
@@ -1,7 +1,6 @@
 package com.sg.floormaster.dao;
 
 import com.sg.floormaster.model.Tax;
-import com.sg.floormaster.service.FlooringMasteryInvalidInputException;
 
 import java.io.BufferedReader;
 import java.io.FileNotFoundException;
@@ -9,7 +8,7 @@ import java.io.FileReader;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class FlooringMasteryTaxDaoFileImpl implements FlooringMasteryTaxDao {
 
@@ -18,6 +17,12 @@ public class FlooringMasteryTaxDaoFileImpl implements FlooringMasteryTaxDao {
     // However, extra implementation required to ensure that state names are unique
     private Map<String, Tax> allTaxes;
 
+    // Immutable view of allTaxes handed out by getAllTaxes(), republished only when the taxes change.
+    private volatile TaxSnapshot snapshot;
+
+    // shared by every tax dao so a version is never reused, even after swapping dao instances.
+    private static final AtomicLong VERSION_SOURCE = new AtomicLong();
+
     // Implement when adding persistence
     private final String TAX_FILE;
     private final String DELIMITER = ",";
@@ -26,6 +31,7 @@ public class FlooringMasteryTaxDaoFileImpl implements FlooringMasteryTaxDao {
         validateAllTaxes(taxes);
         this.allTaxes = taxes;
         this.TAX_FILE = "Data/Taxes.txt";
+        publishSnapshot();
     }
 
     public FlooringMasteryTaxDaoFileImpl() {
@@ -34,18 +40,46 @@ public class FlooringMasteryTaxDaoFileImpl implements FlooringMasteryTaxDao {
 
     public FlooringMasteryTaxDaoFileImpl(String taxTextFile) throws FlooringMasteryPersistenceException {
         this.TAX_FILE = taxTextFile;
-        allTaxes = new HashMap<>();
-        loadFile();
+        allTaxes = loadFile();
         validateAllTaxes(allTaxes);
+        publishSnapshot();
     }
 
 
     @Override
     public List<Tax> getAllTaxes() {
-        // edit to validate that taxes are all unique
-        return new ArrayList<>(allTaxes.values());
+        // shared immutable list - no copy is made per call.
+        return snapshot.taxes();
+    }
+
+    @Override
+    public long getVersion() {
+        return snapshot.version();
     }
 
+    /**
+     * Reloads taxes from the tax file. The version only changes if the file's taxes differ from
+     * the taxes currently stored. If the file is invalid, the current taxes are kept.
+     * @throws FlooringMasteryPersistenceException if the tax file cannot be read or is invalid.
+     */
+    public synchronized void reload() throws FlooringMasteryPersistenceException {
+        Map<String, Tax> reloadedTaxes = loadFile();
+        validateAllTaxes(reloadedTaxes);
+
+        if (reloadedTaxes.equals(allTaxes)) {
+            // nothing changed, keep the current snapshot and version.
+            return;
+        }
+        allTaxes = reloadedTaxes;
+        publishSnapshot();
+    }
+
+    private void publishSnapshot() {
+        snapshot = new TaxSnapshot(VERSION_SOURCE.incrementAndGet(), List.copyOf(allTaxes.values()));
+    }
+
+    private record TaxSnapshot(long version, List<Tax> taxes) {}
+
     // Allows for verifying injected maps (for in-memory testing)
     private void validateAllTaxes(Map<String, Tax> taxes) throws FlooringMasteryPersistenceException {
 
@@ -71,12 +105,13 @@ public class FlooringMasteryTaxDaoFileImpl implements FlooringMasteryTaxDao {
     }
 
 
-    private void loadFile() throws FlooringMasteryPersistenceException{
+    private Map<String, Tax> loadFile() throws FlooringMasteryPersistenceException{
 
         // Tax file MUST have header line as first line of file qual to:
         // State,StateName,TaxRate
 
-        // load file
+        // load file into a new map, so a failed reload leaves the current taxes untouched
+        Map<String, Tax> loadedTaxes = new HashMap<>();
         Scanner scanner;
 
         // open file
@@ -122,11 +157,12 @@ public class FlooringMasteryTaxDaoFileImpl implements FlooringMasteryTaxDao {
             }
             // otherwise add to memory
             // use state name as key
-            allTaxes.put(currentTax.getState(), currentTax);
+            loadedTaxes.put(currentTax.getState(), currentTax);
         }
 
         // close scanner
         scanner.close();
+        return loadedTaxes;
     }
 
     private Tax unmarshallTax(String taxAsText) throws FlooringMasteryPersistenceException {
@@ -0,0 +1,280 @@
+package com.sg.floormaster.dao;
+
+import com.sg.floormaster.model.Order;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * JSON Lines order files, Orders_MMddyyyy.jsonl - one flat JSON object per line, no header,
+ * named as the CSV columns, e.g.
+ * {"OrderNumber":1,"CustomerName":"Ada, Inc.","State":"TX","TaxRate":4.45,...,"Total":210.00}
+ * Readable by other tools without knowing the column order, and customer names keep their commas.
+ * Money values are written as numbers rounded to 2 decimal places, missing values as null.
+ * Fields not named here are ignored when reading.
+ */
+final class JsonLinesOrderCodec extends LineOrderCodec {
+
+    static final String NAME = "jsonl";
+    static final JsonLinesOrderCodec INSTANCE = new JsonLinesOrderCodec();
+
+    private JsonLinesOrderCodec() {
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public String getFileExtension() {
+        return "jsonl";
+    }
+
+    @Override
+    String headerLine() {
+        return null;
+    }
+
+    @Override
+    boolean isValidFirstLine(String line) {
+        return line.trim().startsWith("{");
+    }
+
+    @Override
+    String formatOrder(Order order) {
+        StringBuilder json = new StringBuilder(256);
+        json.append("{\"OrderNumber\":").append(order.getOrderNumber());
+        appendString(json, "CustomerName", order.getCustomerName());
+        appendString(json, "State", order.getState());
+        appendMoney(json, "TaxRate", order.getTaxRate());
+        appendString(json, "ProductType", order.getProductType());
+        appendMoney(json, "Area", order.getArea());
+        appendMoney(json, "CostPerSquareFoot", order.getCostPerSquareFoot());
+        appendMoney(json, "LaborCostPerSquareFoot", order.getLaborCostPerSquareFoot());
+        appendMoney(json, "MaterialCost", order.getMaterialCost());
+        appendMoney(json, "LaborCost", order.getLaborCost());
+        appendMoney(json, "Tax", order.getTax());
+        appendMoney(json, "Total", order.getTotal());
+        return json.append('}').toString();
+    }
+
+    private static void appendString(StringBuilder json, String name, String value) {
+        json.append(",\"").append(name).append("\":");
+        if (value == null) {
+            json.append("null");
+            return;
+        }
+        json.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                json.append('\\').append(c);
+            } else if (c < 0x20) {
+                json.append(String.format("\\u%04x", (int) c));
+            } else {
+                json.append(c);
+            }
+        }
+        json.append('"');
+    }
+
+    private static void appendMoney(StringBuilder json, String name, BigDecimal value) {
+        json.append(",\"").append(name).append("\":")
+                .append(value == null ? "null" : value.setScale(2, RoundingMode.HALF_UP).toPlainString());
+    }
+
+    @Override
+    Order parseOrder(String line) {
+        Order order = new Order();
+        Parser parser = new Parser(line);
+        boolean hasOrderNumber = false;
+        parser.expect('{');
+        if (!parser.consume('}')) {
+            do {
+                String name = parser.string();
+                parser.expect(':');
+                String value = parser.value();
+                switch (name) {
+                    case "OrderNumber":
+                        order.setOrderNumber(parseOrderNumber(value, line));
+                        hasOrderNumber = true;
+                        break;
+                    case "CustomerName":
+                        order.setCustomerName(value);
+                        break;
+                    case "State":
+                        order.setState(value);
+                        break;
+                    case "TaxRate":
+                        order.setTaxRate(money(value, line));
+                        break;
+                    case "ProductType":
+                        order.setProductType(value);
+                        break;
+                    case "Area":
+                        order.setArea(money(value, line));
+                        break;
+                    case "CostPerSquareFoot":
+                        order.setCostPerSquareFoot(money(value, line));
+                        break;
+                    case "LaborCostPerSquareFoot":
+                        order.setLaborCostPerSquareFoot(money(value, line));
+                        break;
+                    case "MaterialCost":
+                        order.setMaterialCost(money(value, line));
+                        break;
+                    case "LaborCost":
+                        order.setLaborCost(money(value, line));
+                        break;
+                    case "Tax":
+                        order.setTax(money(value, line));
+                        break;
+                    case "Total":
+                        order.setTotal(money(value, line));
+                        break;
+                    default:
+                        // not an order field, ignored.
+                }
+            } while (parser.consume(','));
+            parser.expect('}');
+        }
+        parser.expectEnd();
+        if (!hasOrderNumber) {
+            throw invalidOrder(line);
+        }
+        return order;
+    }
+
+    private static BigDecimal money(String value, String line) {
+        return value == null ? null : parseNumber(value, line).setScale(2, RoundingMode.HALF_UP);
+    }
+
+    private static int parseOrderNumber(String value, String line) {
+        try {
+            return parseNumber(value, line).intValueExact();
+        } catch (ArithmeticException e) {
+            throw invalidOrder(line);
+        }
+    }
+
+    private static BigDecimal parseNumber(String value, String line) {
+        try {
+            return new BigDecimal(value);
+        } catch (NumberFormatException | NullPointerException e) {
+            throw invalidOrder(line);
+        }
+    }
+
+    private static FlooringMasteryPersistenceException invalidOrder(String line) {
+        return new FlooringMasteryPersistenceException("Error occurred parsing order properties: " + line);
+    }
+
+    /**
+     * Reads the members of one flat JSON object - values are strings, numbers or null.
+     */
+    private static final class Parser {
+        private final String json;
+        private int position;
+
+        Parser(String json) {
+            this.json = json;
+        }
+
+        private void skipWhitespace() {
+            while (position < json.length() && Character.isWhitespace(json.charAt(position))) {
+                position++;
+            }
+        }
+
+        boolean consume(char expected) {
+            skipWhitespace();
+            if (position < json.length() && json.charAt(position) == expected) {
+                position++;
+                return true;
+            }
+            return false;
+        }
+
+        void expect(char expected) {
+            if (!consume(expected)) {
+                throw invalidOrder(json);
+            }
+        }
+
+        void expectEnd() {
+            skipWhitespace();
+            if (position != json.length()) {
+                throw invalidOrder(json);
+            }
+        }
+
+        // a string's text, a number's text, or null for null.
+        String value() {
+            skipWhitespace();
+            if (position < json.length() && json.charAt(position) == '"') {
+                return string();
+            }
+            int start = position;
+            while (position < json.length() && ",}".indexOf(json.charAt(position)) < 0) {
+                position++;
+            }
+            String token = json.substring(start, position).trim();
+            if (token.isEmpty()) {
+                throw invalidOrder(json);
+            }
+            return token.equals("null") ? null : token;
+        }
+
+        String string() {
+            expect('"');
+            StringBuilder text = new StringBuilder();
+            while (position < json.length()) {
+                char c = json.charAt(position++);
+                if (c == '"') {
+                    return text.toString();
+                }
+                if (c != '\\') {
+                    text.append(c);
+                    continue;
+                }
+                if (position >= json.length()) {
+                    break;
+                }
+                char escaped = json.charAt(position++);
+                switch (escaped) {
+                    case 'b':
+                        text.append('\b');
+                        break;
+                    case 'f':
+                        text.append('\f');
+                        break;
+                    case 'n':
+                        text.append('\n');
+                        break;
+                    case 'r':
+                        text.append('\r');
+                        break;
+                    case 't':
+                        text.append('\t');
+                        break;
+                    case 'u':
+                        if (position + 4 > json.length()) {
+                            throw invalidOrder(json);
+                        }
+                        try {
+                            text.append((char) Integer.parseInt(json.substring(position, position + 4), 16));
+                        } catch (NumberFormatException e) {
+                            throw invalidOrder(json);
+                        }
+                        position += 4;
+                        break;
+                    default:
+                        // \" \\ \/
+                        text.append(escaped);
+                }
+            }
+            throw invalidOrder(json);
+        }
+    }
+}
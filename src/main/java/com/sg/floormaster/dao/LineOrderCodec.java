@@ -0,0 +1,146 @@
+package com.sg.floormaster.dao;
+
+import com.sg.floormaster.model.Order;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Base of the text codecs, which write one order per UTF-8 line, optionally after a header line.
+ *
+ * Lines are split on the newline byte straight from the read buffer - UTF-8 never uses that byte
+ * inside a character - and each order is parsed from its line's bytes in the buffer. A trailing carriage
+ * return is dropped.
+ */
+abstract class LineOrderCodec implements OrderCodec {
+
+    static final int BUFFER_SIZE = 1 << 16;
+
+    private static final byte NEWLINE = '\n';
+
+    /**
+     * @return the header line, or null if the format has none.
+     */
+    abstract String headerLine();
+
+    /**
+     * @return true if line, the first in a file, is a header, or for formats without one, an order.
+     */
+    abstract boolean isValidFirstLine(String line);
+
+    abstract String formatOrder(Order order);
+
+    /**
+     * @throws FlooringMasteryPersistenceException if line isn't an order.
+     */
+    abstract Order parseOrder(String line);
+
+    /**
+     * Parses the order in length UTF-8 bytes of row from offset, which are only valid during the call.
+     * Decodes the line to a String for parseOrder(String) unless overridden.
+     *
+     * @throws FlooringMasteryPersistenceException if the bytes aren't an order.
+     */
+    Order parseOrder(byte[] row, int offset, int length) {
+        return parseOrder(new String(row, offset, length, StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public void encode(List<Order> orders, WritableByteChannel out) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        if (headerLine() != null) {
+            writeLine(headerLine(), buffer, out);
+        }
+        for (Order order : orders) {
+            writeLine(formatOrder(order), buffer, out);
+        }
+        drain(buffer.flip(), out);
+    }
+
+    private static void writeLine(String line, ByteBuffer buffer, WritableByteChannel out) throws IOException {
+        byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+        if (buffer.remaining() < bytes.length + 1) {
+            drain(buffer.flip(), out);
+            buffer.clear();
+        }
+        if (buffer.remaining() < bytes.length + 1) {
+            // longer than the whole buffer, write it directly.
+            drain(ByteBuffer.wrap(bytes), out);
+        } else {
+            buffer.put(bytes);
+        }
+        buffer.put(NEWLINE);
+    }
+
+    static void drain(ByteBuffer buffer, WritableByteChannel out) throws IOException {
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+    }
+
+    @Override
+    public boolean decode(ReadableByteChannel in, Consumer<Order> orderConsumer) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        boolean firstLine = true;
+        boolean endOfInput = false;
+        while (!endOfInput) {
+            endOfInput = in.read(buffer) < 0;
+            buffer.flip();
+            int lineStart = buffer.position();
+            for (int i = lineStart; i < buffer.limit(); i++) {
+                if (buffer.get(i) == NEWLINE) {
+                    if (!acceptLine(buffer, lineStart, i, firstLine, orderConsumer)) {
+                        return false;
+                    }
+                    firstLine = false;
+                    lineStart = i + 1;
+                }
+            }
+            buffer.position(lineStart);
+            if (endOfInput) {
+                // the last line need not end with a newline.
+                if (buffer.hasRemaining()) {
+                    if (!acceptLine(buffer, lineStart, buffer.limit(), firstLine, orderConsumer)) {
+                        return false;
+                    }
+                    firstLine = false;
+                }
+            } else if (lineStart == 0 && buffer.limit() == buffer.capacity()) {
+                // a line longer than the buffer, grow it.
+                buffer = ByteBuffer.allocate(buffer.capacity() * 2).put(buffer);
+            } else {
+                buffer.compact();
+            }
+        }
+        // an empty file is missing its header, so is skipped - without a header it is a file of no orders.
+        return !firstLine || headerLine() == null;
+    }
+
+    // accepts the line from start to end of buffer, returning false if it is the first line and is invalid,
+    // so the file should be skipped. Orders are parsed straight from the buffer.
+    private boolean acceptLine(ByteBuffer buffer, int start, int end, boolean firstLine,
+                               Consumer<Order> orderConsumer) {
+        if (end > start && buffer.get(end - 1) == '\r') {
+            end--;
+        }
+        if (firstLine) {
+            if (!isValidFirstLine(new String(buffer.array(), buffer.arrayOffset() + start, end - start,
+                    StandardCharsets.UTF_8))) {
+                return false;
+            }
+            if (headerLine() != null) {
+                return true;
+            }
+        }
+        if (end == start) {
+            throw new FlooringMasteryPersistenceException("Error occurred parsing order properties");
+        }
+        orderConsumer.accept(parseOrder(buffer.array(), buffer.arrayOffset() + start, end - start));
+        return true;
+    }
+}
@@ -0,0 +1,255 @@
+package com.sg.floormaster.dao;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Tiering policy for order files - orders on dates older than a given number of days are archived,
+ * stored GZIP compressed as Orders_MMddyyyy.txt.gz when saved. Optionally, the days of each closed month -
+ * any month before the current one - are consolidated into a single month file, see OrderMonthFile,
+ * in which archived days' blocks are compressed.
+ *
+ * Old orders are never edited, so compressing them costs nothing but a little CPU on load, while their
+ * files take a fraction of the space and of the reads at startup. Archived files are decompressed as they
+ * are streamed to the codec, without an uncompressed copy. Archived files are read whatever the policy,
+ * so a policy can be shortened, lengthened or disabled at any time - files are moved between tiers as
+ * their dates are saved.
+ *
+ * Keeps statistics of the archived files read and written - their space saved and read throughput.
+ * Thread safe.
+ */
+public class OrderArchivePolicy {
+
+    static final String ARCHIVE_EXTENSION = ".gz";
+
+    private static final int STREAM_BUFFER_SIZE = 1 << 16;
+
+    private final int archiveAfterDays;
+    private final Clock clock;
+    private volatile boolean consolidateClosedMonths;
+
+    // compressed and uncompressed sizes of each archived file, as last read or written.
+    private final Map<LocalDate, long[]> archivedFileSizes = new ConcurrentHashMap<>();
+    private final LongAdder compressedBytesRead = new LongAdder();
+    private final LongAdder uncompressedBytesRead = new LongAdder();
+    private final LongAdder readNanos = new LongAdder();
+
+    // default constructor, archives nothing but still reads archived files.
+    public OrderArchivePolicy() {
+        this(-1);
+    }
+
+    /**
+     * @param archiveAfterDays orders older than this many days are archived, negative to archive nothing.
+     */
+    public OrderArchivePolicy(int archiveAfterDays) {
+        this(archiveAfterDays, Clock.systemDefaultZone());
+    }
+
+    public OrderArchivePolicy(int archiveAfterDays, Clock clock) {
+        this.archiveAfterDays = archiveAfterDays;
+        this.clock = clock;
+    }
+
+    /**
+     * @return true if orders on date should be saved to an archived file.
+     */
+    public boolean isArchived(LocalDate date) {
+        return archiveAfterDays >= 0 && date.isBefore(LocalDate.now(clock).minusDays(archiveAfterDays));
+    }
+
+    /**
+     * @return true if orders on date should be saved to its month's consolidated file.
+     */
+    public boolean isConsolidated(LocalDate date) {
+        return consolidateClosedMonths && YearMonth.from(date).isBefore(YearMonth.now(clock));
+    }
+
+    public boolean isConsolidateClosedMonths() {
+        return consolidateClosedMonths;
+    }
+
+    /**
+     * @param consolidateClosedMonths true to save the days of each closed month to one month file.
+     */
+    public void setConsolidateClosedMonths(boolean consolidateClosedMonths) {
+        this.consolidateClosedMonths = consolidateClosedMonths;
+    }
+
+    static boolean isArchiveFile(Path path) {
+        return path.getFileName().toString().endsWith(ARCHIVE_EXTENSION);
+    }
+
+    static Path archiveFileFor(Path orderFile) {
+        return orderFile.resolveSibling(orderFile.getFileName() + ARCHIVE_EXTENSION);
+    }
+
+    /**
+     * Opens an order file for reading, without its checksum trailer, decompressing it as it is read if it is
+     * archived. The statistics are updated when the returned channel is closed.
+     */
+    ReadableByteChannel openForReading(Path orderFile, LocalDate date) throws IOException {
+        SeekableByteChannel file = Files.newByteChannel(orderFile, StandardOpenOption.READ);
+        try {
+            ReadableByteChannel content = OrderFileChecksum.content(file);
+            return isArchiveFile(orderFile)
+                    ? decompressing(content, OrderFileChecksum.contentLength(file), date) : content;
+        } catch (IOException | RuntimeException e) {
+            file.close();
+            throw e;
+        }
+    }
+
+    /**
+     * @return channel of the orders on date decompressed from compressed, which holds compressedSize bytes.
+     * Closing it closes compressed, and updates the statistics.
+     */
+    ReadableByteChannel decompressing(ReadableByteChannel compressed, long compressedSize, LocalDate date)
+            throws IOException {
+        long startNanos = System.nanoTime();
+        ReadableByteChannel uncompressed = Channels.newChannel(new GZIPInputStream(
+                Channels.newInputStream(compressed), STREAM_BUFFER_SIZE));
+        return new ReadableByteChannel() {
+            private long uncompressedSize;
+
+            @Override
+            public int read(ByteBuffer destination) throws IOException {
+                int read = uncompressed.read(destination);
+                if (read > 0) {
+                    uncompressedSize += read;
+                }
+                return read;
+            }
+
+            @Override
+            public boolean isOpen() {
+                return uncompressed.isOpen();
+            }
+
+            @Override
+            public void close() throws IOException {
+                uncompressed.close();
+                readNanos.add(System.nanoTime() - startNanos);
+                compressedBytesRead.add(compressedSize);
+                uncompressedBytesRead.add(uncompressedSize);
+                archivedFileSizes.put(date, new long[]{compressedSize, uncompressedSize});
+            }
+        };
+    }
+
+    /**
+     * @return channel compressing the orders on date written to it to out. Closing it finishes the
+     * compressed stream, closes out, and updates the statistics.
+     */
+    WritableByteChannel compressing(OutputStream out, LocalDate date) throws IOException {
+        LongAdder compressedSize = new LongAdder();
+        WritableByteChannel compressor = Channels.newChannel(new GZIPOutputStream(new FilterOutputStream(out) {
+            @Override
+            public void write(byte[] bytes, int offset, int length) throws IOException {
+                out.write(bytes, offset, length);
+                compressedSize.add(length);
+            }
+
+            @Override
+            public void write(int b) throws IOException {
+                out.write(b);
+                compressedSize.increment();
+            }
+        }, STREAM_BUFFER_SIZE));
+        return new WritableByteChannel() {
+            private long uncompressedSize;
+
+            @Override
+            public int write(ByteBuffer source) throws IOException {
+                int written = compressor.write(source);
+                uncompressedSize += written;
+                return written;
+            }
+
+            @Override
+            public boolean isOpen() {
+                return compressor.isOpen();
+            }
+
+            @Override
+            public void close() throws IOException {
+                // finishes the GZIP stream, so the compressed size is final.
+                compressor.close();
+                archivedFileSizes.put(date, new long[]{compressedSize.sum(), uncompressedSize});
+            }
+        };
+    }
+
+    // called when a date's orders are saved uncompressed, so are no longer archived.
+    void unarchived(LocalDate date) {
+        archivedFileSizes.remove(date);
+    }
+
+    /**
+     * @return number of archived order files read or written.
+     */
+    public int getArchivedFileCount() {
+        return archivedFileSizes.size();
+    }
+
+    /**
+     * @return bytes of disk the archived files save over storing their orders uncompressed.
+     */
+    public long getSpaceSavedBytes() {
+        long saved = 0;
+        for (long[] sizes : archivedFileSizes.values()) {
+            saved += sizes[1] - sizes[0];
+        }
+        return saved;
+    }
+
+    /**
+     * @return total size of archived files read.
+     */
+    public long getCompressedBytesRead() {
+        return compressedBytesRead.sum();
+    }
+
+    /**
+     * @return uncompressed bytes of orders read from archived files.
+     */
+    public long getUncompressedBytesRead() {
+        return uncompressedBytesRead.sum();
+    }
+
+    /**
+     * @return uncompressed bytes of orders read from archived files per second of reading, 0 if none were read.
+     */
+    public double getReadThroughputBytesPerSecond() {
+        long nanos = readNanos.sum();
+        return nanos == 0 ? 0 : getUncompressedBytesRead() * 1e9 / nanos;
+    }
+
+    @Override
+    public String toString() {
+        return "OrderArchivePolicy{" +
+                "archiveAfterDays=" + archiveAfterDays +
+                ", consolidateClosedMonths=" + consolidateClosedMonths +
+                ", archivedFiles=" + getArchivedFileCount() +
+                ", spaceSavedBytes=" + getSpaceSavedBytes() +
+                ", readThroughputMBPerSecond=" + String.format("%.1f", getReadThroughputBytesPerSecond() / 1e6) +
+                '}';
+    }
+}
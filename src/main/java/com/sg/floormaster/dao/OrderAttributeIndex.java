@@ -0,0 +1,172 @@
+package com.sg.floormaster.dao;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * Bitmap indexes of orders by state, by product type and by date.
+ *
+ * Each indexed order has a dense int id - ids of removed orders are reused - and each state, each
+ * product type and each order date has an OrderBitmap of the ids of its orders. A filter takes the bitmaps
+ * of the dates in its range, in date order, and intersects each with the state and product type bitmaps it
+ * names, so orders that don't match are never visited. State codes and product types are matched ignoring case.
+ *
+ * Thread safe. Filters run concurrently with each other, updates one at a time.
+ */
+final class OrderAttributeIndex {
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<OrderKey, Integer> idByKey = new HashMap<>();
+    // key, state and product type of each id, null for unused ids.
+    private final List<OrderKey> keyById = new ArrayList<>();
+    private final List<String> stateById = new ArrayList<>();
+    private final List<String> productTypeById = new ArrayList<>();
+    // ids of removed orders, for reuse so ids stay dense.
+    private final Deque<Integer> freeIds = new ArrayDeque<>();
+    private final OrderBitmap allIds = new OrderBitmap();
+    private final Map<String, OrderBitmap> idsByState = new HashMap<>();
+    private final Map<String, OrderBitmap> idsByProductType = new HashMap<>();
+    // sorted, so a range of dates is a view of the bitmaps of the dates in it.
+    private final NavigableMap<LocalDate, OrderBitmap> idsByDate = new TreeMap<>();
+
+    /**
+     * Indexes the order with key under its state and product type, replacing any it was indexed under.
+     */
+    void put(OrderKey key, String state, String productType) {
+        lock.writeLock().lock();
+        try {
+            Integer existingId = idByKey.get(key);
+            int id;
+            if (existingId != null) {
+                id = existingId;
+                unindex(id);
+            } else {
+                id = freeIds.isEmpty() ? keyById.size() : freeIds.pop();
+                if (id == keyById.size()) {
+                    keyById.add(null);
+                    stateById.add(null);
+                    productTypeById.add(null);
+                }
+                idByKey.put(key, id);
+            }
+            String stateName = normalize(state);
+            String productTypeName = normalize(productType);
+            keyById.set(id, key);
+            stateById.set(id, stateName);
+            productTypeById.set(id, productTypeName);
+            allIds.add(id);
+            idsByState.computeIfAbsent(stateName, name -> new OrderBitmap()).add(id);
+            idsByProductType.computeIfAbsent(productTypeName, name -> new OrderBitmap()).add(id);
+            idsByDate.computeIfAbsent(key.getOrderDate(), date -> new OrderBitmap()).add(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void remove(OrderKey key) {
+        lock.writeLock().lock();
+        try {
+            Integer id = idByKey.remove(key);
+            if (id != null) {
+                unindex(id);
+                keyById.set(id, null);
+                stateById.set(id, null);
+                productTypeById.set(id, null);
+                freeIds.push(id);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // takes id out of the bitmaps, dropping bitmaps left empty.
+    private void unindex(int id) {
+        allIds.remove(id);
+        removeFrom(idsByState, stateById.get(id), id);
+        removeFrom(idsByProductType, productTypeById.get(id), id);
+        removeFrom(idsByDate, keyById.get(id).getOrderDate(), id);
+    }
+
+    private static <K> void removeFrom(Map<K, OrderBitmap> bitmaps, K name, int id) {
+        OrderBitmap ids = bitmaps.get(name);
+        ids.remove(id);
+        if (ids.cardinality() == 0) {
+            bitmaps.remove(name);
+        }
+    }
+
+    /**
+     * @param state state code to match, null for any state.
+     * @param productType product type to match, null for any product type.
+     * @param fromDate first order date to match, null for no first date.
+     * @param toDate last order date to match, null for no last date.
+     * @return keys of the matching orders, in date order then order number order.
+     */
+    List<OrderKey> find(String state, String productType, LocalDate fromDate, LocalDate toDate) {
+        List<OrderKey> matches = new ArrayList<>();
+        forEachMatch(state, productType, fromDate, toDate, ids -> ids.forEach(id -> matches.add(keyById.get(id))));
+        // bitmaps come in date order, so sorting only has to put each date's orders in order number order.
+        Collections.sort(matches);
+        return matches;
+    }
+
+    /**
+     * @return the number of orders find would return, without listing them.
+     */
+    int count(String state, String productType, LocalDate fromDate, LocalDate toDate) {
+        int[] count = new int[1];
+        forEachMatch(state, productType, fromDate, toDate, ids -> count[0] += ids.cardinality());
+        return count[0];
+    }
+
+    // passes action the bitmap of the matching ids of each date in the range, in date order,
+    // or a single bitmap of every matching id if there is no range.
+    private void forEachMatch(String state, String productType, LocalDate fromDate, LocalDate toDate,
+                              Consumer<OrderBitmap> action) {
+        lock.readLock().lock();
+        try {
+            // ids matching the state and product type, null to match any.
+            OrderBitmap attributeIds = null;
+            if (state != null) {
+                attributeIds = idsByState.get(normalize(state));
+                if (attributeIds == null) {
+                    return;
+                }
+            }
+            if (productType != null) {
+                OrderBitmap productIds = idsByProductType.get(normalize(productType));
+                if (productIds == null) {
+                    return;
+                }
+                attributeIds = attributeIds == null ? productIds : OrderBitmap.and(attributeIds, productIds);
+            }
+
+            if (fromDate == null && toDate == null) {
+                action.accept(attributeIds == null ? allIds : attributeIds);
+                return;
+            }
+            if (fromDate != null && toDate != null && toDate.isBefore(fromDate)) {
+                return;
+            }
+            NavigableMap<LocalDate, OrderBitmap> dates = idsByDate;
+            if (fromDate != null) {
+                dates = dates.tailMap(fromDate, true);
+            }
+            if (toDate != null) {
+                dates = dates.headMap(toDate, true);
+            }
+            for (OrderBitmap dateIds : dates.values()) {
+                action.accept(attributeIds == null ? dateIds : OrderBitmap.and(dateIds, attributeIds));
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static String normalize(String name) {
+        return name == null ? "" : name.toUpperCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,71 @@
+package com.sg.floormaster.dao;
+
+import com.sg.floormaster.model.Order;
+
+import java.io.IOException;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Format of an order file - how the orders on one date are written to and read from a channel.
+ *
+ * The file order DAO and OrderFileConverter read and write order files through a codec, so a new
+ * format only needs a new codec. Codecs stream through a fixed-size buffer rather than holding
+ * a whole file in memory, are stateless and thread safe. Order dates are not written - the date of
+ * an order file is in its name.
+ */
+public interface OrderCodec {
+
+    /**
+     * Returns the codec with the given name - "csv", "binary" or "jsonl".
+     *
+     * @param name name of a codec, as set in the application context.
+     * @return codec with the name.
+     * @throws IllegalArgumentException if there is no codec with the name.
+     */
+    static OrderCodec forName(String name) {
+        switch (name) {
+            case CsvOrderCodec.NAME:
+                return CsvOrderCodec.INSTANCE;
+            case BinaryOrderCodec.NAME:
+                return BinaryOrderCodec.INSTANCE;
+            case JsonLinesOrderCodec.NAME:
+                return JsonLinesOrderCodec.INSTANCE;
+            default:
+                throw new IllegalArgumentException("Unknown order codec: " + name);
+        }
+    }
+
+    /**
+     * @return name of the codec, accepted by forName.
+     */
+    String getName();
+
+    /**
+     * @return extension of order files in this format, without the dot, e.g. "txt" for Orders_MMddyyyy.txt.
+     */
+    String getFileExtension();
+
+    /**
+     * Writes the header, if the format has one, then each order, to out.
+     *
+     * @param orders orders on one date, in the order they should be written.
+     * @param out channel to write to, left open.
+     * @throws IOException if out can't be written.
+     */
+    void encode(List<Order> orders, WritableByteChannel out) throws IOException;
+
+    /**
+     * Reads orders from in, passing each to orderConsumer in file order. Orders have no date set.
+     *
+     * @param in channel to read from, left open.
+     * @param orderConsumer receives each order read.
+     * @return false, having read no orders, if in is not a file in this format - it is empty or has another
+     * format's header - so the file should be skipped.
+     * @throws IOException if in can't be read.
+     * @throws FlooringMasteryPersistenceException if an order in the file can't be read.
+     */
+    boolean decode(ReadableByteChannel in, Consumer<Order> orderConsumer) throws IOException;
+}
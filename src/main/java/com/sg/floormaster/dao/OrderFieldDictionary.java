@@ -0,0 +1,83 @@
+package com.sg.floormaster.dao;
+
+import com.sg.floormaster.model.Order;
+import com.sg.floormaster.model.Product;
+import com.sg.floormaster.model.Tax;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Canonical instances of the repeated values in order files, applied to orders as they are loaded.
+ *
+ * There are only a handful of distinct state codes and product types, so every order
+ * loaded shares one String per state and product type instead of keeping its own copy.
+ * Seeded from the tax and product data so orders share the same instances as the Tax and Product objects.
+ * Holds at most capacity values, values seen after it is full are returned as given.
+ * Not thread safe - used by a single loader.
+ */
+class OrderFieldDictionary {
+
+    static final int DEFAULT_CAPACITY = 4096;
+
+    private final int capacity;
+    private final Map<String, String> strings = new HashMap<>();
+
+    OrderFieldDictionary() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    OrderFieldDictionary(int capacity) {
+        this.capacity = capacity;
+    }
+
+    OrderFieldDictionary(List<Tax> taxes, List<Product> products) {
+        this(DEFAULT_CAPACITY);
+        for (Tax tax : taxes) {
+            seed(tax.getStateAbr());
+        }
+        for (Product product : products) {
+            seed(product.getProductType());
+        }
+    }
+
+    private void seed(String value) {
+        if (value != null) {
+            intern(value);
+        }
+    }
+
+    /**
+     * @return the canonical instance of value.
+     */
+    String intern(String value) {
+        String canonical = strings.get(value);
+        if (canonical != null) {
+            return canonical;
+        }
+        if (strings.size() < capacity) {
+            strings.put(value, value);
+        }
+        return value;
+    }
+
+    /**
+     * Replaces the order's state and product type with their canonical instances.
+     *
+     * @return order.
+     */
+    Order intern(Order order) {
+        if (order.getState() != null) {
+            order.setState(intern(order.getState()));
+        }
+        if (order.getProductType() != null) {
+            order.setProductType(intern(order.getProductType()));
+        }
+        return order;
+    }
+
+    int size() {
+        return strings.size();
+    }
+}
@@ -0,0 +1,204 @@
+package com.sg.floormaster.dao;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.zip.CRC32C;
+
+/**
+ * Crash-safe, checksummed order files.
+ *
+ * Each order file is written to a temporary file, followed by a trailer line "#CRC32C xxxxxxxx" holding the
+ * CRC32C of every byte before it, then forced to disk and atomically renamed over the old file - so a crash
+ * leaves either the old file or the new one, never half of one. CRC32C is computed with the CPU's crc32
+ * instruction where the JVM has one. Readers see the file without its trailer.
+ *
+ * Files without a trailer - written before checksums were added, or by hand - are read unverified.
+ */
+final class OrderFileChecksum {
+
+    private static final byte[] TRAILER_PREFIX = "#CRC32C ".getBytes(StandardCharsets.US_ASCII);
+    static final int TRAILER_SIZE = TRAILER_PREFIX.length + 8 + 1;
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private OrderFileChecksum() {
+    }
+
+    enum Status {
+        // the checksum matches the file.
+        VALID,
+        // the file has no checksum.
+        UNCHECKED,
+        // the checksum doesn't match - the file was damaged after it was written.
+        CORRUPT
+    }
+
+    /**
+     * Writes the content of an order file.
+     */
+    interface ContentWriter {
+        /**
+         * @param out channel to write the file's content to. Closing it has no effect.
+         */
+        void write(WritableByteChannel out) throws IOException;
+    }
+
+    /**
+     * Writes content and its checksum trailer to a temporary file, forces it to disk and moves it to file,
+     * replacing any file there. If writing fails, file is left as it was.
+     */
+    static void write(Path file, ContentWriter content) throws IOException {
+        Path temporaryFile = file.resolveSibling(file.getFileName() + ".tmp");
+        try (SeekableByteChannel channel = Files.newByteChannel(temporaryFile, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            CRC32C crc = new CRC32C();
+            content.write(new WritableByteChannel() {
+                @Override
+                public int write(ByteBuffer source) throws IOException {
+                    ByteBuffer written = source.duplicate();
+                    int count = channel.write(source);
+                    crc.update(written.limit(written.position() + count));
+                    return count;
+                }
+
+                @Override
+                public boolean isOpen() {
+                    return channel.isOpen();
+                }
+
+                @Override
+                public void close() {
+                    // the file is closed once the trailer is written.
+                }
+            });
+            LineOrderCodec.drain(ByteBuffer.wrap(trailer(crc.getValue())), channel);
+            // file systems without a disk, e.g. in a zip archive, have nothing to force.
+            if (channel instanceof FileChannel) {
+                ((FileChannel) channel).force(true);
+            }
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temporaryFile);
+            throw e;
+        }
+        Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static byte[] trailer(long checksum) {
+        return ("#CRC32C " + String.format("%08x", checksum) + "\n").getBytes(StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * @return the checksum in file's trailer, or -1 if it has none. Leaves file's position unchanged.
+     */
+    private static long readChecksum(SeekableByteChannel file) throws IOException {
+        long size = file.size();
+        if (size < TRAILER_SIZE) {
+            return -1;
+        }
+        long position = file.position();
+        ByteBuffer trailer = ByteBuffer.allocate(TRAILER_SIZE);
+        file.position(size - TRAILER_SIZE);
+        while (trailer.hasRemaining()) {
+            if (file.read(trailer) < 0) {
+                break;
+            }
+        }
+        file.position(position);
+
+        byte[] bytes = trailer.array();
+        if (trailer.hasRemaining() || bytes[TRAILER_SIZE - 1] != '\n'
+                || !Arrays.equals(bytes, 0, TRAILER_PREFIX.length, TRAILER_PREFIX, 0, TRAILER_PREFIX.length)) {
+            return -1;
+        }
+        String hex = new String(bytes, TRAILER_PREFIX.length, 8, StandardCharsets.US_ASCII);
+        try {
+            return Long.parseLong(hex, 16);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * @return the checksum in file's trailer, or -1 if it has none. Reads only the trailer.
+     */
+    static long checksum(Path file) throws IOException {
+        try (SeekableByteChannel channel = Files.newByteChannel(file, StandardOpenOption.READ)) {
+            return readChecksum(channel);
+        }
+    }
+
+    /**
+     * @return size of file's content, without its trailer if it has one.
+     */
+    static long contentLength(SeekableByteChannel file) throws IOException {
+        return readChecksum(file) < 0 ? file.size() : file.size() - TRAILER_SIZE;
+    }
+
+    /**
+     * @return channel reading file's content from its current position, stopping before its trailer.
+     * Closing it closes file.
+     */
+    static ReadableByteChannel content(SeekableByteChannel file) throws IOException {
+        long length = contentLength(file);
+        return new ReadableByteChannel() {
+            @Override
+            public int read(ByteBuffer destination) throws IOException {
+                long remaining = length - file.position();
+                if (remaining <= 0) {
+                    return -1;
+                }
+                if (destination.remaining() <= remaining) {
+                    return file.read(destination);
+                }
+                int limit = destination.limit();
+                destination.limit(destination.position() + (int) remaining);
+                try {
+                    return file.read(destination);
+                } finally {
+                    destination.limit(limit);
+                }
+            }
+
+            @Override
+            public boolean isOpen() {
+                return file.isOpen();
+            }
+
+            @Override
+            public void close() throws IOException {
+                file.close();
+            }
+        };
+    }
+
+    /**
+     * Reads the whole of file, checking its content against its checksum. Thread safe.
+     */
+    static Status verify(Path file) throws IOException {
+        try (SeekableByteChannel channel = Files.newByteChannel(file, StandardOpenOption.READ)) {
+            long checksum = readChecksum(channel);
+            if (checksum < 0) {
+                return Status.UNCHECKED;
+            }
+            CRC32C crc = new CRC32C();
+            // a direct buffer, so the checksum is computed without copying the bytes onto the heap.
+            ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+            try (ReadableByteChannel in = content(channel)) {
+                while (in.read(buffer.clear()) >= 0) {
+                    crc.update(buffer.flip());
+                }
+            }
+            return crc.getValue() == checksum ? Status.VALID : Status.CORRUPT;
+        }
+    }
+}
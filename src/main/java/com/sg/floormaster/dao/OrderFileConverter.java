@@ -0,0 +1,173 @@
+package com.sg.floormaster.dao;
+
+import com.sg.floormaster.model.Order;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Migrates an Orders folder from one order file format to another, converting files in parallel.
+ *
+ * Each order file is decoded and re-encoded on its own, so only one file per thread is held in memory.
+ * Each converted file is written to a temporary file with its checksum and moved into place, so a failed
+ * conversion leaves no partial order file. A source file failing its checksum fails the conversion. Archived files are converted to archived files, and consolidated month
+ * files to month files. Empty files and files with an invalid header are skipped, as the file order DAO
+ * would skip them. The source files are left in place.
+ *
+ * Run with: mvn compile
+ *           java -cp target/classes com.sg.floormaster.dao.OrderFileConverter Orders csv Orders jsonl
+ */
+public final class OrderFileConverter {
+
+    private final int parallelism;
+    // reads and writes archived files, which keep their tier when converted.
+    private final OrderArchivePolicy tiers = new OrderArchivePolicy();
+
+    // default constructor, converts a file per processor at a time.
+    public OrderFileConverter() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    public OrderFileConverter(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism must be at least 1.");
+        }
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Converts every order file in sourceFolder in sourceCodec's format to a file in targetCodec's format in
+     * targetFolder, replacing any target file for the same date.
+     *
+     * @param sourceFolder folder of order files to convert.
+     * @param sourceCodec format of the files to convert.
+     * @param targetFolder folder to write converted files to, created if it doesn't exist - may be sourceFolder.
+     * @param targetCodec format to convert to.
+     * @return number of order files converted, each month file counting as one.
+     * @throws IllegalArgumentException if the converted files would overwrite the files being converted.
+     * @throws FlooringMasteryPersistenceException if a file can't be read or written.
+     */
+    public int convert(Path sourceFolder, OrderCodec sourceCodec, Path targetFolder, OrderCodec targetCodec)
+            throws FlooringMasteryPersistenceException {
+        if (sourceCodec.getFileExtension().equals(targetCodec.getFileExtension())
+                && sourceFolder.toAbsolutePath().normalize().equals(targetFolder.toAbsolutePath().normalize())) {
+            throw new IllegalArgumentException("Converted order files would replace the files being converted.");
+        }
+        Map<LocalDate, Path> sourceFiles = new HashMap<>();
+        Map<YearMonth, Path> sourceMonthFiles = new HashMap<>();
+        FlooringMasteryOrderDaoFileImpl.scanOrderDirectory(sourceFolder, sourceCodec, sourceFiles, sourceMonthFiles);
+        try {
+            Files.createDirectories(targetFolder);
+        } catch (IOException e) {
+            throw new FlooringMasteryPersistenceException("Could not create order folder " + targetFolder, e);
+        }
+
+        ExecutorService converters = Executors.newFixedThreadPool(parallelism);
+        try {
+            List<Future<Boolean>> conversions = new ArrayList<>();
+            sourceFiles.forEach((date, sourceFile) -> {
+                // archived files stay archived.
+                Path targetFile =
+                        FlooringMasteryOrderDaoFileImpl.generateOrderFilePath(targetFolder, date, targetCodec);
+                Path tieredTargetFile = OrderArchivePolicy.isArchiveFile(sourceFile)
+                        ? OrderArchivePolicy.archiveFileFor(targetFile) : targetFile;
+                conversions.add(converters.submit(() ->
+                        convertFile(sourceFile, sourceCodec, tieredTargetFile, targetCodec, date)));
+            });
+            sourceMonthFiles.forEach((month, sourceFile) -> conversions.add(converters.submit(() ->
+                    convertMonthFile(sourceFile, sourceCodec, month, targetFolder, targetCodec))));
+
+            int converted = 0;
+            for (Future<Boolean> conversion : conversions) {
+                if (conversion.get()) {
+                    converted++;
+                }
+            }
+            return converted;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof FlooringMasteryPersistenceException) {
+                throw (FlooringMasteryPersistenceException) e.getCause();
+            }
+            throw new FlooringMasteryPersistenceException("Could not convert order files.", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new FlooringMasteryPersistenceException("Interrupted converting order files.", e);
+        } finally {
+            converters.shutdownNow();
+        }
+    }
+
+    // returns false if the source file was skipped.
+    private boolean convertFile(Path sourceFile, OrderCodec sourceCodec, Path targetFile,
+                                OrderCodec targetCodec, LocalDate date) throws IOException {
+        verify(sourceFile);
+        List<Order> orders = new ArrayList<>();
+        try (ReadableByteChannel in = tiers.openForReading(sourceFile, date)) {
+            if (!sourceCodec.decode(in, orders::add)) {
+                return false;
+            }
+        }
+        OrderFileChecksum.write(targetFile, out -> {
+            if (OrderArchivePolicy.isArchiveFile(targetFile)) {
+                try (WritableByteChannel compressor = tiers.compressing(Channels.newOutputStream(out), date)) {
+                    targetCodec.encode(orders, compressor);
+                }
+            } else {
+                targetCodec.encode(orders, out);
+            }
+        });
+        return true;
+    }
+
+    // a corrupt file isn't converted, so its damage isn't hidden under a new checksum.
+    private static void verify(Path sourceFile) throws IOException {
+        if (OrderFileChecksum.verify(sourceFile) == OrderFileChecksum.Status.CORRUPT) {
+            throw new FlooringMasteryPersistenceException("Order file checksum mismatch: " + sourceFile);
+        }
+    }
+
+    // converts each day in a month file, keeping the month consolidated and each day's block in its tier.
+    private boolean convertMonthFile(Path sourceFile, OrderCodec sourceCodec, YearMonth month, Path targetFolder,
+                                     OrderCodec targetCodec) throws IOException {
+        SortedMap<LocalDate, List<Order>> ordersByDay = new TreeMap<>();
+        Set<LocalDate> compressedDays = new HashSet<>();
+        verify(sourceFile);
+        try (OrderMonthFile monthFile = OrderMonthFile.open(sourceFile, month)) {
+            for (LocalDate day : monthFile.getDays()) {
+                List<Order> orders = new ArrayList<>();
+                if (monthFile.read(day, sourceCodec, tiers, orders::add)) {
+                    ordersByDay.put(day, orders);
+                    if (monthFile.isCompressed(day)) {
+                        compressedDays.add(day);
+                    }
+                }
+            }
+        }
+        OrderMonthFile.write(FlooringMasteryOrderDaoFileImpl.generateOrderMonthFilePath(targetFolder, month,
+                targetCodec), ordersByDay, targetCodec, compressedDays::contains, tiers);
+        return true;
+    }
+
+    public static void main(String[] args) {
+        if (args.length != 4) {
+            System.err.println("Usage: OrderFileConverter <source folder> <source codec> "
+                    + "<target folder> <target codec>, codecs are csv, binary or jsonl.");
+            System.exit(1);
+        }
+        int converted = new OrderFileConverter().convert(Paths.get(args[0]), OrderCodec.forName(args[1]),
+                Paths.get(args[2]), OrderCodec.forName(args[3]));
+        System.out.println("Converted " + converted + " order files.");
+    }
+}
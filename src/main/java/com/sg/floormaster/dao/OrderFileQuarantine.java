@@ -0,0 +1,65 @@
+package com.sg.floormaster.dao;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Moves corrupt order files out of the order folder into its quarantine folder, so they are neither loaded
+ * nor overwritten by the next save, and reports each file moved and why. Report lines are also appended
+ * to Quarantine.log in the quarantine folder, which is created when the first file is moved.
+ * Thread safe.
+ */
+final class OrderFileQuarantine {
+
+    static final String FOLDER_NAME = "quarantine";
+    static final String LOG_NAME = "Quarantine.log";
+
+    private final Path folder;
+    private final Clock clock;
+    private final List<String> report = new ArrayList<>();
+
+    OrderFileQuarantine(Path orderFolder) {
+        this(orderFolder, Clock.systemDefaultZone());
+    }
+
+    OrderFileQuarantine(Path orderFolder, Clock clock) {
+        this.folder = orderFolder.resolve(FOLDER_NAME);
+        this.clock = clock;
+    }
+
+    /**
+     * Moves file into the quarantine folder, named with the time it was moved so earlier copies are kept.
+     *
+     * @throws FlooringMasteryPersistenceException if the file can't be moved.
+     */
+    synchronized void quarantine(Path file, String reason) throws FlooringMasteryPersistenceException {
+        Instant now = clock.instant();
+        Path quarantined = folder.resolve(file.getFileName() + "." + now.toEpochMilli());
+        String line = now + " " + file.getFileName() + " -> " + folder.getFileName() + "/"
+                + quarantined.getFileName() + ": " + reason;
+        try {
+            Files.createDirectories(folder);
+            Files.move(file, quarantined);
+            Files.writeString(folder.resolve(LOG_NAME), line + System.lineSeparator(), StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            throw new FlooringMasteryPersistenceException("Could not quarantine corrupt order file " + file, e);
+        }
+        report.add(line);
+    }
+
+    /**
+     * @return a line for each file quarantined, in the order they were moved.
+     */
+    synchronized List<String> getReport() {
+        return Collections.unmodifiableList(new ArrayList<>(report));
+    }
+}
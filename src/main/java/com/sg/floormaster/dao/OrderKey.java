@@ -0,0 +1,57 @@
+package com.sg.floormaster.dao;
+
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.Objects;
+
+/**
+ * Identifies an order by its order date and order number, the key every order DAO stores orders by.
+ * Sorts in date order then order number order. Immutable.
+ */
+public final class OrderKey implements Comparable<OrderKey> {
+
+    private static final Comparator<OrderKey> ORDER =
+            Comparator.comparing(OrderKey::getOrderDate).thenComparingInt(OrderKey::getOrderNumber);
+
+    private final LocalDate orderDate;
+    private final int orderNumber;
+
+    public OrderKey(LocalDate orderDate, int orderNumber) {
+        this.orderDate = Objects.requireNonNull(orderDate, "orderDate");
+        this.orderNumber = orderNumber;
+    }
+
+    public LocalDate getOrderDate() {
+        return orderDate;
+    }
+
+    public int getOrderNumber() {
+        return orderNumber;
+    }
+
+    @Override
+    public int compareTo(OrderKey other) {
+        return ORDER.compare(this, other);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        OrderKey orderKey = (OrderKey) o;
+        return orderNumber == orderKey.orderNumber && orderDate.equals(orderKey.orderDate);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(orderDate, orderNumber);
+    }
+
+    @Override
+    public String toString() {
+        return "OrderKey{" +
+                "orderDate=" + orderDate +
+                ", orderNumber=" + orderNumber +
+                '}';
+    }
+}
@@ -0,0 +1,89 @@
+package com.sg.floormaster.dao;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Bloom filter of long order keys, used to skip segments that cannot hold a key without reading them.
+ *
+ * mightContain never returns false for an added key, and returns true for other keys at a rate set by
+ * the bits per key - about 1% at 10 bits per key. Built once by a single writer, then read only.
+ */
+final class OrderKeyBloomFilter {
+
+    private final long[] bits;
+    private final int hashCount;
+
+    /**
+     * @param expectedKeys number of keys that will be added.
+     * @param bitsPerKey bits of filter per key, 0 for a filter that always answers true.
+     */
+    OrderKeyBloomFilter(int expectedKeys, int bitsPerKey) {
+        this(new long[bitsPerKey <= 0 ? 0 : (int) Math.max(1, ((long) expectedKeys * bitsPerKey + 63) / 64)],
+                // the optimal number of hashes is bits per key * ln 2.
+                Math.max(1, (int) Math.round(bitsPerKey * Math.log(2))));
+    }
+
+    private OrderKeyBloomFilter(long[] bits, int hashCount) {
+        this.bits = bits;
+        this.hashCount = hashCount;
+    }
+
+    void add(long key) {
+        if (bits.length == 0) {
+            return;
+        }
+        long hash1 = mix(key);
+        long hash2 = mix(hash1 ^ key);
+        long bitCount = (long) bits.length * 64;
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Math.floorMod(hash1 + i * hash2, bitCount);
+            bits[(int) (bit >>> 6)] |= 1L << bit;
+        }
+    }
+
+    boolean mightContain(long key) {
+        if (bits.length == 0) {
+            return true;
+        }
+        long hash1 = mix(key);
+        long hash2 = mix(hash1 ^ key);
+        long bitCount = (long) bits.length * 64;
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Math.floorMod(hash1 + i * hash2, bitCount);
+            if ((bits[(int) (bit >>> 6)] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    int serializedSize() {
+        return 2 * Integer.BYTES + bits.length * Long.BYTES;
+    }
+
+    void writeTo(ByteBuffer buffer) {
+        buffer.putInt(hashCount).putInt(bits.length);
+        for (long word : bits) {
+            buffer.putLong(word);
+        }
+    }
+
+    static OrderKeyBloomFilter readFrom(ByteBuffer buffer) {
+        int hashCount = buffer.getInt();
+        long[] bits = new long[buffer.getInt()];
+        for (int i = 0; i < bits.length; i++) {
+            bits[i] = buffer.getLong();
+        }
+        return new OrderKeyBloomFilter(bits, hashCount);
+    }
+
+    // the 64 bit finalizer of MurmurHash3 - spreads the dense keys of consecutive orders over the filter.
+    private static long mix(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return key;
+    }
+}
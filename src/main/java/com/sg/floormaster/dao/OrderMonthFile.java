@@ -0,0 +1,183 @@
+package com.sg.floormaster.dao;
+
+import com.sg.floormaster.model.Order;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * A closed month of orders consolidated into one Orders_MMyyyy.<extension> file, in place of a file per day.
+ *
+ * Layout: a 4 byte magic number and the number of days, then an index entry per day - its day of month,
+ * a flag set if its block is compressed, and its block's offset and length - then the blocks. Each block is
+ * what the codec would write to the day's own file, GZIP compressed if the day is archived.
+ * Opening a month file reads only its index, so reading a day is a single positioned read of its block.
+ * Month files end with a checksum trailer, see OrderFileChecksum, which the index never points into.
+ * Not thread safe - reads move the position of the file's channel.
+ */
+final class OrderMonthFile implements Closeable {
+
+    private static final int MAGIC = 0x464D4D31; // "FMM1"
+    private static final int HEADER_SIZE = 2 * Integer.BYTES;
+    private static final int ENTRY_SIZE = 2 + 2 * Long.BYTES;
+    private static final byte COMPRESSED = 1;
+
+    private final SeekableByteChannel channel;
+    // index entries by date, in date order.
+    private final NavigableMap<LocalDate, Block> blocks;
+
+    private OrderMonthFile(SeekableByteChannel channel, NavigableMap<LocalDate, Block> blocks) {
+        this.channel = channel;
+        this.blocks = blocks;
+    }
+
+    private static final class Block {
+        private final boolean compressed;
+        private final long offset;
+        private final long length;
+
+        private Block(boolean compressed, long offset, long length) {
+            this.compressed = compressed;
+            this.offset = offset;
+            this.length = length;
+        }
+    }
+
+    /**
+     * Opens a month file, reading its index.
+     *
+     * @throws FlooringMasteryPersistenceException if the file isn't a month file or its index is damaged.
+     */
+    static OrderMonthFile open(Path path, YearMonth month) throws IOException {
+        SeekableByteChannel channel = Files.newByteChannel(path, StandardOpenOption.READ);
+        try {
+            long size = channel.size();
+            ByteBuffer header = readFully(channel, 0, HEADER_SIZE);
+            int dayCount = header.getInt(Integer.BYTES);
+            if (header.getInt(0) != MAGIC || dayCount < 0 || dayCount > month.lengthOfMonth()) {
+                throw new FlooringMasteryPersistenceException("Invalid order month file: " + path);
+            }
+            ByteBuffer index = readFully(channel, HEADER_SIZE, dayCount * ENTRY_SIZE);
+            NavigableMap<LocalDate, Block> blocks = new TreeMap<>();
+            for (int i = 0; i < dayCount; i++) {
+                int dayOfMonth = index.get();
+                boolean compressed = (index.get() & COMPRESSED) != 0;
+                long offset = index.getLong();
+                long length = index.getLong();
+                if (dayOfMonth < 1 || dayOfMonth > month.lengthOfMonth() || offset < 0 || length < 0
+                        || length > Integer.MAX_VALUE || offset + length > size) {
+                    throw new FlooringMasteryPersistenceException("Invalid order month file index: " + path);
+                }
+                blocks.put(month.atDay(dayOfMonth), new Block(compressed, offset, length));
+            }
+            return new OrderMonthFile(channel, blocks);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            if (e instanceof EOFException) {
+                throw new FlooringMasteryPersistenceException("Invalid order month file: " + path, e);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * @return the days held in this month file, in date order.
+     */
+    Set<LocalDate> getDays() {
+        return Collections.unmodifiableSet(blocks.keySet());
+    }
+
+    boolean isCompressed(LocalDate day) {
+        return blocks.get(day).compressed;
+    }
+
+    /**
+     * Decodes the orders on day, passing each to orderConsumer.
+     *
+     * @param archivePolicy decompresses the day's block if it is compressed, and records its statistics.
+     * @return false if the day's block was skipped by the codec, as its file would be.
+     */
+    boolean read(LocalDate day, OrderCodec codec, OrderArchivePolicy archivePolicy, Consumer<Order> orderConsumer)
+            throws IOException {
+        Block block = blocks.get(day);
+        if (block == null) {
+            return false;
+        }
+        ByteBuffer bytes = readFully(channel, block.offset, (int) block.length);
+        ReadableByteChannel in = Channels.newChannel(new ByteArrayInputStream(bytes.array()));
+        try (ReadableByteChannel orders = block.compressed
+                ? archivePolicy.decompressing(in, block.length, day) : in) {
+            return codec.decode(orders, orderConsumer);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Writes the orders on each day of a month to a new month file at path, with a checksum, replacing any
+     * file there once it is complete.
+     *
+     * @param ordersByDay orders on each day of one month.
+     * @param compressed days whose blocks should be compressed.
+     * @param archivePolicy compresses blocks, and records their statistics.
+     */
+    static void write(Path path, SortedMap<LocalDate, List<Order>> ordersByDay, OrderCodec codec,
+                      Predicate<LocalDate> compressed, OrderArchivePolicy archivePolicy) throws IOException {
+        // encode the blocks first, so the index can be written ahead of them in one pass.
+        ByteBuffer index = ByteBuffer.allocate(HEADER_SIZE + ordersByDay.size() * ENTRY_SIZE);
+        index.putInt(MAGIC).putInt(ordersByDay.size());
+        List<byte[]> blocks = new ArrayList<>();
+        long offset = index.capacity();
+        for (Map.Entry<LocalDate, List<Order>> day : ordersByDay.entrySet()) {
+            boolean compressDay = compressed.test(day.getKey());
+            ByteArrayOutputStream block = new ByteArrayOutputStream();
+            try (WritableByteChannel blockChannel = compressDay
+                    ? archivePolicy.compressing(block, day.getKey())
+                    : Channels.newChannel(block)) {
+                codec.encode(day.getValue(), blockChannel);
+            }
+            blocks.add(block.toByteArray());
+            index.put((byte) day.getKey().getDayOfMonth())
+                    .put(compressDay ? COMPRESSED : 0)
+                    .putLong(offset)
+                    .putLong(block.size());
+            offset += block.size();
+        }
+        OrderFileChecksum.write(path, out -> {
+            LineOrderCodec.drain(index.flip(), out);
+            for (byte[] block : blocks) {
+                LineOrderCodec.drain(ByteBuffer.wrap(block), out);
+            }
+        });
+    }
+
+    private static ByteBuffer readFully(SeekableByteChannel file, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        file.position(position);
+        while (buffer.hasRemaining()) {
+            if (file.read(buffer) < 0) {
+                throw new EOFException("Unexpected end of order month file.");
+            }
+        }
+        return buffer.flip();
+    }
+}
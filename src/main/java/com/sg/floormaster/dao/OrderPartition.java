@@ -0,0 +1,235 @@
+package com.sg.floormaster.dao;
+
+import com.sg.floormaster.model.Order;
+
+import java.util.*;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * The orders on one date, keyed by order number.
+ *
+ * Held as a sorted int array of order numbers beside an array of orders, so lookups are a
+ * binary search without boxing, and orders are always iterated in order number order.
+ * Adding an order with a larger number than any other - the usual case, both when loading
+ * an order file and for new orders - appends without moving any entries.
+ * Thread safe, each partition has its own lock so different dates can be changed concurrently.
+ * Lookups don't lock, they retry under the read lock only if a write ran at the same time.
+ */
+final class OrderPartition {
+
+    private final StampedLock lock = new StampedLock();
+    private int[] orderNumbers;
+    private Order[] orders;
+    private int size;
+
+    OrderPartition() {
+        this(8);
+    }
+
+    OrderPartition(int initialCapacity) {
+        orderNumbers = new int[Math.max(initialCapacity, 1)];
+        orders = new Order[orderNumbers.length];
+    }
+
+    /**
+     * Creates a partition holding the given orders, by their order numbers.
+     */
+    static OrderPartition of(Map<Integer, Order> ordersByNumber) {
+        return of(ordersByNumber.values());
+    }
+
+    /**
+     * Creates a partition holding the given orders. Of orders with the same number, the last is kept.
+     * Orders already in order number order, as in an order file, are copied without sorting.
+     */
+    static OrderPartition of(Collection<Order> ordersToHold) {
+        OrderPartition partition = new OrderPartition(ordersToHold.size());
+        Order[] sortedOrders = ordersToHold.toArray(new Order[0]);
+        for (int i = 1; i < sortedOrders.length; i++) {
+            if (sortedOrders[i - 1].getOrderNumber() >= sortedOrders[i].getOrderNumber()) {
+                // stable sort, so the last of orders with the same number stays last.
+                Arrays.sort(sortedOrders, Comparator.comparingInt(Order::getOrderNumber));
+                break;
+            }
+        }
+        for (Order order : sortedOrders) {
+            int orderNumber = order.getOrderNumber();
+            if (partition.size > 0 && partition.orderNumbers[partition.size - 1] == orderNumber) {
+                partition.orders[partition.size - 1] = order;
+            } else {
+                partition.orderNumbers[partition.size] = orderNumber;
+                partition.orders[partition.size++] = order;
+            }
+        }
+        return partition;
+    }
+
+    Order get(int orderNumber) {
+        long stamp = lock.tryOptimisticRead();
+        Order order = find(orderNumbers, orders, size, orderNumber);
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                order = find(orderNumbers, orders, size, orderNumber);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return order;
+    }
+
+    // searches arrays that may be changing - size is clamped, so a racing write can give a wrong answer
+    // but never an exception, and wrong answers are discarded when the read is validated.
+    private static Order find(int[] orderNumbers, Order[] orders, int size, int orderNumber) {
+        int length = Math.min(size, Math.min(orderNumbers.length, orders.length));
+        if (length == 0) {
+            return null;
+        }
+        // order numbers come from one increasing sequence, so are spread fairly evenly -
+        // try the position an even spread would put the number at before searching.
+        int first = orderNumbers[0];
+        int last = orderNumbers[length - 1];
+        if (orderNumber < first || orderNumber > last) {
+            return null;
+        }
+        int guess = last == first ? 0 : (int) ((long) (orderNumber - first) * (length - 1) / ((long) last - first));
+        if (orderNumbers[guess] == orderNumber) {
+            return orders[guess];
+        }
+        int position = orderNumbers[guess] < orderNumber
+                ? Arrays.binarySearch(orderNumbers, guess + 1, length, orderNumber)
+                : Arrays.binarySearch(orderNumbers, 0, guess, orderNumber);
+        return position < 0 ? null : orders[position];
+    }
+
+    /**
+     * Stores the order, returning the order previously stored with the same number or null if there was none.
+     */
+    Order put(Order order) {
+        long stamp = lock.writeLock();
+        try {
+            int orderNumber = order.getOrderNumber();
+            // fast path - appending the largest order number.
+            if (size == 0 || orderNumbers[size - 1] < orderNumber) {
+                insert(size, orderNumber, order);
+                return null;
+            }
+            int position = find(orderNumber);
+            if (position >= 0) {
+                Order previousOrder = orders[position];
+                orders[position] = order;
+                return previousOrder;
+            }
+            insert(-position - 1, orderNumber, order);
+            return null;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Replaces the order stored with the same number, returning it, or returns null without storing
+     * the order if there is none.
+     */
+    Order replace(Order order) {
+        long stamp = lock.writeLock();
+        try {
+            int position = find(order.getOrderNumber());
+            if (position < 0) {
+                return null;
+            }
+            Order previousOrder = orders[position];
+            orders[position] = order;
+            return previousOrder;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Removes and returns the order with the given number, or null if there is none.
+     */
+    Order remove(int orderNumber) {
+        long stamp = lock.writeLock();
+        try {
+            int position = find(orderNumber);
+            if (position < 0) {
+                return null;
+            }
+            Order removedOrder = orders[position];
+            System.arraycopy(orderNumbers, position + 1, orderNumbers, position, size - position - 1);
+            System.arraycopy(orders, position + 1, orders, position, size - position - 1);
+            orders[--size] = null;
+            return removedOrder;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    int size() {
+        long stamp = lock.readLock();
+        try {
+            return size;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * @return largest order number in the partition, -1 if it is empty.
+     */
+    int getLargestOrderNumber() {
+        long stamp = lock.readLock();
+        try {
+            return size == 0 ? -1 : orderNumbers[size - 1];
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * @return new list of the orders, in order number order.
+     */
+    List<Order> values() {
+        long stamp = lock.readLock();
+        try {
+            return new ArrayList<>(Arrays.asList(orders).subList(0, size));
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * @return new map of the orders by order number, iterating in order number order.
+     */
+    Map<Integer, Order> toMap() {
+        long stamp = lock.readLock();
+        try {
+            Map<Integer, Order> ordersByNumber = new LinkedHashMap<>();
+            for (int i = 0; i < size; i++) {
+                ordersByNumber.put(orderNumbers[i], orders[i]);
+            }
+            return ordersByNumber;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    // position of the order number, or (-(insertion point) - 1) if it isn't present.
+    private int find(int orderNumber) {
+        return Arrays.binarySearch(orderNumbers, 0, size, orderNumber);
+    }
+
+    private void insert(int position, int orderNumber, Order order) {
+        if (size == orderNumbers.length) {
+            int capacity = size + (size >> 1) + 1;
+            orderNumbers = Arrays.copyOf(orderNumbers, capacity);
+            orders = Arrays.copyOf(orders, capacity);
+        }
+        System.arraycopy(orderNumbers, position, orderNumbers, position + 1, size - position);
+        System.arraycopy(orders, position, orders, position + 1, size - position);
+        orderNumbers[position] = orderNumber;
+        orders[position] = order;
+        size++;
+    }
+}
@@ -0,0 +1,147 @@
+package com.sg.floormaster.dao;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiConsumer;
+
+/**
+ * The order partitions of every date, in an array indexed by epoch day.
+ *
+ * Order dates fall in a dense range, so finding a date's partition is an array index rather than
+ * a hash lookup, dates are always visited in calendar order, and a range of dates is a slice of the array.
+ * The array grows in either direction as earlier or later dates are added.
+ *
+ * Thread safe. Readers never lock: they read an immutable snapshot of the array, which is replaced
+ * whenever a date is added - a rare event next to reads and changes to existing dates.
+ */
+final class OrderPartitionDirectory {
+
+    // no more than about 11,000 years of dates.
+    private static final int MAX_DAYS = 1 << 22;
+    private static final int MIN_GROWTH = 32;
+
+    /**
+     * partitions[i] holds the orders on epoch day baseDay + i, null if the date has no partition.
+     * firstIndex and lastIndex are the first and last non-null elements, -1 if there are none.
+     */
+    private record Snapshot(long baseDay, OrderPartition[] partitions, int firstIndex, int lastIndex) {
+    }
+
+    private volatile Snapshot snapshot = new Snapshot(0, new OrderPartition[0], -1, -1);
+
+    /**
+     * @return the partition of orders on date, null if the date has none.
+     */
+    OrderPartition get(LocalDate date) {
+        Snapshot current = snapshot;
+        long index = date.toEpochDay() - current.baseDay();
+        return index < 0 || index >= current.partitions().length ? null : current.partitions()[(int) index];
+    }
+
+    /**
+     * @return the partition of orders on date, created empty if the date had none.
+     */
+    OrderPartition getOrCreate(LocalDate date) {
+        OrderPartition partition = get(date);
+        if (partition != null) {
+            return partition;
+        }
+        synchronized (this) {
+            // another writer may have added it first.
+            partition = get(date);
+            if (partition == null) {
+                partition = new OrderPartition();
+                put(date, partition);
+            }
+            return partition;
+        }
+    }
+
+    /**
+     * Sets the partition of orders on date, replacing any it had.
+     */
+    synchronized void put(LocalDate date, OrderPartition partition) {
+        Snapshot current = snapshot;
+        long day = date.toEpochDay();
+        long baseDay = current.baseDay();
+        OrderPartition[] partitions = current.partitions();
+
+        if (current.firstIndex() < 0) {
+            // first date - leave room either side for the dates around it.
+            baseDay = day - MIN_GROWTH / 2;
+            partitions = new OrderPartition[MIN_GROWTH];
+        } else if (day < baseDay || day >= baseDay + partitions.length) {
+            // grow towards the date, by at least half again so repeated growth stays cheap.
+            long headroom = Math.max(MIN_GROWTH, partitions.length / 2);
+            long newBaseDay = day < baseDay ? day - headroom : baseDay;
+            long newEndDay = day < baseDay ? baseDay + partitions.length : day + 1 + headroom;
+            if (newEndDay - newBaseDay > MAX_DAYS) {
+                throw new FlooringMasteryPersistenceException("Order dates span too many days to store: " + date);
+            }
+            OrderPartition[] grown = new OrderPartition[(int) (newEndDay - newBaseDay)];
+            System.arraycopy(partitions, 0, grown, (int) (baseDay - newBaseDay), partitions.length);
+            baseDay = newBaseDay;
+            partitions = grown;
+        } else {
+            partitions = partitions.clone();
+        }
+
+        int index = (int) (day - baseDay);
+        partitions[index] = partition;
+        int firstIndex = current.firstIndex() < 0 ? index
+                : Math.min(index, (int) (current.baseDay() + current.firstIndex() - baseDay));
+        int lastIndex = current.lastIndex() < 0 ? index
+                : Math.max(index, (int) (current.baseDay() + current.lastIndex() - baseDay));
+        snapshot = new Snapshot(baseDay, partitions, firstIndex, lastIndex);
+    }
+
+    boolean isEmpty() {
+        return snapshot.firstIndex() < 0;
+    }
+
+    /**
+     * @return the latest date with a partition, null if there are none.
+     */
+    LocalDate getLatestDate() {
+        Snapshot current = snapshot;
+        return current.lastIndex() < 0 ? null : LocalDate.ofEpochDay(current.baseDay() + current.lastIndex());
+    }
+
+    /**
+     * @return the partitions of the dates from fromDate to toDate inclusive, in date order,
+     * skipping dates with no partition.
+     */
+    List<OrderPartition> getRange(LocalDate fromDate, LocalDate toDate) {
+        Snapshot current = snapshot;
+        List<OrderPartition> range = new ArrayList<>();
+        if (current.firstIndex() < 0) {
+            return range;
+        }
+        long from = Math.max(fromDate.toEpochDay() - current.baseDay(), current.firstIndex());
+        long to = Math.min(toDate.toEpochDay() - current.baseDay(), current.lastIndex());
+        for (long index = from; index <= to; index++) {
+            OrderPartition partition = current.partitions()[(int) index];
+            if (partition != null) {
+                range.add(partition);
+            }
+        }
+        return range;
+    }
+
+    /**
+     * Passes each date with a partition, and its partition, to action in date order.
+     */
+    void forEach(BiConsumer<LocalDate, OrderPartition> action) {
+        Snapshot current = snapshot;
+        if (current.firstIndex() < 0) {
+            return;
+        }
+        for (int index = current.firstIndex(); index <= current.lastIndex(); index++) {
+            OrderPartition partition = current.partitions()[index];
+            if (partition != null) {
+                action.accept(LocalDate.ofEpochDay(current.baseDay() + index), partition);
+            }
+        }
+    }
+}
@@ -0,0 +1,207 @@
+package com.sg.floormaster.dao;
+
+import com.sg.floormaster.model.Order;
+import com.sg.floormaster.model.OrderTotals;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.channels.Channels;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.temporal.Temporal;
+import java.util.Collection;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Order totals by date, state and product type, kept up to date as orders change, so a report reads one
+ * entry however many orders it covers.
+ *
+ * Every order is counted under 8 keys - its date and its month, each with its state or any state, and its
+ * product type or any product type. Adding an order adds its totals to each, removing it subtracts them,
+ * and editing an order does both. State codes and product types are matched ignoring case.
+ * The totals of every date are also kept in an OrderTotalsTree, to sum any range of dates in O(log days).
+ *
+ * The totals by date, state and product type are saved to a checksummed side file next to the order files,
+ * with a fingerprint of the order files they were computed from - each file's name, size and checksum.
+ * On load they are used only if the fingerprint matches the order files loaded, so a quarantined order file,
+ * a save stopped part way or an order file edited by hand leaves them to be rebuilt rather than stale.
+ * The fingerprint reads only each file's trailer, so loading saved totals leaves the orders' money columns
+ * unparsed.
+ *
+ * Thread safe. Each key is updated atomically, but a report running during a change may see it applied to
+ * its date's totals and not yet to its month's.
+ */
+final class OrderRollups {
+
+    static final String FILE_NAME = "Rollups.csv";
+    private static final String HEADER = "Date,State,ProductType,OrderCount,Area,MaterialCost,LaborCost,Tax,Total";
+    private static final String DELIMITER = ",";
+
+    // period is a LocalDate or YearMonth. A null state or productType totals every state or product type.
+    private record RollupKey(Temporal period, String state, String productType) {
+    }
+
+    private final Map<RollupKey, OrderTotals> totals = new ConcurrentHashMap<>();
+    private final OrderTotalsTree dateTotals = new OrderTotalsTree();
+
+    void add(Order order) {
+        apply(order.getOrderDate(), order.getState(), order.getProductType(), OrderTotals.of(order), true);
+    }
+
+    void remove(Order order) {
+        apply(order.getOrderDate(), order.getState(), order.getProductType(), OrderTotals.of(order), false);
+    }
+
+    private void apply(LocalDate date, String state, String productType, OrderTotals delta, boolean add) {
+        String stateName = normalize(state);
+        String productTypeName = normalize(productType);
+        if (add) {
+            dateTotals.add(date, delta);
+        } else {
+            dateTotals.subtract(date, delta);
+        }
+        for (Temporal period : new Temporal[]{date, YearMonth.from(date)}) {
+            for (String stateKey : new String[]{stateName, null}) {
+                for (String productTypeKey : new String[]{productTypeName, null}) {
+                    totals.compute(new RollupKey(period, stateKey, productTypeKey), (key, current) -> {
+                        OrderTotals updated = add ? (current == null ? delta : current.plus(delta))
+                                : (current == null ? OrderTotals.NONE : current).minus(delta);
+                        // drop keys with no orders left, so removed dates and states don't accumulate.
+                        return updated.getOrderCount() == 0 ? null : updated;
+                    });
+                }
+            }
+        }
+    }
+
+    /**
+     * @param state state code to total, null for every state.
+     * @param productType product type to total, null for every product type.
+     * @return totals of the orders on date, OrderTotals.NONE if there are none.
+     */
+    OrderTotals get(LocalDate date, String state, String productType) {
+        return get((Temporal) date, state, productType);
+    }
+
+    /**
+     * @return totals of the orders in month, as for a date.
+     */
+    OrderTotals get(YearMonth month, String state, String productType) {
+        return get((Temporal) month, state, productType);
+    }
+
+    /**
+     * @return totals of the orders on every date from fromDate to toDate inclusive, for all states and
+     * product types. OrderTotals.NONE if there are none or toDate is before fromDate.
+     */
+    OrderTotals get(LocalDate fromDate, LocalDate toDate) {
+        return dateTotals.sum(fromDate, toDate);
+    }
+
+    private OrderTotals get(Temporal period, String state, String productType) {
+        RollupKey key = new RollupKey(period,
+                state == null ? null : normalize(state),
+                productType == null ? null : normalize(productType));
+        return totals.getOrDefault(key, OrderTotals.NONE);
+    }
+
+    /**
+     * @return a number identifying the content of the given order files, from each file's name, size and
+     * checksum trailer, or its modification time if it has no trailer. Reads only the trailers, not the orders.
+     */
+    static long orderFilesFingerprint(Collection<Path> orderFiles) throws IOException {
+        long fingerprint = 0;
+        for (Path file : orderFiles) {
+            long checksum = OrderFileChecksum.checksum(file);
+            long stamp = mix(file.getFileName().toString().hashCode());
+            stamp = mix(stamp + Files.size(file));
+            stamp = mix(stamp + (checksum < 0 ? Files.getLastModifiedTime(file).toMillis() : checksum));
+            // summed, so the order the files are listed in doesn't matter.
+            fingerprint += stamp;
+        }
+        return fingerprint;
+    }
+
+    // spreads values over the long range, so different sets of files are unlikely to sum the same.
+    private static long mix(long value) {
+        value *= 0x9E3779B97F4A7C15L;
+        return value ^ value >>> 29;
+    }
+
+    /**
+     * Saves the totals by date, state and product type to file, with fingerprint of the orders they total.
+     */
+    void write(Path file, long fingerprint) throws IOException {
+        OrderFileChecksum.write(file, out -> {
+            Writer writer = Channels.newWriter(out, StandardCharsets.UTF_8);
+            writer.write(fingerprint + "\n");
+            writer.write(HEADER + "\n");
+            for (Map.Entry<RollupKey, OrderTotals> entry : totals.entrySet()) {
+                RollupKey key = entry.getKey();
+                if (!(key.period() instanceof LocalDate) || key.state() == null || key.productType() == null) {
+                    continue;
+                }
+                OrderTotals value = entry.getValue();
+                writer.write(String.join(DELIMITER, key.period().toString(), key.state(), key.productType(),
+                        Long.toString(value.getOrderCount()), value.getArea().toPlainString(),
+                        value.getMaterialCost().toPlainString(), value.getLaborCost().toPlainString(),
+                        value.getTax().toPlainString(), value.getTotal().toPlainString()) + "\n");
+            }
+            writer.flush();
+        });
+    }
+
+    /**
+     * Replaces these totals with those saved in file, if they were saved for orders with the given fingerprint.
+     *
+     * @return true if the totals were read, false if file is missing, damaged or for other orders,
+     * in which case these totals are left empty.
+     */
+    boolean read(Path file, long fingerprint) {
+        clear();
+        try {
+            if (!Files.exists(file) || OrderFileChecksum.verify(file) != OrderFileChecksum.Status.VALID) {
+                return false;
+            }
+            try (SeekableByteChannel channel = Files.newByteChannel(file, StandardOpenOption.READ);
+                 BufferedReader reader = new BufferedReader(
+                         Channels.newReader(OrderFileChecksum.content(channel), StandardCharsets.UTF_8))) {
+                if (!Long.toString(fingerprint).equals(reader.readLine()) || !HEADER.equals(reader.readLine())) {
+                    return false;
+                }
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    String[] fields = line.split(DELIMITER, -1);
+                    OrderTotals cell = new OrderTotals(Long.parseLong(fields[3]), new BigDecimal(fields[4]),
+                            new BigDecimal(fields[5]), new BigDecimal(fields[6]), new BigDecimal(fields[7]),
+                            new BigDecimal(fields[8]));
+                    apply(LocalDate.parse(fields[0]), fields[1], fields[2], cell, true);
+                }
+            }
+            return true;
+        } catch (IOException | RuntimeException e) {
+            // the totals can always be rebuilt from the orders, so a side file that can't be read is ignored.
+            // catches NumberFormatException, DateTimeParseException and IndexOutOfBoundsException.
+            clear();
+            return false;
+        }
+    }
+
+    private void clear() {
+        totals.clear();
+        dateTotals.clear();
+    }
+
+    private static String normalize(String name) {
+        return name == null ? "" : name.toUpperCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,323 @@
+package com.sg.floormaster.dao;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.function.BiConsumer;
+import java.util.function.LongConsumer;
+
+/**
+ * An immutable sorted file of order records, keyed by long order key, used by the LSM order DAO.
+ *
+ * Layout: the records - each an int length, -1 for a removal, then the encoded order -
+ * then the sorted keys, the offset of each record, the Bloom filter of the keys, and a fixed-size footer.
+ * The keys, offsets and filter are held in memory while the segment is open, so finding a record is
+ * a filter check and a binary search, then a single positioned read.
+ * Thread safe once written.
+ */
+final class OrderSegment {
+
+    // returned by get for a key whose order was removed.
+    static final byte[] TOMBSTONE = new byte[0];
+
+    private static final int MAGIC = 0x464D5331; // "FMS1"
+    private static final int FOOTER_SIZE = 2 * Long.BYTES + 2 * Integer.BYTES;
+
+    private final long id;
+    private final Path path;
+    private final FileChannel channel;
+    private final long[] keys;
+    // offsets[i] is the start of record i, offsets[keys.length] the end of the records.
+    private final long[] offsets;
+    private final OrderKeyBloomFilter filter;
+    private final long sizeBytes;
+
+    private OrderSegment(long id, Path path, long[] keys, long[] offsets, OrderKeyBloomFilter filter, long sizeBytes)
+            throws IOException {
+        this.id = id;
+        this.path = path;
+        this.keys = keys;
+        this.offsets = offsets;
+        this.filter = filter;
+        this.sizeBytes = sizeBytes;
+        channel = FileChannel.open(path, StandardOpenOption.READ);
+    }
+
+    /**
+     * Opens a segment written by a Writer.
+     */
+    static OrderSegment open(Path path, long id) throws IOException {
+        try (FileChannel file = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = file.size();
+            if (size < FOOTER_SIZE) {
+                throw new IOException("Order segment is truncated: " + path);
+            }
+            ByteBuffer footer = readFully(file, size - FOOTER_SIZE, FOOTER_SIZE);
+            long indexOffset = footer.getLong();
+            long filterOffset = footer.getLong();
+            int count = footer.getInt();
+            if (footer.getInt() != MAGIC) {
+                throw new IOException("Order segment has an invalid footer: " + path);
+            }
+
+            ByteBuffer index = readFully(file, indexOffset, (int) (filterOffset - indexOffset));
+            long[] keys = new long[count];
+            long[] offsets = new long[count + 1];
+            index.asLongBuffer().get(keys).get(offsets);
+            OrderKeyBloomFilter filter = OrderKeyBloomFilter.readFrom(
+                    readFully(file, filterOffset, (int) (size - FOOTER_SIZE - filterOffset)));
+            return new OrderSegment(id, path, keys, offsets, filter, size);
+        }
+    }
+
+    long getId() {
+        return id;
+    }
+
+    int size() {
+        return keys.length;
+    }
+
+    long getSizeBytes() {
+        return sizeBytes;
+    }
+
+    long getFirstKey() {
+        return keys[0];
+    }
+
+    long getLastKey() {
+        return keys[keys.length - 1];
+    }
+
+    void forEachKey(LongConsumer action) {
+        for (long key : keys) {
+            action.accept(key);
+        }
+    }
+
+    boolean overlaps(long fromKey, long toKey) {
+        return keys.length > 0 && getFirstKey() <= toKey && getLastKey() >= fromKey;
+    }
+
+    /**
+     * @return the encoded order with the key, TOMBSTONE if it was removed, or null if the segment has no record of it.
+     */
+    byte[] get(long key) throws IOException {
+        if (keys.length == 0 || key < getFirstKey() || key > getLastKey() || !filter.mightContain(key)) {
+            return null;
+        }
+        int position = Arrays.binarySearch(keys, key);
+        if (position < 0) {
+            return null;
+        }
+        return value(readFully(channel, offsets[position], (int) (offsets[position + 1] - offsets[position])));
+    }
+
+    /**
+     * Passes each record with a key from fromKey to toKey inclusive to action, in key order, with a single read.
+     */
+    void scan(long fromKey, long toKey, BiConsumer<Long, byte[]> action) throws IOException {
+        int from = insertionPoint(fromKey);
+        int to = insertionPoint(toKey);
+        if (to < keys.length && keys[to] == toKey) {
+            to++;
+        }
+        if (from >= to) {
+            return;
+        }
+        ByteBuffer records = readFully(channel, offsets[from], (int) (offsets[to] - offsets[from]));
+        for (int i = from; i < to; i++) {
+            action.accept(keys[i], value(records));
+        }
+    }
+
+    /**
+     * @return cursor over every record in key order, reading the segment sequentially.
+     */
+    Cursor cursor() throws IOException {
+        return new Cursor();
+    }
+
+    void close() throws IOException {
+        channel.close();
+    }
+
+    void delete() throws IOException {
+        close();
+        Files.deleteIfExists(path);
+    }
+
+    private int insertionPoint(long key) {
+        int position = Arrays.binarySearch(keys, key);
+        return position < 0 ? -position - 1 : position;
+    }
+
+    // reads one record's value from the buffer's position.
+    private static byte[] value(ByteBuffer records) {
+        int length = records.getInt();
+        if (length < 0) {
+            return TOMBSTONE;
+        }
+        byte[] value = new byte[length];
+        records.get(value);
+        return value;
+    }
+
+    private static ByteBuffer readFully(FileChannel file, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (file.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException("Unexpected end of order segment.");
+            }
+        }
+        return buffer.flip();
+    }
+
+    /**
+     * Reads the records of a segment in key order, for merging.
+     */
+    final class Cursor implements Closeable {
+        private final DataInputStream in;
+        private int next;
+        private long key;
+        private byte[] value;
+
+        private Cursor() throws IOException {
+            in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path), 1 << 16));
+        }
+
+        /**
+         * Moves to the next record, returning false if there are no more.
+         */
+        boolean next() throws IOException {
+            if (next == keys.length) {
+                return false;
+            }
+            key = keys[next++];
+            int length = in.readInt();
+            if (length < 0) {
+                value = TOMBSTONE;
+            } else {
+                value = new byte[length];
+                in.readFully(value);
+            }
+            return true;
+        }
+
+        long key() {
+            return key;
+        }
+
+        byte[] value() {
+            return value;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+
+    /**
+     * Writes a new segment. Records must be added in increasing key order.
+     */
+    static final class Writer implements Closeable {
+        private final long id;
+        private final Path path;
+        private final FileChannel file;
+        private final DataOutputStream out;
+        private final OrderKeyBloomFilter filter;
+        private long[] keys;
+        private long[] offsets;
+        private int count;
+        private long position;
+
+        /**
+         * @param expectedEntries most records that will be added, used to size the Bloom filter.
+         * @param bloomBitsPerKey bits of Bloom filter per record, 0 for no filter.
+         */
+        Writer(Path path, long id, int expectedEntries, int bloomBitsPerKey) throws IOException {
+            this.id = id;
+            this.path = path;
+            file = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+            out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(file), 1 << 16));
+            filter = new OrderKeyBloomFilter(Math.max(expectedEntries, 1), bloomBitsPerKey);
+            keys = new long[Math.max(expectedEntries, 16)];
+            offsets = new long[keys.length + 1];
+        }
+
+        /**
+         * @param value the encoded order, or TOMBSTONE for a removal.
+         */
+        void add(long key, byte[] value) throws IOException {
+            if (count > 0 && keys[count - 1] >= key) {
+                throw new IllegalStateException("Segment keys must be added in increasing order.");
+            }
+            if (count == keys.length) {
+                keys = Arrays.copyOf(keys, count * 2);
+                offsets = Arrays.copyOf(offsets, count * 2 + 1);
+            }
+            keys[count] = key;
+            offsets[count++] = position;
+            filter.add(key);
+            if (value == TOMBSTONE) {
+                out.writeInt(-1);
+                position += Integer.BYTES;
+            } else {
+                out.writeInt(value.length);
+                out.write(value);
+                position += Integer.BYTES + value.length;
+            }
+        }
+
+        int size() {
+            return count;
+        }
+
+        /**
+         * Writes the index, filter and footer, forces the segment to the storage device and opens it for reading.
+         */
+        OrderSegment finish() throws IOException {
+            offsets[count] = position;
+            long indexOffset = position;
+            for (int i = 0; i < count; i++) {
+                out.writeLong(keys[i]);
+            }
+            for (int i = 0; i <= count; i++) {
+                out.writeLong(offsets[i]);
+            }
+            long filterOffset = indexOffset + (2L * count + 1) * Long.BYTES;
+            ByteBuffer filterBytes = ByteBuffer.allocate(filter.serializedSize());
+            filter.writeTo(filterBytes);
+            out.write(filterBytes.array());
+            out.writeLong(indexOffset);
+            out.writeLong(filterOffset);
+            out.writeInt(count);
+            out.writeInt(MAGIC);
+            out.flush();
+            file.force(true);
+            long size = file.size();
+            out.close();
+            return new OrderSegment(id, path, Arrays.copyOf(keys, count), Arrays.copyOf(offsets, count + 1),
+                    filter, size);
+        }
+
+        /**
+         * Abandons an unfinished segment, deleting its file.
+         */
+        @Override
+        public void close() throws IOException {
+            if (file.isOpen()) {
+                out.close();
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+}
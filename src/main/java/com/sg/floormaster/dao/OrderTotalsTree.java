@@ -0,0 +1,157 @@
+package com.sg.floormaster.dao;
+
+import com.sg.floormaster.model.OrderTotals;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Order totals of each day in a Fenwick tree indexed by epoch day, so the totals of any range of dates
+ * take O(log days) to sum, and changing a day's totals takes O(log days) too.
+ *
+ * Each day holds its order count, and its area and costs in hundredths, as longs - 6 to a day in one array,
+ * so a day's node is 48 contiguous bytes rather than 6 BigDecimals. Like OrderPartitionDirectory the days
+ * start at baseDay and the range grows in either direction as earlier or later dates are added, the tree
+ * then being rebuilt in O(days).
+ *
+ * Thread safe. Sums run concurrently with each other, changes one at a time.
+ */
+final class OrderTotalsTree {
+
+    // order count, area, material cost, labor cost, tax and total.
+    private static final int FIELDS = 6;
+    // no more than about 11,000 years of dates.
+    private static final int MAX_DAYS = 1 << 22;
+    private static final int MIN_GROWTH = 32;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private long baseDay;
+    private int capacity;
+    // values[i * FIELDS + f] is field f of day baseDay + i.
+    private long[] values = new long[0];
+    // 1 based Fenwick tree, node j at tree[j * FIELDS], summing the days (j - lowest bit of j, j].
+    private long[] tree = new long[FIELDS];
+
+    void add(LocalDate date, OrderTotals totals) {
+        update(date, totals, 1);
+    }
+
+    void subtract(LocalDate date, OrderTotals totals) {
+        update(date, totals, -1);
+    }
+
+    void clear() {
+        lock.writeLock().lock();
+        try {
+            capacity = 0;
+            values = new long[0];
+            tree = new long[FIELDS];
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void update(LocalDate date, OrderTotals totals, int sign) {
+        long[] delta = {totals.getOrderCount(), hundredths(totals.getArea()), hundredths(totals.getMaterialCost()),
+                hundredths(totals.getLaborCost()), hundredths(totals.getTax()), hundredths(totals.getTotal())};
+        lock.writeLock().lock();
+        try {
+            int index = indexOf(date.toEpochDay());
+            for (int f = 0; f < FIELDS; f++) {
+                values[index * FIELDS + f] += sign * delta[f];
+            }
+            for (int node = index + 1; node <= capacity; node += node & -node) {
+                for (int f = 0; f < FIELDS; f++) {
+                    tree[node * FIELDS + f] += sign * delta[f];
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // index of day, growing the range of days to include it.
+    private int indexOf(long day) {
+        if (capacity > 0 && day >= baseDay && day < baseDay + capacity) {
+            return (int) (day - baseDay);
+        }
+        long newBaseDay;
+        long newEndDay;
+        if (capacity == 0) {
+            // first date - leave room either side for the dates around it.
+            newBaseDay = day - MIN_GROWTH / 2;
+            newEndDay = newBaseDay + MIN_GROWTH;
+        } else {
+            // grow towards the date, by at least half again so repeated growth stays cheap.
+            long headroom = Math.max(MIN_GROWTH, capacity / 2);
+            newBaseDay = day < baseDay ? day - headroom : baseDay;
+            newEndDay = day < baseDay ? baseDay + capacity : day + 1 + headroom;
+        }
+        if (newEndDay - newBaseDay > MAX_DAYS) {
+            throw new FlooringMasteryPersistenceException("Order dates span too many days to total: "
+                    + LocalDate.ofEpochDay(day));
+        }
+        int newCapacity = (int) (newEndDay - newBaseDay);
+        long[] newValues = new long[newCapacity * FIELDS];
+        if (capacity > 0) {
+            System.arraycopy(values, 0, newValues, (int) (baseDay - newBaseDay) * FIELDS, values.length);
+        }
+        baseDay = newBaseDay;
+        capacity = newCapacity;
+        values = newValues;
+        rebuild();
+        return (int) (day - baseDay);
+    }
+
+    // builds the tree from values in O(days), each node passing its sum up to its parent.
+    private void rebuild() {
+        tree = new long[(capacity + 1) * FIELDS];
+        System.arraycopy(values, 0, tree, FIELDS, values.length);
+        for (int node = 1; node <= capacity; node++) {
+            int parent = node + (node & -node);
+            if (parent <= capacity) {
+                for (int f = 0; f < FIELDS; f++) {
+                    tree[parent * FIELDS + f] += tree[node * FIELDS + f];
+                }
+            }
+        }
+    }
+
+    /**
+     * @return totals of the days from fromDate to toDate inclusive, OrderTotals.NONE if toDate is before fromDate.
+     */
+    OrderTotals sum(LocalDate fromDate, LocalDate toDate) {
+        long[] sum = new long[FIELDS];
+        lock.readLock().lock();
+        try {
+            // clamp to the days held, days outside them have no orders.
+            long from = Math.max(fromDate.toEpochDay() - baseDay, 0);
+            long to = Math.min(toDate.toEpochDay() - baseDay + 1, capacity);
+            if (from >= to) {
+                return OrderTotals.NONE;
+            }
+            addPrefix(sum, (int) to, 1);
+            addPrefix(sum, (int) from, -1);
+        } finally {
+            lock.readLock().unlock();
+        }
+        return new OrderTotals(sum[0], BigDecimal.valueOf(sum[1], 2), BigDecimal.valueOf(sum[2], 2),
+                BigDecimal.valueOf(sum[3], 2), BigDecimal.valueOf(sum[4], 2), BigDecimal.valueOf(sum[5], 2));
+    }
+
+    // adds sign times the totals of the first count days to sum.
+    private void addPrefix(long[] sum, int count, int sign) {
+        for (int node = count; node > 0; node -= node & -node) {
+            for (int f = 0; f < FIELDS; f++) {
+                sum[f] += sign * tree[node * FIELDS + f];
+            }
+        }
+    }
+
+    private static long hundredths(BigDecimal value) {
+        return value.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+}
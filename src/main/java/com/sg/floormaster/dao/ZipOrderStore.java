@@ -0,0 +1,78 @@
+package com.sg.floormaster.dao;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * An order store held in a single zip archive, opened as a FileSystem - order files are entries of an
+ * Orders folder inside the archive, so a whole store can be copied, backed up or mailed as one file.
+ *
+ * Pass getOrderFolder() to FlooringMasteryOrderDaoFileImpl, which reads and writes it like any folder.
+ * Changes are made to the archive in memory and written to disk when the store is closed, replacing the
+ * archive - a store that is never closed loses every save since it was opened. Entries are deflated unless
+ * created uncompressed, in which case already archived order files aren't compressed twice.
+ */
+public class ZipOrderStore implements AutoCloseable {
+
+    static final String ORDER_FOLDER = "/Orders";
+
+    private final Path archive;
+    private final FileSystem zip;
+
+    /**
+     * Opens the zip archive at archive, creating it if it doesn't exist.
+     *
+     * @throws FlooringMasteryPersistenceException if archive isn't a zip archive or can't be opened.
+     */
+    public ZipOrderStore(String archive) throws FlooringMasteryPersistenceException {
+        this(Paths.get(archive), true);
+    }
+
+    /**
+     * @param compressed false to store entries uncompressed.
+     */
+    public ZipOrderStore(Path archive, boolean compressed) throws FlooringMasteryPersistenceException {
+        this.archive = archive;
+        Map<String, Object> env = new HashMap<>();
+        env.put("create", "true");
+        env.put("noCompression", Boolean.toString(!compressed));
+        try {
+            zip = FileSystems.newFileSystem(URI.create("jar:" + archive.toAbsolutePath().toUri()), env);
+            Files.createDirectories(zip.getPath(ORDER_FOLDER));
+        } catch (IOException | RuntimeException e) {
+            throw new FlooringMasteryPersistenceException("Could not open order archive " + archive, e);
+        }
+    }
+
+    /**
+     * @return the Orders folder inside the archive, valid until the store is closed.
+     */
+    public Path getOrderFolder() {
+        return zip.getPath(ORDER_FOLDER);
+    }
+
+    public Path getArchive() {
+        return archive;
+    }
+
+    /**
+     * Writes the archive to disk and closes it.
+     *
+     * @throws FlooringMasteryPersistenceException if the archive can't be written.
+     */
+    @Override
+    public void close() throws FlooringMasteryPersistenceException {
+        try {
+            zip.close();
+        } catch (IOException e) {
+            throw new FlooringMasteryPersistenceException("Could not write order archive " + archive, e);
+        }
+    }
+}
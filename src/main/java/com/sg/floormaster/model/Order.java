@@ -1,23 +1,70 @@
 package com.sg.floormaster.model;
 
 import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.util.Objects;
 
+/**
+ * A flooring order.
+ *
+ * Money values are held as longs scaled to 2 decimal places - the scale every value is loaded and saved with -
+ * instead of as BigDecimal objects, which cuts the size of an order by more than half.
+ * The BigDecimal getters and setters behave as before: a value set with a different scale,
+ * or too large for a long, is kept as the BigDecimal it was set with.
+ *
+ * Orders loaded from a file may hold their money values undecoded, as the text of the file's row - each value
+ * is parsed when first read and kept, so listing orders only parses the totals it shows. The text is dropped
+ * once every value is parsed. Decoding is thread safe, so loaded orders can be read from any thread.
+ */
 public class Order {
+    private static final int SCALE = 2;
+
+    // index of each money value, in exactValues and as a bit in nullValues.
+    private static final int TAX_RATE = 0;
+    private static final int COST_PER_SQUARE_FOOT = 1;
+    private static final int LABOR_COST_PER_SQUARE_FOOT = 2;
+    private static final int MATERIAL_COST = 3;
+    private static final int AREA = 4;
+    private static final int LABOR_COST = 5;
+    private static final int TAX = 6;
+    private static final int TOTAL = 7;
+    private static final int MONEY_VALUES = 8;
+    // index of each money value in order file column order, as passed to setUndecodedMoneyValues.
+    private static final int[] COLUMN_VALUES = {TAX_RATE, AREA, COST_PER_SQUARE_FOOT, LABOR_COST_PER_SQUARE_FOOT,
+            MATERIAL_COST, LABOR_COST, TAX, TOTAL};
+    // returned when text can't be parsed to an exact scaled long.
+    private static final long NOT_SCALED = Long.MIN_VALUE;
+
     private int orderNumber;
     private String customerName;
     private String state;
     private LocalDate orderDate;
-    private BigDecimal taxRate;
     private String productType;
-    private BigDecimal costPerSquareFoot;
-    private BigDecimal laborCostPerSquareFoot;
-    private BigDecimal materialCost;
-    private BigDecimal area;
-    private BigDecimal laborCost;
-    private BigDecimal tax;
-    private BigDecimal total;
+
+    // money values, scaled by 10^SCALE.
+    private long taxRate;
+    private long costPerSquareFoot;
+    private long laborCostPerSquareFoot;
+    private long materialCost;
+    private long area;
+    private long laborCost;
+    private long tax;
+    private long total;
+
+    // bit set for each money value that is null - all are null until set.
+    private byte nullValues = (byte) 0xFF;
+    // values that can't be held as a scaled long, only allocated if one is set.
+    private BigDecimal[] exactValues;
+
+    // bit set for each money value not yet parsed from undecodedText. Volatile, so a value parsed by one
+    // thread is seen by every thread that sees its bit cleared.
+    private volatile byte undecodedValues;
+    // text of the undecoded money values, null once all are parsed.
+    private byte[] undecodedText;
+    // start of each money value in undecodedText, a byte each by money value index.
+    private long undecodedOffsets;
 
     public int getOrderNumber() {
         return orderNumber;
@@ -52,11 +99,13 @@ public class Order {
     }
 
     public BigDecimal getTaxRate() {
-        return taxRate;
+        decode(TAX_RATE);
+        return fromScaled(TAX_RATE, taxRate);
     }
 
     public void setTaxRate(BigDecimal taxRate) {
-        this.taxRate = taxRate;
+        decode(TAX_RATE);
+        this.taxRate = toScaled(TAX_RATE, taxRate);
     }
 
     public String getProductType() {
@@ -68,71 +117,248 @@ public class Order {
     }
 
     public BigDecimal getCostPerSquareFoot() {
-        return costPerSquareFoot;
+        decode(COST_PER_SQUARE_FOOT);
+        return fromScaled(COST_PER_SQUARE_FOOT, costPerSquareFoot);
     }
 
     public void setCostPerSquareFoot(BigDecimal costPerSquareFoot) {
-        this.costPerSquareFoot = costPerSquareFoot;
+        decode(COST_PER_SQUARE_FOOT);
+        this.costPerSquareFoot = toScaled(COST_PER_SQUARE_FOOT, costPerSquareFoot);
     }
 
     public BigDecimal getLaborCostPerSquareFoot() {
-        return laborCostPerSquareFoot;
+        decode(LABOR_COST_PER_SQUARE_FOOT);
+        return fromScaled(LABOR_COST_PER_SQUARE_FOOT, laborCostPerSquareFoot);
     }
 
     public void setLaborCostPerSquareFoot(BigDecimal laborCostPerSquareFoot) {
-        this.laborCostPerSquareFoot = laborCostPerSquareFoot;
+        decode(LABOR_COST_PER_SQUARE_FOOT);
+        this.laborCostPerSquareFoot = toScaled(LABOR_COST_PER_SQUARE_FOOT, laborCostPerSquareFoot);
     }
 
     public BigDecimal getMaterialCost() {
-        return materialCost;
+        decode(MATERIAL_COST);
+        return fromScaled(MATERIAL_COST, materialCost);
     }
 
     public void setMaterialCost(BigDecimal materialCost) {
-        this.materialCost = materialCost;
+        decode(MATERIAL_COST);
+        this.materialCost = toScaled(MATERIAL_COST, materialCost);
     }
 
     public BigDecimal getArea() {
-        return area;
+        decode(AREA);
+        return fromScaled(AREA, area);
     }
 
     public void setArea(BigDecimal area) {
-        this.area = area;
+        decode(AREA);
+        this.area = toScaled(AREA, area);
     }
 
     public BigDecimal getLaborCost() {
-        return laborCost;
+        decode(LABOR_COST);
+        return fromScaled(LABOR_COST, laborCost);
     }
 
     public void setLaborCost(BigDecimal laborCost) {
-        this.laborCost = laborCost;
+        decode(LABOR_COST);
+        this.laborCost = toScaled(LABOR_COST, laborCost);
     }
 
     public BigDecimal getTax() {
-        return tax;
+        decode(TAX);
+        return fromScaled(TAX, tax);
     }
 
     public void setTax(BigDecimal tax) {
-        this.tax = tax;
+        decode(TAX);
+        this.tax = toScaled(TAX, tax);
     }
 
     public BigDecimal getTotal() {
-        return total;
+        decode(TOTAL);
+        return fromScaled(TOTAL, total);
     }
 
     public void setTotal(BigDecimal total) {
-        this.total = total;
+        decode(TOTAL);
+        this.total = toScaled(TOTAL, total);
+    }
+
+    /**
+     * Sets the money values to be parsed from text as each is first read, rather than now.
+     *
+     * @param text ASCII text of the money values in order file column order - TaxRate, Area, CostPerSquareFoot,
+     *             LaborCostPerSquareFoot, MaterialCost, LaborCost, Tax then Total - each a plain decimal number,
+     *             such as "-12.5", ended by a comma or the end of text. Parsed values are rounded to 2 decimal
+     *             places. Must not be changed after.
+     * @param offsets start of each value in text, an unsigned byte each in column order, TaxRate's lowest.
+     */
+    public void setUndecodedMoneyValues(byte[] text, long offsets) {
+        long offsetsByIndex = 0;
+        for (int column = 0; column < MONEY_VALUES; column++) {
+            offsetsByIndex |= ((offsets >>> (column * Byte.SIZE)) & 0xFF) << (COLUMN_VALUES[column] * Byte.SIZE);
+        }
+        synchronized (this) {
+            undecodedText = text;
+            undecodedOffsets = offsetsByIndex;
+            undecodedValues = (byte) 0xFF;
+        }
+    }
+
+    // parses the money value at index if it is still undecoded.
+    private void decode(int index) {
+        if ((undecodedValues & (1 << index)) != 0) {
+            decodeValue(index);
+        }
+    }
+
+    private synchronized void decodeValue(int index) {
+        int bit = 1 << index;
+        if ((undecodedValues & bit) == 0) {
+            return;
+        }
+        int start = (int) (undecodedOffsets >>> (index * Byte.SIZE)) & 0xFF;
+        int end = start;
+        while (end < undecodedText.length && undecodedText[end] != ',') {
+            end++;
+        }
+        long scaled = parseScaled(undecodedText, start, end);
+        if (scaled != NOT_SCALED) {
+            nullValues &= (byte) ~bit;
+            setExactValue(index, null);
+        } else {
+            BigDecimal value = new BigDecimal(new String(undecodedText, start, end - start, StandardCharsets.US_ASCII))
+                    .setScale(SCALE, RoundingMode.HALF_UP);
+            scaled = toScaled(index, value);
+        }
+        switch (index) {
+            case TAX_RATE: taxRate = scaled; break;
+            case COST_PER_SQUARE_FOOT: costPerSquareFoot = scaled; break;
+            case LABOR_COST_PER_SQUARE_FOOT: laborCostPerSquareFoot = scaled; break;
+            case MATERIAL_COST: materialCost = scaled; break;
+            case AREA: area = scaled; break;
+            case LABOR_COST: laborCost = scaled; break;
+            case TAX: tax = scaled; break;
+            default: total = scaled; break;
+        }
+        // clearing the bit, a volatile write, publishes the value.
+        byte stillUndecoded = (byte) (undecodedValues & ~bit);
+        if (stillUndecoded == 0) {
+            undecodedText = null;
+        }
+        undecodedValues = stillUndecoded;
+    }
+
+    private void decodeAll() {
+        for (int index = 0; undecodedValues != 0 && index < MONEY_VALUES; index++) {
+            decode(index);
+        }
+    }
+
+    // parses a plain decimal number with at most SCALE decimal places to a long scaled to SCALE,
+    // without creating a BigDecimal. Returns NOT_SCALED for any other number.
+    private static long parseScaled(byte[] text, int start, int end) {
+        int i = start;
+        boolean negative = false;
+        if (i < end && (text[i] == '-' || text[i] == '+')) {
+            negative = text[i] == '-';
+            i++;
+        }
+        long value = 0;
+        int digits = 0;
+        int decimalPlaces = -1;
+        for (; i < end; i++) {
+            byte c = text[i];
+            if (c == '.' && decimalPlaces < 0) {
+                decimalPlaces = 0;
+                continue;
+            }
+            // 17 digits, and the 2 added for the scale, always fit in a long.
+            if (c < '0' || c > '9' || digits == 17 || decimalPlaces == SCALE) {
+                return NOT_SCALED;
+            }
+            value = value * 10 + (c - '0');
+            digits++;
+            if (decimalPlaces >= 0) {
+                decimalPlaces++;
+            }
+        }
+        if (digits == 0) {
+            return NOT_SCALED;
+        }
+        for (int place = Math.max(decimalPlaces, 0); place < SCALE; place++) {
+            value *= 10;
+        }
+        return negative ? -value : value;
+    }
+
+    // stores value's null bit and exact value, returning the scaled long to hold for it.
+    private long toScaled(int index, BigDecimal value) {
+        int bit = 1 << index;
+        if (value == null) {
+            nullValues |= (byte) bit;
+            setExactValue(index, null);
+            return 0;
+        }
+        nullValues &= (byte) ~bit;
+        if (value.scale() == SCALE && value.unscaledValue().bitLength() < Long.SIZE) {
+            setExactValue(index, null);
+            return value.unscaledValue().longValue();
+        }
+        setExactValue(index, value);
+        return 0;
+    }
+
+    private BigDecimal fromScaled(int index, long scaled) {
+        if ((nullValues & (1 << index)) != 0) {
+            return null;
+        }
+        BigDecimal exactValue = getExactValue(index);
+        return exactValue != null ? exactValue : BigDecimal.valueOf(scaled, SCALE);
+    }
+
+    private BigDecimal getExactValue(int index) {
+        return exactValues == null ? null : exactValues[index];
+    }
+
+    private void setExactValue(int index, BigDecimal value) {
+        if (exactValues == null) {
+            if (value == null) {
+                return;
+            }
+            exactValues = new BigDecimal[MONEY_VALUES];
+        }
+        exactValues[index] = value;
     }
 
     @Override
     public boolean equals(Object o) {
         if (o == null || getClass() != o.getClass()) return false;
         Order order = (Order) o;
-        return orderNumber == order.orderNumber && Objects.equals(customerName, order.customerName) && Objects.equals(state, order.state) && Objects.equals(orderDate, order.orderDate) && Objects.equals(taxRate, order.taxRate) && Objects.equals(productType, order.productType) && Objects.equals(costPerSquareFoot, order.costPerSquareFoot) && Objects.equals(laborCostPerSquareFoot, order.laborCostPerSquareFoot) && Objects.equals(materialCost, order.materialCost) && Objects.equals(area, order.area) && Objects.equals(laborCost, order.laborCost) && Objects.equals(tax, order.tax) && Objects.equals(total, order.total);
+        decodeAll();
+        order.decodeAll();
+        // a value is always held the same way, so the scaled longs and exact values can be compared directly.
+        if (!(orderNumber == order.orderNumber && Objects.equals(customerName, order.customerName) && Objects.equals(state, order.state) && Objects.equals(orderDate, order.orderDate) && Objects.equals(productType, order.productType))) {
+            return false;
+        }
+        if (nullValues != order.nullValues || taxRate != order.taxRate || costPerSquareFoot != order.costPerSquareFoot
+                || laborCostPerSquareFoot != order.laborCostPerSquareFoot || materialCost != order.materialCost
+                || area != order.area || laborCost != order.laborCost || tax != order.tax || total != order.total) {
+            return false;
+        }
+        for (int index = 0; index < MONEY_VALUES; index++) {
+            if (!Objects.equals(getExactValue(index), order.getExactValue(index))) {
+                return false;
+            }
+        }
+        return true;
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(orderNumber, customerName, state, orderDate, taxRate, productType, costPerSquareFoot, laborCostPerSquareFoot, materialCost, area, laborCost, tax, total);
+        return Objects.hash(orderNumber, customerName, state, orderDate, getTaxRate(), productType, getCostPerSquareFoot(), getLaborCostPerSquareFoot(), getMaterialCost(), getArea(), getLaborCost(), getTax(), getTotal());
     }
 
     @Override
@@ -142,15 +368,15 @@ public class Order {
                 ", customerName='" + customerName + '\'' +
                 ", state='" + state + '\'' +
                 ", orderDate=" + orderDate +
-                ", taxRate=" + taxRate +
+                ", taxRate=" + getTaxRate() +
                 ", productType='" + productType + '\'' +
-                ", costPerSquareFoot=" + costPerSquareFoot +
-                ", laborCostPerSquareFoot=" + laborCostPerSquareFoot +
-                ", materialCost=" + materialCost +
-                ", area=" + area +
-                ", laborCost=" + laborCost +
-                ", tax=" + tax +
-                ", total=" + total +
+                ", costPerSquareFoot=" + getCostPerSquareFoot() +
+                ", laborCostPerSquareFoot=" + getLaborCostPerSquareFoot() +
+                ", materialCost=" + getMaterialCost() +
+                ", area=" + getArea() +
+                ", laborCost=" + getLaborCost() +
+                ", tax=" + getTax() +
+                ", total=" + getTotal() +
                 '}';
     }
 }
@@ -0,0 +1,126 @@
+package com.sg.floormaster.model;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Objects;
+
+/**
+ * Number of orders and the sums of their area and costs. Immutable.
+ */
+public class OrderTotals {
+
+    public static final OrderTotals NONE = new OrderTotals(0, zero(), zero(), zero(), zero(), zero());
+
+    private final long orderCount;
+    private final BigDecimal area;
+    private final BigDecimal materialCost;
+    private final BigDecimal laborCost;
+    private final BigDecimal tax;
+    private final BigDecimal total;
+
+    public OrderTotals(long orderCount,
+                       BigDecimal area,
+                       BigDecimal materialCost,
+                       BigDecimal laborCost,
+                       BigDecimal tax,
+                       BigDecimal total) {
+        this.orderCount = orderCount;
+        this.area = area;
+        this.materialCost = materialCost;
+        this.laborCost = laborCost;
+        this.tax = tax;
+        this.total = total;
+    }
+
+    /**
+     * @return totals of the single given order, a missing value counting as zero.
+     */
+    public static OrderTotals of(Order order) {
+        return new OrderTotals(1,
+                valueOrZero(order.getArea()),
+                valueOrZero(order.getMaterialCost()),
+                valueOrZero(order.getLaborCost()),
+                valueOrZero(order.getTax()),
+                valueOrZero(order.getTotal()));
+    }
+
+    /**
+     * @return totals of these orders and the other orders together.
+     */
+    public OrderTotals plus(OrderTotals other) {
+        return new OrderTotals(orderCount + other.orderCount,
+                area.add(other.area),
+                materialCost.add(other.materialCost),
+                laborCost.add(other.laborCost),
+                tax.add(other.tax),
+                total.add(other.total));
+    }
+
+    /**
+     * @return totals of these orders without the other orders, which must be among them.
+     */
+    public OrderTotals minus(OrderTotals other) {
+        return new OrderTotals(orderCount - other.orderCount,
+                area.subtract(other.area),
+                materialCost.subtract(other.materialCost),
+                laborCost.subtract(other.laborCost),
+                tax.subtract(other.tax),
+                total.subtract(other.total));
+    }
+
+    private static BigDecimal zero() {
+        return BigDecimal.ZERO.setScale(2, RoundingMode.HALF_UP);
+    }
+
+    private static BigDecimal valueOrZero(BigDecimal value) {
+        return value == null ? zero() : value;
+    }
+
+    public long getOrderCount() {
+        return orderCount;
+    }
+
+    public BigDecimal getArea() {
+        return area;
+    }
+
+    public BigDecimal getMaterialCost() {
+        return materialCost;
+    }
+
+    public BigDecimal getLaborCost() {
+        return laborCost;
+    }
+
+    public BigDecimal getTax() {
+        return tax;
+    }
+
+    public BigDecimal getTotal() {
+        return total;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o == null || getClass() != o.getClass()) return false;
+        OrderTotals that = (OrderTotals) o;
+        return orderCount == that.orderCount && Objects.equals(area, that.area) && Objects.equals(materialCost, that.materialCost) && Objects.equals(laborCost, that.laborCost) && Objects.equals(tax, that.tax) && Objects.equals(total, that.total);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(orderCount, area, materialCost, laborCost, tax, total);
+    }
+
+    @Override
+    public String toString() {
+        return "OrderTotals{" +
+                "orderCount=" + orderCount +
+                ", area=" + area +
+                ", materialCost=" + materialCost +
+                ", laborCost=" + laborCost +
+                ", tax=" + tax +
+                ", total=" + total +
+                '}';
+    }
+}
@@ -0,0 +1,61 @@
+package com.sg.floormaster.service;
+
+import com.sg.floormaster.model.Order;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Non-blocking view of the service layer for callers that serve more than one user at a time.
+ * Each call returns immediately, the returned future completes with the result of the
+ * corresponding FlooringMasteryServiceLayer method, or exceptionally with the exception it threw.
+ *
+ * Writes to orders on the same date are applied one at a time,
+ * writes to orders on different dates may run concurrently.
+ */
+public interface FlooringMasteryAsyncServiceLayer extends AutoCloseable {
+
+    /**
+     * Asynchronously adds a new order, see FlooringMasteryServiceLayer.addOrder.
+     * @param order new order to add to the order store.
+     * @return future completing when the order has been added.
+     */
+    CompletableFuture<Void> addOrder(Order order);
+
+    /**
+     * Asynchronously replaces an existing order, see FlooringMasteryServiceLayer.editOrder.
+     * @param order new order to replace the existing order with the same date and ID.
+     * @return future completing when the order has been replaced.
+     */
+    CompletableFuture<Void> editOrder(Order order);
+
+    /**
+     * Asynchronously removes an order, see FlooringMasteryServiceLayer.removeOrder.
+     * @param date orderDate of target order to remove.
+     * @param orderId order ID of target order to remove.
+     * @return future completing with the removed order, or null if no order was found.
+     */
+    CompletableFuture<Order> removeOrder(LocalDate date, int orderId);
+
+    /**
+     * Asynchronously retrieves all orders on a date, see FlooringMasteryServiceLayer.getOrdersForDate.
+     * @param date date of all orders to retrieve.
+     * @return future completing with the orders on that date, empty if there are none.
+     */
+    CompletableFuture<List<Order>> getOrdersForDate(LocalDate date);
+
+    /**
+     * Asynchronously persists all orders, see FlooringMasteryServiceLayer.saveOrders.
+     * Waits for writes already running to finish, and holds back new writes until the save completes,
+     * so the saved orders are a consistent snapshot.
+     * @return future completing when all orders have been saved.
+     */
+    CompletableFuture<Void> saveOrders();
+
+    /**
+     * Stops accepting new calls and waits for calls already submitted to finish.
+     */
+    @Override
+    void close();
+}
@@ -0,0 +1,119 @@
+package com.sg.floormaster.service;
+
+import com.sg.floormaster.model.Order;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+/**
+ * Runs service layer calls on virtual threads.
+ *
+ * Writes lock the date of the order being written, so writes to one date are serialized
+ * while writes to different dates run in parallel. Dates share a fixed stripe of DATE_LOCKS locks,
+ * by epoch day, so writes to dates a multiple of DATE_LOCKS days apart are serialized too, but no
+ * lock is kept per date. Every write also holds the shared side of
+ * a read/write lock, saveOrders holds the exclusive side so it never persists a half-applied write.
+ *
+ * Requires the wrapped service's order DAO to be safe to call from several threads
+ * for different dates, as FlooringMasteryOrderDaoFileImpl is.
+ */
+public class FlooringMasteryAsyncServiceLayerImpl implements FlooringMasteryAsyncServiceLayer {
+
+    private final FlooringMasteryServiceLayer service;
+    private final ExecutorService executor;
+
+    private static final int DATE_LOCKS = 64;
+
+    // lock of each date is dateLocks[epoch day mod DATE_LOCKS] - fair so a busy date doesn't starve any
+    // single write.
+    private final Lock[] dateLocks = new Lock[DATE_LOCKS];
+    // writes hold the read lock, saveOrders holds the write lock.
+    private final ReadWriteLock saveLock = new ReentrantReadWriteLock(true);
+
+    public FlooringMasteryAsyncServiceLayerImpl(FlooringMasteryServiceLayer service) {
+        this(service, Executors.newVirtualThreadPerTaskExecutor());
+    }
+
+    public FlooringMasteryAsyncServiceLayerImpl(FlooringMasteryServiceLayer service, ExecutorService executor) {
+        this.service = service;
+        this.executor = executor;
+        for (int i = 0; i < DATE_LOCKS; i++) {
+            dateLocks[i] = new ReentrantLock(true);
+        }
+    }
+
+    @Override
+    public CompletableFuture<Void> addOrder(Order order) {
+        return writeOn(order.getOrderDate(), () -> {
+            service.addOrder(order);
+            return null;
+        });
+    }
+
+    @Override
+    public CompletableFuture<Void> editOrder(Order order) {
+        return writeOn(order.getOrderDate(), () -> {
+            service.editOrder(order);
+            return null;
+        });
+    }
+
+    @Override
+    public CompletableFuture<Order> removeOrder(LocalDate date, int orderId) {
+        return writeOn(date, () -> service.removeOrder(date, orderId));
+    }
+
+    @Override
+    public CompletableFuture<List<Order>> getOrdersForDate(LocalDate date) {
+        // reads don't lock - the DAO returns a copy of the orders on that date.
+        return CompletableFuture.supplyAsync(() -> service.getOrdersForDate(date), executor);
+    }
+
+    @Override
+    public CompletableFuture<Void> saveOrders() {
+        return CompletableFuture.supplyAsync(() -> {
+            Lock lock = saveLock.writeLock();
+            lock.lock();
+            try {
+                service.saveOrders();
+                return null;
+            } finally {
+                lock.unlock();
+            }
+        }, executor);
+    }
+
+    @Override
+    public void close() {
+        executor.close();
+    }
+
+    // runs a write to the orders on the given date, serialized with other writes to that date.
+    private <T> CompletableFuture<T> writeOn(LocalDate date, Supplier<T> write) {
+        return CompletableFuture.supplyAsync(() -> {
+            Lock shared = saveLock.readLock();
+            shared.lock();
+            try {
+                // a null date can't be stored so has no lock of its own, the service rejects it.
+                Lock dateLock = date == null ? null : dateLocks[Math.floorMod(date.toEpochDay(), DATE_LOCKS)];
+                if (dateLock == null) {
+                    return write.get();
+                }
+                dateLock.lock();
+                try {
+                    return write.get();
+                } finally {
+                    dateLock.unlock();
+                }
+            } finally {
+                shared.unlock();
+            }
+        }, executor);
+    }
+}
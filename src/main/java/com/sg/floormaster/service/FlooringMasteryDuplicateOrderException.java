@@ -1,7 +1,9 @@
 package com.sg.floormaster.service;
 
+import com.sg.floormaster.util.FlooringMasteryRejectionTraces;
+
 public class FlooringMasteryDuplicateOrderException extends RuntimeException {
     public FlooringMasteryDuplicateOrderException(String message) {
-        super(message);
+        super(message, null, true, FlooringMasteryRejectionTraces.isEnabled());
     }
 }
@@ -1,11 +1,13 @@
 package com.sg.floormaster.service;
 
+import com.sg.floormaster.util.FlooringMasteryRejectionTraces;
+
 public class FlooringMasteryInvalidInputException extends RuntimeException {
     public FlooringMasteryInvalidInputException(String message) {
-        super(message);
+        super(message, null, true, FlooringMasteryRejectionTraces.isEnabled());
     }
 
     public FlooringMasteryInvalidInputException(String message, Throwable cause) {
-        super(message, cause);
+        super(message, cause, true, FlooringMasteryRejectionTraces.isEnabled());
     }
 }
@@ -0,0 +1,36 @@
+package com.sg.floormaster.service;
+
+import com.sg.floormaster.model.Product;
+
+import java.util.List;
+
+/**
+ * Read-only lookup of the product catalog, used by the add and edit order prompts
+ * so they never need to hold or scan the full list of products.
+ */
+public interface FlooringMasteryProductCatalog {
+
+    /**
+     * Returns the Product with the given product type, ignoring case.
+     * @param productType product type to look up.
+     * @return matching Product, null if no product has the given product type.
+     */
+    Product getProduct(String productType);
+
+    /**
+     * Returns a page of products whose product type starts with the given prefix (ignoring case),
+     * sorted alphabetically by product type.
+     * @param prefix start of the product type to search for, empty string matches every product.
+     * @param offset number of matching products to skip.
+     * @param limit maximum number of products to return.
+     * @return list of at most limit matching products, empty list if none match.
+     */
+    List<Product> searchProducts(String prefix, int offset, int limit);
+
+    /**
+     * Returns the number of products whose product type starts with the given prefix (ignoring case).
+     * @param prefix start of the product type to search for.
+     * @return number of matching products.
+     */
+    int countProducts(String prefix);
+}
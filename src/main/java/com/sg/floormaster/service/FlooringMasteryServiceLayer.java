@@ -3,13 +3,15 @@ package com.sg.floormaster.service;
 import com.sg.floormaster.dao.FlooringMasteryNoSuchOrderException;
 import com.sg.floormaster.dao.FlooringMasteryPersistenceException;
 import com.sg.floormaster.model.Order;
+import com.sg.floormaster.model.OrderTotals;
 import com.sg.floormaster.model.Product;
 import com.sg.floormaster.model.Tax;
 
 import java.time.LocalDate;
+import java.time.YearMonth;
 import java.util.List;
 
-public interface FlooringMasteryServiceLayer {
+public interface FlooringMasteryServiceLayer extends FlooringMasteryProductCatalog {
 
     /**
      * Retrieve next available order number - guaranteed to be unique and not currently
@@ -70,6 +72,73 @@ public interface FlooringMasteryServiceLayer {
      */
     Order removeOrder(LocalDate date, int orderId);
 
+    /**
+     * Returns a page of orders whose customer name matches the given query (ignoring case),
+     * in date order then order number order.
+     * @param query text to search customer names for, empty string matches every order.
+     * @param matchAnywhere true to match the query anywhere in a name, false only at the start of a name.
+     * @param offset number of matching orders to skip.
+     * @param limit maximum number of orders to return.
+     * @return list of at most limit matching orders, empty list if none match.
+     */
+    List<Order> searchOrdersByCustomerName(String query, boolean matchAnywhere, int offset, int limit);
+
+    /**
+     * Returns the number of orders whose customer name matches the given query (ignoring case).
+     * @param query text to search customer names for.
+     * @param matchAnywhere true to match the query anywhere in a name, false only at the start of a name.
+     * @return number of matching orders.
+     */
+    int countOrdersByCustomerName(String query, boolean matchAnywhere);
+
+    /**
+     * Returns every order with the given state and product type (ignoring case) dated from fromDate to toDate
+     * inclusive, in date order then order number order. A null argument matches anything, e.g. a null
+     * productType returns orders of every product type.
+     * @param state state code of orders to return, or null.
+     * @param productType product type of orders to return, or null.
+     * @param fromDate first order date to include, or null.
+     * @param toDate last order date to include, or null.
+     * @return list of matching orders, empty list if none match.
+     */
+    List<Order> filterOrders(String state, String productType, LocalDate fromDate, LocalDate toDate);
+
+    /**
+     * Returns the number of orders filterOrders would return for the same arguments, without retrieving them.
+     * @return number of matching orders.
+     */
+    int countFilteredOrders(String state, String productType, LocalDate fromDate, LocalDate toDate);
+
+    /**
+     * Returns the number of orders on the given date, and their total area, material cost, labor cost,
+     * tax and total, for one state and product type or, given null, all of them. Takes the same time
+     * however many orders there are.
+     * @param date order date to report on.
+     * @param state state code to report on, null for every state.
+     * @param productType product type to report on, null for every product type.
+     * @return totals of the matching orders, OrderTotals.NONE if there are none.
+     */
+    OrderTotals getOrderTotalsForDate(LocalDate date, String state, String productType);
+
+    /**
+     * Returns totals of the orders in the given month, as getOrderTotalsForDate does for a date.
+     * @param month month to report on.
+     * @param state state code to report on, null for every state.
+     * @param productType product type to report on, null for every product type.
+     * @return totals of the matching orders, OrderTotals.NONE if there are none.
+     */
+    OrderTotals getOrderTotalsForMonth(YearMonth month, String state, String productType);
+
+    /**
+     * Returns the number of orders dated from fromDate to toDate inclusive, and their total area, material cost,
+     * labor cost, tax and total. Takes time growing with the log of the number of days orders span,
+     * however long the range.
+     * @param fromDate first order date to report on.
+     * @param toDate last order date to report on.
+     * @return totals of the orders in the range, OrderTotals.NONE if there are none or toDate is before fromDate.
+     */
+    OrderTotals getOrderTotalsForDateRange(LocalDate fromDate, LocalDate toDate);
+
     // exportData()
 
     /**
@@ -2,20 +2,47 @@ package com.sg.floormaster.service;
 
 import com.sg.floormaster.dao.*;
 import com.sg.floormaster.model.Order;
+import com.sg.floormaster.model.OrderTotals;
 import com.sg.floormaster.model.Product;
 import com.sg.floormaster.model.Tax;
-import com.sg.floormaster.validation.OrderValidation;
+import com.sg.floormaster.validation.OrderValidationPipeline;
+import com.sg.floormaster.validation.OrderValidationRuleStats;
+import com.sg.floormaster.validation.OrderValidationRules;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 public class FlooringMasteryServiceLayerImpl implements FlooringMasteryServiceLayer {
 
     private FlooringMasteryOrderDao orderDao;
     private FlooringMasteryTaxDao taxDao;
     private FlooringMasteryProductDao productDao;
+
+    // names of validation rules that are skipped - see OrderValidationRules.
+    private Set<String> disabledValidationRules = Set.of();
+    // rules built from the current reference data, rebuilt when taxes or products change.
+    private volatile ValidationPipelineHolder validationPipeline;
+
+    // rules that only depend on the quote's state, product type and area - skipped when a cached quote is used.
+    private static final Set<String> QUOTED_RULES = Set.of(
+            OrderValidationRules.STATE,
+            OrderValidationRules.PRODUCT_TYPE,
+            OrderValidationRules.AREA,
+            OrderValidationRules.TAX_RATE,
+            OrderValidationRules.COST_PER_SQUARE_FOOT,
+            OrderValidationRules.LABOR_COST_PER_SQUARE_FOOT);
+    private static final int DEFAULT_QUOTE_CACHE_CAPACITY = 1024;
+    private static final BigDecimal ONE_HUNDRED = new BigDecimal("100");
+
+    // costs of recently calculated orders, keyed by state, product type, area and reference data versions.
+    private volatile OrderQuoteCache quoteCache = new OrderQuoteCache(DEFAULT_QUOTE_CACHE_CAPACITY);
+
     // extensions:
     // auditDao
     // exportDao
@@ -61,7 +88,7 @@ public class FlooringMasteryServiceLayerImpl implements FlooringMasteryServiceLa
         }
 
         // validate order
-        OrderValidation.validateOrder(order, getTaxes(), getProducts(), null);
+        getValidationPipeline().validate(order, null);
 
         // Otherwise, can persist order - it should be valid from controller.
         orderDao.addOrder(order);
@@ -81,7 +108,7 @@ public class FlooringMasteryServiceLayerImpl implements FlooringMasteryServiceLa
         // therefore must not enforce the date to be in the future.
 
         // throws invalid input, persistence exception
-        OrderValidation.validateOrder(order, getTaxes(), getProducts(), null);
+        getValidationPipeline().validate(order, null);
 
         // validation passes, we attempt to persist to orderDao
         orderDao.editOrder(order); // throws noSuchOrder exception if no order found with that ID and date.
@@ -97,6 +124,59 @@ public class FlooringMasteryServiceLayerImpl implements FlooringMasteryServiceLa
         return orderDao.removeOrder(date, orderId); // returns null if no order found, or order removed if successful.
     }
 
+    @Override
+    public List<Order> searchOrdersByCustomerName(String query, boolean matchAnywhere, int offset, int limit) {
+        List<OrderKey> matches = orderDao.findOrdersByCustomerName(query, matchAnywhere);
+        List<Order> page = new ArrayList<>();
+        for (int i = Math.max(offset, 0); i < matches.size() && page.size() < limit; i++) {
+            OrderKey key = matches.get(i);
+            Order order = orderDao.getOrder(key.getOrderDate(), key.getOrderNumber());
+            // skip an order removed since the search.
+            if (order != null) {
+                page.add(order);
+            }
+        }
+        return page;
+    }
+
+    @Override
+    public int countOrdersByCustomerName(String query, boolean matchAnywhere) {
+        return orderDao.findOrdersByCustomerName(query, matchAnywhere).size();
+    }
+
+    @Override
+    public List<Order> filterOrders(String state, String productType, LocalDate fromDate, LocalDate toDate) {
+        List<Order> matches = new ArrayList<>();
+        for (OrderKey key : orderDao.findOrders(state, productType, fromDate, toDate)) {
+            Order order = orderDao.getOrder(key.getOrderDate(), key.getOrderNumber());
+            // skip an order removed since the search.
+            if (order != null) {
+                matches.add(order);
+            }
+        }
+        return matches;
+    }
+
+    @Override
+    public int countFilteredOrders(String state, String productType, LocalDate fromDate, LocalDate toDate) {
+        return orderDao.countOrders(state, productType, fromDate, toDate);
+    }
+
+    @Override
+    public OrderTotals getOrderTotalsForDate(LocalDate date, String state, String productType) {
+        return orderDao.getOrderTotals(date, state, productType);
+    }
+
+    @Override
+    public OrderTotals getOrderTotalsForMonth(YearMonth month, String state, String productType) {
+        return orderDao.getOrderTotals(month, state, productType);
+    }
+
+    @Override
+    public OrderTotals getOrderTotalsForDateRange(LocalDate fromDate, LocalDate toDate) {
+        return orderDao.getOrderTotals(fromDate, toDate);
+    }
+
     @Override
     public List<Tax> getTaxes() {
         return taxDao.getAllTaxes();
@@ -107,13 +187,38 @@ public class FlooringMasteryServiceLayerImpl implements FlooringMasteryServiceLa
         return productDao.getAllProducts();
     }
 
+    @Override
+    public Product getProduct(String productType) {
+        return productDao.getProduct(productType);
+    }
+
+    @Override
+    public List<Product> searchProducts(String prefix, int offset, int limit) {
+        return productDao.searchProductsByPrefix(prefix, offset, limit);
+    }
+
+    @Override
+    public int countProducts(String prefix) {
+        return productDao.countProductsWithPrefix(prefix);
+    }
+
     @Override
     public void calculateOrderCosts(Order order, LocalDate date)
             throws FlooringMasteryInvalidInputException,
             FlooringMasteryPersistenceException {
+        ValidationPipelineHolder pipelines = getValidationPipelines();
+        OrderQuoteCache quotes = quoteCache;
+
+        // check for a cached quote - its state, product type and area were validated when it was cached,
+        // so only the rules that don't depend on those need to run again.
+        OrderQuote cachedQuote = order == null ? null : quotes.get(order.getState(), order.getProductType(),
+                order.getArea(), pipelines.taxVersion(), pipelines.productVersion());
+        boolean useCachedQuote = cachedQuote != null && cachedQuote.hasSameRatesAs(order);
+
         // first validate the object
         try {
-            OrderValidation.validateOrder(order, getTaxes(), getProducts(), date); // throws FlooringMasteryInvalidInputException if it failed
+            // throws FlooringMasteryInvalidInputException if it failed
+            (useCachedQuote ? pipelines.quotedOrderPipeline() : pipelines.pipeline()).validate(order, date);
         } catch (FlooringMasteryInvalidInputException e) {
             throw new FlooringMasteryInvalidInputException(
                     "could not calculate order properties: invalid order.", e);
@@ -122,35 +227,49 @@ public class FlooringMasteryServiceLayerImpl implements FlooringMasteryServiceLa
                     "Could not calculate order properties: persistence error.", e);
         }
 
-        // otherwise have a fully validated order, only need to calculate:
+        if (useCachedQuote) {
+            cachedQuote.applyTo(order);
+            return;
+        }
+
+        // otherwise have a fully validated order, calculate its quote and remember it for repeat quotes.
+        OrderQuote quote = calculateQuote(order);
+        quote.applyTo(order);
+        quotes.put(order.getState(), order.getProductType(), order.getArea(),
+                pipelines.taxVersion(), pipelines.productVersion(), quote);
+
+        // now valid order ready to be persisted.
+    }
+
+    private OrderQuote calculateQuote(Order order) {
+        // only need to calculate:
         // 1. Material Cost
         // 2. Labor Cost
         // 3. Tax
         // 4. Total
 
         // MaterialCost = area * costPerSquareFoot
-        order.setMaterialCost(order.getArea().multiply(
+        BigDecimal materialCost = order.getArea().multiply(
                 order.getCostPerSquareFoot())
-                .setScale(2, RoundingMode.HALF_UP));
+                .setScale(2, RoundingMode.HALF_UP);
 
         // LaborCost = area * laborCostPerSquareFoot
-        order.setLaborCost(
-                order.getArea().multiply(
+        BigDecimal laborCost = order.getArea().multiply(
                         order.getLaborCostPerSquareFoot())
-                        .setScale(2, RoundingMode.HALF_UP));
+                        .setScale(2, RoundingMode.HALF_UP);
 
         // Tax = (materialCost + laborCost) * (tax/100)
         // scale must be set to 2, with half_up rounding.
-        BigDecimal materialPlusLaborCost = order.getMaterialCost().add(order.getLaborCost());
-        BigDecimal taxRateDiv100 = order.getTaxRate().divide(new BigDecimal("100"), 2, RoundingMode.HALF_UP);
-        order.setTax(materialPlusLaborCost.multiply(taxRateDiv100).setScale(2, RoundingMode.HALF_UP));
+        BigDecimal materialPlusLaborCost = materialCost.add(laborCost);
+        BigDecimal taxRateDiv100 = order.getTaxRate().divide(ONE_HUNDRED, 2, RoundingMode.HALF_UP);
+        BigDecimal tax = materialPlusLaborCost.multiply(taxRateDiv100).setScale(2, RoundingMode.HALF_UP);
 
         // Total = (materialCost + laborCost + tax)
-        order.setTotal(materialPlusLaborCost.add(
-                order.getTax())
-                .setScale(2, RoundingMode.HALF_UP));
+        BigDecimal total = materialPlusLaborCost.add(tax)
+                .setScale(2, RoundingMode.HALF_UP);
 
-        // now valid order ready to be persisted.
+        return new OrderQuote(order.getTaxRate(), order.getCostPerSquareFoot(), order.getLaborCostPerSquareFoot(),
+                materialCost, laborCost, tax, total);
     }
 
     @Override
@@ -158,4 +277,74 @@ public class FlooringMasteryServiceLayerImpl implements FlooringMasteryServiceLa
         orderDao.saveOrders();
     }
 
+    /**
+     * Sets the names of validation rules to skip when validating orders.
+     * @param disabledValidationRules names of rules to disable, see OrderValidationRules.
+     * @throws IllegalArgumentException if a name doesn't match a validation rule.
+     */
+    public void setDisabledValidationRules(Set<String> disabledValidationRules) {
+        // build once to fail fast on unknown rule names.
+        new OrderValidationPipeline(List.of(), List.of(), disabledValidationRules);
+        this.disabledValidationRules = Set.copyOf(disabledValidationRules);
+        this.validationPipeline = null;
+    }
+
+    /**
+     * Sets the maximum number of order quotes kept for repeat calls to calculateOrderCosts.
+     * Replaces the current quote cache, so previous quotes and hit counts are discarded.
+     * @param capacity maximum number of cached quotes, 0 disables caching.
+     */
+    public void setQuoteCacheCapacity(int capacity) {
+        this.quoteCache = new OrderQuoteCache(capacity);
+    }
+
+    /**
+     * Returns the hit, miss and eviction counts of the order quote cache.
+     * @return snapshot of the quote cache's stats.
+     */
+    public OrderQuoteCacheStats getQuoteCacheStats() {
+        return quoteCache.getStats();
+    }
+
+    /**
+     * Returns the timing and failure counts of each enabled validation rule since the reference data last changed.
+     * @return list of stats for each enabled rule, in the order the rules are run.
+     */
+    public List<OrderValidationRuleStats> getValidationRuleStats() {
+        return getValidationPipeline().getRuleStats();
+    }
+
+    private OrderValidationPipeline getValidationPipeline() {
+        return getValidationPipelines().pipeline();
+    }
+
+    private ValidationPipelineHolder getValidationPipelines() {
+        long taxVersion = taxDao.getVersion();
+        long productVersion = productDao.getVersion();
+
+        ValidationPipelineHolder current = validationPipeline;
+        if (current == null || current.taxVersion() != taxVersion || current.productVersion() != productVersion) {
+            // reference data changed since the rules were built (or never built) - rebuild them once.
+            List<Tax> taxes = getTaxes();
+            List<Product> products = getProducts();
+
+            Set<String> quotedOrderDisabledRules = new HashSet<>(disabledValidationRules);
+            quotedOrderDisabledRules.addAll(QUOTED_RULES);
+
+            current = new ValidationPipelineHolder(taxVersion, productVersion,
+                    new OrderValidationPipeline(taxes, products, disabledValidationRules),
+                    new OrderValidationPipeline(taxes, products, quotedOrderDisabledRules));
+            validationPipeline = current;
+
+            // quotes for the old versions can never be hit again, free them now.
+            quoteCache.invalidate();
+        }
+        return current;
+    }
+
+    // pipeline validates every enabled rule, quotedOrderPipeline skips the QUOTED_RULES.
+    private record ValidationPipelineHolder(long taxVersion, long productVersion,
+                                            OrderValidationPipeline pipeline,
+                                            OrderValidationPipeline quotedOrderPipeline) {}
+
 }
@@ -0,0 +1,116 @@
+package com.sg.floormaster.service;
+
+import com.sg.floormaster.model.Order;
+
+import java.math.BigDecimal;
+import java.util.Objects;
+
+/**
+ * Calculated costs of an order for a given state, product type and area.
+ * Also holds the rates the costs were calculated from, so a cached quote is only applied to
+ * orders carrying the same rates.
+ */
+public class OrderQuote {
+    private final BigDecimal taxRate;
+    private final BigDecimal costPerSquareFoot;
+    private final BigDecimal laborCostPerSquareFoot;
+    private final BigDecimal materialCost;
+    private final BigDecimal laborCost;
+    private final BigDecimal tax;
+    private final BigDecimal total;
+
+    public OrderQuote(BigDecimal taxRate,
+                      BigDecimal costPerSquareFoot,
+                      BigDecimal laborCostPerSquareFoot,
+                      BigDecimal materialCost,
+                      BigDecimal laborCost,
+                      BigDecimal tax,
+                      BigDecimal total) {
+        this.taxRate = taxRate;
+        this.costPerSquareFoot = costPerSquareFoot;
+        this.laborCostPerSquareFoot = laborCostPerSquareFoot;
+        this.materialCost = materialCost;
+        this.laborCost = laborCost;
+        this.tax = tax;
+        this.total = total;
+    }
+
+    public BigDecimal getTaxRate() {
+        return taxRate;
+    }
+
+    public BigDecimal getCostPerSquareFoot() {
+        return costPerSquareFoot;
+    }
+
+    public BigDecimal getLaborCostPerSquareFoot() {
+        return laborCostPerSquareFoot;
+    }
+
+    public BigDecimal getMaterialCost() {
+        return materialCost;
+    }
+
+    public BigDecimal getLaborCost() {
+        return laborCost;
+    }
+
+    public BigDecimal getTax() {
+        return tax;
+    }
+
+    public BigDecimal getTotal() {
+        return total;
+    }
+
+    /**
+     * Checks the order's rates have the same values as the rates this quote was calculated from.
+     * @param order order to check
+     * @return true if tax rate, cost per square foot and labor cost per square foot all match.
+     */
+    public boolean hasSameRatesAs(Order order) {
+        return sameValue(taxRate, order.getTaxRate())
+                && sameValue(costPerSquareFoot, order.getCostPerSquareFoot())
+                && sameValue(laborCostPerSquareFoot, order.getLaborCostPerSquareFoot());
+    }
+
+    /**
+     * Copies the calculated costs of this quote into the given order.
+     * @param order order to set material cost, labor cost, tax and total of.
+     */
+    public void applyTo(Order order) {
+        order.setMaterialCost(materialCost);
+        order.setLaborCost(laborCost);
+        order.setTax(tax);
+        order.setTotal(total);
+    }
+
+    private static boolean sameValue(BigDecimal quoted, BigDecimal orderValue) {
+        return orderValue != null && quoted.compareTo(orderValue) == 0;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o == null || getClass() != o.getClass()) return false;
+        OrderQuote that = (OrderQuote) o;
+        return Objects.equals(taxRate, that.taxRate) && Objects.equals(costPerSquareFoot, that.costPerSquareFoot) && Objects.equals(laborCostPerSquareFoot, that.laborCostPerSquareFoot) && Objects.equals(materialCost, that.materialCost) && Objects.equals(laborCost, that.laborCost) && Objects.equals(tax, that.tax) && Objects.equals(total, that.total);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(taxRate, costPerSquareFoot, laborCostPerSquareFoot, materialCost, laborCost, tax, total);
+    }
+
+    @Override
+    public String toString() {
+        return "OrderQuote{" +
+                "taxRate=" + taxRate +
+                ", costPerSquareFoot=" + costPerSquareFoot +
+                ", laborCostPerSquareFoot=" + laborCostPerSquareFoot +
+                ", materialCost=" + materialCost +
+                ", laborCost=" + laborCost +
+                ", tax=" + tax +
+                ", total=" + total +
+                '}';
+    }
+}
@@ -0,0 +1,97 @@
+package com.sg.floormaster.service;
+
+import java.math.BigDecimal;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded, least-recently-used cache of order quotes keyed by state, product type, area
+ * and the versions of the tax and product data the quote was calculated from.
+ *
+ * Quotes calculated from older reference data are never returned, as their key holds the old versions.
+ * Thread safe.
+ */
+public class OrderQuoteCache {
+
+    private final int capacity;
+    private final Map<QuoteKey, OrderQuote> quotes;
+
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    public OrderQuoteCache(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Quote cache capacity cannot be negative.");
+        }
+        this.capacity = capacity;
+        // access ordered - the eldest entry is the least recently used quote.
+        this.quotes = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<QuoteKey, OrderQuote> eldest) {
+                if (size() > OrderQuoteCache.this.capacity) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Returns the cached quote for the given key, or null if none is cached.
+     * Area is compared by value, an area with more than 2 decimal places is never cached.
+     */
+    public synchronized OrderQuote get(String state, String productType, BigDecimal area,
+                                       long taxVersion, long productVersion) {
+        QuoteKey key = toKey(state, productType, area, taxVersion, productVersion);
+        OrderQuote quote = key == null ? null : quotes.get(key);
+        if (quote == null) {
+            misses++;
+        } else {
+            hits++;
+        }
+        return quote;
+    }
+
+    /**
+     * Caches a quote, evicting the least recently used quote if the cache is full.
+     */
+    public synchronized void put(String state, String productType, BigDecimal area,
+                                 long taxVersion, long productVersion, OrderQuote quote) {
+        QuoteKey key = toKey(state, productType, area, taxVersion, productVersion);
+        if (key != null && capacity > 0) {
+            quotes.put(key, quote);
+        }
+    }
+
+    /**
+     * Removes every cached quote. Hit, miss and eviction counts are kept.
+     */
+    public synchronized void invalidate() {
+        quotes.clear();
+    }
+
+    public synchronized OrderQuoteCacheStats getStats() {
+        return new OrderQuoteCacheStats(hits, misses, evictions, quotes.size(), capacity);
+    }
+
+    private static QuoteKey toKey(String state, String productType, BigDecimal area,
+                                  long taxVersion, long productVersion) {
+        if (state == null || productType == null || area == null) {
+            return null;
+        }
+        // normalise area to scale 2 so 100, 100.0 and 100.00 share a quote.
+        // setScale returns the same object when area already has scale 2.
+        BigDecimal normalisedArea;
+        try {
+            normalisedArea = area.setScale(2);
+        } catch (ArithmeticException e) {
+            return null;
+        }
+        return new QuoteKey(state, productType, normalisedArea, taxVersion, productVersion);
+    }
+
+    private record QuoteKey(String state, String productType, BigDecimal area,
+                            long taxVersion, long productVersion) {}
+}
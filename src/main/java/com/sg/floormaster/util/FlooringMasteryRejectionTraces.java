@@ -0,0 +1,40 @@
+package com.sg.floormaster.util;
+
+/**
+ * Controls whether expected rejections - invalid input, duplicate orders and missing orders -
+ * capture a stack trace when thrown.
+ *
+ * Capturing the stack is the most expensive part of throwing, and these exceptions are
+ * normal control flow when bulk loading orders with many rejects. Their messages say everything
+ * the user needs, so the trace can be switched off with -Dfloormaster.rejection.stacktraces=false
+ * or setEnabled(false). FlooringMasteryPersistenceException always keeps its stack trace.
+ *
+ * Each rejection exception passes isEnabled() to RuntimeException's writableStackTrace argument, so the
+ * setting applies to exceptions constructed after it changes. Shared by the dao and service layers,
+ * whose rejection exceptions both depend on it.
+ */
+public final class FlooringMasteryRejectionTraces {
+
+    public static final String PROPERTY = "floormaster.rejection.stacktraces";
+
+    private static volatile boolean enabled =
+            Boolean.parseBoolean(System.getProperty(PROPERTY, "true"));
+
+    private FlooringMasteryRejectionTraces() {
+    }
+
+    /**
+     * @return true if rejection exceptions thrown from now on capture a stack trace.
+     */
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Switches stack trace capture on or off for rejection exceptions thrown from now on.
+     * @param enabled false to throw rejections without a stack trace.
+     */
+    public static void setEnabled(boolean enabled) {
+        FlooringMasteryRejectionTraces.enabled = enabled;
+    }
+}
@@ -16,8 +16,18 @@ import java.util.regex.Pattern;
 
 public class OrderValidation {
 
+    // compiled once - matches any character not allowed in a customer name.
+    private static final Pattern ILLEGAL_NAME_CHARACTERS = Pattern.compile("[^a-zA-Z0-9., ]", Pattern.CASE_INSENSITIVE);
+
+    /**
+     * Minimum area of an order in square feet.
+     */
+    public static final BigDecimal MIN_AREA = new BigDecimal("100.00").setScale(2, RoundingMode.HALF_UP);
+
     /**
      * Validates given order against all validation rules -
+     * Scans the given lists for every check, see OrderValidationPipeline for repeated validation
+     * against the same reference data.
      * @param order order to validate
      * @param allTaxes all tax objects stored
      * @param allProducts all product objects stored
@@ -111,8 +121,7 @@ public class OrderValidation {
         }
 
         // if the name contains anything except the allowed characters, throw exception.
-        Pattern notLegalCharacters = Pattern.compile("[^a-zA-Z0-9., ]", Pattern.CASE_INSENSITIVE);
-        Matcher matchCustomerName = notLegalCharacters.matcher(customerName);
+        Matcher matchCustomerName = ILLEGAL_NAME_CHARACTERS.matcher(customerName);
 
         // if illegal character found, throw exception
         if (matchCustomerName.find()) {
@@ -172,10 +181,8 @@ public class OrderValidation {
      * @throws FlooringMasteryInvalidInputException if orderArea not above minimum.
      */
     public static BigDecimal validateArea(BigDecimal orderArea) throws FlooringMasteryInvalidInputException {
-        // define minimum area.
-        BigDecimal minArea = new BigDecimal("100.00").setScale(2, RoundingMode.HALF_UP);
-        if (orderArea.compareTo(minArea) < 0) {
-            throw new FlooringMasteryInvalidInputException("Order's area is less than minimum size "+ minArea.toString());
+        if (orderArea.compareTo(MIN_AREA) < 0) {
+            throw new FlooringMasteryInvalidInputException("Order's area is less than minimum size "+ MIN_AREA.toString());
 
         }
 
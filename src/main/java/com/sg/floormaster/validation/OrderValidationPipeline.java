@@ -0,0 +1,165 @@
+package com.sg.floormaster.validation;
+
+import com.sg.floormaster.dao.FlooringMasteryPersistenceException;
+import com.sg.floormaster.model.Order;
+import com.sg.floormaster.model.Product;
+import com.sg.floormaster.model.Tax;
+import com.sg.floormaster.service.FlooringMasteryInvalidInputException;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Validates orders against a fixed set of rules built once from the reference data.
+ *
+ * Rules are run in order of cost, cheapest first, and validation stops at the first rule that fails.
+ * Rules can be disabled by name (see OrderValidationRules), and each rule records how many times it
+ * ran, how many orders it rejected, and how long it takes.
+ *
+ * Timing every rule of every order would cost more than most of the rules themselves, so rule timings
+ * are sampled once every TIMING_SAMPLE_INTERVAL validations and scaled up to estimate the total time.
+ */
+public class OrderValidationPipeline {
+
+    // must be a power of 2.
+    private static final int TIMING_SAMPLE_INTERVAL = 64;
+
+    // enabled rules, sorted by cost.
+    private final OrderValidationRule[] rules;
+
+    // number of orders validated, a rule runs for every validation that no earlier rule rejected.
+    private final LongAdder validations = new LongAdder();
+    // per-rule counters, same index as rules.
+    private final LongAdder[] failures;
+    private final LongAdder[] sampledNanos;
+    private final LongAdder[] samples;
+
+    // picks which validations are timed. Racy on purpose - a lost update only shifts which call is sampled.
+    private int sampleTicker;
+
+    /**
+     * Creates a pipeline of all the standard rules for the given reference data.
+     * @param taxes all tax objects stored
+     * @param products all product objects stored
+     */
+    public OrderValidationPipeline(List<Tax> taxes, List<Product> products) {
+        this(taxes, products, Set.of());
+    }
+
+    /**
+     * Creates a pipeline of the standard rules for the given reference data, without the disabled rules.
+     * @param taxes all tax objects stored
+     * @param products all product objects stored
+     * @param disabledRules names of rules that should not be run.
+     * @throws IllegalArgumentException if a disabled rule name is not a standard rule.
+     */
+    public OrderValidationPipeline(List<Tax> taxes, List<Product> products, Set<String> disabledRules) {
+        this(OrderValidationRules.createRules(taxes, products), disabledRules);
+    }
+
+    /**
+     * Creates a pipeline from the given rules, without the disabled rules.
+     * @param allRules rules to run, in any order.
+     * @param disabledRules names of rules that should not be run.
+     * @throws IllegalArgumentException if a disabled rule name doesn't match any of the given rules.
+     */
+    public OrderValidationPipeline(List<OrderValidationRule> allRules, Set<String> disabledRules) {
+        Set<String> unknownRules = new HashSet<>(disabledRules);
+        allRules.forEach(r -> unknownRules.remove(r.getName()));
+        if (!unknownRules.isEmpty()) {
+            throw new IllegalArgumentException("Unknown validation rules cannot be disabled: " + unknownRules);
+        }
+
+        // stable sort - rules of equal cost keep their given order.
+        this.rules = allRules.stream()
+                .filter(r -> !disabledRules.contains(r.getName()))
+                .sorted(Comparator.comparingInt(OrderValidationRule::getCost))
+                .toArray(OrderValidationRule[]::new);
+
+        failures = new LongAdder[rules.length];
+        sampledNanos = new LongAdder[rules.length];
+        samples = new LongAdder[rules.length];
+        for (int i = 0; i < rules.length; i++) {
+            failures[i] = new LongAdder();
+            sampledNanos[i] = new LongAdder();
+            samples[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Validates given order against every enabled rule, cheapest first.
+     * @param order order to validate
+     * @param dateOfInput date order was input, null if the order date need not be in the future.
+     * @throws FlooringMasteryInvalidInputException if any validation fails
+     * @throws FlooringMasteryPersistenceException if the reference data is invalid for this order.
+     */
+    public void validate(Order order, LocalDate dateOfInput) throws FlooringMasteryInvalidInputException,
+                                                                    FlooringMasteryPersistenceException {
+        // check order is not null
+        if (order == null) {
+            throw new FlooringMasteryInvalidInputException("order contains null reference.");
+        }
+
+        validations.increment();
+        if ((++sampleTicker & (TIMING_SAMPLE_INTERVAL - 1)) == 0) {
+            validateTimed(order, dateOfInput);
+            return;
+        }
+
+        int i = 0;
+        try {
+            for (; i < rules.length; i++) {
+                rules[i].validate(order, dateOfInput);
+            }
+        } catch (FlooringMasteryInvalidInputException | FlooringMasteryPersistenceException e) {
+            failures[i].increment();
+            throw e;
+        }
+    }
+
+    private void validateTimed(Order order, LocalDate dateOfInput) {
+        for (int i = 0; i < rules.length; i++) {
+            long start = System.nanoTime();
+            try {
+                rules[i].validate(order, dateOfInput);
+            } catch (FlooringMasteryInvalidInputException | FlooringMasteryPersistenceException e) {
+                failures[i].increment();
+                throw e;
+            } finally {
+                sampledNanos[i].add(System.nanoTime() - start);
+                samples[i].increment();
+            }
+        }
+    }
+
+    /**
+     * Returns the names of the enabled rules, in the order they are run.
+     * @return list of enabled rule names.
+     */
+    public List<String> getRuleNames() {
+        return Arrays.stream(rules).map(OrderValidationRule::getName).toList();
+    }
+
+    /**
+     * Returns a snapshot of the timing and failure counts of each enabled rule, in the order they are run.
+     * @return list of stats for each enabled rule.
+     */
+    public List<OrderValidationRuleStats> getRuleStats() {
+        List<OrderValidationRuleStats> stats = new ArrayList<>(rules.length);
+        long invocations = validations.sum();
+        for (int i = 0; i < rules.length; i++) {
+            long ruleFailures = failures[i].sum();
+            long ruleSamples = samples[i].sum();
+            // scale the sampled time up to every invocation of the rule.
+            long estimatedNanos = ruleSamples == 0 ? 0 : sampledNanos[i].sum() * invocations / ruleSamples;
+
+            stats.add(new OrderValidationRuleStats(rules[i].getName(), rules[i].getCost(),
+                    invocations, ruleFailures, estimatedNanos));
+
+            // orders rejected by this rule never reach the next one.
+            invocations -= ruleFailures;
+        }
+        return stats;
+    }
+}
@@ -0,0 +1,37 @@
+package com.sg.floormaster.validation;
+
+import com.sg.floormaster.dao.FlooringMasteryPersistenceException;
+import com.sg.floormaster.model.Order;
+import com.sg.floormaster.service.FlooringMasteryInvalidInputException;
+
+import java.time.LocalDate;
+
+/**
+ * A single check run by an OrderValidationPipeline.
+ * Rules are built once from the reference data and may be run against any number of orders.
+ */
+public interface OrderValidationRule {
+
+    /**
+     * Name of the rule, used to disable the rule in configuration and to report its timing.
+     * @return unique name of the rule.
+     */
+    String getName();
+
+    /**
+     * Relative cost of running the rule. Cheaper rules are run first, so invalid orders
+     * are rejected before the more expensive checks run.
+     * @return relative cost of the rule, lower is cheaper.
+     */
+    int getCost();
+
+    /**
+     * Validates a single property of the order, throws exception if it is not valid.
+     * @param order order to validate, never null.
+     * @param dateOfInput date the order was input, null if the order date need not be in the future.
+     * @throws FlooringMasteryInvalidInputException if the order fails the rule.
+     * @throws FlooringMasteryPersistenceException if the reference data is invalid for this order.
+     */
+    void validate(Order order, LocalDate dateOfInput) throws FlooringMasteryInvalidInputException,
+                                                             FlooringMasteryPersistenceException;
+}
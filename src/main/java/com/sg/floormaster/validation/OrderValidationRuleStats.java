@@ -0,0 +1,56 @@
+package com.sg.floormaster.validation;
+
+/**
+ * Snapshot of how often a validation rule has run, how often it rejected an order,
+ * and how long it has taken in total. Total time is estimated from a sample of the rule's runs.
+ */
+public class OrderValidationRuleStats {
+    private final String ruleName;
+    private final int cost;
+    private final long invocations;
+    private final long failures;
+    private final long totalNanos;
+
+    public OrderValidationRuleStats(String ruleName, int cost, long invocations, long failures, long totalNanos) {
+        this.ruleName = ruleName;
+        this.cost = cost;
+        this.invocations = invocations;
+        this.failures = failures;
+        this.totalNanos = totalNanos;
+    }
+
+    public String getRuleName() {
+        return ruleName;
+    }
+
+    public int getCost() {
+        return cost;
+    }
+
+    public long getInvocations() {
+        return invocations;
+    }
+
+    public long getFailures() {
+        return failures;
+    }
+
+    public long getTotalNanos() {
+        return totalNanos;
+    }
+
+    public double getAverageNanos() {
+        return invocations == 0 ? 0 : (double) totalNanos / invocations;
+    }
+
+    @Override
+    public String toString() {
+        return "OrderValidationRuleStats{" +
+                "ruleName='" + ruleName + '\'' +
+                ", cost=" + cost +
+                ", invocations=" + invocations +
+                ", failures=" + failures +
+                ", totalNanos=" + totalNanos +
+                '}';
+    }
+}
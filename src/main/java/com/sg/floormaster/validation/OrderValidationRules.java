@@ -0,0 +1,267 @@
+package com.sg.floormaster.validation;
+
+import com.sg.floormaster.dao.FlooringMasteryPersistenceException;
+import com.sg.floormaster.model.Order;
+import com.sg.floormaster.model.Product;
+import com.sg.floormaster.model.Tax;
+import com.sg.floormaster.service.FlooringMasteryInvalidInputException;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * Builds the standard order validation rules from the tax and product reference data.
+ * Reference data is indexed once when the rules are built, so each rule is a constant time check.
+ */
+public final class OrderValidationRules {
+
+    // rule names - used to disable rules in configuration.
+    public static final String ORDER_DATE = "orderDate";
+    public static final String CUSTOMER_NAME = "customerName";
+    public static final String STATE = "state";
+    public static final String PRODUCT_TYPE = "productType";
+    public static final String AREA = "area";
+    public static final String TAX_RATE = "taxRate";
+    public static final String COST_PER_SQUARE_FOOT = "costPerSquareFoot";
+    public static final String LABOR_COST_PER_SQUARE_FOOT = "laborCostPerSquareFoot";
+
+    // relative costs - comparisons first, then hash lookups, then the customer name regex.
+    private static final int COMPARISON_COST = 1;
+    private static final int LOOKUP_COST = 2;
+    private static final int LOOKUP_AND_COMPARISON_COST = 3;
+    private static final int PATTERN_MATCH_COST = 5;
+
+    private OrderValidationRules() {}
+
+    /**
+     * Creates the eight standard validation rules for the given reference data.
+     * @param taxes all tax objects stored
+     * @param products all product objects stored
+     * @return list of standard rules, in no particular order.
+     */
+    public static List<OrderValidationRule> createRules(List<Tax> taxes, List<Product> products) {
+        // index taxes by state code, remembering any state code used more than once.
+        Map<String, Tax> taxesByState = new HashMap<>();
+        Set<String> duplicateStates = new HashSet<>();
+        for (Tax t : taxes) {
+            if (taxesByState.put(t.getStateAbr(), t) != null) {
+                duplicateStates.add(t.getStateAbr());
+            }
+        }
+
+        // index products by product type, remembering any product type used more than once.
+        Map<String, Product> productsByType = new HashMap<>();
+        Set<String> duplicateProducts = new HashSet<>();
+        for (Product p : products) {
+            if (productsByType.put(p.getProductType(), p) != null) {
+                duplicateProducts.add(p.getProductType());
+            }
+        }
+
+        List<OrderValidationRule> rules = new ArrayList<>();
+        rules.add(new OrderDateRule());
+        rules.add(new CustomerNameRule());
+        rules.add(new StateRule(taxesByState));
+        rules.add(new ProductTypeRule(productsByType));
+        rules.add(new AreaRule());
+        rules.add(new TaxRateRule(taxesByState, duplicateStates));
+        rules.add(new CostPerSquareFootRule(productsByType, duplicateProducts));
+        rules.add(new LaborCostPerSquareFootRule(productsByType, duplicateProducts));
+        return rules;
+    }
+
+    // 1. Order Date - must be after the date of input, unless date of input is null.
+    private static class OrderDateRule implements OrderValidationRule {
+        @Override
+        public String getName() { return ORDER_DATE; }
+
+        @Override
+        public int getCost() { return COMPARISON_COST; }
+
+        @Override
+        public void validate(Order order, LocalDate dateOfInput) throws FlooringMasteryInvalidInputException {
+            if (dateOfInput == null) return;
+            if (order.getOrderDate() == null) {
+                throw new FlooringMasteryInvalidInputException("Order date cannot be null.");
+            }
+            OrderValidation.validateOrderDate(order.getOrderDate(), dateOfInput);
+        }
+    }
+
+    // 2. Customer Name - not blank, limited to [0-9][a-z][A-Z]','' ''.'.
+    private static class CustomerNameRule implements OrderValidationRule {
+        @Override
+        public String getName() { return CUSTOMER_NAME; }
+
+        @Override
+        public int getCost() { return PATTERN_MATCH_COST; }
+
+        @Override
+        public void validate(Order order, LocalDate dateOfInput) throws FlooringMasteryInvalidInputException {
+            OrderValidation.validateCustomerName(order.getCustomerName());
+        }
+    }
+
+    // 3. State - must be in the store of taxes.
+    private static class StateRule implements OrderValidationRule {
+        private final Map<String, Tax> taxesByState;
+
+        StateRule(Map<String, Tax> taxesByState) { this.taxesByState = taxesByState; }
+
+        @Override
+        public String getName() { return STATE; }
+
+        @Override
+        public int getCost() { return LOOKUP_COST; }
+
+        @Override
+        public void validate(Order order, LocalDate dateOfInput) throws FlooringMasteryInvalidInputException {
+            if (!taxesByState.containsKey(order.getState())) {
+                throw new FlooringMasteryInvalidInputException("State code wasn't found in store of states");
+            }
+        }
+    }
+
+    // 4. Product Type - must be in the store of products.
+    private static class ProductTypeRule implements OrderValidationRule {
+        private final Map<String, Product> productsByType;
+
+        ProductTypeRule(Map<String, Product> productsByType) { this.productsByType = productsByType; }
+
+        @Override
+        public String getName() { return PRODUCT_TYPE; }
+
+        @Override
+        public int getCost() { return LOOKUP_COST; }
+
+        @Override
+        public void validate(Order order, LocalDate dateOfInput) throws FlooringMasteryInvalidInputException {
+            if (!productsByType.containsKey(order.getProductType())) {
+                throw new FlooringMasteryInvalidInputException(
+                        "Order's product type wasn't found in store of valid productTypes.");
+            }
+        }
+    }
+
+    // 5. Area - at least the minimum area.
+    private static class AreaRule implements OrderValidationRule {
+        @Override
+        public String getName() { return AREA; }
+
+        @Override
+        public int getCost() { return COMPARISON_COST; }
+
+        @Override
+        public void validate(Order order, LocalDate dateOfInput) throws FlooringMasteryInvalidInputException {
+            if (order.getArea() == null) {
+                throw new FlooringMasteryInvalidInputException("Order's area cannot be null.");
+            }
+            OrderValidation.validateArea(order.getArea());
+        }
+    }
+
+    // 6. Tax rate - must equal the tax rate stored for the order's state.
+    private static class TaxRateRule implements OrderValidationRule {
+        private final Map<String, Tax> taxesByState;
+        private final Set<String> duplicateStates;
+
+        TaxRateRule(Map<String, Tax> taxesByState, Set<String> duplicateStates) {
+            this.taxesByState = taxesByState;
+            this.duplicateStates = duplicateStates;
+        }
+
+        @Override
+        public String getName() { return TAX_RATE; }
+
+        @Override
+        public int getCost() { return LOOKUP_AND_COMPARISON_COST; }
+
+        @Override
+        public void validate(Order order, LocalDate dateOfInput) throws FlooringMasteryInvalidInputException,
+                                                                        FlooringMasteryPersistenceException {
+            if (duplicateStates.contains(order.getState())) {
+                throw new FlooringMasteryPersistenceException("more than one Tax record found for given state.");
+            }
+            Tax tax = taxesByState.get(order.getState());
+            if (tax == null) {
+                throw new FlooringMasteryInvalidInputException("No tax record found for order's state.");
+            }
+            if (!sameValue(tax.getTaxRate(), order.getTaxRate())) {
+                throw new FlooringMasteryInvalidInputException("order has different tax rate to tax store for the given state.");
+            }
+        }
+    }
+
+    // 7. Cost per square foot - must equal the cost stored for the order's product type.
+    private static class CostPerSquareFootRule implements OrderValidationRule {
+        private final Map<String, Product> productsByType;
+        private final Set<String> duplicateProducts;
+
+        CostPerSquareFootRule(Map<String, Product> productsByType, Set<String> duplicateProducts) {
+            this.productsByType = productsByType;
+            this.duplicateProducts = duplicateProducts;
+        }
+
+        @Override
+        public String getName() { return COST_PER_SQUARE_FOOT; }
+
+        @Override
+        public int getCost() { return LOOKUP_AND_COMPARISON_COST; }
+
+        @Override
+        public void validate(Order order, LocalDate dateOfInput) throws FlooringMasteryInvalidInputException,
+                                                                        FlooringMasteryPersistenceException {
+            Product product = getSingleProduct(productsByType, duplicateProducts, order);
+            if (!sameValue(product.getCostPerSquareFoot(), order.getCostPerSquareFoot())) {
+                throw new FlooringMasteryInvalidInputException(
+                        "order has different cost per square foot to product stored for the given productType.");
+            }
+        }
+    }
+
+    // 8. Labor cost per square foot - must equal the labor cost stored for the order's product type.
+    private static class LaborCostPerSquareFootRule implements OrderValidationRule {
+        private final Map<String, Product> productsByType;
+        private final Set<String> duplicateProducts;
+
+        LaborCostPerSquareFootRule(Map<String, Product> productsByType, Set<String> duplicateProducts) {
+            this.productsByType = productsByType;
+            this.duplicateProducts = duplicateProducts;
+        }
+
+        @Override
+        public String getName() { return LABOR_COST_PER_SQUARE_FOOT; }
+
+        @Override
+        public int getCost() { return LOOKUP_AND_COMPARISON_COST; }
+
+        @Override
+        public void validate(Order order, LocalDate dateOfInput) throws FlooringMasteryInvalidInputException,
+                                                                        FlooringMasteryPersistenceException {
+            Product product = getSingleProduct(productsByType, duplicateProducts, order);
+            if (!sameValue(product.getLaborCostPerSquareFoot(), order.getLaborCostPerSquareFoot())) {
+                throw new FlooringMasteryInvalidInputException(
+                        "order has different labor cost per square foot to product stored for the given productType.");
+            }
+        }
+    }
+
+    private static Product getSingleProduct(Map<String, Product> productsByType, Set<String> duplicateProducts,
+                                            Order order) throws FlooringMasteryInvalidInputException,
+                                                                FlooringMasteryPersistenceException {
+        if (duplicateProducts.contains(order.getProductType())) {
+            throw new FlooringMasteryPersistenceException("more than one Product found for given product type.");
+        }
+        Product product = productsByType.get(order.getProductType());
+        if (product == null) {
+            throw new FlooringMasteryInvalidInputException("No product record found for order's productType.");
+        }
+        return product;
+    }
+
+    // compares by value (ignoring scale), an order value of null never matches.
+    private static boolean sameValue(BigDecimal stored, BigDecimal orderValue) {
+        return orderValue != null && stored.compareTo(orderValue) == 0;
+    }
+}
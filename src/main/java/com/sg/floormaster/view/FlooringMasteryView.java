@@ -2,9 +2,11 @@ package com.sg.floormaster.view;
 
 import com.sg.floormaster.dao.FlooringMasteryPersistenceException;
 import com.sg.floormaster.model.Order;
+import com.sg.floormaster.model.OrderTotals;
 import com.sg.floormaster.model.Product;
 import com.sg.floormaster.model.Tax;
 import com.sg.floormaster.service.FlooringMasteryInvalidInputException;
+import com.sg.floormaster.service.FlooringMasteryProductCatalog;
 import com.sg.floormaster.validation.OrderValidation;
 
 import java.math.BigDecimal;
@@ -21,6 +23,8 @@ public class FlooringMasteryView {
     private UserIO io;
     private final int BANNER_LENGTH = 50;
     private final String BANNER_CHAR = "*";
+    // maximum number of products listed at once when prompting for a product type.
+    private final int PRODUCT_PAGE_SIZE = 10;
 
     public FlooringMasteryView(UserIO io) { this.io = io; }
 
@@ -36,11 +40,13 @@ public class FlooringMasteryView {
         System.out.println("* 3. Edit an Order");
         System.out.println("* 4. Remove an Order");
         System.out.println("* 5. Export All Data");
-        System.out.println("* 6. Quit");
+        System.out.println("* 6. Search Orders by Customer Name");
+        System.out.println("* 7. Revenue Report for Dates");
+        System.out.println("* 8. Quit");
         System.out.println(menuBanner);
 
         // get selection:
-        return io.readInt("Please Select an option.", 1, 6);
+        return io.readInt("Please Select an option.", 1, 8);
 
     }
 
@@ -194,7 +200,7 @@ public class FlooringMasteryView {
         displayOpenBanner("Add Order:");
     }
 
-    public Order getAddOrderInput(List<Tax> taxes, List<Product> products) {
+    public Order getAddOrderInput(List<Tax> taxes, FlooringMasteryProductCatalog products) {
         // Prompt for each of order date, customer name, state, product type, area.
         // continue to prompt until valid input is provided.
 
@@ -228,15 +234,11 @@ public class FlooringMasteryView {
         // 4. Get Product Type
         // displayProduct information
         displayProductInformation(products);
-        newOrder.setProductType(getProductTypeInput(products));
+        Product newOrderProduct = getProductTypeInput(products);
+        newOrder.setProductType(newOrderProduct.getProductType());
         io.print("");
-        // add corresponding cost per square foot
-        Product newOrderProduct = products.stream()
-                                    .filter(p -> p.getProductType()
-                                    .equals(newOrder.getProductType()))
-                                    .findFirst()
-                                    .get();
 
+        // add corresponding cost per square foot
         newOrder.setCostPerSquareFoot(newOrderProduct.getCostPerSquareFoot());
 
         // add corresponding labor cost per square foot.
@@ -251,9 +253,15 @@ public class FlooringMasteryView {
         return newOrder;
     }
 
-    private void displayProductInformation(List<Product> products) {
-        // displays product information
+    private void displayProductInformation(FlooringMasteryProductCatalog products) {
+        // displays the first page of the catalog, the rest can be found by searching a prefix.
         io.print("Available products:");
+        displayProductPage(products.searchProducts("", 0, PRODUCT_PAGE_SIZE),
+                           products.countProducts(""));
+    }
+
+    private void displayProductPage(List<Product> products, int totalMatches) {
+        // displays product information for a single page of products
         io.print("-".repeat(BANNER_LENGTH));
 
         // display product information
@@ -275,6 +283,10 @@ public class FlooringMasteryView {
                     p.getCostPerSquareFoot(),
                     p.getLaborCostPerSquareFoot()));
         }
+        if (totalMatches > products.size()) {
+            io.print(String.format(" ... and %d more. Type the start of a product type to search.",
+                    totalMatches - products.size()));
+        }
         io.print("-".repeat(BANNER_LENGTH));
         io.print("");
     }
@@ -325,13 +337,13 @@ public class FlooringMasteryView {
         }
     }
 
-    private String getProductTypeInput(List<Product> products) {
+    private Product getProductTypeInput(FlooringMasteryProductCatalog products) {
         // until valid product type entered, prompt for input.
         while (true) {
-            // Validate input - first letter capitalised.
+            // Validate input - case-insensitive, a unique prefix is enough.
             try {
                 String productInput = io.readString(
-                        "Enter product type").strip().toLowerCase();
+                        "Enter product type (or the start of one to search)").strip();
                 return getValidProductType(products, productInput);
             } catch (FlooringMasteryInvalidInputException e) {
                 io.print(e.getMessage());
@@ -339,15 +351,30 @@ public class FlooringMasteryView {
         }
     }
 
-    private String getValidProductType(List<Product> products, String productInput) throws
+    private Product getValidProductType(FlooringMasteryProductCatalog products, String productInput) throws
                                                                 FlooringMasteryInvalidInputException {
-        try {
-            // capitalise first letter:
-            String capitalisedProduct = productInput.substring(0, 1).toUpperCase() + productInput.substring(1);;
-            return OrderValidation.validateProductType(products, capitalisedProduct);
-        } catch (FlooringMasteryInvalidInputException e) {
-            throw new FlooringMasteryInvalidInputException("Product type wasn't found. Try again.\n", e);
+        // exact match (ignoring case) always wins, even if it is also the prefix of another product.
+        Product exactMatch = products.getProduct(productInput);
+        if (exactMatch != null) {
+            return exactMatch;
         }
+
+        // otherwise treat the input as a prefix - only the first page of matches is ever fetched.
+        int matchCount = products.countProducts(productInput);
+        if (matchCount == 0) {
+            throw new FlooringMasteryInvalidInputException("Product type wasn't found. Try again.\n");
+        }
+
+        List<Product> matches = products.searchProducts(productInput, 0, PRODUCT_PAGE_SIZE);
+        if (matchCount == 1) {
+            io.print("Selected product: " + matches.getFirst().getProductType());
+            return matches.getFirst();
+        }
+
+        // more than one match, show them and prompt again.
+        io.print("Products matching \"" + productInput + "\":");
+        displayProductPage(matches, matchCount);
+        throw new FlooringMasteryInvalidInputException("More than one product matches. Keep typing to narrow the search.\n");
     }
 
     private BigDecimal getAreaInput() {
@@ -406,7 +433,7 @@ public class FlooringMasteryView {
         return inputInt;
     }
 
-    public Order getEditOrderInput(Order previousOrder, List<Tax> taxes, List<Product> products) {
+    public Order getEditOrderInput(Order previousOrder, List<Tax> taxes, FlooringMasteryProductCatalog products) {
         // create new order that may need changes made:
 
         Order newEditedOrder = new Order();
@@ -443,25 +470,20 @@ public class FlooringMasteryView {
 
         // 3. get product type
         displayProductInformation(products);
-        String optionalProductType = getOptionalProductType(products, previousOrder.getProductType());
-        if (optionalProductType.isEmpty()) {
+        Product optionalProduct = getOptionalProductType(products, previousOrder.getProductType());
+        if (optionalProduct == null) {
             newEditedOrder.setProductType(previousOrder.getProductType());
             newEditedOrder.setCostPerSquareFoot(previousOrder.getCostPerSquareFoot());
             newEditedOrder.setLaborCostPerSquareFoot(previousOrder.getLaborCostPerSquareFoot());
         } else {
-            // fetch new product types from products
-            newEditedOrder.setProductType(optionalProductType);
-            // add corresponding cost per square foot
-            Product newOrderProduct = products.stream()
-                    .filter(p -> p.getProductType()
-                            .equals(newEditedOrder.getProductType()))
-                    .findFirst()
-                    .get();
+            // use new product type from the catalog
+            newEditedOrder.setProductType(optionalProduct.getProductType());
 
-            newEditedOrder.setCostPerSquareFoot(newOrderProduct.getCostPerSquareFoot());
+            // add corresponding cost per square foot
+            newEditedOrder.setCostPerSquareFoot(optionalProduct.getCostPerSquareFoot());
 
             // add corresponding labor cost per square foot.
-            newEditedOrder.setLaborCostPerSquareFoot(newOrderProduct.getLaborCostPerSquareFoot());
+            newEditedOrder.setLaborCostPerSquareFoot(optionalProduct.getLaborCostPerSquareFoot());
         }
         io.print("");
 
@@ -524,16 +546,16 @@ public class FlooringMasteryView {
         }
     }
 
-    private String getOptionalProductType(List<Product> products, String previousProduct) {
+    private Product getOptionalProductType(FlooringMasteryProductCatalog products, String previousProduct) {
         // until valid product type entered or empty string, prompt for input.
         while (true) {
             // get input:
             String productInput = io.readString(
-                    "Enter product type (" + previousProduct + "):").strip().toLowerCase();
+                    "Enter product type (" + previousProduct + "):").strip();
 
-            // if null or empty, return empty string
+            // if null or empty, return null - indicating user wishes to keep old product.
             if (productInput == null || productInput.isEmpty()) {
-                return "";
+                return null;
             }
 
             // process new data:
@@ -610,6 +632,72 @@ public class FlooringMasteryView {
         }
     }
 
+    // --- SEARCH ORDERS -----
+    public void displaySearchOrdersBanner() {
+        displayOpenBanner("Search Orders by Customer Name:");
+    }
+
+    public String getCustomerNameQuery() {
+        // any text is a valid query, an empty query matches every order.
+        String input = io.readString("Enter all or part of a customer name (blank for every order):");
+        io.print("");
+        return input == null ? "" : input.strip();
+    }
+
+    public boolean getMatchAnywhereInput() {
+        return readYesNo("Match the name anywhere, not just at the start? (Enter y/n)");
+    }
+
+    // displays one page of search results, numbered from firstMatch (zero based) out of matchCount.
+    public void displayOrderSearchPage(List<Order> orders, int firstMatch, int matchCount) {
+        displayOrders(orders);
+        io.print("Showing matches " + (firstMatch + 1) + " to " + (firstMatch + orders.size())
+                + " of " + matchCount + ".");
+        io.print("");
+    }
+
+    public boolean getShowNextPage() {
+        return readYesNo("Show the next page of matches? (Enter y/n)");
+    }
+
+    private boolean readYesNo(String prompt) {
+        while (true) {
+            String input = io.readString(prompt)
+                    .strip()
+                    .toLowerCase();
+
+            if (input.equals("y") || input.equals("yes")) {
+                return true;
+            } else if (input.equals("n") || input.equals("no")) {
+                return false;
+            }
+
+            io.print("Invalid choice, try again.");
+        }
+    }
+
+    // --- REVENUE REPORT -----
+    public void displayRevenueReportBanner() {
+        displayOpenBanner("Revenue Report:");
+    }
+
+    public void displayOrderTotals(LocalDate fromDate, LocalDate toDate, OrderTotals totals) {
+        DateTimeFormatter dateFormat = DateTimeFormatter.ofPattern("MM-dd-yyyy");
+        displayOpenBanner("Orders from " + fromDate.format(dateFormat) + " to " + toDate.format(dateFormat) + ":");
+
+        String formatStringInt = "%-30s : %d";
+        String formatStringString = "%-30s : %s";
+
+        io.print(String.format(formatStringInt, "Orders", totals.getOrderCount()));
+        io.print(String.format(formatStringString, "Area (Square Feet)", totals.getArea()));
+        io.print(String.format(formatStringString, "Material Cost ($)", totals.getMaterialCost()));
+        io.print(String.format(formatStringString, "Labor Cost ($)", totals.getLaborCost()));
+        io.print(String.format(formatStringString, "Tax ($)", totals.getTax()));
+        io.print(String.format(formatStringString, "Total ($)", totals.getTotal()));
+
+        displayCloseBanner("End of Revenue Report");
+    }
+
     // display export data success
 
     public void displayExitMessage() {
@@ -0,0 +1,56 @@
+package com.sg.floormaster.dao;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CustomerNameIndexTest {
+
+    private static OrderKey key(int orderNumber) {
+        return new OrderKey(LocalDate.parse("2030-01-01").plusDays(orderNumber % 3), orderNumber);
+    }
+
+    @Test
+    public void testSubstringSearchMatchesScan() {
+        String[] names = {"Ada Lovelace", "Doctor Who", "Albert Einstein", "Grace Hopper", "Alan Turing",
+                "Ada Byron", "Edsger Dijkstra", "Barbara Liskov", null};
+        CustomerNameIndex index = new CustomerNameIndex();
+        for (int i = 0; i < 90; i++) {
+            index.put(key(i), names[i % names.length]);
+        }
+        assertEquals(80, index.size(), "orders without a name are not indexed.");
+
+        // the trigram lookup must find exactly what checking every name would.
+        for (String query : new String[]{"a", "ad", "ada", "LOVE", "in", "ein", "stein", "r h", "zzz", "a b"}) {
+            List<OrderKey> found = index.search(query, true);
+            for (int i = 0; i < 90; i++) {
+                String name = names[i % names.length];
+                boolean matches = name != null && name.toLowerCase().contains(query.toLowerCase());
+                assertEquals(matches, found.contains(key(i)), query + " in " + name);
+            }
+            for (int i = 1; i < found.size(); i++) {
+                assertTrue(found.get(i - 1).compareTo(found.get(i)) < 0, "keys should be sorted.");
+            }
+        }
+        assertEquals(20, index.search("ada", false).size(), "Ada Lovelace and Ada Byron.");
+        assertEquals(20, index.search("al", false).size(), "Albert Einstein and Alan Turing.");
+    }
+
+    @Test
+    public void testPutReplacesAndRemoveUnindexes() {
+        CustomerNameIndex index = new CustomerNameIndex();
+        index.put(key(1), "Grace Hopper");
+        index.put(key(2), "Grace Hopper");
+        index.put(key(1), "Alan Turing");
+        assertEquals(List.of(key(2)), index.search("hopper", true));
+        assertEquals(List.of(key(1)), index.search("turing", true));
+
+        index.remove(key(2));
+        assertTrue(index.search("hop", true).isEmpty(), "the name's last order is gone, so are its trigrams.");
+        index.remove(key(2));
+        assertEquals(1, index.size());
+    }
+}
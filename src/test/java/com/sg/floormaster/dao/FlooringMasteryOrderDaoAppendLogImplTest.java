@@ -0,0 +1,171 @@
+package com.sg.floormaster.dao;
+
+import com.sg.floormaster.model.Order;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FlooringMasteryOrderDaoAppendLogImplTest {
+
+    private final LocalDate TEST_DATE = LocalDate.parse("2030-01-01");
+    private FlooringMasteryOrderDaoAppendLogImpl testOrderDao;
+
+    @AfterEach
+    void tearDown() {
+        if (testOrderDao != null) {
+            testOrderDao.close();
+        }
+    }
+
+    private Order createOrder(int orderNumber, String customerName) {
+        Order order = new Order();
+        order.setOrderNumber(orderNumber);
+        order.setOrderDate(TEST_DATE);
+        order.setCustomerName(customerName);
+        order.setState("CA");
+        order.setProductType("Tile");
+        order.setTaxRate(new BigDecimal("25.00").setScale(2, RoundingMode.HALF_UP));
+        order.setArea(new BigDecimal("249.00").setScale(2, RoundingMode.HALF_UP));
+        order.setCostPerSquareFoot(new BigDecimal("3.50").setScale(2, RoundingMode.HALF_UP));
+        order.setLaborCostPerSquareFoot(new BigDecimal("4.15").setScale(2, RoundingMode.HALF_UP));
+        order.setMaterialCost(new BigDecimal("871.50").setScale(2, RoundingMode.HALF_UP));
+        order.setLaborCost(new BigDecimal("1033.35").setScale(2, RoundingMode.HALF_UP));
+        order.setTax(new BigDecimal("476.21").setScale(2, RoundingMode.HALF_UP));
+        order.setTotal(new BigDecimal("2381.06").setScale(2, RoundingMode.HALF_UP));
+        return order;
+    }
+
+    private List<String> logLines(Path orderDirectory) throws IOException {
+        return Files.readAllLines(orderDirectory.resolve("Orders_01012030.log"));
+    }
+
+    @Test
+    public void testEachChangeAppendsOneRecord() throws IOException {
+        Path orderDirectory = Files.createTempDirectory("appendLogOrders");
+        testOrderDao = new FlooringMasteryOrderDaoAppendLogImpl(orderDirectory.toString(), 0.5, 0);
+
+        testOrderDao.addOrder(createOrder(1, "Ada Lovelace, Countess"));
+        testOrderDao.addOrder(createOrder(2, "Doob"));
+        assertEquals(3, logLines(orderDirectory).size(), "log should hold a header and one record per add.");
+
+        Order editedAda = createOrder(1, "Ada King");
+        testOrderDao.editOrder(editedAda);
+        testOrderDao.removeOrder(TEST_DATE, 2);
+        List<String> lines = logLines(orderDirectory);
+        assertEquals(5, lines.size(), "edit and remove should each append one record.");
+        assertEquals("REMOVE,2", lines.get(4), "removal should be appended as a tombstone.");
+
+        // changes that don't happen write nothing.
+        assertNull(testOrderDao.removeOrder(TEST_DATE, 2), "removing a removed order should return null.");
+        assertThrows(FlooringMasteryNoSuchOrderException.class,
+                () -> testOrderDao.editOrder(createOrder(3, "Nobody")),
+                "editing an order that doesn't exist should throw.");
+        assertEquals(5, logLines(orderDirectory).size(), "failed changes shouldn't append records.");
+
+        // reloading resolves the latest record of each order number.
+        testOrderDao.close();
+        testOrderDao = new FlooringMasteryOrderDaoAppendLogImpl(orderDirectory.toString(), 0.5, 0);
+        assertEquals(List.of(editedAda), testOrderDao.getOrdersForDate(TEST_DATE),
+                "reloaded log should hold only the edited order.");
+        assertEquals(3, testOrderDao.getNextOrderNumber(), "next order number should follow the largest logged.");
+    }
+
+    @Test
+    public void testCompactionRewritesGarbage() throws IOException {
+        Path orderDirectory = Files.createTempDirectory("appendLogOrders");
+        testOrderDao = new FlooringMasteryOrderDaoAppendLogImpl(orderDirectory.toString(), 0.5, 0);
+        for (int orderNumber = 1; orderNumber <= 10; orderNumber++) {
+            testOrderDao.addOrder(createOrder(orderNumber, "Customer " + orderNumber));
+        }
+        assertEquals(0, testOrderDao.compact(), "log without garbage shouldn't be compacted.");
+
+        // 40 edits of 10 orders - 40 of 50 records are garbage.
+        for (int edit = 1; edit <= 40; edit++) {
+            testOrderDao.editOrder(createOrder(edit % 10 + 1, "Edited " + edit));
+        }
+        testOrderDao.removeOrder(TEST_DATE, 10);
+        List<Order> ordersBeforeCompaction = testOrderDao.getOrdersForDate(TEST_DATE);
+
+        assertEquals(1, testOrderDao.compact(), "log with mostly garbage should be compacted.");
+        assertEquals(10, logLines(orderDirectory).size(), "compacted log should hold a header and 9 live orders.");
+        assertEquals(0, testOrderDao.compact(), "compacted log shouldn't be compacted again.");
+
+        // appends continue after the compacted records.
+        testOrderDao.addOrder(createOrder(11, "After Compaction"));
+        assertEquals(11, logLines(orderDirectory).size(), "append should follow the compacted records.");
+
+        testOrderDao.close();
+        testOrderDao = new FlooringMasteryOrderDaoAppendLogImpl(orderDirectory.toString(), 0.5, 0);
+        List<Order> reloadedOrders = testOrderDao.getOrdersForDate(TEST_DATE);
+        assertEquals(ordersBeforeCompaction, reloadedOrders.subList(0, 9), "compaction should keep live orders.");
+        assertEquals("After Compaction", reloadedOrders.get(9).getCustomerName(), "new order should be reloaded.");
+    }
+
+    @Test
+    public void testBackgroundCompaction() throws IOException, InterruptedException {
+        Path orderDirectory = Files.createTempDirectory("appendLogOrders");
+        testOrderDao = new FlooringMasteryOrderDaoAppendLogImpl(orderDirectory.toString(), 0.5, 20);
+        testOrderDao.addOrder(createOrder(1, "Ada"));
+        for (int edit = 1; edit <= 100; edit++) {
+            testOrderDao.editOrder(createOrder(1, "Ada " + edit));
+        }
+
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (logLines(orderDirectory).size() > 2 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertEquals(List.of("Op,OrderNumber,CustomerName,State,TaxRate,ProductType,Area,CostPerSquareFoot,"
+                        + "LaborCostPerSquareFoot,MaterialCost,LaborCost,Tax,Total",
+                        "PUT,1,Ada 100,CA,25.00,Tile,249.00,3.50,4.15,871.50,1033.35,476.21,2381.06"),
+                logLines(orderDirectory), "background compactor should leave only the latest record.");
+    }
+
+    @Test
+    public void testPartialRecordIgnoredOnLoad() throws IOException {
+        Path orderDirectory = Files.createTempDirectory("appendLogOrders");
+        testOrderDao = new FlooringMasteryOrderDaoAppendLogImpl(orderDirectory.toString(), 0.5, 0);
+        testOrderDao.addOrder(createOrder(1, "Ada"));
+        testOrderDao.close();
+
+        // a crash part way through appending leaves a record without its newline.
+        Files.write(orderDirectory.resolve("Orders_01012030.log"), "PUT,2,Do".getBytes(StandardCharsets.UTF_8),
+                StandardOpenOption.APPEND);
+
+        testOrderDao = new FlooringMasteryOrderDaoAppendLogImpl(orderDirectory.toString(), 0.5, 0);
+        assertEquals(1, testOrderDao.getOrdersForDate(TEST_DATE).size(), "partial record should be ignored.");
+        testOrderDao.addOrder(createOrder(2, "Doob"));
+        assertEquals("PUT,2,Doob", logLines(orderDirectory).get(2).substring(0, "PUT,2,Doob".length()),
+                "next record should replace the partial record.");
+    }
+
+    @Test
+    public void testUnreadableRecordsFailLoad() throws IOException {
+        Path orderDirectory = Files.createTempDirectory("appendLogOrders");
+        testOrderDao = new FlooringMasteryOrderDaoAppendLogImpl(orderDirectory.toString(), 0.5, 0);
+        testOrderDao.addOrder(createOrder(1, "Ada"));
+        testOrderDao.close();
+        testOrderDao = null;
+        Path log = orderDirectory.resolve("Orders_01012030.log");
+        List<String> validLines = Files.readAllLines(log);
+
+        // complete records - unlike a torn record, these are damage, reported with where they are.
+        for (String record : new String[]{"PUT,", "REMOVE,one"}) {
+            Files.write(log, validLines);
+            Files.writeString(log, record + "\n", StandardOpenOption.APPEND);
+            FlooringMasteryPersistenceException exception = assertThrows(FlooringMasteryPersistenceException.class,
+                    () -> new FlooringMasteryOrderDaoAppendLogImpl(orderDirectory.toString(), 0.5, 0));
+            assertTrue(exception.getMessage().contains("line 3 of " + log), exception.getMessage());
+        }
+    }
+}
@@ -1,14 +1,29 @@
 package com.sg.floormaster.dao;
 
+import com.google.common.jimfs.Configuration;
+import com.google.common.jimfs.Jimfs;
 import com.sg.floormaster.model.Order;
+import com.sg.floormaster.model.OrderTotals;
+import com.sg.floormaster.model.Tax;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.openjdk.jol.info.GraphLayout;
 import org.springframework.cglib.core.Local;
 
+import java.io.IOException;
 import java.math.BigDecimal;
 import java.math.MathContext;
 import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystem;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Clock;
 import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.List;
@@ -450,6 +465,40 @@ class FlooringMasteryOrderDaoFileImplTest {
                 "test Dao's getAllOrders() should be equivalent to non-empty map.");
     }
 
+    // ---------- test date range queries ---------
+
+    @Test
+    public void testGetOrdersForDateRange() {
+        for (int day = 0; day < 10; day += 3) {
+            for (int orderNumber = 3; orderNumber >= 1; orderNumber--) {
+                Order order = new Order();
+                order.setOrderDate(LocalDate.parse("2020-01-01").plusDays(day));
+                order.setOrderNumber(day * 10 + orderNumber);
+                testOrderDao.addOrder(order);
+            }
+        }
+
+        // dates 2020-01-04 and 2020-01-07, in date then order number order.
+        assertEquals(List.of(31, 32, 33, 61, 62, 63),
+                testOrderDao.getOrdersForDateRange(LocalDate.parse("2020-01-02"), LocalDate.parse("2020-01-08"))
+                        .stream().map(Order::getOrderNumber).toList(),
+                "range should hold the orders of each date in it, in order.");
+        assertTrue(testOrderDao.getOrdersForDateRange(LocalDate.parse("2021-01-01"), LocalDate.parse("2021-02-01"))
+                .isEmpty(), "range without orders should be empty.");
+
+        // latest date is 2020-01-10, so the latest 4 days are 2020-01-07 to 2020-01-10.
+        assertEquals(List.of(61, 62, 63, 91, 92, 93),
+                testOrderDao.getOrdersForLatestDays(4).stream().map(Order::getOrderNumber).toList(),
+                "latest 4 days should hold the orders of the last 2 dates.");
+        assertEquals(12, testOrderDao.getOrdersForLatestDays(365).size(), "latest year should hold every order.");
+        assertTrue(testOrderDao.getOrdersForLatestDays(0).isEmpty(), "latest 0 days should be empty.");
+    }
+
+    @Test
+    public void testGetOrdersForLatestDaysEmpty() {
+        assertTrue(testOrderDao.getOrdersForLatestDays(7).isEmpty(), "empty dao should have no latest orders.");
+    }
+
     @Test
     public void testRemoveNonExistentOrder() {
         // ensure that removing an order that does not exist in store, returns null.
@@ -492,9 +541,255 @@ class FlooringMasteryOrderDaoFileImplTest {
                 "Should not be able to retrieve order after removing.");
     }
 
+    // ------------- Test interning of loaded order fields --------------
+
+    // writes orderCount orders over 10 order files, cycling through the test states and products.
+    private Path writeSyntheticOrders(int orderCount) throws IOException {
+        Path orderDirectory = Files.createTempDirectory("syntheticOrders");
+        String[] rows = {"TX,4.45,Carpet,249.00,2.25,2.10", "WA,9.25,Tile,300.00,3.50,4.15",
+                "KY,6.00,Wood,150.00,5.15,4.75", "CA,25.00,Laminate,120.00,1.75,2.10"};
+        for (int file = 0; file < 10; file++) {
+            StringBuilder orderFile = new StringBuilder("OrderNumber,CustomerName,State,TaxRate,ProductType,Area,"
+                    + "CostPerSquareFoot,LaborCostPerSquareFoot,MaterialCost,LaborCost,Tax,Total\n");
+            for (int i = file; i < orderCount; i += 10) {
+                String[] row = rows[i % rows.length].split(",");
+                orderFile.append(i).append(",Customer ").append(i).append(',')
+                        .append(row[0]).append(',').append(row[1]).append(',').append(row[2]).append(',')
+                        .append(row[3]).append(',').append(row[4]).append(',').append(row[5])
+                        .append(",100.00,100.00,10.00,210.00\n");
+            }
+            Files.writeString(orderDirectory.resolve(String.format("Orders_01%02d2030.txt", file + 1)), orderFile);
+        }
+        return orderDirectory;
+    }
+
+    @Test
+    public void testLoadedOrdersShareTaxAndProductValues() throws IOException {
+        Path orderDirectory = writeSyntheticOrders(100);
+        FlooringMasteryTaxDao taxDao = new FlooringMasteryTaxDaoFileImpl("src/test/resources/Data/Taxes.txt");
+        FlooringMasteryProductDao productDao =
+                new FlooringMasteryProductDaoFileImpl("src/test/resources/Data/Products.txt");
+
+        testOrderDao = new FlooringMasteryOrderDaoFileImpl(orderDirectory.toString(), taxDao, productDao);
+
+        Tax texas = taxDao.getAllTaxes().stream().filter(tax -> tax.getStateAbr().equals("TX")).findFirst().get();
+        Order texasOrder = testOrderDao.getOrder(LocalDate.parse("2030-01-01"), 0);
+        assertEquals(new BigDecimal("4.45"), texasOrder.getTaxRate(), "tax rate should be loaded.");
+        assertSame(texas.getStateAbr(), texasOrder.getState(), "state should be the tax data's instance.");
+        assertSame(productDao.getProduct("Carpet").getProductType(), texasOrder.getProductType(),
+                "product type should be the product data's instance.");
+        assertSame(texasOrder.getState(), testOrderDao.getOrder(LocalDate.parse("2030-01-05"), 4).getState(),
+                "orders in different files should share the same state.");
+    }
+
+    @Test
+    public void testInterningReducesLoadedHeap() throws IOException {
+        Path orderDirectory = writeSyntheticOrders(5_000);
+
+        Map<LocalDate, Map<Integer, Order>> plainOrders = new FlooringMasteryOrderDaoFileImpl(
+                orderDirectory.toString(), new OrderFieldDictionary(0)).getAllOrders();
+        Map<LocalDate, Map<Integer, Order>> internedOrders = new FlooringMasteryOrderDaoFileImpl(
+                orderDirectory.toString(), new OrderFieldDictionary()).getAllOrders();
+        assertEquals(plainOrders, internedOrders, "interning should not change the loaded orders.");
+
+        long plainBytes = GraphLayout.parseInstance(plainOrders).totalSize();
+        long internedBytes = GraphLayout.parseInstance(internedOrders).totalSize();
+        // each order drops its own copy of a state code and a product type, about 48 bytes each.
+        assertTrue(plainBytes - internedBytes >= 5_000L * 80,
+                "interning should save at least 80 bytes per order: without " + plainBytes
+                        + " bytes, with " + internedBytes + " bytes.");
+    }
+
+    private Order createOrder(int orderNumber, LocalDate orderDate) {
+        Order order = new Order();
+        order.setOrderNumber(orderNumber);
+        order.setOrderDate(orderDate);
+        order.setCustomerName("Customer " + orderNumber);
+        order.setState("CA");
+        order.setProductType("Tile");
+        order.setTaxRate(new BigDecimal("25.00").setScale(2, RoundingMode.HALF_UP));
+        order.setArea(new BigDecimal("249.00").setScale(2, RoundingMode.HALF_UP));
+        order.setCostPerSquareFoot(new BigDecimal("3.50").setScale(2, RoundingMode.HALF_UP));
+        order.setLaborCostPerSquareFoot(new BigDecimal("4.15").setScale(2, RoundingMode.HALF_UP));
+        order.setMaterialCost(new BigDecimal("871.50").setScale(2, RoundingMode.HALF_UP));
+        order.setLaborCost(new BigDecimal("1033.35").setScale(2, RoundingMode.HALF_UP));
+        order.setTax(new BigDecimal("476.21").setScale(2, RoundingMode.HALF_UP));
+        order.setTotal(new BigDecimal("2381.06").setScale(2, RoundingMode.HALF_UP));
+        return order;
+    }
 
+    // the order store needs only a Path, so it runs on an in-memory file system without touching the disk.
+    @Test
+    public void testOrdersSavedToInMemoryFileSystem() throws IOException {
+        try (FileSystem fileSystem = Jimfs.newFileSystem(Configuration.unix())) {
+            Path orderFolder = Files.createDirectories(fileSystem.getPath("/store/Orders"));
+            Clock today = Clock.fixed(LocalDate.parse("2030-06-15").atStartOfDay().toInstant(ZoneOffset.UTC),
+                    ZoneOffset.UTC);
+            // orders over 30 days old are archived, and May is consolidated.
+            OrderArchivePolicy archivePolicy = new OrderArchivePolicy(30, today);
+            archivePolicy.setConsolidateClosedMonths(true);
+            testOrderDao = new FlooringMasteryOrderDaoFileImpl(orderFolder, OrderCodec.forName("csv"),
+                    archivePolicy);
+            Order mayOrder = createOrder(1, LocalDate.parse("2030-05-01"));
+            Order juneOrder = createOrder(2, LocalDate.parse("2030-06-01"));
+            testOrderDao.addOrder(mayOrder);
+            testOrderDao.addOrder(juneOrder);
+            testOrderDao.saveOrders();
+
+            assertTrue(Files.exists(orderFolder.resolve("Orders_052030.txt")), "May should be consolidated.");
+            assertTrue(Files.exists(orderFolder.resolve("Orders_06012030.txt")), "June should be in a daily file.");
+            assertFalse(Files.exists(orderFolder.resolve("Orders_052030.txt.tmp")), "no temporary file is left.");
+
+            FlooringMasteryOrderDao reloaded = new FlooringMasteryOrderDaoFileImpl(orderFolder,
+                    OrderCodec.forName("csv"), new OrderArchivePolicy(30, today));
+            assertEquals(mayOrder, reloaded.getOrder(mayOrder.getOrderDate(), 1));
+            assertEquals(juneOrder, reloaded.getOrder(juneOrder.getOrderDate(), 2));
+            assertEquals(3, reloaded.getNextOrderNumber());
+        }
+    }
+
+    @Test
+    public void testFindOrdersByCustomerName() {
+        // the loaded test orders: Ada Lovelace, Doctor Who and Albert Einstein.
+        testOrderDao = new FlooringMasteryOrderDaoFileImpl(TEST_ORDERS_DIRECTORY);
+        assertEquals(List.of(new OrderKey(LocalDate.parse("2013-06-01"), 1),
+                        new OrderKey(LocalDate.parse("2013-06-02"), 3)),
+                testOrderDao.findOrdersByCustomerName("A", false),
+                "prefix should ignore case, and keys be in date order.");
+        assertEquals(List.of(new OrderKey(LocalDate.parse("2013-06-02"), 3)),
+                testOrderDao.findOrdersByCustomerName("STEIN", true), "a trigram search matches anywhere.");
+        assertTrue(testOrderDao.findOrdersByCustomerName("stein", false).isEmpty());
+        assertEquals(3, testOrderDao.findOrdersByCustomerName("", true).size(), "empty query matches every order.");
+
+        // the index follows adds, edits and removes.
+        Order newOrder = createOrder(4, LocalDate.parse("2013-06-02"));
+        newOrder.setCustomerName("Grace Hopper");
+        testOrderDao.addOrder(newOrder);
+        assertEquals(1, testOrderDao.findOrdersByCustomerName("hopp", true).size());
+
+        Order renamedOrder = createOrder(4, LocalDate.parse("2013-06-02"));
+        renamedOrder.setCustomerName("Alan Turing");
+        testOrderDao.editOrder(renamedOrder);
+        assertTrue(testOrderDao.findOrdersByCustomerName("hopp", true).isEmpty(), "the old name is unindexed.");
+        assertEquals(3, testOrderDao.findOrdersByCustomerName("a", false).size());
+
+        testOrderDao.removeOrder(LocalDate.parse("2013-06-02"), 4);
+        assertTrue(testOrderDao.findOrdersByCustomerName("turing", true).isEmpty());
+    }
 
+    @Test
+    public void testFindOrdersByStateAndProductType() {
+        // the loaded test orders: 1 CA Tile on 06-01, 2 WA Wood and 3 KY Carpet on 06-02.
+        testOrderDao = new FlooringMasteryOrderDaoFileImpl(TEST_ORDERS_DIRECTORY);
+        LocalDate june1 = LocalDate.parse("2013-06-01");
+        LocalDate june2 = LocalDate.parse("2013-06-02");
+        assertEquals(List.of(new OrderKey(june2, 3)), testOrderDao.findOrders("ky", "CARPET", null, null),
+                "state and product type should ignore case.");
+        assertEquals(3, testOrderDao.countOrders(null, null, null, null), "null arguments don't filter.");
+        assertEquals(2, testOrderDao.countOrders(null, null, june2, june2));
+        assertEquals(0, testOrderDao.countOrders("KY", "Tile", null, null));
+        assertEquals(0, testOrderDao.countOrders("KY", null, june1, june1));
+
+        // the indexes follow edits and removes.
+        Order movedOrder = createOrder(3, june2);
+        movedOrder.setState("WA");
+        testOrderDao.editOrder(movedOrder);
+        assertEquals(List.of(new OrderKey(june2, 2), new OrderKey(june2, 3)),
+                testOrderDao.findOrders("WA", null, june1, june2));
+        assertEquals(0, testOrderDao.countOrders("KY", null, null, null));
+        testOrderDao.removeOrder(june2, 2);
+        assertEquals(List.of(new OrderKey(june2, 3)), testOrderDao.findOrders("WA", null, null, null));
+    }
 
+    @Test
+    public void testOrderTotalsFollowChangesAndAreSaved() throws IOException {
+        Path orderDirectory = Files.createTempDirectory("rollupOrders");
+        testOrderDao = new FlooringMasteryOrderDaoFileImpl(orderDirectory.toString());
+        LocalDate june1 = LocalDate.parse("2030-06-01");
+        LocalDate june2 = LocalDate.parse("2030-06-02");
+        // each order totals 2381.06, with 476.21 tax.
+        testOrderDao.addOrder(createOrder(1, june1));
+        testOrderDao.addOrder(createOrder(2, june1));
+        Order woodOrder = createOrder(3, june2);
+        woodOrder.setProductType("Wood");
+        testOrderDao.addOrder(woodOrder);
+
+        OrderTotals june = testOrderDao.getOrderTotals(YearMonth.of(2030, 6), null, null);
+        assertEquals(3, june.getOrderCount());
+        assertEquals(june, testOrderDao.getOrderTotals(june1, LocalDate.parse("2031-01-01")),
+                "a date range should total the same as the month.");
+        assertEquals(new BigDecimal("7143.18"), june.getTotal());
+        assertEquals(new BigDecimal("1428.63"), june.getTax());
+        assertEquals(2, testOrderDao.getOrderTotals(june1, "ca", "tile").getOrderCount(), "should ignore case.");
+        assertEquals(OrderTotals.NONE, testOrderDao.getOrderTotals(june2, null, "Tile"));
+
+        // an edit applies the difference between the old order and the new.
+        Order cheaperOrder = createOrder(2, june1);
+        cheaperOrder.setTotal(new BigDecimal("1000.00"));
+        testOrderDao.editOrder(cheaperOrder);
+        testOrderDao.removeOrder(june2, 3);
+        assertEquals(new BigDecimal("3381.06"), testOrderDao.getOrderTotals(YearMonth.of(2030, 6), "CA", null).getTotal());
+        assertEquals(OrderTotals.NONE, testOrderDao.getOrderTotals(june2, null, null));
+        testOrderDao.saveOrders();
+        assertTrue(Files.exists(orderDirectory.resolve(OrderRollups.FILE_NAME)));
+
+        OrderTotals expected = testOrderDao.getOrderTotals(june1, null, null);
+        FlooringMasteryOrderDao reloaded = new FlooringMasteryOrderDaoFileImpl(orderDirectory.toString());
+        assertEquals(expected, reloaded.getOrderTotals(june1, null, null),
+                "totals should be read back from the side file.");
+        assertEquals(expected, reloaded.getOrderTotals(june1, june2));
+
+        // saved totals no longer match when an order file goes, so are rebuilt from the orders left.
+        Files.delete(orderDirectory.resolve("Orders_06012030.txt"));
+        assertEquals(OrderTotals.NONE, new FlooringMasteryOrderDaoFileImpl(orderDirectory.toString())
+                .getOrderTotals(YearMonth.of(2030, 6), null, null));
+    }
 
+    @Test
+    public void testOrderTotalsRebuiltWhenOrderFileChangesWithoutSideFile() throws IOException {
+        Path orderDirectory = Files.createTempDirectory("rollupOrders");
+        testOrderDao = new FlooringMasteryOrderDaoFileImpl(orderDirectory.toString());
+        LocalDate june1 = LocalDate.parse("2030-06-01");
+        testOrderDao.addOrder(createOrder(1, june1));
+        testOrderDao.addOrder(createOrder(2, LocalDate.parse("2030-06-02")));
+        testOrderDao.saveOrders();
+        Path rollupFile = orderDirectory.resolve(OrderRollups.FILE_NAME);
+        byte[] savedTotals = Files.readAllBytes(rollupFile);
+
+        // the same orders with a new area, written to their order file only - as a save stopped before
+        // the side file, or an edit by hand, leaves them.
+        Order resizedOrder = createOrder(1, june1);
+        resizedOrder.setArea(new BigDecimal("100.00"));
+        OrderFileChecksum.write(orderDirectory.resolve("Orders_06012030.txt"),
+                out -> CsvOrderCodec.INSTANCE.encode(List.of(resizedOrder), out));
+        assertArrayEquals(savedTotals, Files.readAllBytes(rollupFile), "the side file is unchanged.");
+
+        FlooringMasteryOrderDao reloaded = new FlooringMasteryOrderDaoFileImpl(orderDirectory.toString());
+        assertEquals(new BigDecimal("100.00"), reloaded.getOrderTotals(june1, null, null).getArea(),
+                "totals should be rebuilt from the orders loaded.");
+        assertEquals(new BigDecimal("349.00"), reloaded.getOrderTotals(YearMonth.of(2030, 6), null, null).getArea());
+    }
 
-}
\ No newline at end of file
+    @Test
+    public void testSavedOrderTotalsUsedWhileOrderFilesAreUnchanged() throws IOException {
+        Path orderDirectory = Files.createTempDirectory("rollupOrders");
+        testOrderDao = new FlooringMasteryOrderDaoFileImpl(orderDirectory.toString());
+        LocalDate june1 = LocalDate.parse("2030-06-01");
+        testOrderDao.addOrder(createOrder(1, june1));
+        testOrderDao.saveOrders();
+
+        // mark the saved totals, re-checksummed, so totals read from the side file can be told from rebuilt ones.
+        Path rollupFile = orderDirectory.resolve(OrderRollups.FILE_NAME);
+        byte[] saved = Files.readAllBytes(rollupFile);
+        String content = new String(saved, 0, saved.length - OrderFileChecksum.TRAILER_SIZE, StandardCharsets.UTF_8);
+        assertTrue(content.contains(",249.00,"));
+        byte[] marked = content.replace(",249.00,", ",1.00,").getBytes(StandardCharsets.UTF_8);
+        OrderFileChecksum.write(rollupFile, out -> out.write(ByteBuffer.wrap(marked)));
+        // a checksummed order file is identified by its content, not when it was last written.
+        Files.setLastModifiedTime(orderDirectory.resolve("Orders_06012030.txt"), FileTime.fromMillis(0));
+
+        FlooringMasteryOrderDao reloaded = new FlooringMasteryOrderDaoFileImpl(orderDirectory.toString());
+        assertEquals(new BigDecimal("1.00"), reloaded.getOrderTotals(june1, null, null).getArea(),
+                "totals should be read from the side file, not rebuilt from the orders.");
+    }
+}
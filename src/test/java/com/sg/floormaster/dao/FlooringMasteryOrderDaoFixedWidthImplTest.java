@@ -0,0 +1,117 @@
+package com.sg.floormaster.dao;
+
+import com.sg.floormaster.model.Order;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FlooringMasteryOrderDaoFixedWidthImplTest {
+
+    private final LocalDate TEST_DATE = LocalDate.parse("2030-01-01");
+    private FlooringMasteryOrderDaoFixedWidthImpl testOrderDao;
+
+    @AfterEach
+    void tearDown() {
+        if (testOrderDao != null) {
+            testOrderDao.close();
+        }
+    }
+
+    private Order createOrder(int orderNumber, String customerName) {
+        Order order = new Order();
+        order.setOrderNumber(orderNumber);
+        order.setOrderDate(TEST_DATE);
+        order.setCustomerName(customerName);
+        order.setState("CA");
+        order.setProductType("Tile");
+        order.setTaxRate(new BigDecimal("25.00").setScale(2, RoundingMode.HALF_UP));
+        order.setArea(new BigDecimal("249.00").setScale(2, RoundingMode.HALF_UP));
+        order.setCostPerSquareFoot(new BigDecimal("3.50").setScale(2, RoundingMode.HALF_UP));
+        order.setLaborCostPerSquareFoot(new BigDecimal("4.15").setScale(2, RoundingMode.HALF_UP));
+        order.setMaterialCost(new BigDecimal("871.50").setScale(2, RoundingMode.HALF_UP));
+        order.setLaborCost(new BigDecimal("1033.35").setScale(2, RoundingMode.HALF_UP));
+        order.setTax(new BigDecimal("476.21").setScale(2, RoundingMode.HALF_UP));
+        order.setTotal(new BigDecimal("2381.06").setScale(2, RoundingMode.HALF_UP));
+        return order;
+    }
+
+    private long fileSize(Path orderDirectory) throws IOException {
+        return Files.size(orderDirectory.resolve("Orders_01012030.dat"));
+    }
+
+    @Test
+    public void testChangesUpdateSlotsInPlace() throws IOException {
+        Path orderDirectory = Files.createTempDirectory("fixedWidthOrders");
+        testOrderDao = new FlooringMasteryOrderDaoFixedWidthImpl(orderDirectory.toString());
+        for (int orderNumber = 1; orderNumber <= 3; orderNumber++) {
+            assertNull(testOrderDao.addOrder(createOrder(orderNumber, "Customer " + orderNumber)),
+                    "adding a new order should return null.");
+        }
+        long threeSlots = FlooringMasteryOrderDaoFixedWidthImpl.HEADER_SIZE
+                + 3L * FlooringMasteryOrderDaoFixedWidthImpl.SLOT_SIZE;
+        assertEquals(threeSlots, fileSize(orderDirectory), "file should hold a header and one slot per order.");
+
+        Order editedOrder = createOrder(2, "Ada Lovelace, Countess");
+        assertEquals("Customer 2", testOrderDao.editOrder(editedOrder).getCustomerName(),
+                "edit should return the previous order.");
+        assertEquals(editedOrder, testOrderDao.getOrder(TEST_DATE, 2), "edited order should be read back.");
+        assertEquals(threeSlots, fileSize(orderDirectory), "edit should overwrite the order's slot.");
+
+        assertEquals("Customer 1", testOrderDao.removeOrder(TEST_DATE, 1).getCustomerName(),
+                "remove should return the removed order.");
+        assertNull(testOrderDao.getOrder(TEST_DATE, 1), "removed order shouldn't be found.");
+        testOrderDao.addOrder(createOrder(4, "Customer 4"));
+        assertEquals(threeSlots, fileSize(orderDirectory), "new order should reuse the removed order's slot.");
+
+        assertEquals(List.of(2, 3, 4), testOrderDao.getOrdersForDate(TEST_DATE).stream()
+                .map(Order::getOrderNumber).toList(), "orders should be listed in order number order.");
+        assertThrows(FlooringMasteryNoSuchOrderException.class,
+                () -> testOrderDao.editOrder(createOrder(1, "Removed")),
+                "editing a removed order should throw.");
+    }
+
+    @Test
+    public void testReloadAndNullFields() throws IOException {
+        Path orderDirectory = Files.createTempDirectory("fixedWidthOrders");
+        testOrderDao = new FlooringMasteryOrderDaoFixedWidthImpl(orderDirectory.toString());
+        Order fullOrder = createOrder(7, "Zoë, Ltd");
+        Order partialOrder = new Order();
+        partialOrder.setOrderNumber(3);
+        partialOrder.setOrderDate(TEST_DATE.plusDays(1));
+        partialOrder.setArea(new BigDecimal("100.005"));
+        testOrderDao.addOrder(fullOrder);
+        testOrderDao.addOrder(partialOrder);
+        testOrderDao.removeOrder(TEST_DATE, 7);
+        testOrderDao.addOrder(fullOrder);
+        testOrderDao.saveOrders();
+        testOrderDao.close();
+
+        testOrderDao = new FlooringMasteryOrderDaoFixedWidthImpl(orderDirectory.toString());
+        assertEquals(fullOrder, testOrderDao.getOrder(TEST_DATE, 7), "reloaded order should be equal.");
+        Order reloadedPartial = testOrderDao.getOrder(TEST_DATE.plusDays(1), 3);
+        assertNull(reloadedPartial.getCustomerName(), "null name should be stored as null.");
+        assertNull(reloadedPartial.getTotal(), "null total should be stored as null.");
+        assertEquals(new BigDecimal("100.01"), reloadedPartial.getArea(),
+                "values should be stored rounded to 2 decimal places.");
+        assertEquals(8, testOrderDao.getNextOrderNumber(), "next order number should follow the largest stored.");
+    }
+
+    @Test
+    public void testFieldsTooLongAreRejected() throws IOException {
+        testOrderDao = new FlooringMasteryOrderDaoFixedWidthImpl(Files.createTempDirectory("fixedWidthOrders")
+                .toString());
+        Order longName = createOrder(1, "x".repeat(FlooringMasteryOrderDaoFixedWidthImpl.NAME_BYTES + 1));
+        assertThrows(FlooringMasteryPersistenceException.class, () -> testOrderDao.addOrder(longName),
+                "a name longer than its field should be rejected.");
+        assertNull(testOrderDao.getOrder(TEST_DATE, 1), "rejected order shouldn't be stored.");
+    }
+}
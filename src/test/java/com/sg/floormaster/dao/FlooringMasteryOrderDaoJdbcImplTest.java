@@ -0,0 +1,100 @@
+package com.sg.floormaster.dao;
+
+import com.sg.floormaster.model.Order;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FlooringMasteryOrderDaoJdbcImplTest {
+
+    private final LocalDate TEST_DATE = LocalDate.parse("2030-01-01");
+    private FlooringMasteryOrderDaoJdbcImpl testOrderDao;
+
+    @AfterEach
+    void tearDown() {
+        if (testOrderDao != null) {
+            testOrderDao.close();
+        }
+    }
+
+    private Order createOrder(int orderNumber, LocalDate date, String customerName) {
+        Order order = new Order();
+        order.setOrderNumber(orderNumber);
+        order.setOrderDate(date);
+        order.setCustomerName(customerName);
+        order.setState("CA");
+        order.setProductType("Tile");
+        order.setTaxRate(new BigDecimal("25.00").setScale(2, RoundingMode.HALF_UP));
+        order.setArea(new BigDecimal("249.00").setScale(2, RoundingMode.HALF_UP));
+        order.setCostPerSquareFoot(new BigDecimal("3.50").setScale(2, RoundingMode.HALF_UP));
+        order.setLaborCostPerSquareFoot(new BigDecimal("4.15").setScale(2, RoundingMode.HALF_UP));
+        order.setMaterialCost(new BigDecimal("871.50").setScale(2, RoundingMode.HALF_UP));
+        order.setLaborCost(new BigDecimal("1033.35").setScale(2, RoundingMode.HALF_UP));
+        order.setTax(new BigDecimal("476.21").setScale(2, RoundingMode.HALF_UP));
+        order.setTotal(new BigDecimal("2381.06").setScale(2, RoundingMode.HALF_UP));
+        return order;
+    }
+
+    private String databaseUrl(Path directory) {
+        return "jdbc:h2:" + directory.resolve("orders").toAbsolutePath();
+    }
+
+    @Test
+    public void testUnsavedChangesAreVisible() throws IOException {
+        testOrderDao = new FlooringMasteryOrderDaoJdbcImpl(databaseUrl(Files.createTempDirectory("jdbcOrders")));
+        Order ada = createOrder(1, TEST_DATE, "Ada Lovelace, Countess");
+        Order doob = createOrder(2, TEST_DATE, "Doob");
+        assertNull(testOrderDao.addOrder(ada), "adding a new order should return null.");
+        testOrderDao.addOrder(doob);
+        assertEquals(List.of(ada, doob), testOrderDao.getOrdersForDate(TEST_DATE), "unsaved orders should be read.");
+
+        testOrderDao.saveOrders();
+        Order editedAda = createOrder(1, TEST_DATE, "Ada King");
+        assertEquals(ada, testOrderDao.editOrder(editedAda), "edit should return the saved order.");
+        assertEquals(doob, testOrderDao.removeOrder(TEST_DATE, 2), "remove should return the saved order.");
+
+        assertEquals(editedAda, testOrderDao.getOrder(TEST_DATE, 1), "unsaved edit should be read.");
+        assertNull(testOrderDao.getOrder(TEST_DATE, 2), "unsaved removal should hide the saved order.");
+        assertEquals(List.of(editedAda), testOrderDao.getOrdersForDate(TEST_DATE),
+                "unsaved changes should be applied to saved orders.");
+        assertThrows(FlooringMasteryNoSuchOrderException.class,
+                () -> testOrderDao.editOrder(createOrder(2, TEST_DATE, "Removed")),
+                "editing a removed order should throw.");
+    }
+
+    @Test
+    public void testSaveAndReopen() throws IOException {
+        Path directory = Files.createTempDirectory("jdbcOrders");
+        testOrderDao = new FlooringMasteryOrderDaoJdbcImpl(databaseUrl(directory));
+        for (int orderNumber = 1; orderNumber <= 20; orderNumber++) {
+            testOrderDao.addOrder(createOrder(orderNumber, TEST_DATE.plusDays(orderNumber % 4),
+                    "Customer " + orderNumber));
+        }
+        testOrderDao.saveOrders();
+        testOrderDao.removeOrder(TEST_DATE, 4);
+        testOrderDao.editOrder(createOrder(5, TEST_DATE.plusDays(1), "Edited"));
+        testOrderDao.saveOrders();
+        // changes after the last save are lost on close.
+        testOrderDao.addOrder(createOrder(21, TEST_DATE, "Unsaved"));
+        var savedOrders = testOrderDao.getAllOrders();
+        savedOrders.get(TEST_DATE).remove(21);
+        testOrderDao.close();
+
+        testOrderDao = new FlooringMasteryOrderDaoJdbcImpl(databaseUrl(directory));
+        assertEquals(savedOrders, testOrderDao.getAllOrders(), "reopened database should hold the saved orders.");
+        assertEquals("Edited", testOrderDao.getOrder(TEST_DATE.plusDays(1), 5).getCustomerName(),
+                "saved edit should be read.");
+        assertEquals(21, testOrderDao.getNextOrderNumber(), "next order number should follow the largest saved.");
+        assertEquals(List.of(1, 5, 9), testOrderDao.getOrdersForDateRange(TEST_DATE.plusDays(1), TEST_DATE.plusDays(1))
+                .stream().map(Order::getOrderNumber).toList().subList(0, 3), "range should be in order.");
+    }
+}
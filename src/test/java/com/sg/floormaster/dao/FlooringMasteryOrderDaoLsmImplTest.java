@@ -0,0 +1,139 @@
+package com.sg.floormaster.dao;
+
+import com.sg.floormaster.model.Order;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FlooringMasteryOrderDaoLsmImplTest {
+
+    private final LocalDate TEST_DATE = LocalDate.parse("2030-01-01");
+    private FlooringMasteryOrderDaoLsmImpl testOrderDao;
+
+    @AfterEach
+    void tearDown() {
+        if (testOrderDao != null) {
+            testOrderDao.close();
+        }
+    }
+
+    private Order createOrder(int orderNumber, LocalDate date, String customerName) {
+        Order order = new Order();
+        order.setOrderNumber(orderNumber);
+        order.setOrderDate(date);
+        order.setCustomerName(customerName);
+        order.setState("CA");
+        order.setProductType("Tile");
+        order.setTaxRate(new BigDecimal("25.00").setScale(2, RoundingMode.HALF_UP));
+        order.setArea(new BigDecimal("249.00").setScale(2, RoundingMode.HALF_UP));
+        order.setCostPerSquareFoot(new BigDecimal("3.50").setScale(2, RoundingMode.HALF_UP));
+        order.setLaborCostPerSquareFoot(new BigDecimal("4.15").setScale(2, RoundingMode.HALF_UP));
+        order.setMaterialCost(new BigDecimal("871.50").setScale(2, RoundingMode.HALF_UP));
+        order.setLaborCost(new BigDecimal("1033.35").setScale(2, RoundingMode.HALF_UP));
+        order.setTax(new BigDecimal("476.21").setScale(2, RoundingMode.HALF_UP));
+        order.setTotal(new BigDecimal("2381.06").setScale(2, RoundingMode.HALF_UP));
+        return order;
+    }
+
+    // small memtables and levels, so a few hundred orders are flushed and compacted through several levels.
+    private FlooringMasteryOrderDaoLsmImpl createSmallDao(Path directory) {
+        return new FlooringMasteryOrderDaoLsmImpl(directory.toString(), 16, 2, 2, 10);
+    }
+
+    @Test
+    public void testMatchesModelAcrossFlushesAndCompactions() throws IOException {
+        Path directory = Files.createTempDirectory("lsmOrders");
+        testOrderDao = createSmallDao(directory);
+        Map<LocalDate, Map<Integer, Order>> expected = new HashMap<>();
+        Random random = new Random(7);
+
+        for (int orderNumber = 1; orderNumber <= 600; orderNumber++) {
+            Order order = createOrder(orderNumber, TEST_DATE.plusDays(orderNumber % 5), "Customer " + orderNumber);
+            assertNull(testOrderDao.addOrder(order), "adding a new order should return null.");
+            expected.computeIfAbsent(order.getOrderDate(), date -> new LinkedHashMap<>()).put(orderNumber, order);
+
+            // edit and remove earlier orders, whose records are by now in segments.
+            int earlier = 1 + random.nextInt(orderNumber);
+            Order earlierOrder = expected.get(TEST_DATE.plusDays(earlier % 5)).get(earlier);
+            if (earlierOrder != null && orderNumber % 3 == 0) {
+                Order edited = createOrder(earlier, earlierOrder.getOrderDate(), "Edited " + orderNumber);
+                assertEquals(earlierOrder, testOrderDao.editOrder(edited), "edit should return the previous order.");
+                expected.get(edited.getOrderDate()).put(earlier, edited);
+            } else if (earlierOrder != null && orderNumber % 7 == 0) {
+                assertEquals(earlierOrder, testOrderDao.removeOrder(earlierOrder.getOrderDate(), earlier),
+                        "remove should return the removed order.");
+                expected.get(earlierOrder.getOrderDate()).remove(earlier);
+            }
+        }
+        testOrderDao.flush();
+
+        assertTrue(testOrderDao.getLevelSegmentCounts().size() > 2, "orders should be compacted past level 1.");
+        assertTrue(testOrderDao.getWriteAmplification() > 1, "compaction should rewrite orders.");
+        for (int day = 0; day < 5; day++) {
+            LocalDate date = TEST_DATE.plusDays(day);
+            List<Order> expectedOrders = new ArrayList<>(new TreeMap<>(expected.get(date)).values());
+            assertEquals(expectedOrders, testOrderDao.getOrdersForDate(date), "orders on " + date + " should match.");
+        }
+        assertEquals(expected.get(TEST_DATE).get(5), testOrderDao.getOrder(TEST_DATE, 5), "order 5 should match.");
+        assertNull(testOrderDao.getOrder(TEST_DATE, 6), "order on another date shouldn't be found.");
+        assertThrows(FlooringMasteryNoSuchOrderException.class,
+                () -> testOrderDao.editOrder(createOrder(601, TEST_DATE, "Nobody")),
+                "editing an order that doesn't exist should throw.");
+        assertEquals(601, testOrderDao.getNextOrderNumber(), "next order number should follow the largest.");
+    }
+
+    @Test
+    public void testReopenRecoversLogAndSegments() throws IOException {
+        Path directory = Files.createTempDirectory("lsmOrders");
+        testOrderDao = createSmallDao(directory);
+        for (int orderNumber = 1; orderNumber <= 40; orderNumber++) {
+            testOrderDao.addOrder(createOrder(orderNumber, TEST_DATE, "Customer " + orderNumber));
+        }
+        testOrderDao.removeOrder(TEST_DATE, 3);
+        testOrderDao.editOrder(createOrder(39, TEST_DATE, "Ada Lovelace, Countess"));
+        Map<LocalDate, Map<Integer, Order>> ordersBeforeClose = testOrderDao.getAllOrders();
+        testOrderDao.close();
+
+        // the last few changes are only in the write-ahead log.
+        testOrderDao = createSmallDao(directory);
+        assertEquals(ordersBeforeClose, testOrderDao.getAllOrders(), "reopened store should hold the same orders.");
+        assertNull(testOrderDao.getOrder(TEST_DATE, 3), "removed order should stay removed.");
+        assertEquals("Ada Lovelace, Countess", testOrderDao.getOrder(TEST_DATE, 39).getCustomerName(),
+                "edited order should be recovered.");
+        assertEquals(41, testOrderDao.getNextOrderNumber(), "next order number should follow the largest.");
+    }
+
+    @Test
+    public void testPartialLogRecordIgnored() throws IOException {
+        Path directory = Files.createTempDirectory("lsmOrders");
+        testOrderDao = createSmallDao(directory);
+        testOrderDao.addOrder(createOrder(1, TEST_DATE, "Ada"));
+        testOrderDao.addOrder(createOrder(2, TEST_DATE, "Doob"));
+        testOrderDao.close();
+
+        // cut the last record short, as a crash part way through appending it would.
+        Path wal;
+        try (var files = Files.list(directory)) {
+            wal = files.filter(path -> path.getFileName().toString().startsWith("wal-"))
+                    .filter(path -> path.toFile().length() > 0).findFirst().orElseThrow();
+        }
+        long size = Files.size(wal);
+        try (var channel = java.nio.channels.FileChannel.open(wal, StandardOpenOption.WRITE)) {
+            channel.truncate(size - 5);
+        }
+
+        testOrderDao = createSmallDao(directory);
+        assertEquals("Ada", testOrderDao.getOrder(TEST_DATE, 1).getCustomerName(), "whole record should be recovered.");
+        assertNull(testOrderDao.getOrder(TEST_DATE, 2), "partial record should be ignored.");
+    }
+}
@@ -0,0 +1,196 @@
+package com.sg.floormaster.dao;
+
+import com.sg.floormaster.model.Order;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FlooringMasteryOrderDaoOffHeapImplTest {
+
+    private final String TEST_ORDERS_DIRECTORY = "src/test/resources/Orders";
+    private FlooringMasteryOrderDaoOffHeapImpl testOrderDao;
+
+    @AfterEach
+    void tearDown() {
+        if (testOrderDao != null) {
+            testOrderDao.close();
+        }
+    }
+
+    private Order createOrder(int orderNumber, LocalDate date, String customerName) {
+        Order order = new Order();
+        order.setOrderNumber(orderNumber);
+        order.setOrderDate(date);
+        order.setCustomerName(customerName);
+        order.setState("CA");
+        order.setProductType("Tile");
+        order.setTaxRate(new BigDecimal("25.00").setScale(2, RoundingMode.HALF_UP));
+        order.setArea(new BigDecimal("249.00").setScale(2, RoundingMode.HALF_UP));
+        order.setCostPerSquareFoot(new BigDecimal("3.50").setScale(2, RoundingMode.HALF_UP));
+        order.setLaborCostPerSquareFoot(new BigDecimal("4.15").setScale(2, RoundingMode.HALF_UP));
+        order.setMaterialCost(new BigDecimal("871.50").setScale(2, RoundingMode.HALF_UP));
+        order.setLaborCost(new BigDecimal("1033.35").setScale(2, RoundingMode.HALF_UP));
+        order.setTax(new BigDecimal("476.21").setScale(2, RoundingMode.HALF_UP));
+        order.setTotal(new BigDecimal("2381.06").setScale(2, RoundingMode.HALF_UP));
+        return order;
+    }
+
+    @Test
+    public void testLoadMatchesFileDao() {
+        // orders loaded off-heap should be equal to the orders the file DAO loads from the same directory.
+        FlooringMasteryOrderDao fileDao = new FlooringMasteryOrderDaoFileImpl(TEST_ORDERS_DIRECTORY);
+        testOrderDao = new FlooringMasteryOrderDaoOffHeapImpl(TEST_ORDERS_DIRECTORY);
+
+        for (LocalDate date : List.of(LocalDate.parse("2001-01-01"), LocalDate.parse("2013-06-01"),
+                LocalDate.parse("2013-06-02"), LocalDate.parse("2010-10-10"))) {
+            assertEquals(new HashSet<>(fileDao.getOrdersForDate(date)),
+                    new HashSet<>(testOrderDao.getOrdersForDate(date)),
+                    "off-heap orders for " + date + " should equal the file DAO's orders.");
+        }
+        assertEquals(fileDao.getAllOrders(), testOrderDao.getAllOrders(), "all orders should be equal.");
+        assertEquals(4, testOrderDao.getNextOrderNumber(), "Next order number should be 4.");
+    }
+
+    @Test
+    public void testAddEditRemoveOrder() throws IOException {
+        testOrderDao = new FlooringMasteryOrderDaoOffHeapImpl(Files.createTempDirectory("offHeapOrders").toString());
+        LocalDate testDate = LocalDate.parse("2030-01-01");
+        Order ada = createOrder(1, testDate, "Ada Lovelace, Countess");
+
+        assertNull(testOrderDao.addOrder(ada), "adding a new order should return null.");
+        Order storedAda = testOrderDao.getOrder(testDate, 1);
+        assertEquals(ada, storedAda, "stored order should be equal to the added order.");
+        assertNotSame(ada, storedAda, "stored order should be a copy.");
+
+        // edit with a longer name and different product.
+        Order editedAda = createOrder(1, testDate, "Augusta Ada King, Countess of Lovelace");
+        editedAda.setProductType("Wood");
+        assertEquals(ada, testOrderDao.editOrder(editedAda), "edit should return the previous order.");
+        assertEquals(editedAda, testOrderDao.getOrder(testDate, 1), "edited order should be stored.");
+
+        // edit with a shorter name, reusing the name's bytes.
+        Order renamedAda = createOrder(1, testDate, "Ada");
+        testOrderDao.editOrder(renamedAda);
+        assertEquals(renamedAda, testOrderDao.getOrder(testDate, 1), "renamed order should be stored.");
+
+        assertThrows(FlooringMasteryNoSuchOrderException.class,
+                () -> testOrderDao.editOrder(createOrder(2, testDate, "Nobody")),
+                "editing an order that doesn't exist should throw.");
+
+        assertEquals(renamedAda, testOrderDao.removeOrder(testDate, 1), "remove should return the removed order.");
+        assertNull(testOrderDao.getOrder(testDate, 1), "removed order shouldn't be found.");
+        assertNull(testOrderDao.removeOrder(testDate, 1), "removing a missing order should return null.");
+        assertTrue(testOrderDao.getOrdersForDate(testDate).isEmpty(), "date should have no orders.");
+    }
+
+    @Test
+    public void testNullFieldsAndRounding() throws IOException {
+        testOrderDao = new FlooringMasteryOrderDaoOffHeapImpl(Files.createTempDirectory("offHeapOrders").toString());
+        LocalDate testDate = LocalDate.parse("2030-01-01");
+
+        Order partialOrder = new Order();
+        partialOrder.setOrderNumber(5);
+        partialOrder.setOrderDate(testDate);
+        partialOrder.setArea(new BigDecimal("100.005"));
+        testOrderDao.addOrder(partialOrder);
+
+        Order storedOrder = testOrderDao.getOrder(testDate, 5);
+        assertNull(storedOrder.getCustomerName(), "null name should be stored as null.");
+        assertNull(storedOrder.getState(), "null state should be stored as null.");
+        assertNull(storedOrder.getTotal(), "null total should be stored as null.");
+        assertEquals(new BigDecimal("100.01"), storedOrder.getArea(),
+                "values should be stored rounded to 2 decimal places.");
+    }
+
+    @Test
+    public void testManyOrdersReuseRemovedSlots() throws IOException {
+        testOrderDao = new FlooringMasteryOrderDaoOffHeapImpl(Files.createTempDirectory("offHeapOrders").toString());
+        int orderCount = 40_000; // spans several record chunks
+        for (int i = 1; i <= orderCount; i++) {
+            testOrderDao.addOrder(createOrder(i, LocalDate.parse("2030-01-01").plusDays(i % 30), "Customer " + i));
+        }
+        assertEquals(orderCount + 1, testOrderDao.getNextOrderNumber(), "next number should follow the largest.");
+        assertEquals("Customer 12345",
+                testOrderDao.getOrder(LocalDate.parse("2030-01-01").plusDays(12345 % 30), 12345).getCustomerName(),
+                "orders should be found across chunks.");
+
+        long offHeapBytes = testOrderDao.getOffHeapBytes();
+        for (int i = 1; i <= 1000; i++) {
+            testOrderDao.removeOrder(LocalDate.parse("2030-01-01").plusDays(i % 30), i);
+        }
+        for (int i = 1; i <= 1000; i++) {
+            testOrderDao.addOrder(createOrder(orderCount + 1 + i, LocalDate.parse("2030-03-01"), "C" + i));
+        }
+        assertEquals(offHeapBytes, testOrderDao.getOffHeapBytes(),
+                "new orders should reuse the records of removed orders.");
+        assertEquals(1000, testOrderDao.getOrdersForDate(LocalDate.parse("2030-03-01")).size(),
+                "re-added orders should be stored.");
+    }
+
+    @Test
+    public void testSaveAndReload() throws IOException {
+        Path orderDirectory = Files.createTempDirectory("offHeapOrders");
+        testOrderDao = new FlooringMasteryOrderDaoOffHeapImpl(orderDirectory.toString());
+        Order ada = createOrder(1, LocalDate.parse("2030-01-01"), "Ada Lovelace, Countess");
+        Order doob = createOrder(2, LocalDate.parse("2030-01-02"), "Doob");
+        testOrderDao.addOrder(ada);
+        testOrderDao.addOrder(doob);
+
+        testOrderDao.saveOrders();
+
+        // saved files should be readable by both DAOs.
+        FlooringMasteryOrderDao fileDao = new FlooringMasteryOrderDaoFileImpl(orderDirectory.toString());
+        assertEquals(ada, fileDao.getOrder(ada.getOrderDate(), 1), "file DAO should read the saved order.");
+        assertFalse(Files.exists(orderDirectory.resolve(OrderRollups.FILE_NAME)),
+                "only order files are saved, no totals of a single date.");
+        assertEquals(2, fileDao.getOrderTotals(ada.getOrderDate(), doob.getOrderDate()).getOrderCount());
+        try (FlooringMasteryOrderDaoOffHeapImpl reloadedDao =
+                     new FlooringMasteryOrderDaoOffHeapImpl(orderDirectory.toString())) {
+            assertEquals(testOrderDao.getAllOrders(), reloadedDao.getAllOrders(),
+                    "reloaded orders should equal the saved orders.");
+        }
+    }
+
+    @Test
+    public void testSaveAndReloadInConfiguredCodecAndArchivePolicy() throws IOException {
+        Path orderDirectory = Files.createTempDirectory("offHeapOrders");
+        OrderCodec jsonLines = OrderCodec.forName("jsonl");
+        Clock today = Clock.fixed(LocalDate.parse("2030-06-15").atStartOfDay().toInstant(ZoneOffset.UTC),
+                ZoneOffset.UTC);
+        // orders over 30 days old are archived, and January is consolidated.
+        OrderArchivePolicy archivePolicy = new OrderArchivePolicy(30, today);
+        archivePolicy.setConsolidateClosedMonths(true);
+        testOrderDao = new FlooringMasteryOrderDaoOffHeapImpl(orderDirectory.toString(), jsonLines, archivePolicy);
+        assertEquals(0, testOrderDao.getNextOrderNumber(), "an empty store should number orders as the file DAO.");
+        testOrderDao.addOrder(createOrder(1, LocalDate.parse("2030-01-01"), "Ada"));
+        testOrderDao.addOrder(createOrder(2, LocalDate.parse("2030-01-02"), "Doob"));
+        testOrderDao.addOrder(createOrder(3, LocalDate.parse("2030-06-14"), "Zoe"));
+
+        testOrderDao.saveOrders();
+
+        assertTrue(Files.exists(orderDirectory.resolve("Orders_012030.jsonl")),
+                "January's dates should share one month file.");
+        assertTrue(Files.exists(orderDirectory.resolve("Orders_06142030.jsonl")));
+        assertFalse(Files.exists(orderDirectory.resolve("Orders_06142030.txt")), "files should be in the codec's format.");
+        FlooringMasteryOrderDao fileDao =
+                new FlooringMasteryOrderDaoFileImpl(orderDirectory.toString(), jsonLines, archivePolicy);
+        assertEquals(testOrderDao.getAllOrders(), fileDao.getAllOrders(), "file DAO should read the saved orders.");
+        try (FlooringMasteryOrderDaoOffHeapImpl reloadedDao =
+                     new FlooringMasteryOrderDaoOffHeapImpl(orderDirectory.toString(), jsonLines, archivePolicy)) {
+            assertEquals(testOrderDao.getAllOrders(), reloadedDao.getAllOrders(),
+                    "reloaded orders should equal the saved orders.");
+        }
+    }
+}
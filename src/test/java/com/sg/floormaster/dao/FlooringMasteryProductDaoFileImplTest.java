@@ -3,8 +3,11 @@ package com.sg.floormaster.dao;
 import com.sg.floormaster.model.Product;
 import org.junit.jupiter.api.Test;
 
+import java.io.IOException;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -254,4 +257,101 @@ class FlooringMasteryProductDaoFileImplTest {
     }
 
 
-}
\ No newline at end of file
+
+    // ---------- Test catalog prefix search and paging -------------
+    private FlooringMasteryProductDao createCatalogDao() {
+        Map<String, Product> catalog = new HashMap<>();
+        String[] productTypes = {"Carpet", "Cork", "Laminate", "Tile", "Terracotta", "Wood", "Walnut"};
+        for (String productType : productTypes) {
+            catalog.put(productType, new Product(productType,
+                    new BigDecimal("1.00").setScale(2, RoundingMode.HALF_UP),
+                    new BigDecimal("2.00").setScale(2, RoundingMode.HALF_UP)));
+        }
+        return new FlooringMasteryProductDaoFileImpl(catalog);
+    }
+
+    @Test
+    public void testGetProductIgnoresCase() {
+        FlooringMasteryProductDao productDao = createCatalogDao();
+
+        assertEquals("Carpet", productDao.getProduct("Carpet").getProductType(),
+                "exact product type should be found.");
+        assertEquals("Carpet", productDao.getProduct("cARPET").getProductType(),
+                "product type lookup should ignore case.");
+        assertNull(productDao.getProduct("Carp"), "a prefix is not a product type.");
+        assertNull(productDao.getProduct("Marble"), "unknown product type should return null.");
+    }
+
+    @Test
+    public void testSearchProductsByPrefix() {
+        FlooringMasteryProductDao productDao = createCatalogDao();
+
+        List<Product> matches = productDao.searchProductsByPrefix("t", 0, 10);
+        assertEquals(2, matches.size(), "two products start with t.");
+        assertEquals("Terracotta", matches.get(0).getProductType(), "matches should be sorted by product type.");
+        assertEquals("Tile", matches.get(1).getProductType(), "matches should be sorted by product type.");
+
+        assertEquals(2, productDao.countProductsWithPrefix("C"), "prefix count should ignore case.");
+        assertEquals(0, productDao.countProductsWithPrefix("x"), "no products start with x.");
+        assertTrue(productDao.searchProductsByPrefix("x", 0, 10).isEmpty(),
+                "search with no matches should return empty list.");
+    }
+
+    @Test
+    public void testPageThroughProducts() {
+        FlooringMasteryProductDao productDao = createCatalogDao();
+
+        assertEquals(7, productDao.countProductsWithPrefix(""), "empty prefix matches every product.");
+
+        List<Product> firstPage = productDao.searchProductsByPrefix("", 0, 3);
+        List<Product> secondPage = productDao.searchProductsByPrefix("", 3, 3);
+        List<Product> lastPage = productDao.searchProductsByPrefix("", 6, 3);
+
+        assertEquals(List.of("Carpet", "Cork", "Laminate"),
+                firstPage.stream().map(Product::getProductType).toList(), "first page is wrong.");
+        assertEquals(List.of("Terracotta", "Tile", "Walnut"),
+                secondPage.stream().map(Product::getProductType).toList(), "second page is wrong.");
+        assertEquals(List.of("Wood"),
+                lastPage.stream().map(Product::getProductType).toList(), "last page should be partial.");
+        assertTrue(productDao.searchProductsByPrefix("", 10, 3).isEmpty(),
+                "page past the end of the catalog should be empty.");
+    }
+
+    // ---------- Test cached snapshots and versions -------------
+    @Test
+    public void testGetAllProductsReturnsSameImmutableSnapshot() {
+        FlooringMasteryProductDao productDao = createCatalogDao();
+
+        List<Product> firstCall = productDao.getAllProducts();
+        List<Product> secondCall = productDao.getAllProducts();
+
+        assertSame(firstCall, secondCall, "unchanged products should return the same cached list.");
+        assertEquals(productDao.getVersion(), productDao.getVersion(), "version should not change between calls.");
+        assertThrows(UnsupportedOperationException.class, () -> firstCall.clear(),
+                "cached list of products must not be modifiable.");
+    }
+
+    @Test
+    public void testReloadOnlyChangesVersionWhenProductsChange() throws IOException {
+        Path tempDir = Files.createTempDirectory("reloadProducts");
+        Path productFile = tempDir.resolve("Products.txt");
+        Files.writeString(productFile, "ProductType,CostPerSquareFoot,LaborCostPerSquareFoot\nCarpet,2.25,2.10\n");
+
+        FlooringMasteryProductDaoFileImpl productDao = new FlooringMasteryProductDaoFileImpl(productFile.toString());
+        long initialVersion = productDao.getVersion();
+        List<Product> initialProducts = productDao.getAllProducts();
+
+        // reload unchanged file - version and snapshot kept.
+        productDao.reload();
+        assertEquals(initialVersion, productDao.getVersion(), "reloading unchanged products should keep the version.");
+        assertSame(initialProducts, productDao.getAllProducts(), "reloading unchanged products should keep the snapshot.");
+
+        // change file - new version published and searchable.
+        Files.writeString(productFile, "ProductType,CostPerSquareFoot,LaborCostPerSquareFoot\n"
+                + "Carpet,2.25,2.10\nTile,3.50,4.15\n");
+        productDao.reload();
+        assertNotEquals(initialVersion, productDao.getVersion(), "reloading changed products should change the version.");
+        assertNotNull(productDao.getProduct("tile"), "reloaded product should be searchable.");
+        assertEquals(1, initialProducts.size(), "previous snapshot should not be changed by a reload.");
+    }
+}
@@ -27,4 +27,32 @@ public class FlooringMasteryProductDaoStubImpl implements FlooringMasteryProduct
         products.add(onlyProduct);
         return products;
     }
+
+    @Override
+    public Product getProduct(String productType) {
+        if (productType != null && onlyProduct.getProductType().equalsIgnoreCase(productType)) {
+            return onlyProduct;
+        }
+        return null;
+    }
+
+    @Override
+    public List<Product> searchProductsByPrefix(String prefix, int offset, int limit) {
+        List<Product> products = new ArrayList<>();
+        if (offset == 0 && limit > 0 && countProductsWithPrefix(prefix) == 1) {
+            products.add(onlyProduct);
+        }
+        return products;
+    }
+
+    @Override
+    public int countProductsWithPrefix(String prefix) {
+        return onlyProduct.getProductType().toLowerCase().startsWith(prefix.toLowerCase()) ? 1 : 0;
+    }
+
+    @Override
+    public long getVersion() {
+        // stubbed data never changes.
+        return 1;
+    }
 }
@@ -3,8 +3,11 @@ package com.sg.floormaster.dao;
 import com.sg.floormaster.model.Tax;
 import org.junit.jupiter.api.Test;
 
+import java.io.IOException;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -352,4 +355,41 @@ class FlooringMasteryTaxDaoFileImplTest {
             // passes
         }
     }
-}
\ No newline at end of file
+
+    // ---------- Test cached snapshots and versions -------------
+    @Test
+    public void testGetAllTaxesReturnsSameImmutableSnapshot() {
+        FlooringMasteryTaxDao taxDao = new FlooringMasteryTaxDaoFileImpl("src/test/resources/Data/Taxes.txt");
+
+        List<Tax> firstCall = taxDao.getAllTaxes();
+        List<Tax> secondCall = taxDao.getAllTaxes();
+
+        assertSame(firstCall, secondCall, "unchanged taxes should return the same cached list.");
+        assertEquals(taxDao.getVersion(), taxDao.getVersion(), "version should not change between calls.");
+        assertThrows(UnsupportedOperationException.class, () -> firstCall.clear(),
+                "cached list of taxes must not be modifiable.");
+    }
+
+    @Test
+    public void testReloadOnlyChangesVersionWhenTaxesChange() throws IOException {
+        Path tempDir = Files.createTempDirectory("reloadTaxes");
+        Path taxFile = tempDir.resolve("Taxes.txt");
+        Files.writeString(taxFile, "State,StateName,TaxRate\nTX,Texas,4.45\n");
+
+        FlooringMasteryTaxDaoFileImpl taxDao = new FlooringMasteryTaxDaoFileImpl(taxFile.toString());
+        long initialVersion = taxDao.getVersion();
+        List<Tax> initialTaxes = taxDao.getAllTaxes();
+
+        // reload unchanged file - version and snapshot kept.
+        taxDao.reload();
+        assertEquals(initialVersion, taxDao.getVersion(), "reloading unchanged taxes should keep the version.");
+        assertSame(initialTaxes, taxDao.getAllTaxes(), "reloading unchanged taxes should keep the snapshot.");
+
+        // change file - new version published.
+        Files.writeString(taxFile, "State,StateName,TaxRate\nTX,Texas,4.45\nKY,Kentucky,6.00\n");
+        taxDao.reload();
+        assertNotEquals(initialVersion, taxDao.getVersion(), "reloading changed taxes should change the version.");
+        assertEquals(2, taxDao.getAllTaxes().size(), "reloaded taxes should contain the new tax.");
+        assertEquals(1, initialTaxes.size(), "previous snapshot should not be changed by a reload.");
+    }
+}
@@ -27,4 +27,10 @@ public class FlooringMasteryTaxDaoStubImpl implements FlooringMasteryTaxDao {
         taxes.add(onlyTax);
         return taxes;
     }
+
+    @Override
+    public long getVersion() {
+        // stubbed data never changes.
+        return 1;
+    }
 }
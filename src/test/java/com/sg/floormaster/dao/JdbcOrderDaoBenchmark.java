@@ -0,0 +1,127 @@
+package com.sg.floormaster.dao;
+
+import com.sg.floormaster.model.Order;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Query and save latency of FlooringMasteryOrderDaoJdbcImpl against FlooringMasteryOrderDaoFileImpl,
+ * both holding the same orders.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JdbcOrderDaoBenchmark {
+
+    private static final LocalDate FIRST_DATE = LocalDate.parse("2030-01-01");
+    private static final int DAYS = 100;
+
+    @Param({"10000"})
+    private int orderCount;
+
+    private Path directory;
+    private FlooringMasteryOrderDaoFileImpl fileDao;
+    private FlooringMasteryOrderDaoJdbcImpl jdbcDao;
+    private int nextEdit;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("jdbcBenchmark");
+        Path orderDirectory = Files.createDirectory(directory.resolve("Orders"));
+        fileDao = new FlooringMasteryOrderDaoFileImpl(orderDirectory.toString(), Map.of());
+        jdbcDao = new FlooringMasteryOrderDaoJdbcImpl("jdbc:h2:" + directory.resolve("orders").toAbsolutePath());
+        for (int orderNumber = 1; orderNumber <= orderCount; orderNumber++) {
+            fileDao.addOrder(createOrder(orderNumber, "Customer " + orderNumber));
+            jdbcDao.addOrder(createOrder(orderNumber, "Customer " + orderNumber));
+        }
+        fileDao.saveOrders();
+        jdbcDao.saveOrders();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        jdbcDao.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    private static Order createOrder(int orderNumber, String customerName) {
+        Order order = new Order();
+        order.setOrderNumber(orderNumber);
+        order.setOrderDate(FIRST_DATE.plusDays(orderNumber % DAYS));
+        order.setCustomerName(customerName);
+        order.setState("CA");
+        order.setProductType("Tile");
+        order.setTaxRate(new BigDecimal("25.00"));
+        order.setArea(new BigDecimal("249.00"));
+        order.setCostPerSquareFoot(new BigDecimal("3.50"));
+        order.setLaborCostPerSquareFoot(new BigDecimal("4.15"));
+        order.setMaterialCost(new BigDecimal("871.50"));
+        order.setLaborCost(new BigDecimal("1033.35"));
+        order.setTax(new BigDecimal("476.21"));
+        order.setTotal(new BigDecimal("2381.06"));
+        return order;
+    }
+
+    private Order nextEditedOrder() {
+        nextEdit = nextEdit % orderCount + 1;
+        return createOrder(nextEdit, "Edited " + nextEdit);
+    }
+
+    @Benchmark
+    public Order getOrderFile() {
+        return fileDao.getOrder(FIRST_DATE.plusDays(1234 % DAYS), 1234);
+    }
+
+    @Benchmark
+    public Order getOrderJdbc() {
+        return jdbcDao.getOrder(FIRST_DATE.plusDays(1234 % DAYS), 1234);
+    }
+
+    @Benchmark
+    public List<Order> getOrdersForDateFile() {
+        return fileDao.getOrdersForDate(FIRST_DATE);
+    }
+
+    @Benchmark
+    public List<Order> getOrdersForDateJdbc() {
+        return jdbcDao.getOrdersForDate(FIRST_DATE);
+    }
+
+    @Benchmark
+    public void editAndSaveFile() {
+        fileDao.editOrder(nextEditedOrder());
+        fileDao.saveOrders();
+    }
+
+    @Benchmark
+    public void editAndSaveJdbc() {
+        jdbcDao.editOrder(nextEditedOrder());
+        jdbcDao.saveOrders();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(JdbcOrderDaoBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
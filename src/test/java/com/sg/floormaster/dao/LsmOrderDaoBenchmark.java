@@ -0,0 +1,163 @@
+package com.sg.floormaster.dao;
+
+import com.sg.floormaster.model.Order;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Write and read cost of FlooringMasteryOrderDaoLsmImpl for different level fanouts and Bloom filter sizes,
+ * against FlooringMasteryOrderDaoFileImpl saving after every change.
+ *
+ * The write benchmark reports the write amplification of the store it filled as a secondary result,
+ * writeAmplification - compare it with the lookup times of the same settings to choose between cheaper
+ * writes and cheaper reads.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LsmOrderDaoBenchmark {
+
+    private static final int ORDERS = 50_000;
+    private static final int DAYS = 100;
+    private static final LocalDate FIRST_DATE = LocalDate.parse("2030-01-01");
+
+    @Param({"4", "10"})
+    private int levelFanout;
+
+    @Param({"0", "10"})
+    private int bloomBitsPerKey;
+
+    private Path directory;
+    private FlooringMasteryOrderDaoLsmImpl lsmDao;
+    private int[] lookups;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("lsmBenchmark");
+        lsmDao = fill(directory.resolve("lookups"));
+        lookups = new int[1024];
+        for (int i = 0; i < lookups.length; i++) {
+            lookups[i] = 1 + (int) ((i * 2654435761L) % ORDERS);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        lsmDao.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    private FlooringMasteryOrderDaoLsmImpl fill(Path storeDirectory) {
+        FlooringMasteryOrderDaoLsmImpl dao = new FlooringMasteryOrderDaoLsmImpl(storeDirectory.toString(),
+                1024, levelFanout, 4, bloomBitsPerKey);
+        for (int orderNumber = 1; orderNumber <= ORDERS; orderNumber++) {
+            dao.addOrder(createOrder(orderNumber));
+        }
+        dao.flush();
+        return dao;
+    }
+
+    private static Order createOrder(int orderNumber) {
+        Order order = new Order();
+        order.setOrderNumber(orderNumber);
+        order.setOrderDate(FIRST_DATE.plusDays(orderNumber % DAYS));
+        order.setCustomerName("Customer " + orderNumber);
+        order.setState("CA");
+        order.setProductType("Tile");
+        order.setTaxRate(new BigDecimal("25.00"));
+        order.setArea(new BigDecimal("249.00"));
+        order.setCostPerSquareFoot(new BigDecimal("3.50"));
+        order.setLaborCostPerSquareFoot(new BigDecimal("4.15"));
+        order.setMaterialCost(new BigDecimal("871.50"));
+        order.setLaborCost(new BigDecimal("1033.35"));
+        order.setTax(new BigDecimal("476.21"));
+        order.setTotal(new BigDecimal("2381.06"));
+        return order;
+    }
+
+    /**
+     * Mean write amplification of the stores filled by writeAll, reported by JMH beside its time.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class WriteCounters {
+        public double writeAmplification;
+
+        // JMH sums an EVENTS counter over the measurement iterations, so each iteration counts its share.
+        private int measurementIterations;
+
+        @Setup(Level.Trial)
+        public void setUp(BenchmarkParams params) {
+            measurementIterations = params.getMeasurement().getCount();
+        }
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            writeAmplification = 0;
+        }
+
+        void record(FlooringMasteryOrderDaoLsmImpl dao) {
+            writeAmplification = dao.getWriteAmplification() / measurementIterations;
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 1)
+    @Measurement(iterations = 3)
+    public void writeAll(WriteCounters counters) throws IOException {
+        Path storeDirectory = Files.createTempDirectory(directory, "writes");
+        try (FlooringMasteryOrderDaoLsmImpl dao = fill(storeDirectory)) {
+            counters.record(dao);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(1024)
+    public void getOrder(Blackhole blackhole) {
+        for (int orderNumber : lookups) {
+            blackhole.consume(lsmDao.getOrder(FIRST_DATE.plusDays(orderNumber % DAYS), orderNumber));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(1024)
+    public void getMissingOrder(Blackhole blackhole) {
+        // lookups of orders that don't exist are where Bloom filters save the most.
+        for (int orderNumber : lookups) {
+            blackhole.consume(lsmDao.getOrder(FIRST_DATE.plusDays(orderNumber % DAYS + 1), orderNumber));
+        }
+    }
+
+    @Benchmark
+    public void getOrdersForDate(Blackhole blackhole) {
+        blackhole.consume(lsmDao.getOrdersForDate(FIRST_DATE));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(LsmOrderDaoBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
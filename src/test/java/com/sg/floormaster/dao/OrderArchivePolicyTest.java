@@ -0,0 +1,92 @@
+package com.sg.floormaster.dao;
+
+import com.sg.floormaster.model.Order;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderArchivePolicyTest {
+
+    private final Clock TODAY = Clock.fixed(LocalDate.parse("2030-06-01").atStartOfDay().toInstant(ZoneOffset.UTC),
+            ZoneOffset.UTC);
+    private final LocalDate OLD_DATE = LocalDate.parse("2029-01-01");
+    private final LocalDate RECENT_DATE = LocalDate.parse("2030-05-20");
+
+    private Order createOrder(int orderNumber, LocalDate orderDate) {
+        Order order = new Order();
+        order.setOrderNumber(orderNumber);
+        order.setOrderDate(orderDate);
+        order.setCustomerName("Customer " + orderNumber);
+        order.setState("CA");
+        order.setProductType("Tile");
+        order.setTaxRate(new BigDecimal("25.00").setScale(2, RoundingMode.HALF_UP));
+        order.setArea(new BigDecimal("249.00").setScale(2, RoundingMode.HALF_UP));
+        order.setCostPerSquareFoot(new BigDecimal("3.50").setScale(2, RoundingMode.HALF_UP));
+        order.setLaborCostPerSquareFoot(new BigDecimal("4.15").setScale(2, RoundingMode.HALF_UP));
+        order.setMaterialCost(new BigDecimal("871.50").setScale(2, RoundingMode.HALF_UP));
+        order.setLaborCost(new BigDecimal("1033.35").setScale(2, RoundingMode.HALF_UP));
+        order.setTax(new BigDecimal("476.21").setScale(2, RoundingMode.HALF_UP));
+        order.setTotal(new BigDecimal("2381.06").setScale(2, RoundingMode.HALF_UP));
+        return order;
+    }
+
+    private FlooringMasteryOrderDaoFileImpl openDao(Path orderDirectory, OrderArchivePolicy archivePolicy) {
+        return new FlooringMasteryOrderDaoFileImpl(orderDirectory.toString(), OrderCodec.forName("csv"),
+                archivePolicy);
+    }
+
+    @Test
+    public void testOldOrdersAreSavedCompressed() throws IOException {
+        Path orderDirectory = Files.createTempDirectory("archivedOrders");
+        FlooringMasteryOrderDaoFileImpl testOrderDao = openDao(orderDirectory, new OrderArchivePolicy(-1, TODAY));
+        for (int i = 1; i <= 500; i++) {
+            testOrderDao.addOrder(createOrder(i, i % 2 == 0 ? OLD_DATE : RECENT_DATE));
+        }
+        testOrderDao.saveOrders();
+        assertTrue(Files.exists(orderDirectory.resolve("Orders_01012029.txt")));
+
+        // archiving orders older than 30 days compresses only the old date's file.
+        OrderArchivePolicy archivePolicy = new OrderArchivePolicy(30, TODAY);
+        assertTrue(archivePolicy.isArchived(OLD_DATE));
+        assertFalse(archivePolicy.isArchived(RECENT_DATE));
+        openDao(orderDirectory, archivePolicy).saveOrders();
+        assertFalse(Files.exists(orderDirectory.resolve("Orders_01012029.txt")), "plain file should be removed.");
+        assertTrue(Files.exists(orderDirectory.resolve("Orders_01012029.txt.gz")), "old orders should be archived.");
+        assertTrue(Files.exists(orderDirectory.resolve("Orders_05202030.txt")), "recent orders should stay plain.");
+
+        OrderArchivePolicy readingPolicy = new OrderArchivePolicy(30, TODAY);
+        FlooringMasteryOrderDaoFileImpl reloaded = openDao(orderDirectory, readingPolicy);
+        assertEquals(testOrderDao.getAllOrders(), reloaded.getAllOrders(), "archived orders should load.");
+        assertEquals(501, reloaded.getNextOrderNumber());
+        assertEquals(1, readingPolicy.getArchivedFileCount());
+        assertTrue(readingPolicy.getSpaceSavedBytes() > readingPolicy.getCompressedBytesRead(),
+                "repetitive order files should compress to under half their size: " + readingPolicy);
+        assertTrue(readingPolicy.getReadThroughputBytesPerSecond() > 0);
+    }
+
+    @Test
+    public void testDisabledPolicyRestoresPlainFiles() throws IOException {
+        Path orderDirectory = Files.createTempDirectory("archivedOrders");
+        FlooringMasteryOrderDaoFileImpl testOrderDao = openDao(orderDirectory, new OrderArchivePolicy(0, TODAY));
+        testOrderDao.addOrder(createOrder(1, OLD_DATE));
+        testOrderDao.saveOrders();
+        assertTrue(Files.exists(orderDirectory.resolve("Orders_01012029.txt.gz")));
+
+        OrderArchivePolicy disabledPolicy = new OrderArchivePolicy();
+        FlooringMasteryOrderDaoFileImpl reloaded = openDao(orderDirectory, disabledPolicy);
+        assertEquals(testOrderDao.getAllOrders(), reloaded.getAllOrders(), "archived files are always read.");
+        reloaded.saveOrders();
+        assertTrue(Files.exists(orderDirectory.resolve("Orders_01012029.txt")));
+        assertFalse(Files.exists(orderDirectory.resolve("Orders_01012029.txt.gz")));
+        assertEquals(0, disabledPolicy.getSpaceSavedBytes(), "no files are archived any more.");
+    }
+}
@@ -0,0 +1,53 @@
+package com.sg.floormaster.dao;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderAttributeIndexTest {
+
+    private static final LocalDate JUNE_1 = LocalDate.parse("2030-06-01");
+    private static final LocalDate JUNE_2 = LocalDate.parse("2030-06-02");
+    private static final LocalDate JUNE_3 = LocalDate.parse("2030-06-03");
+
+    @Test
+    public void testDateRangesMatchWithAndWithoutAttributes() {
+        OrderAttributeIndex index = new OrderAttributeIndex();
+        index.put(new OrderKey(JUNE_3, 1), "CA", "Tile");
+        index.put(new OrderKey(JUNE_1, 4), "ca", "Wood");
+        index.put(new OrderKey(JUNE_1, 2), "TX", "Tile");
+        index.put(new OrderKey(JUNE_2, 3), "CA", "tile");
+
+        assertEquals(List.of(new OrderKey(JUNE_1, 2), new OrderKey(JUNE_1, 4), new OrderKey(JUNE_2, 3)),
+                index.find(null, null, JUNE_1, JUNE_2), "should be in date order then order number order.");
+        assertEquals(2, index.count(null, null, JUNE_2, null));
+        assertEquals(3, index.count(null, null, null, JUNE_2));
+        assertEquals(List.of(new OrderKey(JUNE_2, 3), new OrderKey(JUNE_3, 1)),
+                index.find("Ca", "TILE", JUNE_2, JUNE_3));
+        assertEquals(1, index.count("CA", null, null, JUNE_1));
+        assertEquals(0, index.count(null, null, JUNE_3, JUNE_1), "a range ending before it starts matches nothing.");
+        assertEquals(0, index.count("KY", null, JUNE_1, JUNE_3));
+        assertEquals(4, index.count(null, null, null, null));
+    }
+
+    @Test
+    public void testPutAndRemoveKeepDatesInStep() {
+        OrderAttributeIndex index = new OrderAttributeIndex();
+        index.put(new OrderKey(JUNE_1, 1), "CA", "Tile");
+        index.put(new OrderKey(JUNE_2, 2), "CA", "Tile");
+        // re-indexing an order moves it between states, but not dates.
+        index.put(new OrderKey(JUNE_1, 1), "TX", "Tile");
+        assertEquals(List.of(new OrderKey(JUNE_1, 1)), index.find("TX", null, JUNE_1, JUNE_1));
+        assertEquals(0, index.count("CA", null, JUNE_1, JUNE_1));
+
+        index.remove(new OrderKey(JUNE_1, 1));
+        assertEquals(0, index.count(null, null, JUNE_1, JUNE_1));
+        // the freed id is reused on another date.
+        index.put(new OrderKey(JUNE_3, 3), "KY", "Wood");
+        assertEquals(List.of(new OrderKey(JUNE_2, 2), new OrderKey(JUNE_3, 3)),
+                index.find(null, null, JUNE_1, JUNE_3));
+    }
+}
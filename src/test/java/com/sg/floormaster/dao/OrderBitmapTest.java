@@ -0,0 +1,64 @@
+package com.sg.floormaster.dao;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderBitmapTest {
+
+    private static List<Integer> values(OrderBitmap bitmap) {
+        List<Integer> values = new ArrayList<>();
+        bitmap.forEach(values::add);
+        return values;
+    }
+
+    @Test
+    public void testMatchesSortedSet() {
+        Random random = new Random(48);
+        OrderBitmap a = new OrderBitmap();
+        OrderBitmap b = new OrderBitmap();
+        TreeSet<Integer> expectedA = new TreeSet<>();
+        TreeSet<Integer> expectedB = new TreeSet<>();
+        // a is dense in its first container so it becomes a bitmap, b is sparse so its containers stay arrays.
+        for (int i = 0; i < 20_000; i++) {
+            int dense = random.nextInt(1 << 16);
+            int sparse = random.nextInt(1 << 20);
+            a.add(dense);
+            expectedA.add(dense);
+            b.add(sparse);
+            expectedB.add(sparse);
+        }
+        for (int i = 0; i < 5_000; i++) {
+            int value = random.nextInt(1 << 16);
+            a.remove(value);
+            expectedA.remove(value);
+        }
+
+        assertEquals(expectedA.size(), a.cardinality());
+        assertEquals(new ArrayList<>(expectedA), values(a), "values should be visited in ascending order.");
+        assertEquals(new ArrayList<>(expectedB), values(b));
+        assertTrue(a.contains(expectedA.first()));
+        assertFalse(b.contains((1 << 20) + 1));
+
+        TreeSet<Integer> expectedBoth = new TreeSet<>(expectedA);
+        expectedBoth.retainAll(expectedB);
+        assertEquals(new ArrayList<>(expectedBoth), values(OrderBitmap.and(a, b)));
+        assertEquals(new ArrayList<>(expectedA), values(OrderBitmap.and(a, a)), "bitmap and bitmap.");
+    }
+
+    @Test
+    public void testRemovingEveryValueEmptiesBitmap() {
+        OrderBitmap bitmap = new OrderBitmap();
+        for (int value = 0; value < 200_000; value += 3) {
+            bitmap.add(value);
+        }
+        assertEquals(66_667, bitmap.cardinality());
+        for (int value = 0; value < 200_000; value += 3) {
+            bitmap.remove(value);
+        }
+        assertEquals(0, bitmap.cardinality());
+        assertTrue(values(bitmap).isEmpty());
+    }
+}
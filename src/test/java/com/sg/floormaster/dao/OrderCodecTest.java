@@ -0,0 +1,128 @@
+package com.sg.floormaster.dao;
+
+import com.sg.floormaster.model.Order;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderCodecTest {
+
+    private Order createOrder(int orderNumber, String customerName) {
+        Order order = new Order();
+        order.setOrderNumber(orderNumber);
+        order.setCustomerName(customerName);
+        order.setState("CA");
+        order.setProductType("Tile");
+        order.setTaxRate(new BigDecimal("25.00").setScale(2, RoundingMode.HALF_UP));
+        order.setArea(new BigDecimal("249.00").setScale(2, RoundingMode.HALF_UP));
+        order.setCostPerSquareFoot(new BigDecimal("3.50").setScale(2, RoundingMode.HALF_UP));
+        order.setLaborCostPerSquareFoot(new BigDecimal("4.15").setScale(2, RoundingMode.HALF_UP));
+        order.setMaterialCost(new BigDecimal("871.50").setScale(2, RoundingMode.HALF_UP));
+        order.setLaborCost(new BigDecimal("1033.35").setScale(2, RoundingMode.HALF_UP));
+        order.setTax(new BigDecimal("476.21").setScale(2, RoundingMode.HALF_UP));
+        order.setTotal(new BigDecimal("2381.06").setScale(2, RoundingMode.HALF_UP));
+        return order;
+    }
+
+    private byte[] encode(OrderCodec codec, List<Order> orders) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        codec.encode(orders, Channels.newChannel(out));
+        return out.toByteArray();
+    }
+
+    // returns the decoded orders, or null if the codec skipped the file.
+    private List<Order> decode(OrderCodec codec, byte[] file) throws IOException {
+        List<Order> orders = new ArrayList<>();
+        return codec.decode(Channels.newChannel(new ByteArrayInputStream(file)), orders::add) ? orders : null;
+    }
+
+    @Test
+    public void testEachCodecRoundTripsOrders() throws IOException {
+        List<Order> orders = new ArrayList<>();
+        // enough orders to fill the stream buffer several times.
+        for (int i = 1; i <= 3_000; i++) {
+            orders.add(createOrder(i, "Customer " + i + ", \"Ltd\" \\ Co."));
+        }
+        Order sparseOrder = createOrder(3_001, null);
+        sparseOrder.setTax(null);
+        for (String name : Arrays.asList("csv", "binary", "jsonl")) {
+            OrderCodec codec = OrderCodec.forName(name);
+            assertEquals(name, codec.getName());
+            List<Order> toEncode = new ArrayList<>(orders);
+            if (!name.equals("csv")) {
+                // the CSV format can't hold nulls.
+                toEncode.add(sparseOrder);
+            }
+            assertEquals(toEncode, decode(codec, encode(codec, toEncode)), name + " should read back what it wrote.");
+        }
+        assertThrows(IllegalArgumentException.class, () -> OrderCodec.forName("xml"));
+    }
+
+    @Test
+    public void testCodecsSkipEmptyAndForeignFiles() throws IOException {
+        List<Order> orders = List.of(createOrder(1, "Doob"));
+        OrderCodec csv = OrderCodec.forName("csv");
+        OrderCodec binary = OrderCodec.forName("binary");
+        OrderCodec jsonl = OrderCodec.forName("jsonl");
+        assertNull(decode(csv, new byte[0]), "csv should skip an empty file.");
+        assertNull(decode(binary, new byte[0]), "binary should skip an empty file.");
+        assertEquals(List.of(), decode(jsonl, new byte[0]), "an empty jsonl file is a file of no orders.");
+        assertNull(decode(csv, encode(jsonl, orders)), "csv should skip a file without its header.");
+        assertNull(decode(jsonl, encode(csv, orders)), "jsonl should skip a file that isn't JSON.");
+        assertNull(decode(binary, encode(csv, orders)), "binary should skip a file without its magic number.");
+        byte[] header = encode(csv, List.of());
+        assertEquals(List.of(), decode(csv, Arrays.copyOf(header, header.length - 1)),
+                "a header alone, even without a newline, is a file of no orders.");
+    }
+
+    @Test
+    public void testCsvMoneyColumnsParseAsBefore() throws IOException {
+        OrderCodec csv = OrderCodec.forName("csv");
+        String header = new String(encode(csv, List.of()), StandardCharsets.UTF_8);
+        String[] rows = {"1,Ada Lovelace,CA,25.00,Tile,249.00,3.50,4.15,871.50,1033.35,476.21,2381.06",
+                "2,Doob* Ltd,TX,4.45,Carpet,100,2.5,-2.10,0.005,+7,1E+2,12.345,extra column",
+                "3,Zoë,KY,6.00,Wood,100.00,5.15,4.75,515.00,475.00,59.4,1049.40"};
+        List<Order> decoded = decode(csv, (header + String.join("\r\n", rows)).getBytes(StandardCharsets.UTF_8));
+        assertEquals(rows.length, decoded.size());
+        for (int i = 0; i < rows.length; i++) {
+            assertEquals(CsvOrderCodec.unmarshallOrder(rows[i]), decoded.get(i),
+                    "row " + rows[i] + " should parse as it did when every column was parsed on load.");
+        }
+        assertEquals("Doob, Ltd", decoded.get(1).getCustomerName());
+        assertEquals(new BigDecimal("12.35"), decoded.get(1).getTotal());
+
+        byte[] badMoney = (header + "4,Ada,CA,25.00,Tile,249.00,3.50,4.15,871.50,1033.35,476.2l,2381.06")
+                .getBytes(StandardCharsets.UTF_8);
+        assertThrows(FlooringMasteryPersistenceException.class, () -> decode(csv, badMoney),
+                "damaged money should fail the load, not the first read of the value.");
+        byte[] shortRow = (header + "4,Ada,CA,25.00,Tile,249.00,3.50").getBytes(StandardCharsets.UTF_8);
+        assertThrows(FlooringMasteryPersistenceException.class, () -> decode(csv, shortRow));
+    }
+
+    @Test
+    public void testCodecsRejectDamagedOrders() throws IOException {
+        byte[] csvWithBlankLine = (new String(encode(OrderCodec.forName("csv"), List.of(createOrder(1, "Doob"))),
+                StandardCharsets.UTF_8) + "\n").replaceFirst("\n", "\n\n").getBytes(StandardCharsets.UTF_8);
+        assertThrows(FlooringMasteryPersistenceException.class,
+                () -> decode(OrderCodec.forName("csv"), csvWithBlankLine));
+
+        byte[] badJson = "{\"OrderNumber\":1,\"Area\":\"lots\"}\n".getBytes(StandardCharsets.UTF_8);
+        assertThrows(FlooringMasteryPersistenceException.class, () -> decode(OrderCodec.forName("jsonl"), badJson));
+
+        byte[] binary = encode(OrderCodec.forName("binary"), List.of(createOrder(1, "Doob")));
+        byte[] truncated = Arrays.copyOf(binary, binary.length - 3);
+        assertThrows(FlooringMasteryPersistenceException.class,
+                () -> decode(OrderCodec.forName("binary"), truncated));
+    }
+}
@@ -0,0 +1,102 @@
+package com.sg.floormaster.dao;
+
+import com.sg.floormaster.model.Order;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderFileChecksumTest {
+
+    private Order createOrder(int orderNumber, LocalDate orderDate) {
+        Order order = new Order();
+        order.setOrderNumber(orderNumber);
+        order.setOrderDate(orderDate);
+        order.setCustomerName("Customer " + orderNumber);
+        order.setState("CA");
+        order.setProductType("Tile");
+        order.setTaxRate(new BigDecimal("25.00").setScale(2, RoundingMode.HALF_UP));
+        order.setArea(new BigDecimal("249.00").setScale(2, RoundingMode.HALF_UP));
+        order.setCostPerSquareFoot(new BigDecimal("3.50").setScale(2, RoundingMode.HALF_UP));
+        order.setLaborCostPerSquareFoot(new BigDecimal("4.15").setScale(2, RoundingMode.HALF_UP));
+        order.setMaterialCost(new BigDecimal("871.50").setScale(2, RoundingMode.HALF_UP));
+        order.setLaborCost(new BigDecimal("1033.35").setScale(2, RoundingMode.HALF_UP));
+        order.setTax(new BigDecimal("476.21").setScale(2, RoundingMode.HALF_UP));
+        order.setTotal(new BigDecimal("2381.06").setScale(2, RoundingMode.HALF_UP));
+        return order;
+    }
+
+    // saves an order on each of the first three days of 2030.
+    private Path writeOrders(OrderArchivePolicy archivePolicy) throws IOException {
+        Path orderDirectory = Files.createTempDirectory("checksumOrders");
+        FlooringMasteryOrderDaoFileImpl testOrderDao = new FlooringMasteryOrderDaoFileImpl(
+                orderDirectory.toString(), OrderCodec.forName("csv"), archivePolicy);
+        for (int day = 1; day <= 3; day++) {
+            testOrderDao.addOrder(createOrder(day, LocalDate.of(2030, 1, day)));
+        }
+        testOrderDao.saveOrders();
+        return orderDirectory;
+    }
+
+    @Test
+    public void testSavedFilesAreChecksummed() throws IOException {
+        Path orderDirectory = writeOrders(new OrderArchivePolicy());
+        Path orderFile = orderDirectory.resolve("Orders_01012030.txt");
+        assertEquals(OrderFileChecksum.Status.VALID, OrderFileChecksum.verify(orderFile));
+        assertFalse(Files.exists(orderDirectory.resolve("Orders_01012030.txt.tmp")), "no temporary file is left.");
+        assertEquals(OrderFileChecksum.Status.UNCHECKED,
+                OrderFileChecksum.verify(Path.of("src/test/resources/Orders/Orders_06012013.txt")),
+                "files written without a checksum are unchecked.");
+
+        // archived files are checksummed as written, compressed.
+        Clock nextYear = Clock.fixed(Instant.parse("2031-01-01T00:00:00Z"), ZoneOffset.UTC);
+        Path archivedDirectory = writeOrders(new OrderArchivePolicy(0, nextYear));
+        assertEquals(OrderFileChecksum.Status.VALID,
+                OrderFileChecksum.verify(archivedDirectory.resolve("Orders_01012030.txt.gz")));
+        assertEquals(3, new FlooringMasteryOrderDaoFileImpl(archivedDirectory.toString()).getAllOrders().size());
+    }
+
+    @Test
+    public void testCorruptFilesAreQuarantined() throws IOException {
+        Path orderDirectory = writeOrders(new OrderArchivePolicy());
+
+        // a flipped digit still parses, only its checksum shows the damage.
+        Path damagedFile = orderDirectory.resolve("Orders_01012030.txt");
+        byte[] bytes = Files.readAllBytes(damagedFile);
+        String text = new String(bytes, StandardCharsets.UTF_8);
+        bytes[text.indexOf("249.00")] = '3';
+        Files.write(damagedFile, bytes);
+        // a file without a checksum, cut short part way through an order.
+        Path tornFile = orderDirectory.resolve("Orders_01022030.txt");
+        Files.writeString(tornFile, "OrderNumber,CustomerName,State,TaxRate,ProductType,Area,CostPerSquareFoot,"
+                + "LaborCostPerSquareFoot,MaterialCost,LaborCost,Tax,Total\n2,Customer 2,CA,25.");
+
+        FlooringMasteryOrderDaoFileImpl testOrderDao =
+                new FlooringMasteryOrderDaoFileImpl(orderDirectory.toString());
+        assertEquals(1, testOrderDao.getAllOrders().size(), "only the undamaged file should be loaded.");
+        assertNotNull(testOrderDao.getOrder(LocalDate.parse("2030-01-03"), 3));
+
+        List<String> report = testOrderDao.getQuarantineReport();
+        assertEquals(2, report.size(), "both damaged files should be reported.");
+        assertTrue(report.stream().anyMatch(line -> line.contains("Orders_01012030.txt")
+                && line.endsWith("checksum mismatch")));
+        assertFalse(Files.exists(damagedFile), "damaged files should be moved out of the order folder.");
+        assertFalse(Files.exists(tornFile));
+        Path quarantineFolder = orderDirectory.resolve(OrderFileQuarantine.FOLDER_NAME);
+        assertEquals(2, Files.readAllLines(quarantineFolder.resolve(OrderFileQuarantine.LOG_NAME)).size());
+        try (var quarantined = Files.list(quarantineFolder)) {
+            assertEquals(3, quarantined.count(), "the two damaged files and the log.");
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.sg.floormaster.dao;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderFileConverterTest {
+
+    private final Path TEST_ORDERS_DIRECTORY = Paths.get("src/test/resources/Orders");
+
+    @Test
+    public void testConvertedFoldersLoadTheSameOrders() throws IOException {
+        FlooringMasteryOrderDao csvDao = new FlooringMasteryOrderDaoFileImpl(TEST_ORDERS_DIRECTORY.toString());
+        OrderFileConverter converter = new OrderFileConverter(2);
+
+        Path binaryDirectory = Files.createTempDirectory("binaryOrders");
+        assertEquals(csvDao.getAllOrders().size(), converter.convert(TEST_ORDERS_DIRECTORY,
+                OrderCodec.forName("csv"), binaryDirectory, OrderCodec.forName("binary")));
+        assertEquals(csvDao.getAllOrders(), new FlooringMasteryOrderDaoFileImpl(binaryDirectory.toString(),
+                OrderCodec.forName("binary")).getAllOrders(), "binary files should hold the same orders.");
+
+        // converting into the same folder adds files alongside the originals.
+        converter.convert(binaryDirectory, OrderCodec.forName("binary"), binaryDirectory, OrderCodec.forName("jsonl"));
+        assertEquals(csvDao.getAllOrders(), new FlooringMasteryOrderDaoFileImpl(binaryDirectory.toString(),
+                OrderCodec.forName("jsonl")).getAllOrders(), "JSON Lines files should hold the same orders.");
+
+        assertThrows(IllegalArgumentException.class, () -> converter.convert(binaryDirectory,
+                OrderCodec.forName("jsonl"), binaryDirectory, OrderCodec.forName("jsonl")));
+    }
+
+    @Test
+    public void testFileDaoSavesInItsCodecsFormat() throws IOException {
+        Path orderDirectory = Files.createTempDirectory("jsonlOrders");
+        new OrderFileConverter().convert(TEST_ORDERS_DIRECTORY, OrderCodec.forName("csv"),
+                orderDirectory, OrderCodec.forName("jsonl"));
+        FlooringMasteryOrderDaoFileImpl jsonlDao =
+                new FlooringMasteryOrderDaoFileImpl(orderDirectory.toString(), OrderCodec.forName("jsonl"));
+        jsonlDao.removeOrder(LocalDate.parse("2013-06-02"), 2);
+        jsonlDao.saveOrders();
+
+        List<String> lines = Files.readAllLines(orderDirectory.resolve("Orders_06022013.jsonl"));
+        assertEquals(2, lines.size(), "the remaining order should be saved as one JSON line.");
+        assertTrue(lines.get(1).startsWith("#CRC32C "), "the file should end with its checksum.");
+        FlooringMasteryOrderDao reloaded =
+                new FlooringMasteryOrderDaoFileImpl(orderDirectory.toString(), OrderCodec.forName("jsonl"));
+        assertNull(reloaded.getOrder(LocalDate.parse("2013-06-02"), 2), "removal should be saved.");
+        assertEquals("Albert Einstein", reloaded.getOrder(LocalDate.parse("2013-06-02"), 3).getCustomerName());
+    }
+}
@@ -0,0 +1,40 @@
+package com.sg.floormaster.dao;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderKeyBloomFilterTest {
+
+    @Test
+    public void testNoFalseNegativesAndFewFalsePositives() {
+        OrderKeyBloomFilter filter = new OrderKeyBloomFilter(10_000, 10);
+        // dense keys, as consecutive orders on consecutive dates give.
+        for (long key = 0; key < 10_000; key++) {
+            filter.add((20_000L + key / 100) << 32 | key);
+        }
+
+        int falsePositives = 0;
+        for (long key = 0; key < 10_000; key++) {
+            assertTrue(filter.mightContain((20_000L + key / 100) << 32 | key), "added keys should always be found.");
+            if (filter.mightContain((30_000L + key / 100) << 32 | key)) {
+                falsePositives++;
+            }
+        }
+        assertTrue(falsePositives < 300, "10 bits per key should give about 1% false positives: " + falsePositives);
+    }
+
+    @Test
+    public void testSerializeAndNoFilter() {
+        OrderKeyBloomFilter filter = new OrderKeyBloomFilter(100, 10);
+        filter.add(42);
+        ByteBuffer bytes = ByteBuffer.allocate(filter.serializedSize());
+        filter.writeTo(bytes);
+        OrderKeyBloomFilter read = OrderKeyBloomFilter.readFrom(bytes.flip());
+        assertTrue(read.mightContain(42), "read filter should hold the written keys.");
+
+        assertTrue(new OrderKeyBloomFilter(100, 0).mightContain(42), "no filter should always answer true.");
+    }
+}
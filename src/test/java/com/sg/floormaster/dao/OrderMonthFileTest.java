@@ -0,0 +1,136 @@
+package com.sg.floormaster.dao;
+
+import com.sg.floormaster.model.Order;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderMonthFileTest {
+
+    private final Clock TODAY = Clock.fixed(LocalDate.parse("2030-06-15").atStartOfDay().toInstant(ZoneOffset.UTC),
+            ZoneOffset.UTC);
+
+    private Order createOrder(int orderNumber, LocalDate orderDate) {
+        Order order = new Order();
+        order.setOrderNumber(orderNumber);
+        order.setOrderDate(orderDate);
+        order.setCustomerName("Customer " + orderNumber);
+        order.setState("CA");
+        order.setProductType("Tile");
+        order.setTaxRate(new BigDecimal("25.00").setScale(2, RoundingMode.HALF_UP));
+        order.setArea(new BigDecimal("249.00").setScale(2, RoundingMode.HALF_UP));
+        order.setCostPerSquareFoot(new BigDecimal("3.50").setScale(2, RoundingMode.HALF_UP));
+        order.setLaborCostPerSquareFoot(new BigDecimal("4.15").setScale(2, RoundingMode.HALF_UP));
+        order.setMaterialCost(new BigDecimal("871.50").setScale(2, RoundingMode.HALF_UP));
+        order.setLaborCost(new BigDecimal("1033.35").setScale(2, RoundingMode.HALF_UP));
+        order.setTax(new BigDecimal("476.21").setScale(2, RoundingMode.HALF_UP));
+        order.setTotal(new BigDecimal("2381.06").setScale(2, RoundingMode.HALF_UP));
+        return order;
+    }
+
+    private OrderArchivePolicy consolidatingPolicy(int archiveAfterDays) {
+        OrderArchivePolicy archivePolicy = new OrderArchivePolicy(archiveAfterDays, TODAY);
+        archivePolicy.setConsolidateClosedMonths(true);
+        return archivePolicy;
+    }
+
+    // adds an order on each day from the first of May 2030 to the 15th of June 2030.
+    private FlooringMasteryOrderDaoFileImpl writeDailyOrders(Path orderDirectory) {
+        FlooringMasteryOrderDaoFileImpl testOrderDao = new FlooringMasteryOrderDaoFileImpl(
+                orderDirectory.toString(), OrderCodec.forName("csv"), new OrderArchivePolicy(-1, TODAY));
+        int orderNumber = 1;
+        for (LocalDate day = LocalDate.parse("2030-05-01"); !day.isAfter(LocalDate.parse("2030-06-15"));
+             day = day.plusDays(1)) {
+            testOrderDao.addOrder(createOrder(orderNumber++, day));
+        }
+        testOrderDao.saveOrders();
+        return testOrderDao;
+    }
+
+    @Test
+    public void testClosedMonthsAreConsolidated() throws IOException {
+        Path orderDirectory = Files.createTempDirectory("monthOrders");
+        FlooringMasteryOrderDaoFileImpl testOrderDao = writeDailyOrders(orderDirectory);
+
+        // days before the 20th of May are archived, so their blocks are compressed.
+        OrderArchivePolicy archivePolicy = consolidatingPolicy(26);
+        new FlooringMasteryOrderDaoFileImpl(orderDirectory.toString(), OrderCodec.forName("csv"), archivePolicy)
+                .saveOrders();
+        assertTrue(Files.exists(orderDirectory.resolve("Orders_052030.txt")), "May should be consolidated.");
+        assertFalse(Files.exists(orderDirectory.resolve("Orders_05012030.txt")), "May's daily files are removed.");
+        assertFalse(Files.exists(orderDirectory.resolve("Orders_05012030.txt.gz")));
+        assertTrue(Files.exists(orderDirectory.resolve("Orders_06012030.txt")), "June is still open.");
+        assertEquals(19, archivePolicy.getArchivedFileCount(), "19 days of May are archived.");
+
+        FlooringMasteryOrderDaoFileImpl reloaded = new FlooringMasteryOrderDaoFileImpl(orderDirectory.toString(),
+                OrderCodec.forName("csv"), consolidatingPolicy(26));
+        assertEquals(testOrderDao.getAllOrders(), reloaded.getAllOrders(), "month files should load every day.");
+        assertEquals(47, reloaded.getNextOrderNumber());
+
+        // a single day is read through the index.
+        try (OrderMonthFile may = OrderMonthFile.open(orderDirectory.resolve("Orders_052030.txt"),
+                YearMonth.of(2030, 5))) {
+            assertEquals(31, may.getDays().size());
+            assertTrue(may.isCompressed(LocalDate.parse("2030-05-01")));
+            assertFalse(may.isCompressed(LocalDate.parse("2030-05-31")));
+            List<Order> ordersOnDay = new ArrayList<>();
+            assertTrue(may.read(LocalDate.parse("2030-05-10"), OrderCodec.forName("csv"), archivePolicy,
+                    ordersOnDay::add));
+            assertEquals(1, ordersOnDay.size());
+            assertEquals(10, ordersOnDay.get(0).getOrderNumber());
+        }
+    }
+
+    @Test
+    public void testDailyFilesStillLoadAndReplaceMonthFiles() throws IOException {
+        Path orderDirectory = Files.createTempDirectory("monthOrders");
+        FlooringMasteryOrderDaoFileImpl testOrderDao = writeDailyOrders(orderDirectory);
+        new FlooringMasteryOrderDaoFileImpl(orderDirectory.toString(), OrderCodec.forName("csv"),
+                consolidatingPolicy(-1)).saveOrders();
+
+        // a daily file written since takes the place of the day's block.
+        Order editedOrder = createOrder(10, LocalDate.parse("2030-05-10"));
+        editedOrder.setCustomerName("Edited");
+        Map<LocalDate, Map<Integer, Order>> editedDay = new TreeMap<>();
+        editedDay.put(editedOrder.getOrderDate(), new TreeMap<>(Map.of(10, editedOrder)));
+        new FlooringMasteryOrderDaoFileImpl(orderDirectory.toString(), editedDay).saveOrders();
+        assertTrue(Files.exists(orderDirectory.resolve("Orders_052030.txt")),
+                "the month file still holds the other days.");
+
+        FlooringMasteryOrderDaoFileImpl reloaded = new FlooringMasteryOrderDaoFileImpl(orderDirectory.toString());
+        assertEquals("Edited", reloaded.getOrder(LocalDate.parse("2030-05-10"), 10).getCustomerName());
+        assertEquals(testOrderDao.getAllOrders().size(), reloaded.getAllOrders().size());
+
+        // saving without consolidation writes every day's file, so removes the month file.
+        reloaded.saveOrders();
+        assertFalse(Files.exists(orderDirectory.resolve("Orders_052030.txt")));
+        assertTrue(Files.exists(orderDirectory.resolve("Orders_05012030.txt")));
+        assertEquals(reloaded.getAllOrders(),
+                new FlooringMasteryOrderDaoFileImpl(orderDirectory.toString()).getAllOrders());
+    }
+
+    @Test
+    public void testDamagedMonthFileIsQuarantined() throws IOException {
+        Path orderDirectory = Files.createTempDirectory("monthOrders");
+        Files.writeString(orderDirectory.resolve("Orders_052030.txt"), "not a month file");
+        FlooringMasteryOrderDaoFileImpl testOrderDao =
+                new FlooringMasteryOrderDaoFileImpl(orderDirectory.toString());
+        assertTrue(testOrderDao.getAllOrders().isEmpty());
+        assertEquals(1, testOrderDao.getQuarantineReport().size(), "the month file should be reported.");
+        assertFalse(Files.exists(orderDirectory.resolve("Orders_052030.txt")), "the month file should be moved.");
+    }
+}
@@ -0,0 +1,141 @@
+package com.sg.floormaster.dao;
+
+import com.sg.floormaster.model.Order;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Loading, looking up and listing the orders on one date with the OrderPartition used by
+ * FlooringMasteryOrderDaoFileImpl, against the HashMap it replaced and the ConcurrentHashMap
+ * used in between.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class OrderPartitionBenchmark {
+
+    @Param({"100", "10000"})
+    private int ordersOnDate;
+
+    private Order[] orders;
+    private int[] lookups;
+    private Map<Integer, Order> hashMap;
+    private Map<Integer, Order> concurrentHashMap;
+    private OrderPartition partition;
+
+    @Setup
+    public void setUp() {
+        // order files list orders by increasing order number, with gaps where
+        // the numbers in between went to orders on other dates.
+        Random random = new Random(42);
+        orders = new Order[ordersOnDate];
+        int orderNumber = 0;
+        for (int i = 0; i < ordersOnDate; i++) {
+            orderNumber += 1 + random.nextInt(20);
+            orders[i] = new Order();
+            orders[i].setOrderNumber(orderNumber);
+        }
+        lookups = new int[1024];
+        for (int i = 0; i < lookups.length; i++) {
+            lookups[i] = orders[(int) ((i * 2654435761L) % ordersOnDate)].getOrderNumber();
+        }
+        hashMap = loadHashMap();
+        concurrentHashMap = loadConcurrentHashMap();
+        partition = loadPartition();
+    }
+
+    @Benchmark
+    public Map<Integer, Order> loadHashMap() {
+        Map<Integer, Order> map = new HashMap<>();
+        for (Order order : orders) {
+            map.put(order.getOrderNumber(), order);
+        }
+        return map;
+    }
+
+    @Benchmark
+    public Map<Integer, Order> loadConcurrentHashMap() {
+        Map<Integer, Order> map = new ConcurrentHashMap<>();
+        for (Order order : orders) {
+            map.put(order.getOrderNumber(), order);
+        }
+        return map;
+    }
+
+    @Benchmark
+    public OrderPartition loadPartition() {
+        // as the order file loader builds it, from the file's orders.
+        return OrderPartition.of(Arrays.asList(orders));
+    }
+
+    @Benchmark
+    public OrderPartition putPartition() {
+        OrderPartition loaded = new OrderPartition();
+        for (Order order : orders) {
+            loaded.put(order);
+        }
+        return loaded;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(1024)
+    public void lookupHashMap(Blackhole blackhole) {
+        for (int orderNumber : lookups) {
+            blackhole.consume(hashMap.get(orderNumber));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(1024)
+    public void lookupConcurrentHashMap(Blackhole blackhole) {
+        for (int orderNumber : lookups) {
+            blackhole.consume(concurrentHashMap.get(orderNumber));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(1024)
+    public void lookupPartition(Blackhole blackhole) {
+        for (int orderNumber : lookups) {
+            blackhole.consume(partition.get(orderNumber));
+        }
+    }
+
+    @Benchmark
+    public List<Order> listHashMap() {
+        return new ArrayList<>(hashMap.values());
+    }
+
+    @Benchmark
+    public List<Order> listConcurrentHashMap() {
+        return new ArrayList<>(concurrentHashMap.values());
+    }
+
+    @Benchmark
+    public List<Order> listPartition() {
+        return partition.values();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(OrderPartitionBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
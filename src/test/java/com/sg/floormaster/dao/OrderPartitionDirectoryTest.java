@@ -0,0 +1,69 @@
+package com.sg.floormaster.dao;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderPartitionDirectoryTest {
+
+    @Test
+    public void testGrowsInBothDirections() {
+        OrderPartitionDirectory directory = new OrderPartitionDirectory();
+        assertTrue(directory.isEmpty(), "new directory should be empty.");
+        assertNull(directory.getLatestDate(), "empty directory should have no latest date.");
+        assertNull(directory.get(LocalDate.parse("2013-06-01")), "empty directory should have no partitions.");
+
+        // dates far either side of the first force the array to grow both ways.
+        LocalDate first = LocalDate.parse("2013-06-01");
+        LocalDate later = LocalDate.parse("2030-01-01");
+        LocalDate earlier = LocalDate.parse("1990-12-31");
+        OrderPartition firstPartition = directory.getOrCreate(first);
+        OrderPartition laterPartition = directory.getOrCreate(later);
+        OrderPartition earlierPartition = directory.getOrCreate(earlier);
+
+        assertSame(firstPartition, directory.get(first), "first partition should survive growth.");
+        assertSame(laterPartition, directory.get(later), "later partition should be found.");
+        assertSame(earlierPartition, directory.get(earlier), "earlier partition should be found.");
+        assertSame(firstPartition, directory.getOrCreate(first), "existing partition should be returned.");
+        assertNull(directory.get(first.plusDays(1)), "date without a partition should return null.");
+        assertNull(directory.get(LocalDate.parse("1800-01-01")), "date before the array should return null.");
+        assertEquals(later, directory.getLatestDate(), "latest date should be the latest added.");
+    }
+
+    @Test
+    public void testForEachAndRangeInDateOrder() {
+        OrderPartitionDirectory directory = new OrderPartitionDirectory();
+        for (String date : new String[]{"2020-01-10", "2020-01-01", "2020-02-01", "2019-12-31", "2020-01-05"}) {
+            directory.put(LocalDate.parse(date), new OrderPartition());
+        }
+
+        List<LocalDate> dates = new ArrayList<>();
+        directory.forEach((date, partition) -> dates.add(date));
+        assertEquals(List.of(LocalDate.parse("2019-12-31"), LocalDate.parse("2020-01-01"),
+                LocalDate.parse("2020-01-05"), LocalDate.parse("2020-01-10"), LocalDate.parse("2020-02-01")),
+                dates, "dates should be visited in calendar order.");
+
+        List<OrderPartition> january = directory.getRange(LocalDate.parse("2020-01-01"), LocalDate.parse("2020-01-31"));
+        assertEquals(List.of(directory.get(LocalDate.parse("2020-01-01")), directory.get(LocalDate.parse("2020-01-05")),
+                directory.get(LocalDate.parse("2020-01-10"))), january, "range should hold January's partitions.");
+        assertEquals(5, directory.getRange(LocalDate.MIN, LocalDate.MAX).size(),
+                "unbounded range should hold every partition.");
+        assertTrue(directory.getRange(LocalDate.parse("2021-01-01"), LocalDate.parse("2021-12-31")).isEmpty(),
+                "range after every date should be empty.");
+        assertTrue(directory.getRange(LocalDate.parse("2020-02-01"), LocalDate.parse("2020-01-01")).isEmpty(),
+                "backwards range should be empty.");
+    }
+
+    @Test
+    public void testDateSpanTooLarge() {
+        OrderPartitionDirectory directory = new OrderPartitionDirectory();
+        directory.getOrCreate(LocalDate.parse("2020-01-01"));
+        assertThrows(FlooringMasteryPersistenceException.class,
+                () -> directory.getOrCreate(LocalDate.parse("+20000-01-01")),
+                "dates spanning too many days should throw.");
+    }
+}
@@ -0,0 +1,68 @@
+package com.sg.floormaster.dao;
+
+import com.sg.floormaster.model.Order;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderPartitionTest {
+
+    private Order createOrder(int orderNumber, String customerName) {
+        Order order = new Order();
+        order.setOrderNumber(orderNumber);
+        order.setCustomerName(customerName);
+        return order;
+    }
+
+    @Test
+    public void testPutKeepsOrderNumberOrder() {
+        OrderPartition partition = new OrderPartition(1);
+        for (int orderNumber : new int[]{5, 1, 9, 3, 7}) {
+            assertNull(partition.put(createOrder(orderNumber, "Customer " + orderNumber)),
+                    "new order number should return null.");
+        }
+
+        List<Order> orders = partition.values();
+        assertEquals(List.of(1, 3, 5, 7, 9), orders.stream().map(Order::getOrderNumber).toList(),
+                "orders should be in order number order.");
+        assertEquals(List.of(1, 3, 5, 7, 9), List.copyOf(partition.toMap().keySet()),
+                "map should iterate in order number order.");
+        assertEquals(9, partition.getLargestOrderNumber(), "largest order number should be 9.");
+        assertEquals("Customer 7", partition.get(7).getCustomerName(), "order 7 should be found.");
+        assertNull(partition.get(4), "missing order number should return null.");
+    }
+
+    @Test
+    public void testReplaceAndRemove() {
+        OrderPartition partition = OrderPartition.of(Map.of(1, createOrder(1, "Ada"), 2, createOrder(2, "Doob")));
+
+        Order replacement = createOrder(1, "Augusta");
+        assertEquals("Ada", partition.put(replacement).getCustomerName(), "put should return the replaced order.");
+        assertNull(partition.replace(createOrder(3, "Nobody")), "replace of a missing order should return null.");
+        assertNull(partition.get(3), "replace of a missing order shouldn't store it.");
+        assertSame(replacement, partition.replace(createOrder(1, "Ada")), "replace should return the previous order.");
+
+        assertEquals("Ada", partition.remove(1).getCustomerName(), "remove should return the removed order.");
+        assertNull(partition.remove(1), "removing a missing order should return null.");
+        assertEquals(1, partition.size(), "one order should remain.");
+        assertEquals(2, partition.getLargestOrderNumber(), "largest order number should be 2.");
+
+        partition.remove(2);
+        assertEquals(-1, partition.getLargestOrderNumber(), "empty partition should have no largest order number.");
+        assertTrue(partition.values().isEmpty(), "empty partition should have no orders.");
+    }
+
+    @Test
+    public void testOfKeepsLastOrderWithSameNumber() {
+        OrderPartition partition = OrderPartition.of(List.of(createOrder(3, "First"), createOrder(1, "Ada"),
+                createOrder(3, "Last")));
+
+        assertEquals(2, partition.size(), "orders with the same number should be stored once.");
+        assertEquals("Last", partition.get(3).getCustomerName(), "last order with the same number should be kept.");
+        assertEquals(List.of(1, 3), partition.values().stream().map(Order::getOrderNumber).toList(),
+                "orders should be in order number order.");
+    }
+}
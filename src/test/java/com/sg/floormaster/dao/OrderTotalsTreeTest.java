@@ -0,0 +1,59 @@
+package com.sg.floormaster.dao;
+
+import com.sg.floormaster.model.OrderTotals;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderTotalsTreeTest {
+
+    private static OrderTotals totals(long cents) {
+        BigDecimal value = BigDecimal.valueOf(cents, 2);
+        return new OrderTotals(1, value, value, value, value, value);
+    }
+
+    @Test
+    public void testRangeSumsMatchDailySums() {
+        Random random = new Random(50);
+        LocalDate firstDay = LocalDate.parse("2020-01-01");
+        int days = 2000;
+        long[] dailyCents = new long[days];
+        long[] dailyCounts = new long[days];
+        OrderTotalsTree tree = new OrderTotalsTree();
+        // dates added in random order, so the tree grows in both directions.
+        for (int i = 0; i < 5000; i++) {
+            int day = random.nextInt(days);
+            long cents = random.nextInt(1_000_000);
+            tree.add(firstDay.plusDays(day), totals(cents));
+            dailyCents[day] += cents;
+            dailyCounts[day]++;
+            if (i % 5 == 0) {
+                // and some taken away again, as editing or removing an order does.
+                tree.subtract(firstDay.plusDays(day), totals(cents));
+                dailyCents[day] -= cents;
+                dailyCounts[day]--;
+            }
+        }
+
+        for (int i = 0; i < 500; i++) {
+            int from = random.nextInt(days + 100) - 50;
+            int to = from + random.nextInt(days);
+            long cents = 0;
+            long count = 0;
+            for (int day = Math.max(from, 0); day <= Math.min(to, days - 1); day++) {
+                cents += dailyCents[day];
+                count += dailyCounts[day];
+            }
+            OrderTotals sum = tree.sum(firstDay.plusDays(from), firstDay.plusDays(to));
+            assertEquals(count, sum.getOrderCount());
+            assertEquals(BigDecimal.valueOf(cents, 2), sum.getTotal());
+            assertEquals(BigDecimal.valueOf(cents, 2), sum.getTax());
+        }
+        assertEquals(OrderTotals.NONE, tree.sum(firstDay.plusDays(10), firstDay.plusDays(9)),
+                "an empty range has no orders.");
+    }
+}
@@ -0,0 +1,77 @@
+package com.sg.floormaster.dao;
+
+import com.sg.floormaster.model.Order;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.zip.ZipFile;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ZipOrderStoreTest {
+
+    private Order createOrder(int orderNumber, LocalDate orderDate) {
+        Order order = new Order();
+        order.setOrderNumber(orderNumber);
+        order.setOrderDate(orderDate);
+        order.setCustomerName("Customer " + orderNumber);
+        order.setState("CA");
+        order.setProductType("Tile");
+        order.setTaxRate(new BigDecimal("25.00").setScale(2, RoundingMode.HALF_UP));
+        order.setArea(new BigDecimal("249.00").setScale(2, RoundingMode.HALF_UP));
+        order.setCostPerSquareFoot(new BigDecimal("3.50").setScale(2, RoundingMode.HALF_UP));
+        order.setLaborCostPerSquareFoot(new BigDecimal("4.15").setScale(2, RoundingMode.HALF_UP));
+        order.setMaterialCost(new BigDecimal("871.50").setScale(2, RoundingMode.HALF_UP));
+        order.setLaborCost(new BigDecimal("1033.35").setScale(2, RoundingMode.HALF_UP));
+        order.setTax(new BigDecimal("476.21").setScale(2, RoundingMode.HALF_UP));
+        order.setTotal(new BigDecimal("2381.06").setScale(2, RoundingMode.HALF_UP));
+        return order;
+    }
+
+    @Test
+    public void testOrdersSavedToArchiveAreReloaded() throws IOException {
+        Path archive = Files.createTempDirectory("zipOrders").resolve("Orders.zip");
+        Order order = createOrder(1, LocalDate.parse("2030-01-01"));
+        Order archivedOrder = createOrder(2, LocalDate.parse("2020-01-01"));
+        try (ZipOrderStore store = new ZipOrderStore(archive.toString())) {
+            FlooringMasteryOrderDao orderDao = new FlooringMasteryOrderDaoFileImpl(store.getOrderFolder(),
+                    OrderCodec.forName("csv"), new OrderArchivePolicy(365));
+            orderDao.addOrder(order);
+            orderDao.addOrder(archivedOrder);
+            orderDao.saveOrders();
+        }
+
+        try (ZipFile zipFile = new ZipFile(archive.toFile())) {
+            assertNotNull(zipFile.getEntry("Orders/Orders_01012030.txt"));
+            assertNotNull(zipFile.getEntry("Orders/Orders_01012020.txt.gz"));
+            assertNotNull(zipFile.getEntry("Orders/" + OrderRollups.FILE_NAME));
+            assertEquals(4, zipFile.size(), "the archive holds the Orders folder, its two order files and totals.");
+        }
+
+        try (ZipOrderStore store = new ZipOrderStore(archive.toString())) {
+            FlooringMasteryOrderDao orderDao = new FlooringMasteryOrderDaoFileImpl(store.getOrderFolder());
+            assertEquals(order, orderDao.getOrder(order.getOrderDate(), 1));
+            assertEquals(archivedOrder, orderDao.getOrder(archivedOrder.getOrderDate(), 2));
+
+            orderDao.removeOrder(order.getOrderDate(), 1);
+            orderDao.saveOrders();
+        }
+        try (ZipOrderStore store = new ZipOrderStore(archive.toString())) {
+            FlooringMasteryOrderDao orderDao = new FlooringMasteryOrderDaoFileImpl(store.getOrderFolder());
+            assertNull(orderDao.getOrder(order.getOrderDate(), 1), "the removed order should stay removed.");
+            assertEquals(archivedOrder, orderDao.getOrder(archivedOrder.getOrderDate(), 2));
+        }
+    }
+
+    @Test
+    public void testInvalidArchiveThrows() throws IOException {
+        Path notAnArchive = Files.createTempFile("orders", ".zip");
+        Files.writeString(notAnArchive, "not a zip archive");
+        assertThrows(FlooringMasteryPersistenceException.class, () -> new ZipOrderStore(notAnArchive.toString()));
+    }
+}
@@ -0,0 +1,152 @@
+package com.sg.floormaster.model;
+
+import org.junit.jupiter.api.Test;
+import org.openjdk.jol.info.GraphLayout;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderTest {
+
+    private Order createOrder() {
+        Order order = new Order();
+        order.setOrderNumber(1);
+        order.setOrderDate(LocalDate.parse("2013-06-01"));
+        order.setCustomerName("Ada Lovelace");
+        order.setState("CA");
+        order.setProductType("Tile");
+        order.setTaxRate(new BigDecimal("25.00").setScale(2, RoundingMode.HALF_UP));
+        order.setArea(new BigDecimal("249.00").setScale(2, RoundingMode.HALF_UP));
+        order.setCostPerSquareFoot(new BigDecimal("3.50").setScale(2, RoundingMode.HALF_UP));
+        order.setLaborCostPerSquareFoot(new BigDecimal("4.15").setScale(2, RoundingMode.HALF_UP));
+        order.setMaterialCost(new BigDecimal("871.50").setScale(2, RoundingMode.HALF_UP));
+        order.setLaborCost(new BigDecimal("1033.35").setScale(2, RoundingMode.HALF_UP));
+        order.setTax(new BigDecimal("476.21").setScale(2, RoundingMode.HALF_UP));
+        order.setTotal(new BigDecimal("2381.06").setScale(2, RoundingMode.HALF_UP));
+        return order;
+    }
+
+    @Test
+    public void testMoneyValuesKeepValueAndScale() {
+        Order order = new Order();
+
+        // 1. unset values are null.
+        assertNull(order.getTotal(), "unset total should be null.");
+
+        // 2. scale 2 values are returned equal.
+        order.setTotal(new BigDecimal("2381.06"));
+        assertEquals(new BigDecimal("2381.06"), order.getTotal(), "scale 2 value should be returned unchanged.");
+
+        // 3. other scales and values too large for a long keep their exact value.
+        order.setArea(new BigDecimal("99"));
+        assertEquals(new BigDecimal("99"), order.getArea(), "scale 0 value should keep its scale.");
+        BigDecimal huge = new BigDecimal("123456789012345678901234567890.12");
+        order.setTax(huge);
+        assertEquals(huge, order.getTax(), "value too large for a long should be returned unchanged.");
+        order.setTax(new BigDecimal("-0.01"));
+        assertEquals(new BigDecimal("-0.01"), order.getTax(), "replaced exact value should return the new value.");
+
+        // 4. values can be set back to null.
+        order.setTotal(null);
+        assertNull(order.getTotal(), "total set to null should be null.");
+    }
+
+    @Test
+    public void testEqualsAndHashCode() {
+        Order first = createOrder();
+        Order second = createOrder();
+        assertEquals(first, second, "orders with the same values should be equal.");
+        assertEquals(first.hashCode(), second.hashCode(), "equal orders should have equal hash codes.");
+
+        second.setArea(new BigDecimal("249"));
+        assertNotEquals(first, second, "area with a different scale should not be equal, as for BigDecimal.");
+
+        second.setArea(new BigDecimal("249.00"));
+        assertEquals(first, second, "area set back to the same value should be equal.");
+
+        second.setTotal(null);
+        assertNotEquals(first, second, "null total should not equal a set total.");
+    }
+
+    @Test
+    public void testUndecodedMoneyValuesAreParsedOnFirstRead() {
+        // TaxRate, Area, CostPerSquareFoot, LaborCostPerSquareFoot, MaterialCost, LaborCost, Tax, Total.
+        String[] columns = {"25.00", "249", "3.5", "4.15", "871.50", "1033.35", "476.205", "2381.06"};
+        byte[] text = String.join(",", columns).getBytes(StandardCharsets.US_ASCII);
+        long offsets = 0;
+        int offset = 0;
+        for (int column = 0; column < columns.length; column++) {
+            offsets |= (long) offset << (column * Byte.SIZE);
+            offset += columns[column].length() + 1;
+        }
+        Order order = createOrder();
+        order.setUndecodedMoneyValues(text, offsets);
+        long undecodedBytes = GraphLayout.parseInstance(order).totalSize();
+
+        assertEquals(new BigDecimal("2381.06"), order.getTotal(), "values should be parsed when read.");
+        assertEquals(new BigDecimal("249.00"), order.getArea(), "values should be scaled to 2 decimal places.");
+        assertEquals(new BigDecimal("476.21"), order.getTax(), "extra decimal places should be rounded half up.");
+        order.setLaborCost(new BigDecimal("1.00"));
+        assertEquals(new BigDecimal("1.00"), order.getLaborCost(), "a value set should replace its text.");
+
+        Order expected = createOrder();
+        expected.setLaborCost(new BigDecimal("1.00"));
+        assertEquals(expected, order, "undecoded values should be parsed to compare orders.");
+        assertEquals(expected.hashCode(), order.hashCode());
+        assertTrue(GraphLayout.parseInstance(order).totalSize() < undecodedBytes,
+                "the text should be dropped once every value is parsed.");
+    }
+
+    @Test
+    public void testFootprint() {
+        Order order = createOrder();
+        BigDecimalOrder bigDecimalOrder = new BigDecimalOrder(order);
+
+        // strings and the date are shared with the rest of the system, only count what the order owns.
+        long sharedBytes = GraphLayout.parseInstance(order.getCustomerName(), order.getState(),
+                order.getProductType(), order.getOrderDate()).totalSize();
+        long bytesBefore = GraphLayout.parseInstance(bigDecimalOrder).totalSize() - sharedBytes;
+        long bytesAfter = GraphLayout.parseInstance(order).totalSize() - sharedBytes;
+
+        assertTrue(bytesAfter * 2 < bytesBefore,
+                "order should be less than half the size of one holding BigDecimals: before "
+                        + bytesBefore + " bytes, after " + bytesAfter + " bytes.");
+    }
+
+    // the fields of an order before money values were held as scaled longs.
+    private static class BigDecimalOrder {
+        private final int orderNumber;
+        private final String customerName;
+        private final String state;
+        private final LocalDate orderDate;
+        private final BigDecimal taxRate;
+        private final String productType;
+        private final BigDecimal costPerSquareFoot;
+        private final BigDecimal laborCostPerSquareFoot;
+        private final BigDecimal materialCost;
+        private final BigDecimal area;
+        private final BigDecimal laborCost;
+        private final BigDecimal tax;
+        private final BigDecimal total;
+
+        private BigDecimalOrder(Order order) {
+            orderNumber = order.getOrderNumber();
+            customerName = order.getCustomerName();
+            state = order.getState();
+            orderDate = order.getOrderDate();
+            taxRate = order.getTaxRate();
+            productType = order.getProductType();
+            costPerSquareFoot = order.getCostPerSquareFoot();
+            laborCostPerSquareFoot = order.getLaborCostPerSquareFoot();
+            materialCost = order.getMaterialCost();
+            area = order.getArea();
+            laborCost = order.getLaborCost();
+            tax = order.getTax();
+            total = order.getTotal();
+        }
+    }
+}
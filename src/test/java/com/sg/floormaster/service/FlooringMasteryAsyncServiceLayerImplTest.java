@@ -0,0 +1,152 @@
+package com.sg.floormaster.service;
+
+import com.sg.floormaster.dao.*;
+import com.sg.floormaster.model.Order;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FlooringMasteryAsyncServiceLayerImplTest {
+
+    private Path orderDirectory;
+    private FlooringMasteryServiceLayerImpl service;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        // empty temporary directory - saving must not touch the test resources.
+        orderDirectory = Files.createTempDirectory("asyncOrders");
+        service = new FlooringMasteryServiceLayerImpl(
+                new FlooringMasteryOrderDaoFileImpl(orderDirectory.toString()),
+                new FlooringMasteryProductDaoStubImpl(),
+                new FlooringMasteryTaxDaoStubImpl());
+    }
+
+    private Order createOrder(int orderNumber, LocalDate date) {
+        Order order = new Order();
+        order.setOrderNumber(orderNumber);
+        order.setOrderDate(date);
+        order.setCustomerName("Ada Lovelace");
+        order.setState("TX");
+        order.setProductType("Carpet");
+        order.setTaxRate(new BigDecimal("4.45").setScale(2, RoundingMode.HALF_UP));
+        order.setArea(new BigDecimal("249.00").setScale(2, RoundingMode.HALF_UP));
+        order.setCostPerSquareFoot(new BigDecimal("2.25").setScale(2, RoundingMode.HALF_UP));
+        order.setLaborCostPerSquareFoot(new BigDecimal("2.10").setScale(2, RoundingMode.HALF_UP));
+        service.calculateOrderCosts(order, null);
+        return order;
+    }
+
+    @Test
+    public void testConcurrentAddsThenSave() throws Exception {
+        List<LocalDate> dates = List.of(LocalDate.parse("2030-01-01"), LocalDate.parse("2030-01-02"),
+                LocalDate.parse("2030-01-03"), LocalDate.parse("2030-01-04"));
+        int ordersPerDate = 50;
+
+        try (FlooringMasteryAsyncServiceLayer asyncService = new FlooringMasteryAsyncServiceLayerImpl(service)) {
+            List<CompletableFuture<Void>> adds = new ArrayList<>();
+            for (int i = 0; i < ordersPerDate; i++) {
+                for (LocalDate date : dates) {
+                    adds.add(asyncService.addOrder(createOrder(service.getNextOrderNumber(), date)));
+                }
+            }
+            CompletableFuture.allOf(adds.toArray(new CompletableFuture[0])).get(10, TimeUnit.SECONDS);
+
+            for (LocalDate date : dates) {
+                assertEquals(ordersPerDate, asyncService.getOrdersForDate(date).get(10, TimeUnit.SECONDS).size(),
+                        "every order added concurrently should be stored.");
+            }
+            asyncService.saveOrders().get(10, TimeUnit.SECONDS);
+        }
+
+        // reload from the saved files
+        FlooringMasteryOrderDaoFileImpl reloaded = new FlooringMasteryOrderDaoFileImpl(orderDirectory.toString());
+        for (LocalDate date : dates) {
+            assertEquals(ordersPerDate, reloaded.getOrdersForDate(date).size(),
+                    "every order should be saved to its date's file.");
+        }
+    }
+
+    @Test
+    public void testWritesToSameDateSerializedAndDifferentDatesConcurrent() throws Exception {
+        Map<LocalDate, AtomicInteger> writersPerDate = new ConcurrentHashMap<>();
+        AtomicInteger maxWritersOnOneDate = new AtomicInteger();
+        CountDownLatch secondDateStarted = new CountDownLatch(1);
+        LocalDate firstDate = LocalDate.parse("2030-02-01");
+        LocalDate secondDate = LocalDate.parse("2030-02-02");
+
+        // records how many writes to a date overlap, and blocks writes to the first date
+        // until a write to the second date has started.
+        FlooringMasteryServiceLayerImpl trackingService = new FlooringMasteryServiceLayerImpl(
+                new FlooringMasteryOrderDaoFileImpl(orderDirectory.toString()),
+                new FlooringMasteryProductDaoStubImpl(),
+                new FlooringMasteryTaxDaoStubImpl()) {
+            @Override
+            public void addOrder(Order order) {
+                AtomicInteger writers = writersPerDate.computeIfAbsent(order.getOrderDate(), d -> new AtomicInteger());
+                maxWritersOnOneDate.accumulateAndGet(writers.incrementAndGet(), Math::max);
+                try {
+                    if (order.getOrderDate().equals(secondDate)) {
+                        secondDateStarted.countDown();
+                    } else if (!secondDateStarted.await(5, TimeUnit.SECONDS)) {
+                        fail("write to a different date should run while the first date is locked.");
+                    }
+                    Thread.sleep(2);
+                    super.addOrder(order);
+                } catch (InterruptedException e) {
+                    throw new RuntimeException(e);
+                } finally {
+                    writers.decrementAndGet();
+                }
+            }
+        };
+
+        try (FlooringMasteryAsyncServiceLayer asyncService = new FlooringMasteryAsyncServiceLayerImpl(trackingService)) {
+            List<CompletableFuture<Void>> adds = new ArrayList<>();
+            for (int i = 1; i <= 10; i++) {
+                adds.add(asyncService.addOrder(createOrder(i, firstDate)));
+            }
+            adds.add(asyncService.addOrder(createOrder(11, secondDate)));
+            CompletableFuture.allOf(adds.toArray(new CompletableFuture[0])).get(10, TimeUnit.SECONDS);
+
+            assertEquals(1, maxWritersOnOneDate.get(), "writes to the same date should never overlap.");
+            assertEquals(10, asyncService.getOrdersForDate(firstDate).get(10, TimeUnit.SECONDS).size(),
+                    "all writes to the first date should be applied.");
+        }
+    }
+
+    @Test
+    public void testFailedWriteCompletesExceptionally() throws Exception {
+        LocalDate date = LocalDate.parse("2030-03-01");
+        try (FlooringMasteryAsyncServiceLayer asyncService = new FlooringMasteryAsyncServiceLayerImpl(service)) {
+            asyncService.addOrder(createOrder(1, date)).get(10, TimeUnit.SECONDS);
+
+            ExecutionException duplicate = assertThrows(ExecutionException.class,
+                    () -> asyncService.addOrder(createOrder(1, date)).get(10, TimeUnit.SECONDS));
+            assertTrue(duplicate.getCause() instanceof FlooringMasteryDuplicateOrderException,
+                    "adding an order twice should fail with the service's duplicate order exception.");
+
+            ExecutionException missing = assertThrows(ExecutionException.class,
+                    () -> asyncService.editOrder(createOrder(2, date)).get(10, TimeUnit.SECONDS));
+            assertTrue(missing.getCause() instanceof FlooringMasteryNoSuchOrderException,
+                    "editing a missing order should fail with the service's no such order exception.");
+
+            assertEquals(1, asyncService.removeOrder(date, 1).get(10, TimeUnit.SECONDS).getOrderNumber(),
+                    "removing an order should complete with the removed order.");
+            assertNull(asyncService.removeOrder(date, 1).get(10, TimeUnit.SECONDS),
+                    "removing a missing order should complete with null.");
+        }
+    }
+}
@@ -1,18 +1,23 @@
 package com.sg.floormaster.service;
 
-import com.sg.floormaster.dao.FlooringMasteryNoSuchOrderException;
-import com.sg.floormaster.dao.FlooringMasteryPersistenceException;
+import com.sg.floormaster.dao.*;
 import com.sg.floormaster.model.Order;
+import com.sg.floormaster.model.OrderTotals;
 import com.sg.floormaster.model.Product;
 import com.sg.floormaster.model.Tax;
+import com.sg.floormaster.util.FlooringMasteryRejectionTraces;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.support.ClassPathXmlApplicationContext;
 
 import java.math.BigDecimal;
+import java.io.IOException;
 import java.math.RoundingMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.LocalDate;
+import java.time.YearMonth;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -329,6 +334,152 @@ class FlooringMasteryServiceLayerImplTest {
         }
     }
 
+    // ----------- Test order quote cache ----------------
+    private Order copyWithoutCosts(Order order) {
+        Order copy = new Order();
+        copy.setOrderNumber(order.getOrderNumber());
+        copy.setOrderDate(order.getOrderDate());
+        copy.setCustomerName(order.getCustomerName());
+        copy.setState(order.getState());
+        copy.setTaxRate(order.getTaxRate());
+        copy.setProductType(order.getProductType());
+        copy.setCostPerSquareFoot(order.getCostPerSquareFoot());
+        copy.setLaborCostPerSquareFoot(order.getLaborCostPerSquareFoot());
+        copy.setArea(order.getArea());
+        return copy;
+    }
+
+    @Test
+    public void testRepeatedQuoteUsesCache() {
+        FlooringMasteryServiceLayerImpl quoteService = new FlooringMasteryServiceLayerImpl(
+                new FlooringMasteryOrderDaoStubImpl(),
+                new FlooringMasteryProductDaoStubImpl(),
+                new FlooringMasteryTaxDaoStubImpl());
+
+        Order firstQuote = copyWithoutCosts(adaClone);
+        Order secondQuote = copyWithoutCosts(adaClone);
+        secondQuote.setCustomerName("Charles Babbage");
+
+        quoteService.calculateOrderCosts(firstQuote, null);
+        quoteService.calculateOrderCosts(secondQuote, null);
+
+        assertEquals(adaClone.getTotal(), secondQuote.getTotal(), "cached quote should give the same total.");
+        assertEquals(adaClone.getTax(), secondQuote.getTax(), "cached quote should give the same tax.");
+
+        OrderQuoteCacheStats stats = quoteService.getQuoteCacheStats();
+        assertEquals(1, stats.getMisses(), "first quote should miss the cache.");
+        assertEquals(1, stats.getHits(), "repeat quote should hit the cache.");
+    }
+
+    @Test
+    public void testCachedQuoteStillValidatesOrder() {
+        FlooringMasteryServiceLayerImpl quoteService = new FlooringMasteryServiceLayerImpl(
+                new FlooringMasteryOrderDaoStubImpl(),
+                new FlooringMasteryProductDaoStubImpl(),
+                new FlooringMasteryTaxDaoStubImpl());
+        quoteService.calculateOrderCosts(copyWithoutCosts(adaClone), null);
+
+        // same state, product and area - but invalid name.
+        Order invalidName = copyWithoutCosts(adaClone);
+        invalidName.setCustomerName("Ada!");
+        assertThrows(FlooringMasteryInvalidInputException.class,
+                () -> quoteService.calculateOrderCosts(invalidName, null),
+                "cached quote should not skip customer name validation.");
+
+        // same state, product and area - but wrong tax rate.
+        Order wrongTaxRate = copyWithoutCosts(adaClone);
+        wrongTaxRate.setTaxRate(new BigDecimal("1.00"));
+        assertThrows(FlooringMasteryInvalidInputException.class,
+                () -> quoteService.calculateOrderCosts(wrongTaxRate, null),
+                "cached quote should not be applied to an order with different rates.");
+    }
+
+    @Test
+    public void testQuoteCacheInvalidatedOnProductReload() throws IOException {
+        Path productFile = Files.createTempDirectory("quoteProducts").resolve("Products.txt");
+        Files.writeString(productFile, "ProductType,CostPerSquareFoot,LaborCostPerSquareFoot\nCarpet,2.25,2.10\n");
+        FlooringMasteryProductDaoFileImpl productDao = new FlooringMasteryProductDaoFileImpl(productFile.toString());
+
+        FlooringMasteryServiceLayerImpl quoteService = new FlooringMasteryServiceLayerImpl(
+                new FlooringMasteryOrderDaoStubImpl(), productDao, new FlooringMasteryTaxDaoStubImpl());
+        quoteService.calculateOrderCosts(copyWithoutCosts(adaClone), null);
+
+        // change carpet's cost - the old quote must not be reused.
+        Files.writeString(productFile, "ProductType,CostPerSquareFoot,LaborCostPerSquareFoot\nCarpet,3.00,2.10\n");
+        productDao.reload();
+
+        Order repricedOrder = copyWithoutCosts(adaClone);
+        repricedOrder.setCostPerSquareFoot(new BigDecimal("3.00").setScale(2, RoundingMode.HALF_UP));
+        quoteService.calculateOrderCosts(repricedOrder, null);
+
+        assertEquals(new BigDecimal("747.00"), repricedOrder.getMaterialCost(),
+                "quote should be recalculated with the reloaded cost per square foot.");
+        assertEquals(0, quoteService.getQuoteCacheStats().getHits(), "reloaded products should not hit old quotes.");
+        assertEquals(1, quoteService.getQuoteCacheStats().getSize(), "old quotes should be removed on reload.");
+    }
 
+    // ----------- Test rejection stack traces ----------------
+    @Test
+    public void testRejectionsWithoutStackTraces() {
+        Order invalidName = copyWithoutCosts(adaClone);
+        invalidName.setCustomerName("Ada!");
+
+        FlooringMasteryRejectionTraces.setEnabled(false);
+        try {
+            FlooringMasteryInvalidInputException rejection = assertThrows(FlooringMasteryInvalidInputException.class,
+                    () -> service.calculateOrderCosts(invalidName, null));
+            assertEquals(0, rejection.getStackTrace().length, "rejection shouldn't capture a stack trace.");
+            assertEquals(0, rejection.getCause().getStackTrace().length,
+                    "wrapped rejection shouldn't capture a stack trace.");
+            assertNotNull(rejection.getCause().getMessage(), "rejection should keep its message.");
+
+            FlooringMasteryDuplicateOrderException duplicate = assertThrows(FlooringMasteryDuplicateOrderException.class,
+                    () -> service.addOrder(adaClone));
+            assertEquals(0, duplicate.getStackTrace().length, "duplicate order shouldn't capture a stack trace.");
+
+            assertTrue(new FlooringMasteryPersistenceException("failure").getStackTrace().length > 0,
+                    "persistence failures should always capture a stack trace.");
+        } finally {
+            FlooringMasteryRejectionTraces.setEnabled(true);
+        }
+
+        FlooringMasteryInvalidInputException rejection = assertThrows(FlooringMasteryInvalidInputException.class,
+                () -> service.calculateOrderCosts(invalidName, null));
+        assertTrue(rejection.getStackTrace().length > 0, "rejection should capture a stack trace by default.");
+    }
+
+    @Test
+    public void testSearchOrdersByCustomerName() {
+        // the stub dao holds a single order, for Ada Lovelace.
+        assertEquals(1, service.countOrdersByCustomerName("ada", false));
+        assertEquals(List.of(adaClone), service.searchOrdersByCustomerName("LOVE", true, 0, 10),
+                "should match anywhere in the name, ignoring case.");
+        assertEquals(0, service.countOrdersByCustomerName("love", false), "love is not a prefix of the name.");
+        assertTrue(service.searchOrdersByCustomerName("ada", false, 1, 10).isEmpty(),
+                "the only match is on the first page.");
+        assertTrue(service.searchOrdersByCustomerName("ada", false, 0, 0).isEmpty());
+    }
 
-}
\ No newline at end of file
+    @Test
+    public void testFilterOrders() {
+        // the stub dao holds a single order, for TX Carpet on 2013-06-01.
+        LocalDate orderDate = LocalDate.parse("2013-06-01");
+        assertEquals(List.of(adaClone), service.filterOrders("TX", "Carpet", orderDate, orderDate));
+        assertEquals(1, service.countFilteredOrders(null, "carpet", null, null));
+        assertTrue(service.filterOrders("KY", null, null, null).isEmpty());
+        assertEquals(0, service.countFilteredOrders("TX", "Carpet", orderDate.plusDays(1), null),
+                "the order is before the range.");
+    }
+
+    @Test
+    public void testOrderTotals() {
+        // the stub dao holds a single order, for TX Carpet on 2013-06-01.
+        OrderTotals june = service.getOrderTotalsForMonth(YearMonth.of(2013, 6), null, null);
+        assertEquals(1, june.getOrderCount());
+        assertEquals(adaClone.getTotal(), june.getTotal());
+        assertEquals(adaClone.getTax(), service.getOrderTotalsForDate(adaClone.getOrderDate(), "TX", "Carpet").getTax());
+        assertEquals(OrderTotals.NONE, service.getOrderTotalsForDate(adaClone.getOrderDate(), "KY", null));
+        assertEquals(june, service.getOrderTotalsForDateRange(LocalDate.parse("2010-01-01"),
+                LocalDate.parse("2020-01-01")));
+    }
+}
@@ -0,0 +1,74 @@
+package com.sg.floormaster.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderQuoteCacheTest {
+
+    private OrderQuote quoteOf(String total) {
+        BigDecimal value = new BigDecimal(total);
+        return new OrderQuote(value, value, value, value, value, value, value);
+    }
+
+    @Test
+    public void testGetReturnsCachedQuoteByValueOfArea() {
+        OrderQuoteCache cache = new OrderQuoteCache(10);
+        OrderQuote quote = quoteOf("1.00");
+
+        cache.put("TX", "Carpet", new BigDecimal("100.00"), 1, 1, quote);
+
+        assertSame(quote, cache.get("TX", "Carpet", new BigDecimal("100"), 1, 1),
+                "area should be compared by value.");
+        assertNull(cache.get("TX", "Tile", new BigDecimal("100.00"), 1, 1),
+                "different product type should miss.");
+        assertNull(cache.get("TX", "Carpet", new BigDecimal("100.00"), 2, 1),
+                "different tax version should miss.");
+        assertNull(cache.get("TX", "Carpet", new BigDecimal("100.00"), 1, 2),
+                "different product version should miss.");
+
+        OrderQuoteCacheStats stats = cache.getStats();
+        assertEquals(1, stats.getHits(), "one lookup should hit.");
+        assertEquals(3, stats.getMisses(), "three lookups should miss.");
+        assertEquals(0.25, stats.getHitRate(), 0.0001, "hit rate should be hits over lookups.");
+    }
+
+    @Test
+    public void testLeastRecentlyUsedQuoteEvicted() {
+        OrderQuoteCache cache = new OrderQuoteCache(2);
+        BigDecimal area = new BigDecimal("100.00");
+
+        cache.put("TX", "Carpet", area, 1, 1, quoteOf("1.00"));
+        cache.put("TX", "Tile", area, 1, 1, quoteOf("2.00"));
+        // use carpet so tile becomes the least recently used.
+        cache.get("TX", "Carpet", area, 1, 1);
+        cache.put("TX", "Wood", area, 1, 1, quoteOf("3.00"));
+
+        assertNotNull(cache.get("TX", "Carpet", area, 1, 1), "recently used quote should be kept.");
+        assertNull(cache.get("TX", "Tile", area, 1, 1), "least recently used quote should be evicted.");
+        assertEquals(2, cache.getStats().getSize(), "cache should not grow past its capacity.");
+        assertEquals(1, cache.getStats().getEvictions(), "one quote should be evicted.");
+    }
+
+    @Test
+    public void testInvalidateRemovesQuotes() {
+        OrderQuoteCache cache = new OrderQuoteCache(2);
+        cache.put("TX", "Carpet", new BigDecimal("100.00"), 1, 1, quoteOf("1.00"));
+
+        cache.invalidate();
+
+        assertEquals(0, cache.getStats().getSize(), "invalidated cache should be empty.");
+        assertNull(cache.get("TX", "Carpet", new BigDecimal("100.00"), 1, 1),
+                "invalidated quote should not be returned.");
+    }
+
+    @Test
+    public void testAreaWithMoreThanTwoDecimalPlacesNotCached() {
+        OrderQuoteCache cache = new OrderQuoteCache(2);
+        cache.put("TX", "Carpet", new BigDecimal("100.001"), 1, 1, quoteOf("1.00"));
+
+        assertEquals(0, cache.getStats().getSize(), "area that isn't a whole number of cents shouldn't be cached.");
+    }
+}
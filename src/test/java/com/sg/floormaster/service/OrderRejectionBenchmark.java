@@ -0,0 +1,76 @@
+package com.sg.floormaster.service;
+
+import com.sg.floormaster.dao.FlooringMasteryOrderDaoStubImpl;
+import com.sg.floormaster.dao.FlooringMasteryProductDaoStubImpl;
+import com.sg.floormaster.util.FlooringMasteryRejectionTraces;
+import com.sg.floormaster.dao.FlooringMasteryTaxDaoStubImpl;
+import com.sg.floormaster.model.Order;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of rejecting an invalid order through calculateOrderCosts, which throws from the
+ * validation rule and wraps it again, with and without rejection stack traces.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class OrderRejectionBenchmark {
+
+    @Param({"true", "false"})
+    private boolean stackTraces;
+
+    private FlooringMasteryServiceLayer service;
+    private Order invalidNameOrder;
+
+    @Setup
+    public void setUp() {
+        FlooringMasteryRejectionTraces.setEnabled(stackTraces);
+        service = new FlooringMasteryServiceLayerImpl(new FlooringMasteryOrderDaoStubImpl(),
+                new FlooringMasteryProductDaoStubImpl(), new FlooringMasteryTaxDaoStubImpl());
+
+        invalidNameOrder = new Order();
+        invalidNameOrder.setOrderNumber(2);
+        invalidNameOrder.setOrderDate(LocalDate.parse("2013-06-01"));
+        invalidNameOrder.setCustomerName("Ada Lovelace!");
+        invalidNameOrder.setState("TX");
+        invalidNameOrder.setProductType("Carpet");
+        invalidNameOrder.setTaxRate(new BigDecimal("4.45").setScale(2, RoundingMode.HALF_UP));
+        invalidNameOrder.setArea(new BigDecimal("249.00").setScale(2, RoundingMode.HALF_UP));
+        invalidNameOrder.setCostPerSquareFoot(new BigDecimal("2.25").setScale(2, RoundingMode.HALF_UP));
+        invalidNameOrder.setLaborCostPerSquareFoot(new BigDecimal("2.10").setScale(2, RoundingMode.HALF_UP));
+    }
+
+    @TearDown
+    public void tearDown() {
+        FlooringMasteryRejectionTraces.setEnabled(true);
+    }
+
+    @Benchmark
+    public Object rejectedOrder() {
+        try {
+            service.calculateOrderCosts(invalidNameOrder, null);
+            return invalidNameOrder;
+        } catch (FlooringMasteryInvalidInputException e) {
+            return e;
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(OrderRejectionBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,107 @@
+package com.sg.floormaster.validation;
+
+import com.sg.floormaster.dao.FlooringMasteryProductDaoFileImpl;
+import com.sg.floormaster.dao.FlooringMasteryTaxDaoFileImpl;
+import com.sg.floormaster.model.Order;
+import com.sg.floormaster.model.Product;
+import com.sg.floormaster.model.Tax;
+import com.sg.floormaster.service.FlooringMasteryInvalidInputException;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-order validation cost of the static OrderValidation.validateOrder (before)
+ * against the precompiled OrderValidationPipeline (after).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class OrderValidationBenchmark {
+
+    private List<Tax> taxes;
+    private List<Product> products;
+    private OrderValidationPipeline pipeline;
+    private Order validOrder;
+    private Order smallAreaOrder;
+
+    @Setup
+    public void setUp() {
+        taxes = new FlooringMasteryTaxDaoFileImpl("src/test/resources/Data/Taxes.txt").getAllTaxes();
+        products = new FlooringMasteryProductDaoFileImpl("src/test/resources/Data/Products.txt").getAllProducts();
+        pipeline = new OrderValidationPipeline(taxes, products);
+
+        validOrder = new Order();
+        validOrder.setOrderNumber(1);
+        validOrder.setOrderDate(LocalDate.parse("2013-06-01"));
+        validOrder.setCustomerName("Ada Lovelace");
+        validOrder.setState("TX");
+        validOrder.setProductType("Carpet");
+        validOrder.setTaxRate(new BigDecimal("4.45").setScale(2, RoundingMode.HALF_UP));
+        validOrder.setArea(new BigDecimal("249.00").setScale(2, RoundingMode.HALF_UP));
+        validOrder.setCostPerSquareFoot(new BigDecimal("2.25").setScale(2, RoundingMode.HALF_UP));
+        validOrder.setLaborCostPerSquareFoot(new BigDecimal("2.10").setScale(2, RoundingMode.HALF_UP));
+
+        // rejected by the area rule - the cheapest rule in the pipeline, the fifth check in validateOrder.
+        smallAreaOrder = new Order();
+        smallAreaOrder.setOrderNumber(2);
+        smallAreaOrder.setOrderDate(LocalDate.parse("2013-06-01"));
+        smallAreaOrder.setCustomerName("Ada Lovelace");
+        smallAreaOrder.setState("TX");
+        smallAreaOrder.setProductType("Carpet");
+        smallAreaOrder.setTaxRate(new BigDecimal("4.45").setScale(2, RoundingMode.HALF_UP));
+        smallAreaOrder.setArea(new BigDecimal("99.00").setScale(2, RoundingMode.HALF_UP));
+        smallAreaOrder.setCostPerSquareFoot(new BigDecimal("2.25").setScale(2, RoundingMode.HALF_UP));
+        smallAreaOrder.setLaborCostPerSquareFoot(new BigDecimal("2.10").setScale(2, RoundingMode.HALF_UP));
+    }
+
+    @Benchmark
+    public Order validOrderStaticValidation() {
+        OrderValidation.validateOrder(validOrder, taxes, products, null);
+        return validOrder;
+    }
+
+    @Benchmark
+    public Order validOrderPipeline() {
+        pipeline.validate(validOrder, null);
+        return validOrder;
+    }
+
+    @Benchmark
+    public Object rejectedOrderStaticValidation() {
+        try {
+            OrderValidation.validateOrder(smallAreaOrder, taxes, products, null);
+            return smallAreaOrder;
+        } catch (FlooringMasteryInvalidInputException e) {
+            return e;
+        }
+    }
+
+    @Benchmark
+    public Object rejectedOrderPipeline() {
+        try {
+            pipeline.validate(smallAreaOrder, null);
+            return smallAreaOrder;
+        } catch (FlooringMasteryInvalidInputException e) {
+            return e;
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(OrderValidationBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,146 @@
+package com.sg.floormaster.validation;
+
+import com.sg.floormaster.dao.FlooringMasteryPersistenceException;
+import com.sg.floormaster.model.Order;
+import com.sg.floormaster.model.Product;
+import com.sg.floormaster.model.Tax;
+import com.sg.floormaster.service.FlooringMasteryInvalidInputException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderValidationPipelineTest {
+
+    private List<Tax> taxes;
+    private List<Product> products;
+    private Order validOrder;
+
+    @BeforeEach
+    public void setUp() {
+        taxes = List.of(new Tax("Texas", "TX", new BigDecimal("4.45").setScale(2, RoundingMode.HALF_UP)));
+        products = List.of(new Product("Carpet",
+                new BigDecimal("2.25").setScale(2, RoundingMode.HALF_UP),
+                new BigDecimal("2.10").setScale(2, RoundingMode.HALF_UP)));
+
+        validOrder = new Order();
+        validOrder.setOrderNumber(1);
+        validOrder.setOrderDate(LocalDate.parse("2013-06-01"));
+        validOrder.setCustomerName("Ada Lovelace");
+        validOrder.setState("TX");
+        validOrder.setProductType("Carpet");
+        validOrder.setTaxRate(new BigDecimal("4.45").setScale(2, RoundingMode.HALF_UP));
+        validOrder.setArea(new BigDecimal("249.00").setScale(2, RoundingMode.HALF_UP));
+        validOrder.setCostPerSquareFoot(new BigDecimal("2.25").setScale(2, RoundingMode.HALF_UP));
+        validOrder.setLaborCostPerSquareFoot(new BigDecimal("2.10").setScale(2, RoundingMode.HALF_UP));
+    }
+
+    @Test
+    public void testValidOrderPasses() {
+        OrderValidationPipeline pipeline = new OrderValidationPipeline(taxes, products);
+        try {
+            pipeline.validate(validOrder, null);
+            pipeline.validate(validOrder, LocalDate.parse("2013-05-01"));
+        } catch (FlooringMasteryInvalidInputException | FlooringMasteryPersistenceException e) {
+            fail("valid order should pass every rule: " + e.getMessage());
+        }
+    }
+
+    @Test
+    public void testInvalidOrdersRejected() {
+        OrderValidationPipeline pipeline = new OrderValidationPipeline(taxes, products);
+
+        assertThrows(FlooringMasteryInvalidInputException.class, () -> pipeline.validate(null, null),
+                "null order should be rejected.");
+
+        validOrder.setState("XX");
+        assertThrows(FlooringMasteryInvalidInputException.class, () -> pipeline.validate(validOrder, null),
+                "unknown state should be rejected.");
+
+        validOrder.setState("TX");
+        validOrder.setCostPerSquareFoot(new BigDecimal("9.99"));
+        assertThrows(FlooringMasteryInvalidInputException.class, () -> pipeline.validate(validOrder, null),
+                "cost per square foot different to product should be rejected.");
+
+        validOrder.setCostPerSquareFoot(new BigDecimal("2.25"));
+        assertThrows(FlooringMasteryInvalidInputException.class,
+                () -> pipeline.validate(validOrder, LocalDate.parse("2013-06-01")),
+                "order date on the date of input should be rejected.");
+    }
+
+    @Test
+    public void testDuplicateReferenceDataIsPersistenceError() {
+        List<Tax> duplicateTaxes = List.of(
+                new Tax("Texas", "TX", new BigDecimal("4.45").setScale(2, RoundingMode.HALF_UP)),
+                new Tax("Texas Again", "TX", new BigDecimal("4.45").setScale(2, RoundingMode.HALF_UP)));
+        OrderValidationPipeline pipeline = new OrderValidationPipeline(duplicateTaxes, products);
+
+        assertThrows(FlooringMasteryPersistenceException.class, () -> pipeline.validate(validOrder, null),
+                "two taxes for the order's state should be a persistence error.");
+    }
+
+    @Test
+    public void testRulesRunCheapestFirst() {
+        OrderValidationPipeline pipeline = new OrderValidationPipeline(taxes, products);
+
+        List<String> ruleNames = pipeline.getRuleNames();
+        assertEquals(8, ruleNames.size(), "all standard rules should be enabled by default.");
+        assertEquals(OrderValidationRules.CUSTOMER_NAME, ruleNames.getLast(),
+                "customer name pattern match is the most expensive rule, it should run last.");
+
+        List<OrderValidationRuleStats> stats = pipeline.getRuleStats();
+        for (int i = 1; i < stats.size(); i++) {
+            assertTrue(stats.get(i - 1).getCost() <= stats.get(i).getCost(), "rules should be sorted by cost.");
+        }
+
+        // an order with a small area fails the cheap area rule - the name rule should never run.
+        validOrder.setArea(new BigDecimal("50.00"));
+        assertThrows(FlooringMasteryInvalidInputException.class, () -> pipeline.validate(validOrder, null));
+
+        OrderValidationRuleStats nameStats = pipeline.getRuleStats().getLast();
+        assertEquals(0, nameStats.getInvocations(), "rules after the failed rule should not run.");
+    }
+
+    @Test
+    public void testRuleStatsRecorded() {
+        OrderValidationPipeline pipeline = new OrderValidationPipeline(taxes, products);
+        pipeline.validate(validOrder, null);
+        pipeline.validate(validOrder, null);
+
+        validOrder.setCustomerName("Ada!");
+        assertThrows(FlooringMasteryInvalidInputException.class, () -> pipeline.validate(validOrder, null));
+
+        OrderValidationRuleStats nameStats = pipeline.getRuleStats().stream()
+                .filter(s -> s.getRuleName().equals(OrderValidationRules.CUSTOMER_NAME))
+                .findFirst()
+                .orElseThrow();
+        assertEquals(3, nameStats.getInvocations(), "customer name rule ran for each order.");
+        assertEquals(1, nameStats.getFailures(), "customer name rule rejected one order.");
+    }
+
+    @Test
+    public void testDisabledRulesAreSkipped() {
+        OrderValidationPipeline pipeline = new OrderValidationPipeline(taxes, products,
+                Set.of(OrderValidationRules.CUSTOMER_NAME));
+
+        assertFalse(pipeline.getRuleNames().contains(OrderValidationRules.CUSTOMER_NAME),
+                "disabled rule should not be in the pipeline.");
+
+        validOrder.setCustomerName("Ada!");
+        try {
+            pipeline.validate(validOrder, null);
+        } catch (FlooringMasteryInvalidInputException e) {
+            fail("disabled customer name rule should not reject the order.");
+        }
+
+        assertThrows(IllegalArgumentException.class,
+                () -> new OrderValidationPipeline(taxes, products, Set.of("notARule")),
+                "disabling an unknown rule should fail.");
+    }
+}